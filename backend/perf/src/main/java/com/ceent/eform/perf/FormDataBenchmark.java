@@ -0,0 +1,83 @@
+package com.ceent.eform.perf;
+
+import com.ceent.eform.perf.fixtures.LegacyImplementations;
+import com.ceent.eform.perf.fixtures.Scenario;
+import com.ceent.eform.perf.fixtures.TemplateFixtures;
+import com.ceent.eform.service.normalize.FormDataNormalizer;
+import com.ceent.eform.validator.CompiledFormValidator;
+import com.ceent.eform.validator.FieldValidation;
+import com.ceent.eform.validator.ValidationResult;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Xử lý formData khi lưu/render: JSON (de)serialize như cột formData, validation và normalize.
+ * Các benchmark legacy* chạy cài đặt cũ trên cùng input để so sánh.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class FormDataBenchmark {
+
+    @Param({"SMALL_FORM", "CONTRACT", "IMAGE_HEAVY", "TABLE_10K"})
+    public Scenario scenario;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FormDataNormalizer normalizer = new FormDataNormalizer();
+
+    private Map<String, Object> data;
+    private String json;
+    private List<FieldValidation> validations;
+    private CompiledFormValidator validator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        data = TemplateFixtures.jsonData(scenario);
+        json = objectMapper.writeValueAsString(data);
+        validations = TemplateFixtures.validations(scenario);
+        validator = CompiledFormValidator.compile(validations);
+    }
+
+    @Benchmark
+    public String serialize() throws Exception {
+        return objectMapper.writeValueAsString(data);
+    }
+
+    @Benchmark
+    public Map<String, Object> deserialize() throws Exception {
+        return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return validator.validate(data);
+    }
+
+    @Benchmark
+    public ValidationResult compileAndValidate() {
+        return CompiledFormValidator.compile(validations).validate(data);
+    }
+
+    @Benchmark
+    public Map<String, String> legacyValidate() {
+        return LegacyImplementations.validateFormData(data, validations);
+    }
+
+    @Benchmark
+    public Map<String, Object> normalize() {
+        return normalizer.normalize(data);
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyCleanDataForPdf() {
+        return LegacyImplementations.cleanDataForPdf(data);
+    }
+}
@@ -0,0 +1,44 @@
+package com.ceent.eform.perf;
+
+import com.ceent.eform.perf.fixtures.PipelineStages;
+import com.ceent.eform.perf.fixtures.Scenario;
+import com.ceent.eform.perf.fixtures.TemplateFixtures;
+import com.ceent.eform.service.convert.PdfEngine;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh các engine DOCX -> PDF trên cùng document đã render (xem PdfEngineRegistry)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PdfEngineBenchmark {
+
+    @Param({"opensagres", "xhtml-flyingsaucer"})
+    public String engine;
+
+    @Param({"SMALL_FORM", "CONTRACT", "IMAGE_HEAVY"})
+    public Scenario scenario;
+
+    private PdfEngine pdfEngine;
+    private byte[] renderedDocx;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        RenderConfigureRegistry registry = PipelineStages.renderConfigureRegistry();
+        pdfEngine = PipelineStages.pdfEngine(engine);
+        renderedDocx = PipelineStages.render(TemplateFixtures.template(scenario),
+                registry.get(RenderConfigureRegistry.DEFAULT_PROFILE), TemplateFixtures.data(scenario));
+    }
+
+    @Benchmark
+    public byte[] convert() throws Exception {
+        return PipelineStages.convertToPdf(renderedDocx, pdfEngine);
+    }
+}
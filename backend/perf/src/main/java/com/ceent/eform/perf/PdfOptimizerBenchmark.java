@@ -0,0 +1,56 @@
+package com.ceent.eform.perf;
+
+import com.ceent.eform.perf.fixtures.PipelineStages;
+import com.ceent.eform.perf.fixtures.Scenario;
+import com.ceent.eform.perf.fixtures.TemplateFixtures;
+import com.ceent.eform.service.optimize.FontSubsetPass;
+import com.ceent.eform.service.optimize.ImageRecompressionPass;
+import com.ceent.eform.service.optimize.PdfOptimizer;
+import com.ceent.eform.service.optimize.ResourceDedupePass;
+import com.ceent.eform.service.optimize.StreamCompressionPass;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage tối ưu PDF (PdfOptimizer) trên PDF đã convert, theo profile web/archive
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PdfOptimizerBenchmark {
+
+    @Param({"web", "archive"})
+    public String profile;
+
+    @Param({"SMALL_FORM", "IMAGE_HEAVY"})
+    public Scenario scenario;
+
+    private PdfOptimizer optimizer;
+    private byte[] pdf;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Thứ tự pass giống @Order của các bean
+        optimizer = new PdfOptimizer(
+                List.of(new ResourceDedupePass(), new ImageRecompressionPass(), new FontSubsetPass(), new StreamCompressionPass()),
+                new SimpleMeterRegistry(), "none",
+                "dedupe-resources,recompress-images,subset-fonts,compress-streams", 150f, 0.75f,
+                "dedupe-resources,subset-fonts,compress-streams", 300f, 0.9f);
+        RenderConfigureRegistry registry = PipelineStages.renderConfigureRegistry();
+        byte[] docx = PipelineStages.render(TemplateFixtures.template(scenario),
+                registry.get(RenderConfigureRegistry.DEFAULT_PROFILE), TemplateFixtures.data(scenario));
+        pdf = PipelineStages.convertToPdf(docx);
+    }
+
+    @Benchmark
+    public byte[] optimize() throws Exception {
+        return optimizer.optimize(pdf, profile);
+    }
+}
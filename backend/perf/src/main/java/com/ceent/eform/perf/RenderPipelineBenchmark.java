@@ -0,0 +1,114 @@
+package com.ceent.eform.perf;
+
+import com.ceent.eform.perf.fixtures.PipelineStages;
+import com.ceent.eform.perf.fixtures.Scenario;
+import com.ceent.eform.perf.fixtures.TemplateFixtures;
+import com.ceent.eform.service.ingest.DocumentFontNormalizer;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import com.ceent.eform.service.table.StreamingTableWriter;
+import com.ceent.eform.service.table.TableRowSource;
+import com.deepoove.poi.XWPFTemplate;
+import com.deepoove.poi.config.Configure;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Các stage của PdfProService.generateProPdf: compile, render, font normalization,
+ * ghi bảng streaming và DOCX -> PDF, đo riêng từng stage và cả pipeline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class RenderPipelineBenchmark {
+
+    @Param({"SMALL_FORM", "CONTRACT", "IMAGE_HEAVY", "TABLE_10K"})
+    public Scenario scenario;
+
+    private byte[] template;
+    private Map<String, Object> data;
+    private Configure configure;
+    private byte[] renderedDocx;
+    private Path workDir;
+    private final DocumentFontNormalizer fontNormalizer = new DocumentFontNormalizer();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        RenderConfigureRegistry registry = PipelineStages.renderConfigureRegistry();
+        configure = registry.get(RenderConfigureRegistry.DEFAULT_PROFILE);
+        template = TemplateFixtures.template(scenario);
+        data = TemplateFixtures.data(scenario);
+        renderedDocx = streamTables(PipelineStages.render(template, configure, data));
+        workDir = Files.createTempDirectory("eform-bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (var files = Files.list(workDir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(workDir);
+    }
+
+    @Benchmark
+    public XWPFTemplate compile() throws Exception {
+        try (XWPFTemplate compiled = PipelineStages.compile(template, configure)) {
+            return compiled;
+        }
+    }
+
+    @Benchmark
+    public byte[] render() throws Exception {
+        return PipelineStages.render(template, configure, data);
+    }
+
+    @Benchmark
+    public boolean normalizeFonts() throws Exception {
+        try (XWPFDocument document = PipelineStages.open(renderedDocx)) {
+            return fontNormalizer.normalize(document);
+        }
+    }
+
+    @Benchmark
+    public byte[] convertToPdf() throws Exception {
+        return PipelineStages.convertToPdf(renderedDocx);
+    }
+
+    @Benchmark
+    public void endToEnd(Blackhole blackhole) throws Exception {
+        byte[] docx = streamTables(PipelineStages.render(template, configure, data));
+        blackhole.consume(PipelineStages.convertToPdf(docx));
+    }
+
+    /**
+     * Step 2b của PdfProService: sinh dòng cho tag {{%rows}} (chỉ có ở TABLE_10K)
+     */
+    private byte[] streamTables(byte[] docx) throws Exception {
+        if (scenario != Scenario.TABLE_10K) {
+            return docx;
+        }
+        Path source = Files.createTempFile(workDir != null ? workDir : Path.of(System.getProperty("java.io.tmpdir")), "src", ".docx");
+        Path target = source.resolveSibling(source.getFileName() + ".out.docx");
+        try {
+            Files.write(source, docx);
+            Map<String, TableRowSource> tables = new HashMap<>();
+            tables.put(TemplateFixtures.TABLE_TAG, TableRowSource.from(data.get(TemplateFixtures.TABLE_TAG)));
+            StreamingTableWriter.write(source, target, tables);
+            return Files.readAllBytes(target);
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(target);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.ceent.eform.perf;
+
+import com.ceent.eform.perf.fixtures.PipelineStages;
+import com.ceent.eform.perf.fixtures.Scenario;
+import com.ceent.eform.perf.fixtures.TemplateFixtures;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import com.ceent.eform.service.table.StreamingTableWriter;
+import com.ceent.eform.service.table.TableRowSource;
+import com.deepoove.poi.config.Configure;
+import com.deepoove.poi.plugin.table.LoopRowTableRenderPolicy;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bảng lớn 1k/10k/100k dòng: StreamingTableWriter ({{%rows}}) so với LoopRowTableRenderPolicy của POI-TL.
+ * Chạy với -prof gc để so sánh byte cấp phát mỗi lần render.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class StreamingTableBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private List<Map<String, Object>> tableRows;
+    private byte[] streamingTemplate;
+    private byte[] loopTemplate;
+    private Configure streamingConfigure;
+    private Configure loopConfigure;
+    private Path workDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tableRows = TemplateFixtures.tableRows(rows);
+        streamingTemplate = TemplateFixtures.template(Scenario.TABLE_10K);
+        loopTemplate = TemplateFixtures.loopTableTemplate();
+        streamingConfigure = PipelineStages.renderConfigureRegistry().get(RenderConfigureRegistry.DEFAULT_PROFILE);
+        loopConfigure = Configure.builder()
+                .bind(TemplateFixtures.TABLE_TAG, new LoopRowTableRenderPolicy())
+                .build();
+        workDir = Files.createTempDirectory("eform-table-bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(workDir);
+    }
+
+    @Benchmark
+    public long streaming() throws Exception {
+        Map<String, Object> data = Map.of("tieu_de", "Bảng kê", TemplateFixtures.TABLE_TAG, tableRows);
+        byte[] rendered = PipelineStages.render(streamingTemplate, streamingConfigure, data);
+
+        Path source = Files.createTempFile(workDir, "src", ".docx");
+        Path target = Files.createTempFile(workDir, "out", ".docx");
+        try {
+            Files.write(source, rendered);
+            return StreamingTableWriter.write(source, target,
+                    Map.of(TemplateFixtures.TABLE_TAG, TableRowSource.from(tableRows)));
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(target);
+        }
+    }
+
+    @Benchmark
+    public int loopRowPolicy() throws Exception {
+        Map<String, Object> data = Map.of("tieu_de", "Bảng kê", TemplateFixtures.TABLE_TAG, tableRows);
+        byte[] rendered = PipelineStages.render(loopTemplate, loopConfigure, data);
+        try (XWPFDocument document = PipelineStages.open(rendered)) {
+            XWPFTable table = document.getTables().get(0);
+            return table.getNumberOfRows();
+        }
+    }
+}
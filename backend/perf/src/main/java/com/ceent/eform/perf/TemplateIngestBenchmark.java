@@ -0,0 +1,76 @@
+package com.ceent.eform.perf;
+
+import com.ceent.eform.perf.fixtures.PipelineStages;
+import com.ceent.eform.perf.fixtures.Scenario;
+import com.ceent.eform.perf.fixtures.TemplateFixtures;
+import com.ceent.eform.service.ingest.DocumentFontNormalizer;
+import com.ceent.eform.service.ingest.StoredFile;
+import com.ceent.eform.service.ingest.TemplateStorage;
+import com.ceent.eform.service.ingest.TemplateVariableExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Các stage khi upload template (EFormService.uploadTemplate và TemplateIngestionService):
+ * lưu file kèm SHA-256/fsync, mở DOCX, trích biến, chuẩn hóa font.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class TemplateIngestBenchmark {
+
+    @Param({"SMALL_FORM", "CONTRACT", "IMAGE_HEAVY", "TABLE_10K"})
+    public Scenario scenario;
+
+    private byte[] template;
+    private Path target;
+    private final TemplateStorage storage = new TemplateStorage();
+    private final TemplateVariableExtractor variableExtractor = new TemplateVariableExtractor();
+    private final DocumentFontNormalizer fontNormalizer = new DocumentFontNormalizer();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        template = TemplateFixtures.template(scenario);
+        target = Files.createTempFile("eform-ingest", ".docx");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    public StoredFile store() throws Exception {
+        return storage.store(new ByteArrayInputStream(template), target);
+    }
+
+    @Benchmark
+    public XWPFDocument open() throws Exception {
+        try (XWPFDocument document = PipelineStages.open(template)) {
+            return document;
+        }
+    }
+
+    @Benchmark
+    public List<String> extractVariables() throws Exception {
+        try (XWPFDocument document = PipelineStages.open(template)) {
+            return variableExtractor.extract(document);
+        }
+    }
+
+    @Benchmark
+    public boolean normalizeFonts() throws Exception {
+        try (XWPFDocument document = PipelineStages.open(template)) {
+            return fontNormalizer.normalize(document);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ceent.eform.perf.fixtures;
+
+import com.ceent.eform.validator.FieldValidation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bản sao các cài đặt cũ (trước CompiledFormValidator và FormDataNormalizer) làm baseline so sánh
+ */
+public final class LegacyImplementations {
+
+    private LegacyImplementations() {
+    }
+
+    /**
+     * PdfProService.cleanDataForPdf trước khi chuyển sang FormDataNormalizer
+     */
+    public static Map<String, Object> cleanDataForPdf(Map<String, Object> rawData) {
+        Map<String, Object> cleanData = new HashMap<>();
+
+        for (Map.Entry<String, Object> entry : rawData.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+
+            if (value == null) {
+                cleanData.put(key, "");
+            } else {
+                String stringValue = value.toString();
+                stringValue = stringValue.replace("\r\n", " ")
+                        .replace("\r", " ")
+                        .replaceAll("  +", " ")
+                        .trim();
+                cleanData.put(key, stringValue);
+            }
+        }
+
+        return cleanData;
+    }
+
+    /**
+     * AdvancedEFormService.validateFormData trước khi chuyển sang CompiledFormValidator
+     */
+    public static Map<String, String> validateFormData(Map<String, Object> formData, List<FieldValidation> validations) {
+        Map<String, String> errors = new HashMap<>();
+
+        for (FieldValidation validation : validations) {
+            String fieldName = validation.getFieldName();
+            Object value = formData.get(fieldName);
+
+            if (validation.isRequired() && (value == null || value.toString().trim().isEmpty())) {
+                errors.put(fieldName, "Trường " + fieldName + " là bắt buộc");
+                continue;
+            }
+
+            if (value != null && !value.toString().trim().isEmpty()) {
+                String stringValue = value.toString().trim();
+
+                if ("email".equals(validation.getType())
+                        && !stringValue.matches("^[A-Za-z0-9+_.-]+@([A-Za-z0-9.-]+\\.[A-Za-z]{2,})$")) {
+                    errors.put(fieldName, "Email không hợp lệ");
+                }
+                if ("phone".equals(validation.getType()) && !stringValue.matches("^[0-9+\\-\\s()]{10,15}$")) {
+                    errors.put(fieldName, "Số điện thoại không hợp lệ");
+                }
+                if ("date".equals(validation.getType()) && !isValidDate(stringValue)) {
+                    errors.put(fieldName, "Định dạng ngày không hợp lệ");
+                }
+                if (validation.getMinLength() > 0 && stringValue.length() < validation.getMinLength()) {
+                    errors.put(fieldName, "Độ dài tối thiểu " + validation.getMinLength() + " ký tự");
+                }
+                if (validation.getMaxLength() > 0 && stringValue.length() > validation.getMaxLength()) {
+                    errors.put(fieldName, "Độ dài tối đa " + validation.getMaxLength() + " ký tự");
+                }
+                if (validation.getPattern() != null && !stringValue.matches(validation.getPattern())) {
+                    errors.put(fieldName, "Định dạng không hợp lệ");
+                }
+            }
+        }
+
+        return errors;
+    }
+
+    private static boolean isValidDate(String date) {
+        String[] patterns = {"yyyy-MM-dd", "dd/MM/yyyy", "dd-MM-yyyy"};
+        for (String pattern : patterns) {
+            try {
+                java.time.LocalDate.parse(date, java.time.format.DateTimeFormatter.ofPattern(pattern));
+                return true;
+            } catch (Exception ignored) {}
+        }
+        return false;
+    }
+}
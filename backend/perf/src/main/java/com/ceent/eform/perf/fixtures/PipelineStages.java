@@ -0,0 +1,78 @@
+package com.ceent.eform.perf.fixtures;
+
+import com.ceent.eform.service.convert.OpenSagresPdfEngine;
+import com.ceent.eform.service.convert.PdfEngine;
+import com.ceent.eform.service.convert.XhtmlFlyingSaucerPdfEngine;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import com.deepoove.poi.XWPFTemplate;
+import com.deepoove.poi.config.Configure;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Các bước của PdfProService dựng lại ngoài Spring context: compile, render, convert PDF.
+ * Configure lấy từ RenderConfigureRegistry thật để đo đúng profile production.
+ */
+public final class PipelineStages {
+
+    private PipelineStages() {
+    }
+
+    public static RenderConfigureRegistry renderConfigureRegistry() {
+        RenderConfigureRegistry registry = new RenderConfigureRegistry();
+        ReflectionTestUtils.setField(registry, "spelCacheSize", 2048L);
+        ReflectionTestUtils.setField(registry, "spelStrict", false);
+        ReflectionTestUtils.invokeMethod(registry, "init");
+        return registry;
+    }
+
+    public static XWPFTemplate compile(byte[] template, Configure configure) {
+        return XWPFTemplate.compile(new ByteArrayInputStream(template), configure);
+    }
+
+    /**
+     * Compile + render + ghi DOCX, giống Step 1-2 của PdfProService
+     */
+    public static byte[] render(byte[] template, Configure configure, Map<String, Object> data) throws IOException {
+        try (XWPFTemplate compiled = compile(template, configure).render(data);
+             ByteArrayOutputStream out = new ByteArrayOutputStream(template.length * 2)) {
+            compiled.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    public static XWPFDocument open(byte[] docx) throws IOException {
+        return new XWPFDocument(new ByteArrayInputStream(docx));
+    }
+
+    /**
+     * DOCX -> PDF bằng engine mặc định của PdfProService
+     */
+    public static byte[] convertToPdf(byte[] docx) throws Exception {
+        return convertToPdf(docx, new OpenSagresPdfEngine());
+    }
+
+    public static byte[] convertToPdf(byte[] docx, PdfEngine engine) throws Exception {
+        try (XWPFDocument document = open(docx);
+             ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024)) {
+            engine.convert(document, out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Các engine giống PdfEngineRegistry của ứng dụng, theo tên
+     */
+    public static PdfEngine pdfEngine(String name) {
+        return switch (name) {
+            case OpenSagresPdfEngine.NAME -> new OpenSagresPdfEngine();
+            case XhtmlFlyingSaucerPdfEngine.NAME -> new XhtmlFlyingSaucerPdfEngine();
+            default -> throw new IllegalArgumentException("Unknown PDF engine: " + name);
+        };
+    }
+}
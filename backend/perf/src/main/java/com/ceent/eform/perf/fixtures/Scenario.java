@@ -0,0 +1,15 @@
+package com.ceent.eform.perf.fixtures;
+
+/**
+ * Các loại template/data tổng hợp dùng chung cho mọi benchmark
+ */
+public enum Scenario {
+    /** Form ngắn ~15 field text */
+    SMALL_FORM,
+    /** Hợp đồng nhiều trang, vài trăm tag rải trong đoạn văn */
+    CONTRACT,
+    /** 24 ảnh {{@img_n}} kích thước lớn */
+    IMAGE_HEAVY,
+    /** Bảng 10.000 dòng qua tag streaming {{%rows}} */
+    TABLE_10K
+}
@@ -0,0 +1,298 @@
+package com.ceent.eform.perf.fixtures;
+
+import com.ceent.eform.validator.FieldValidation;
+import com.deepoove.poi.data.PictureType;
+import com.deepoove.poi.data.Pictures;
+import org.apache.poi.xwpf.usermodel.BreakType;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Sinh template DOCX và dữ liệu tổng hợp cho benchmark.
+ * Seed cố định nên mọi lần chạy (và mọi commit) đo trên cùng một input.
+ */
+public final class TemplateFixtures {
+
+    public static final long SEED = 20240601L;
+    public static final int CONTRACT_PAGES = 12;
+    public static final int CONTRACT_PARAGRAPHS_PER_PAGE = 25;
+    public static final int IMAGE_COUNT = 24;
+    public static final int TABLE_ROWS = 10_000;
+    public static final String TABLE_TAG = "rows";
+    public static final List<String> TABLE_COLUMNS = List.of("stt", "ma_hang", "ten_hang", "so_luong", "don_gia", "thanh_tien");
+
+    private static final String[] SMALL_FORM_FIELDS = {
+            "ho_ten", "ngay_sinh", "gioi_tinh", "so_cccd", "ngay_cap", "noi_cap", "dia_chi", "so_dien_thoai",
+            "email", "nghe_nghiep", "don_vi", "chuc_vu", "so_tien", "ly_do", "ngay_ky"
+    };
+    private static final String[] WORDS = {
+            "hợp", "đồng", "bên", "cung", "cấp", "dịch", "vụ", "thanh", "toán", "nghĩa", "vụ", "quyền", "lợi",
+            "điều", "khoản", "trách", "nhiệm", "thời", "hạn", "giao", "nhận", "chất", "lượng", "bảo", "hành"
+    };
+
+    private static final Map<Scenario, byte[]> TEMPLATES = new EnumMap<>(Scenario.class);
+
+    private TemplateFixtures() {
+    }
+
+    /**
+     * DOCX của scenario (sinh một lần, dùng lại trong cùng JVM)
+     */
+    public static synchronized byte[] template(Scenario scenario) {
+        return TEMPLATES.computeIfAbsent(scenario, key -> switch (key) {
+            case SMALL_FORM -> smallFormTemplate();
+            case CONTRACT -> contractTemplate();
+            case IMAGE_HEAVY -> imageTemplate();
+            case TABLE_10K -> streamingTableTemplate();
+        }).clone();
+    }
+
+    /**
+     * Dữ liệu form của scenario. Với IMAGE_HEAVY ảnh đã là PictureRenderData (bỏ qua ImagePipeline).
+     */
+    public static Map<String, Object> data(Scenario scenario) {
+        Random random = new Random(SEED);
+        Map<String, Object> data = new LinkedHashMap<>();
+        switch (scenario) {
+            case SMALL_FORM -> {
+                for (String field : SMALL_FORM_FIELDS) {
+                    data.put(field, sentence(random, 3));
+                }
+                data.put("ngay_sinh", "1990-05-17");
+                data.put("so_tien", "15000000");
+                data.put("email", "nguyen.van.a@example.com");
+                data.put("so_dien_thoai", "0912 345 678");
+            }
+            case CONTRACT -> {
+                data.put("ben_a", "Công ty TNHH  Dịch vụ\r\nSố Một");
+                data.put("ben_b", "Công ty Cổ phần Thương mại Hai");
+                data.put("so_hop_dong", "HD-2024-000123");
+                for (int page = 0; page < CONTRACT_PAGES; page++) {
+                    for (int i = 0; i < CONTRACT_PARAGRAPHS_PER_PAGE; i++) {
+                        data.put("dieu_" + page + "_" + i, sentence(random, 12));
+                    }
+                }
+            }
+            case IMAGE_HEAVY -> {
+                List<byte[]> images = images(random);
+                for (int i = 0; i < IMAGE_COUNT; i++) {
+                    data.put("img_" + i, Pictures.ofBytes(images.get(i % images.size()), PictureType.PNG)
+                            .size(300, 225).create());
+                    data.put("chu_thich_" + i, sentence(random, 6));
+                }
+            }
+            case TABLE_10K -> {
+                data.put("tieu_de", "Bảng kê hàng hóa");
+                data.put(TABLE_TAG, tableRows(TABLE_ROWS));
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Dữ liệu dạng JSON thuần (không có RenderData) để đo serialize/validate/normalize
+     */
+    public static Map<String, Object> jsonData(Scenario scenario) {
+        if (scenario != Scenario.IMAGE_HEAVY) {
+            return data(scenario);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            data.put("img_" + i, "https://cdn.example.com/images/" + i + ".png");
+            data.put("chu_thich_" + i, "Ảnh minh họa số " + i);
+        }
+        return data;
+    }
+
+    /**
+     * Các ảnh PNG lớn dùng cho IMAGE_HEAVY (để harness phục vụ qua HTTP)
+     */
+    public static List<byte[]> imageBytes() {
+        return images(new Random(SEED));
+    }
+
+    public static List<Map<String, Object>> tableRows(int count) {
+        Random random = new Random(SEED);
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int quantity = 1 + random.nextInt(100);
+            long price = 1_000L * (1 + random.nextInt(5_000));
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("stt", i + 1);
+            row.put("ma_hang", "MH" + (100_000 + i));
+            row.put("ten_hang", sentence(random, 4));
+            row.put("so_luong", quantity);
+            row.put("don_gia", price);
+            row.put("thanh_tien", price * quantity);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Rule validation đại diện cho từng scenario (dùng cho benchmark validation)
+     */
+    public static List<FieldValidation> validations(Scenario scenario) {
+        List<FieldValidation> validations = new ArrayList<>();
+        switch (scenario) {
+            case SMALL_FORM -> {
+                for (String field : SMALL_FORM_FIELDS) {
+                    validations.add(new FieldValidation(field, null, true));
+                }
+                validations.add(new FieldValidation("email", "email", true));
+                validations.add(new FieldValidation("so_dien_thoai", "phone", true));
+                validations.add(new FieldValidation("ngay_sinh", "date", true));
+                FieldValidation cccd = new FieldValidation("so_cccd", null, true);
+                cccd.setMaxLength(64);
+                cccd.setPattern("^[\\p{L}\\d ]+$");
+                validations.add(cccd);
+            }
+            case CONTRACT -> {
+                validations.add(new FieldValidation("ben_a", null, true));
+                validations.add(new FieldValidation("ben_b", null, true));
+                FieldValidation number = new FieldValidation("so_hop_dong", null, true);
+                number.setPattern("^HD-\\d{4}-\\d{6}$");
+                validations.add(number);
+                for (int page = 0; page < CONTRACT_PAGES; page++) {
+                    FieldValidation clause = new FieldValidation("dieu_" + page + "_0", null, true);
+                    clause.setMinLength(5);
+                    clause.setMaxLength(2000);
+                    validations.add(clause);
+                }
+            }
+            case IMAGE_HEAVY -> {
+                for (int i = 0; i < IMAGE_COUNT; i++) {
+                    validations.add(new FieldValidation("img_" + i, null, true));
+                }
+            }
+            case TABLE_10K -> validations.add(new FieldValidation("tieu_de", null, true));
+        }
+        return validations;
+    }
+
+    /**
+     * Template bảng dùng LoopRowTableRenderPolicy (tag {{rows}} + dòng mẫu [cột]) để so sánh với bản streaming
+     */
+    public static byte[] loopTableTemplate() {
+        XWPFDocument document = new XWPFDocument();
+        text(document, "{{tieu_de}}");
+        XWPFTable table = document.createTable(2, TABLE_COLUMNS.size());
+        for (int i = 0; i < TABLE_COLUMNS.size(); i++) {
+            table.getRow(0).getCell(i).setText((i == 0 ? "{{" + TABLE_TAG + "}}" : "") + TABLE_COLUMNS.get(i));
+            table.getRow(1).getCell(i).setText("[" + TABLE_COLUMNS.get(i) + "]");
+        }
+        return toBytes(document);
+    }
+
+    private static byte[] smallFormTemplate() {
+        XWPFDocument document = new XWPFDocument();
+        text(document, "ĐƠN ĐĂNG KÝ");
+        for (String field : SMALL_FORM_FIELDS) {
+            text(document, field.replace('_', ' ') + ": {{" + field + "}}");
+        }
+        return toBytes(document);
+    }
+
+    private static byte[] contractTemplate() {
+        XWPFDocument document = new XWPFDocument();
+        text(document, "HỢP ĐỒNG SỐ {{so_hop_dong}}");
+        text(document, "Bên A: {{ben_a}}");
+        text(document, "Bên B: {{ben_b}}");
+        Random random = new Random(SEED);
+        for (int page = 0; page < CONTRACT_PAGES; page++) {
+            text(document, "Điều " + (page + 1));
+            for (int i = 0; i < CONTRACT_PARAGRAPHS_PER_PAGE; i++) {
+                text(document, sentence(random, 20) + " {{dieu_" + page + "_" + i + "}} " + sentence(random, 10)
+                        + (i % 5 == 0 ? " {{ben_a}}" : ""));
+            }
+            if (page < CONTRACT_PAGES - 1) {
+                document.createParagraph().createRun().addBreak(BreakType.PAGE);
+            }
+        }
+        return toBytes(document);
+    }
+
+    private static byte[] imageTemplate() {
+        XWPFDocument document = new XWPFDocument();
+        text(document, "PHỤ LỤC HÌNH ẢNH");
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            text(document, "{{@img_" + i + "}}");
+            text(document, "Hình " + (i + 1) + ": {{chu_thich_" + i + "}}");
+        }
+        return toBytes(document);
+    }
+
+    private static byte[] streamingTableTemplate() {
+        XWPFDocument document = new XWPFDocument();
+        text(document, "{{tieu_de}}");
+        XWPFTable table = document.createTable(2, TABLE_COLUMNS.size());
+        for (int i = 0; i < TABLE_COLUMNS.size(); i++) {
+            table.getRow(0).getCell(i).setText(TABLE_COLUMNS.get(i));
+        }
+        table.getRow(1).getCell(0).setText("{{%" + TABLE_TAG + "}}");
+        return toBytes(document);
+    }
+
+    private static List<byte[]> images(Random random) {
+        List<byte[]> images = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            BufferedImage image = new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setPaint(new GradientPaint(0, 0, new Color(random.nextInt()), 1600, 1200, new Color(random.nextInt())));
+            graphics.fillRect(0, 0, 1600, 1200);
+            for (int j = 0; j < 200; j++) {
+                graphics.setColor(new Color(random.nextInt()));
+                graphics.fillOval(random.nextInt(1600), random.nextInt(1200), 20 + random.nextInt(200), 20 + random.nextInt(200));
+            }
+            graphics.dispose();
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                ImageIO.write(image, "png", out);
+                images.add(out.toByteArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return images;
+    }
+
+    private static void text(XWPFDocument document, String text) {
+        XWPFParagraph paragraph = document.createParagraph();
+        XWPFRun run = paragraph.createRun();
+        run.setText(text);
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static byte[] toBytes(XWPFDocument document) {
+        try (document; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.write(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
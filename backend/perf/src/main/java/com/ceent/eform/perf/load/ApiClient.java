@@ -0,0 +1,117 @@
+package com.ceent.eform.perf.load;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HttpClient dùng chung cho seed, đo tải và đọc metric Actuator
+ */
+public final class ApiClient implements AutoCloseable {
+
+    private final String baseUrl;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Duration timeout;
+
+    public ApiClient(String baseUrl, int concurrency, Duration timeout) {
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.executor = Executors.newFixedThreadPool(Math.max(4, concurrency));
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .build();
+    }
+
+    public HttpClient httpClient() {
+        return httpClient;
+    }
+
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    public HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout);
+    }
+
+    public HttpRequest postJson(String path, Object body) throws IOException {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    public JsonNode getJson(String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            return null;
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    public JsonNode sendJson(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(request.method() + " " + request.uri() + " returned " + response.statusCode()
+                    + ": " + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Upload template qua /api/v1/templates/upload (multipart)
+     */
+    public JsonNode uploadTemplate(String name, String filename, byte[] docx) throws IOException, InterruptedException {
+        String boundary = "----eform-load-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(docx.length + 512);
+        writePart(body, boundary, "name", null, name.getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "file", filename, docx);
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = request("/api/v1/templates/upload")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return sendJson(request);
+    }
+
+    public Map<String, Object> toMap(JsonNode node) {
+        return objectMapper.convertValue(node, new TypeReference<Map<String, Object>>() {});
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static void writePart(ByteArrayOutputStream body, String boundary, String name, String filename,
+                                  byte[] content) throws IOException {
+        StringBuilder header = new StringBuilder("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+        if (filename != null) {
+            header.append("; filename=\"").append(filename).append('"').append("\r\n")
+                    .append("Content-Type: application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+        }
+        header.append("\r\n\r\n");
+        body.write(header.toString().getBytes(StandardCharsets.UTF_8));
+        body.write(content);
+        body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,61 @@
+package com.ceent.eform.perf.load;
+
+import com.ceent.eform.EFormApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Khởi động backend trong cùng JVM với H2 in-memory, cổng ngẫu nhiên và thư mục upload/output tạm
+ */
+public final class EmbeddedApp implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final Path workDir;
+
+    private EmbeddedApp(ConfigurableApplicationContext context, Path workDir) {
+        this.context = context;
+        this.workDir = workDir;
+    }
+
+    public static EmbeddedApp start(String onlyOfficeUrl, String logLevel) throws Exception {
+        Path workDir = Files.createTempDirectory("eform-load");
+        // Tham số dòng lệnh có độ ưu tiên cao hơn application.properties trong jar backend
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EFormApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:eform-load;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.h2.console.enabled=false",
+                        "--spring.devtools.restart.enabled=false",
+                        "--spring.servlet.multipart.max-file-size=50MB",
+                        "--spring.servlet.multipart.max-request-size=50MB",
+                        "--app.upload.dir=" + workDir.resolve("uploads"),
+                        "--app.output.dir=" + workDir.resolve("outputs"),
+                        "--onlyoffice.docs.url=" + onlyOfficeUrl,
+                        // ảnh picture field được phục vụ bởi stub cục bộ
+                        "--app.image.http.allowed-hosts=127.0.0.1",
+                        "--onlyoffice.jwt.secret=",
+                        "--logging.level.root=" + logLevel,
+                        "--logging.level.com.ceent=" + logLevel);
+        return new EmbeddedApp(context, workDir);
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() throws Exception {
+        context.close();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
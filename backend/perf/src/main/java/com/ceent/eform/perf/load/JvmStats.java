@@ -0,0 +1,56 @@
+package com.ceent.eform.perf.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Số lần/thời gian GC và heap đang dùng, lấy từ Actuator của node được đo hoặc MXBean của JVM hiện tại
+ */
+public record JvmStats(long gcCount, double gcTimeMs, long heapUsedBytes) {
+
+    public static JvmStats fromActuator(ApiClient api) throws Exception {
+        long gcCount = 0;
+        double gcTimeMs = 0;
+        JsonNode gcPause = api.getJson("/actuator/metrics/jvm.gc.pause");
+        if (gcPause != null) {
+            for (JsonNode measurement : gcPause.path("measurements")) {
+                String statistic = measurement.path("statistic").asText();
+                if ("COUNT".equals(statistic)) {
+                    gcCount = measurement.path("value").asLong();
+                } else if ("TOTAL_TIME".equals(statistic)) {
+                    gcTimeMs = measurement.path("value").asDouble() * 1000;
+                }
+            }
+        }
+
+        long heapUsed = 0;
+        JsonNode memory = api.getJson("/actuator/metrics/jvm.memory.used?tag=area:heap");
+        if (memory != null) {
+            for (JsonNode measurement : memory.path("measurements")) {
+                if ("VALUE".equals(measurement.path("statistic").asText())) {
+                    heapUsed = measurement.path("value").asLong();
+                }
+            }
+        }
+        return new JvmStats(gcCount, gcTimeMs, heapUsed);
+    }
+
+    public static JvmStats local() {
+        long gcCount = 0;
+        long gcTimeMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcTimeMs += Math.max(0, gc.getCollectionTime());
+        }
+        return new JvmStats(gcCount, gcTimeMs, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+    }
+
+    /**
+     * Chênh lệch GC giữa hai lần đo, heap lấy giá trị tại thời điểm sau
+     */
+    public JvmStats since(JvmStats before) {
+        return new JvmStats(gcCount - before.gcCount, gcTimeMs - before.gcTimeMs, heapUsedBytes);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ceent.eform.perf.load;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load harness cho các endpoint PDF/form/OnlyOffice, chạy hoàn toàn offline.
+ * Mặc định khởi động backend trong cùng JVM (H2 in-memory), seed template + form qua API
+ * rồi chạy lần lượt từng scenario. Với --target=URL thì đo một node đang chạy sẵn.
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar com.ceent.eform.perf.load.LoadHarness --concurrency=16 --rate=20 --duration=60s
+ * </pre>
+ */
+public final class LoadHarness {
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+
+        try (OnlyOfficeStub stub = new OnlyOfficeStub();
+             EmbeddedApp app = options.getTarget() == null ? EmbeddedApp.start(stub.baseUrl(), options.getAppLogLevel()) : null) {
+
+            String baseUrl = app != null ? app.baseUrl() : options.getTarget();
+            try (ApiClient api = new ApiClient(baseUrl, options.getConcurrency(), options.getTimeout())) {
+                System.out.printf("Target %s, concurrency=%d, rate=%s, warmup=%s, duration=%s%n", baseUrl,
+                        options.getConcurrency(), options.getRate() > 0 ? options.getRate() + "/s" : "closed",
+                        options.getWarmup(), options.getDuration());
+
+                Seeder.SeedData seed = Seeder.seed(api, stub, options.getFixtures());
+                System.out.printf("Seeded templates %s, forms %s%n", seed.templateIds(), seed.formIds());
+
+                List<ScenarioResult> results = new ArrayList<>();
+                for (String scenario : options.getScenarios()) {
+                    System.out.printf("Running %s...%n", scenario);
+                    ScenarioResult result = LoadRunner.run(scenario, LoadScenarios.create(scenario, api, seed), api, options);
+                    results.add(result);
+                    print(result);
+                }
+
+                writeReport(api, options, baseUrl, results);
+            }
+        }
+    }
+
+    private static void print(ScenarioResult result) {
+        ScenarioResult.Latency latency = result.latencyMs();
+        System.out.printf("  %-20s %8d req  %8.2f req/s  err %6.2f%%  p50 %8.1f  p95 %8.1f  p99 %8.1f  max %8.1f ms%n",
+                result.scenario(), result.requests(), result.throughputPerSecond(), result.errorRate() * 100,
+                latency.p50(), latency.p95(), latency.p99(), latency.max());
+        System.out.printf("  %-20s server GC %d (%.0f ms), heap %d MB -> %d MB, status %s%n", "",
+                result.serverJvm().gcCount(), result.serverJvm().gcTimeMs(),
+                result.serverHeapUsedBeforeBytes() / (1024 * 1024), result.serverJvm().heapUsedBytes() / (1024 * 1024),
+                result.statusCounts());
+    }
+
+    private static void writeReport(ApiClient api, LoadOptions options, String baseUrl,
+                                    List<ScenarioResult> results) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("target", baseUrl);
+        report.put("embedded", options.getTarget() == null);
+        report.put("fixtures", options.getFixtures());
+        report.put("warmup", options.getWarmup().toString());
+        report.put("duration", options.getDuration().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("scenarios", results);
+
+        if (options.getReport().getParent() != null) {
+            Files.createDirectories(options.getReport().getParent());
+        }
+        api.objectMapper().copy()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(options.getReport().toFile(), report);
+        System.out.println("Report written to " + options.getReport().toAbsolutePath());
+    }
+}
@@ -0,0 +1,101 @@
+package com.ceent.eform.perf.load;
+
+import com.ceent.eform.perf.fixtures.Scenario;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tham số của load harness, dạng --key=value:
+ * <pre>
+ *   --scenarios=generate-pdf,generate-pdf-pro  (mặc định: tất cả)
+ *   --fixtures=SMALL_FORM,CONTRACT             template dùng cho các scenario render PDF
+ *   --concurrency=8                            số request đồng thời tối đa
+ *   --rate=0                                   request/giây (0 = closed model, gửi ngay khi có slot)
+ *   --warmup=10s --duration=30s --timeout=120s
+ *   --target=http://host:8080                  chạy với node có sẵn thay vì khởi động app trong JVM
+ *   --report=target/load-report.json
+ * </pre>
+ */
+public final class LoadOptions {
+
+    private final List<String> scenarios;
+    private final List<Scenario> fixtures;
+    private final int concurrency;
+    private final double rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration timeout;
+    private final String target;
+    private final Path report;
+    private final String appLogLevel;
+
+    private LoadOptions(Map<String, String> values) {
+        this.scenarios = list(values.getOrDefault("scenarios", String.join(",", LoadScenarios.ALL)));
+        this.fixtures = new ArrayList<>();
+        for (String fixture : list(values.getOrDefault("fixtures", "SMALL_FORM,CONTRACT,IMAGE_HEAVY,TABLE_10K"))) {
+            fixtures.add(Scenario.valueOf(fixture.toUpperCase()));
+        }
+        this.concurrency = Integer.parseInt(values.getOrDefault("concurrency", "8"));
+        this.rate = Double.parseDouble(values.getOrDefault("rate", "0"));
+        this.warmup = duration(values.getOrDefault("warmup", "10s"));
+        this.duration = duration(values.getOrDefault("duration", "30s"));
+        this.timeout = duration(values.getOrDefault("timeout", "120s"));
+        this.target = values.get("target");
+        this.report = Path.of(values.getOrDefault("report", "target/load-report.json"));
+        this.appLogLevel = values.getOrDefault("app-log-level", "WARN");
+    }
+
+    public static LoadOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return new LoadOptions(values);
+    }
+
+    private static List<String> list(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.isBlank()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * "500ms", "30s", "2m" hoặc ISO-8601 (PT30S)
+     */
+    static Duration duration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.startsWith("pt")) return Duration.parse(value);
+        if (text.endsWith("ms")) return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        if (text.endsWith("s")) return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        if (text.endsWith("m")) return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+
+    public List<String> getScenarios() { return scenarios; }
+    public List<Scenario> getFixtures() { return fixtures; }
+    public int getConcurrency() { return concurrency; }
+    public double getRate() { return rate; }
+    public Duration getWarmup() { return warmup; }
+    public Duration getDuration() { return duration; }
+    public Duration getTimeout() { return timeout; }
+    public String getTarget() { return target; }
+    public Path getReport() { return report; }
+    public String getAppLogLevel() { return appLogLevel; }
+}
@@ -0,0 +1,129 @@
+package com.ceent.eform.perf.load;
+
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Phát tải cho một scenario.
+ * rate > 0: open model, request thứ n được lên lịch tại start + n/rate và latency tính từ thời điểm lên lịch
+ * (tránh coordinated omission khi server chậm và hàng đợi dồn lại), tối đa `concurrency` request đang bay.
+ * rate = 0: closed model, gửi ngay khi có slot trống.
+ */
+public final class LoadRunner {
+
+    private LoadRunner() {
+    }
+
+    public static ScenarioResult run(String name, LoadScenarios.RequestFactory factory, ApiClient api,
+                                     LoadOptions options) throws Exception {
+        // Warmup: JIT, cache template/ảnh, pool kết nối; kết quả bỏ qua
+        drive(factory, api, options, options.getWarmup().toNanos());
+
+        JvmStats serverBefore = JvmStats.fromActuator(api);
+        JvmStats harnessBefore = JvmStats.local();
+        Recorder recorder = drive(factory, api, options, options.getDuration().toNanos());
+        JvmStats serverAfter = JvmStats.fromActuator(api);
+        JvmStats harnessAfter = JvmStats.local();
+
+        return recorder.toResult(name, options, serverAfter.since(serverBefore), serverBefore.heapUsedBytes(),
+                harnessAfter.since(harnessBefore));
+    }
+
+    private static Recorder drive(LoadScenarios.RequestFactory factory, ApiClient api, LoadOptions options,
+                                  long durationNanos) throws Exception {
+        int concurrency = options.getConcurrency();
+        Semaphore permits = new Semaphore(concurrency);
+        Recorder recorder = new Recorder();
+        long intervalNanos = options.getRate() > 0 ? (long) (1_000_000_000L / options.getRate()) : 0;
+
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        long sequence = 0;
+        while (true) {
+            long scheduled = intervalNanos > 0 ? start + sequence * intervalNanos : System.nanoTime();
+            if (scheduled >= end) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            permits.acquire();
+            if (intervalNanos == 0) {
+                scheduled = System.nanoTime();
+            }
+
+            long startedAt = scheduled;
+            api.httpClient().sendAsync(factory.create(sequence++), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        recorder.record(System.nanoTime() - startedAt, response != null ? response.statusCode() : -1, error);
+                        permits.release();
+                    });
+        }
+
+        // Chờ các request còn đang bay
+        permits.acquire(concurrency);
+        permits.release(concurrency);
+        recorder.elapsedNanos = System.nanoTime() - start;
+        return recorder;
+    }
+
+    private static final class Recorder {
+        private long[] latencies = new long[4096];
+        private int count;
+        private final LongAdder errors = new LongAdder();
+        private final Map<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        private volatile long elapsedNanos;
+
+        void record(long latencyNanos, int status, Throwable error) {
+            String key = error != null ? error.getClass().getSimpleName() : Integer.toString(status);
+            statusCounts.computeIfAbsent(key, k -> new LongAdder()).increment();
+            if (error != null || status / 100 != 2) {
+                errors.increment();
+            }
+            synchronized (this) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = latencyNanos;
+            }
+        }
+
+        synchronized ScenarioResult toResult(String name, LoadOptions options, JvmStats serverJvm, long serverHeapBefore,
+                                             JvmStats harnessJvm) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            double sum = 0;
+            for (long latency : sorted) {
+                sum += latency;
+            }
+
+            ScenarioResult.Latency latency = new ScenarioResult.Latency(
+                    count > 0 ? sum / count / 1e6 : 0,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.95),
+                    percentile(sorted, 0.99), count > 0 ? sorted[count - 1] / 1e6 : 0);
+
+            Map<String, Long> statuses = new TreeMap<>();
+            statusCounts.forEach((key, value) -> statuses.put(key, value.sum()));
+
+            double seconds = elapsedNanos / 1e9;
+            return new ScenarioResult(name, options.getConcurrency(), options.getRate(), count, errors.sum(),
+                    count > 0 ? (double) errors.sum() / count : 0, seconds > 0 ? count / seconds : 0,
+                    latency, statuses, serverJvm, serverHeapBefore, harnessJvm);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ceent.eform.perf.load;
+
+import com.ceent.eform.perf.fixtures.Scenario;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Các scenario tải: mỗi scenario sinh request thứ n cho một endpoint, luân phiên qua các fixture đã seed
+ */
+public final class LoadScenarios {
+
+    public static final String GENERATE_PDF = "generate-pdf";
+    public static final String GENERATE_PDF_PRO = "generate-pdf-pro";
+    public static final String SAVE_FORM = "save-form";
+    public static final String ONLYOFFICE_CONFIG = "onlyoffice-config";
+    public static final String ONLYOFFICE_FILE = "onlyoffice-file";
+    public static final String ONLYOFFICE_CALLBACK = "onlyoffice-callback";
+
+    public static final List<String> ALL = List.of(GENERATE_PDF, GENERATE_PDF_PRO, SAVE_FORM,
+            ONLYOFFICE_CONFIG, ONLYOFFICE_FILE, ONLYOFFICE_CALLBACK);
+
+    @FunctionalInterface
+    public interface RequestFactory {
+        HttpRequest create(long sequence) throws IOException;
+    }
+
+    private LoadScenarios() {
+    }
+
+    public static RequestFactory create(String name, ApiClient api, Seeder.SeedData seed) {
+        List<Long> formIds = new ArrayList<>(seed.formIds().values());
+        List<Long> templateIds = new ArrayList<>(seed.templateIds().values());
+
+        return switch (name) {
+            case GENERATE_PDF -> sequence -> api.request("/api/v1/forms/" + pick(formIds, sequence) + "/generate-pdf")
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            case GENERATE_PDF_PRO -> sequence -> api.request("/api/v1/forms/" + pick(formIds, sequence) + "/generate-pdf-pro")
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            case SAVE_FORM -> {
+                Scenario fixture = seed.formData().containsKey(Scenario.SMALL_FORM) ?
+                        Scenario.SMALL_FORM : seed.formData().keySet().iterator().next();
+                long templateId = seed.templateIds().get(fixture);
+                Map<String, Object> data = seed.formData().get(fixture);
+                yield sequence -> {
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("templateId", templateId);
+                    body.put("name", "load-save-" + sequence);
+                    body.put("data", data);
+                    return api.postJson("/api/v1/forms", body);
+                };
+            }
+            case ONLYOFFICE_CONFIG -> sequence -> api.request("/api/v1/onlyoffice/config/" + pick(templateIds, sequence))
+                    .GET()
+                    .build();
+            case ONLYOFFICE_FILE -> sequence -> api.request("/api/v1/onlyoffice/files/" + pick(templateIds, sequence))
+                    .GET()
+                    .build();
+            case ONLYOFFICE_CALLBACK -> sequence -> {
+                // status 2 = document ready for saving: backend tải file từ stub và chạy lại ingestion
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("key", "load-" + sequence);
+                body.put("status", 2);
+                body.put("url", seed.callbackDocumentUrl());
+                body.put("users", List.of("load"));
+                return api.postJson("/api/v1/onlyoffice/callback/" + seed.callbackTemplateId(), body);
+            };
+            default -> throw new IllegalArgumentException("Unknown scenario: " + name + ", available: " + ALL);
+        };
+    }
+
+    private static long pick(List<Long> ids, long sequence) {
+        return ids.get((int) (sequence % ids.size()));
+    }
+}
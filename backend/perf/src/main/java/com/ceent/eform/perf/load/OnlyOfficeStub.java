@@ -0,0 +1,66 @@
+package com.ceent.eform.perf.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Giả lập phía OnlyOffice Document Server cho harness chạy offline:
+ * phục vụ file DOCX mà callback (status 2) trỏ tới và ảnh cho các picture field.
+ */
+public final class OnlyOfficeStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+
+    public OnlyOfficeStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Đăng ký nội dung tại path, trả về URL đầy đủ
+     */
+    public String publish(String path, byte[] content, String contentType) {
+        resources.put(path, new Resource(content, contentType));
+        return baseUrl() + path;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Resource resource = resources.get(exchange.getRequestURI().getPath());
+            if (resource == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", resource.contentType);
+            exchange.sendResponseHeaders(200, resource.content.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(resource.content);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private record Resource(byte[] content, String contentType) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.ceent.eform.perf.load;
+
+import java.util.Map;
+
+/**
+ * Kết quả của một scenario trong pha đo (không tính warmup)
+ */
+public record ScenarioResult(String scenario,
+                             int concurrency,
+                             double targetRate,
+                             long requests,
+                             long errors,
+                             double errorRate,
+                             double throughputPerSecond,
+                             Latency latencyMs,
+                             Map<String, Long> statusCounts,
+                             JvmStats serverJvm,
+                             long serverHeapUsedBeforeBytes,
+                             JvmStats harnessJvm) {
+
+    public record Latency(double mean, double p50, double p90, double p95, double p99, double max) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.ceent.eform.perf.load;
+
+import com.ceent.eform.perf.fixtures.Scenario;
+import com.ceent.eform.perf.fixtures.TemplateFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tạo dữ liệu cho lần chạy: upload template fixture qua API, chờ ingestion READY và lưu form mẫu.
+ * Ảnh của IMAGE_HEAVY và file DOCX cho callback OnlyOffice được phục vụ bởi OnlyOfficeStub.
+ */
+public final class Seeder {
+
+    private Seeder() {
+    }
+
+    public static SeedData seed(ApiClient api, OnlyOfficeStub stub, List<Scenario> fixtures) throws Exception {
+        Map<Scenario, Long> templateIds = new EnumMap<>(Scenario.class);
+        Map<Scenario, Long> formIds = new EnumMap<>(Scenario.class);
+        Map<Scenario, Map<String, Object>> formData = new EnumMap<>(Scenario.class);
+
+        for (Scenario fixture : fixtures) {
+            String name = "load-" + fixture.name().toLowerCase();
+            JsonNode template = api.uploadTemplate(name, name + ".docx", TemplateFixtures.template(fixture));
+            long templateId = template.get("id").asLong();
+            awaitReady(api, templateId, Duration.ofMinutes(2));
+
+            Map<String, Object> data = formData(stub, fixture);
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("templateId", templateId);
+            request.put("name", name);
+            request.put("data", data);
+            JsonNode form = api.sendJson(api.postJson("/api/v1/forms", request));
+
+            templateIds.put(fixture, templateId);
+            formIds.put(fixture, form.get("id").asLong());
+            formData.put(fixture, data);
+        }
+
+        // Template riêng cho callback OnlyOffice vì mỗi callback status 2 sẽ ghi đè file và chạy lại ingestion
+        byte[] callbackDocument = TemplateFixtures.template(Scenario.SMALL_FORM);
+        JsonNode callbackTemplate = api.uploadTemplate("load-onlyoffice", "load-onlyoffice.docx", callbackDocument);
+        long callbackTemplateId = callbackTemplate.get("id").asLong();
+        awaitReady(api, callbackTemplateId, Duration.ofMinutes(2));
+        String documentUrl = stub.publish("/cache/files/load-onlyoffice.docx", callbackDocument,
+                "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+
+        return new SeedData(templateIds, formIds, formData, callbackTemplateId, documentUrl);
+    }
+
+    private static Map<String, Object> formData(OnlyOfficeStub stub, Scenario fixture) {
+        Map<String, Object> data = new LinkedHashMap<>(TemplateFixtures.jsonData(fixture));
+        if (fixture == Scenario.IMAGE_HEAVY) {
+            List<byte[]> images = TemplateFixtures.imageBytes();
+            for (int i = 0; i < images.size(); i++) {
+                stub.publish("/images/" + i + ".png", images.get(i), "image/png");
+            }
+            for (int i = 0; i < TemplateFixtures.IMAGE_COUNT; i++) {
+                data.put("img_" + i, stub.baseUrl() + "/images/" + (i % images.size()) + ".png");
+            }
+        }
+        return data;
+    }
+
+    private static void awaitReady(ApiClient api, long templateId, Duration timeout) throws Exception {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            JsonNode template = api.getJson("/api/v1/templates/" + templateId);
+            String status = template != null && template.hasNonNull("status") ? template.get("status").asText() : null;
+            if ("READY".equals(status)) {
+                return;
+            }
+            if ("FAILED".equals(status)) {
+                throw new IllegalStateException("Ingestion failed for template " + templateId);
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Template " + templateId + " not READY after " + timeout);
+    }
+
+    public record SeedData(Map<Scenario, Long> templateIds,
+                           Map<Scenario, Long> formIds,
+                           Map<Scenario, Map<String, Object>> formData,
+                           long callbackTemplateId,
+                           String callbackDocumentUrl) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.ceent.eform.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Cấu hình thread pool cho các xử lý nền. Render (request, preview, job) chạy trên RenderScheduler.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+
+    @Value("${app.ingestion.pool-size:2}")
+    private int ingestionPoolSize;
+
+    @Value("${app.ingestion.queue-capacity:100}")
+    private int ingestionQueueCapacity;
+
+    /**
+     * Executor cho pipeline ingestion template (extract, normalize, thumbnail...)
+     */
+    @Bean(name = "ingestionExecutor")
+    public ThreadPoolTaskExecutor ingestionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(ingestionPoolSize);
+        executor.setMaxPoolSize(ingestionPoolSize);
+        executor.setQueueCapacity(ingestionQueueCapacity);
+        executor.setThreadNamePrefix("ingest-");
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ceent.eform.config;
+
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Chỉ tạo bean khi node có vai trò tương ứng trong app.node.roles
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(OnNodeRoleCondition.class)
+public @interface ConditionalOnNodeRole {
+
+    /**
+     * NodeRoles.API hoặc NodeRoles.WORKER
+     */
+    String value();
+}
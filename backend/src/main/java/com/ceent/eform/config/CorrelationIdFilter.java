@@ -0,0 +1,60 @@
+package com.ceent.eform.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Gắn request id (X-Request-Id, nhận từ client/proxy hoặc tự sinh) vào MDC và response để mọi log
+ * của một request nối được với nhau. Một phần nhỏ request (app.logging.debug-sample-rate) được đánh dấu
+ * sampled để SampledDebugFilter cho log DEBUG của ứng dụng đi qua.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Id";
+    public static final String MDC_REQUEST_ID = "requestId";
+    public static final String MDC_SAMPLED = "sampled";
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
+
+    private final double debugSampleRate;
+
+    public CorrelationIdFilter(@Value("${app.logging.debug-sample-rate:0}") double debugSampleRate) {
+        this.debugSampleRate = debugSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(HEADER);
+        if (requestId == null || !VALID_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+
+        MDC.put(MDC_REQUEST_ID, requestId);
+        if (debugSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < debugSampleRate) {
+            MDC.put(MDC_SAMPLED, "true");
+        }
+        response.setHeader(HEADER, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_REQUEST_ID);
+            MDC.remove(MDC_SAMPLED);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ceent.eform.config;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Tóm tắt dữ liệu form để log mà không lộ giá trị (PII): chỉ số field, tên key và kích thước
+ */
+public final class LogSummaries {
+
+    private static final int MAX_KEYS = 20;
+
+    private LogSummaries() {
+    }
+
+    public static String formData(Map<String, ?> data) {
+        if (data == null) {
+            return "{null}";
+        }
+
+        TreeSet<String> keys = new TreeSet<>(data.keySet());
+        int rows = 0;
+        for (Object value : data.values()) {
+            if (value instanceof Collection<?> collection) {
+                rows += collection.size();
+            }
+        }
+
+        StringBuilder summary = new StringBuilder("{fields=").append(data.size());
+        if (rows > 0) {
+            summary.append(", tableRows=").append(rows);
+        }
+        summary.append(", keys=");
+        summary.append(keys.size() <= MAX_KEYS ? keys : keys.stream().limit(MAX_KEYS).toList() + "...");
+        return summary.append('}').toString();
+    }
+}
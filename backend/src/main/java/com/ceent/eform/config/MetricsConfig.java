@@ -0,0 +1,72 @@
+package com.ceent.eform.config;
+
+import com.ceent.eform.entity.RenderJobStatus;
+import com.ceent.eform.service.job.RenderJobService;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import com.ceent.eform.service.render.TemplateCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Metric cho các thành phần không tự đăng ký với MeterRegistry: executor nền, cache template, cache SpEL
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * executor.queued, executor.active, executor.pool.size... của pipeline ingestion (tag name=ingestion)
+     */
+    @Bean
+    public MeterBinder ingestionExecutorMetrics(@Qualifier("ingestionExecutor") ThreadPoolTaskExecutor ingestionExecutor) {
+        return registry -> new ExecutorServiceMetrics(ingestionExecutor.getThreadPoolExecutor(), "ingestion", Tags.empty())
+                .bindTo(registry);
+    }
+
+    /**
+     * Tỉ lệ hit của cache bản prepared: eform.template.cache{result=hit|miss}
+     */
+    @Bean
+    public MeterBinder templateCacheMetrics(TemplateCache templateCache) {
+        return registry -> {
+            FunctionCounter.builder("eform.template.cache", templateCache, TemplateCache::hitCount)
+                    .description("Số lần compile dùng bản prepared trong bộ nhớ")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("eform.template.cache", templateCache, TemplateCache::missCount)
+                    .description("Số lần compile phải đọc file template")
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("eform.template.cache.size", templateCache, TemplateCache::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder spelExpressionCacheMetrics(RenderConfigureRegistry configureRegistry) {
+        return registry -> CaffeineCacheMetrics.monitor(registry,
+                configureRegistry.getSpelExpressionCache().cache(), "spel-expression");
+    }
+
+    /**
+     * Độ sâu hàng đợi render_jobs (dùng chung giữa các node), làm tín hiệu scale worker
+     */
+    @Bean
+    public MeterBinder renderJobQueueMetrics(RenderJobService renderJobService) {
+        return registry -> {
+            Gauge.builder("eform.render.jobs.pending", renderJobService, service -> service.countByStatus(RenderJobStatus.QUEUED))
+                    .tag("status", "queued")
+                    .register(registry);
+            Gauge.builder("eform.render.jobs.pending", renderJobService, service -> service.countByStatus(RenderJobStatus.RUNNING))
+                    .tag("status", "running")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.ceent.eform.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Id của node hiện tại (app.node.id, mặc định hostname-pid), dùng làm lease owner của render job
+ * và để bỏ qua các sự kiện invalidation do chính node này phát ra
+ */
+@Component
+@Getter
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${app.node.id:}") String id) {
+        this.id = id.isBlank() ? NodeRoles.defaultNodeId() : id;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ceent.eform.config;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Vai trò của node, cấu hình qua app.node.roles (vd. "api", "worker" hoặc "api,worker").
+ * Node api nhận request HTTP và đưa job vào hàng đợi, node worker claim và render job.
+ */
+public final class NodeRoles {
+
+    public static final String PROPERTY = "app.node.roles";
+    public static final String API = "api";
+    public static final String WORKER = "worker";
+    public static final String DEFAULT = API + "," + WORKER;
+
+    private NodeRoles() {
+    }
+
+    public static Set<String> parse(String roles) {
+        return Arrays.stream((roles != null ? roles : DEFAULT).split(","))
+                .map(String::trim)
+                .map(String::toLowerCase)
+                .filter(role -> !role.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Id mặc định của node khi không cấu hình app.node.id: hostname-pid
+     */
+    public static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+}
@@ -0,0 +1,21 @@
+package com.ceent.eform.config;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Map;
+
+class OnNodeRoleCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        Map<String, Object> attributes = metadata.getAnnotationAttributes(ConditionalOnNodeRole.class.getName());
+        if (attributes == null) {
+            return true;
+        }
+        String role = ((String) attributes.get("value")).toLowerCase();
+        String roles = context.getEnvironment().getProperty(NodeRoles.PROPERTY, NodeRoles.DEFAULT);
+        return NodeRoles.parse(roles).contains(role);
+    }
+}
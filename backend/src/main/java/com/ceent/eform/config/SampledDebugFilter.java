@@ -0,0 +1,29 @@
+package com.ceent.eform.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Logback turbo filter (khai báo trong logback-spring.xml): cho log DEBUG của ứng dụng đi qua
+ * khi request hiện tại được CorrelationIdFilter đánh dấu sampled, các request khác giữ mức INFO.
+ */
+public class SampledDebugFilter extends TurboFilter {
+
+    private String loggerPrefix = "com.ceent.eform";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level != Level.DEBUG || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return "true".equals(MDC.get(CorrelationIdFilter.MDC_SAMPLED)) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+}
@@ -0,0 +1,90 @@
+package com.ceent.eform.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Second-level cache của Hibernate (JCache + Caffeine) cho metadata template: mọi lần render, mở editor,
+ * serve file đều tra Template theo id. Cache nằm trong từng node; thay đổi từ node khác được bỏ qua
+ * TemplateEntityCacheEvictor (InvalidationBus), TTL chặn trên độ cũ cho các cập nhật không đi qua bus.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String TEMPLATE_REGION = "templates";
+    public static final String TEMPLATE_LIST_REGION = "templates.list";
+
+    // Region timestamps của query cache không được hết hạn trước kết quả query
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${app.template-cache.l2.max-entries:1000}")
+    private long maxEntries;
+
+    @Value("${app.template-cache.l2.ttl:10m}")
+    private Duration ttl;
+
+    /**
+     * CacheManager riêng cho mỗi ApplicationContext: CacheManager mặc định của provider là singleton của JVM,
+     * nhiều context trong cùng JVM (test, load harness) sẽ dùng chung entry Template theo id và context đóng trước
+     * sẽ đóng cache của các context còn lại.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("eform-l2-" + UUID.randomUUID()),
+                getClass().getClassLoader());
+        createIfAbsent(cacheManager, TEMPLATE_REGION, regionConfiguration(maxEntries, ttl));
+        createIfAbsent(cacheManager, TEMPLATE_LIST_REGION, regionConfiguration(16, ttl));
+        createIfAbsent(cacheManager, UPDATE_TIMESTAMPS_REGION, regionConfiguration(-1, null));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * cache.gets{result=hit|miss}, cache.puts, cache.removals... theo từng region (tag cache=templates)
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : List.of(TEMPLATE_REGION, TEMPLATE_LIST_REGION)) {
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(region), Tags.of("layer", "l2"));
+            }
+        };
+    }
+
+    private static void createIfAbsent(CacheManager cacheManager, String region, CaffeineConfiguration<Object, Object> configuration) {
+        if (cacheManager.getCache(region) == null) {
+            cacheManager.createCache(region, configuration);
+        }
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maximumSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStatisticsEnabled(true);
+        configuration.setMaximumSize(maximumSize > 0 ? OptionalLong.of(maximumSize) : OptionalLong.empty());
+        configuration.setExpireAfterWrite(expireAfterWrite != null
+                ? OptionalLong.of(expireAfterWrite.toNanos()) : OptionalLong.empty());
+        return configuration;
+    }
+}
@@ -0,0 +1,119 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.config.ConditionalOnNodeRole;
+import com.ceent.eform.config.NodeRoles;
+import com.ceent.eform.service.render.RenderCancelledException;
+import com.ceent.eform.service.render.RenderContext;
+import com.ceent.eform.service.render.RenderGuard;
+import com.ceent.eform.service.render.RenderLane;
+import com.ceent.eform.service.render.RenderScheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Chạy render của một request trên RenderScheduler (theo làn và tenant của request) và trả DeferredResult: thread của Tomcat được trả lại
+ * ngay, và khi container báo async request kết thúc sớm (client ngắt kết nối, timeout) thì RenderContext bị
+ * cancel để render dừng ở checkpoint kế tiếp thay vì chạy tiếp cho không ai nhận.
+ */
+@Component
+@ConditionalOnNodeRole(NodeRoles.API)
+@RequiredArgsConstructor
+@Slf4j
+class CancellableRenders {
+
+    // Dư thêm so với deadline tối đa: deadline của template do RenderGuard xử lý, đây chỉ là chốt chặn cuối
+    private static final long TIMEOUT_MARGIN_MS = 10_000;
+
+    private final RenderGuard renderGuard;
+    private final RenderScheduler renderScheduler;
+    private final Tenants tenants;
+
+    @FunctionalInterface
+    interface RenderCall<R> {
+        R call() throws Exception;
+    }
+
+    /**
+     * Render trả file: lỗi được trả dạng text trong body
+     */
+    DeferredResult<ResponseEntity<byte[]>> submit(RenderLane lane, String origin, RenderCall<ResponseEntity<byte[]>> call) {
+        return schedule(lane, origin, call, CancellableRenders::error);
+    }
+
+    /**
+     * Render trả JSON (artifact, báo cáo): lỗi được trả dạng {"error": ...}
+     */
+    DeferredResult<ResponseEntity<?>> submitJson(RenderLane lane, String origin, RenderCall<ResponseEntity<?>> call) {
+        return schedule(lane, origin, call, CancellableRenders::jsonError);
+    }
+
+    private <R> DeferredResult<R> schedule(RenderLane lane, String origin, RenderCall<R> call,
+                                           BiFunction<HttpStatus, String, R> errorResponse) {
+        String tenant = tenants.current();
+        RenderContext context = renderGuard.newContext(origin);
+        DeferredResult<R> result = new DeferredResult<>(renderGuard.getMaxDeadline().toMillis() + TIMEOUT_MARGIN_MS);
+        result.onTimeout(() -> {
+            context.cancel(RenderCancelledException.REASON_DEADLINE);
+            result.setResult(errorResponse.apply(HttpStatus.GATEWAY_TIMEOUT, "Render timed out"));
+        });
+        result.onError(error -> context.cancel(RenderCancelledException.REASON_CLIENT_GONE));
+        // Sau khi trả kết quả context đã xong nên cancel không có tác dụng, chỉ dừng render còn dang dở
+        result.onCompletion(() -> context.cancel(RenderCancelledException.REASON_CLIENT_GONE));
+
+        try {
+            renderScheduler.submit(lane, tenant, () -> run(origin, context, call, result, errorResponse));
+        } catch (TaskRejectedException e) {
+            log.warn("Render lane {} full, rejecting {} for tenant {}", lane, origin, tenant);
+            result.setResult(errorResponse.apply(HttpStatus.SERVICE_UNAVAILABLE, "Render queue is full, retry later"));
+        }
+        return result;
+    }
+
+    private <R> void run(String origin, RenderContext context, RenderCall<R> call, DeferredResult<R> result,
+                         BiFunction<HttpStatus, String, R> errorResponse) {
+        if (context.isCancelled()) {
+            // Client đã đi trong lúc request chờ trong hàng đợi
+            log.debug("Skipping {}: {} before start", origin, context.getCancelReason());
+            return;
+        }
+        try (RenderGuard.Scope ignored = renderGuard.enter(context)) {
+            result.setResult(call.call());
+        } catch (Exception e) {
+            RenderCancelledException cancelled = RenderCancelledException.find(e);
+            if (cancelled != null) {
+                result.setResult(errorResponse.apply(HttpStatus.GATEWAY_TIMEOUT, cancelled.getMessage()));
+            } else if (e instanceof RuntimeException) {
+                log.error("Runtime error in {}: {}", origin, e.getMessage());
+                result.setResult(errorResponse.apply(HttpStatus.BAD_REQUEST, "Error: " + e.getMessage()));
+            } else {
+                log.error("Error in {}", origin, e);
+                result.setResult(errorResponse.apply(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error: " + e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Kết quả có sẵn (vd. request không hợp lệ), không qua scheduler
+     */
+    static <R> DeferredResult<R> completed(R response) {
+        DeferredResult<R> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
+    }
+
+    private static ResponseEntity<byte[]> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(message.getBytes());
+    }
+
+    private static ResponseEntity<?> jsonError(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("error", message));
+    }
+}
@@ -0,0 +1,34 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.service.change.ChangeStamp;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Response cho GET có điều kiện: kiểm tra If-None-Match/If-Modified-Since bằng bộ đếm thay đổi
+ * trước khi load dữ liệu, khớp thì trả về 304 không body.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * 200 kèm ETag/Last-Modified, client phải hỏi lại server (no-cache) trước khi dùng bản đã lưu
+     */
+    static ResponseEntity.BodyBuilder revalidated(ChangeStamp stamp) {
+        return ResponseEntity.ok()
+                .eTag(stamp.etag())
+                .lastModified(stamp.lastModified())
+                .cacheControl(CacheControl.noCache());
+    }
+
+    static <T> ResponseEntity<T> notModified(ChangeStamp stamp) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(stamp.etag())
+                .lastModified(stamp.lastModified())
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+}
@@ -1,34 +1,71 @@
 package com.ceent.eform.controller;
 
+import com.ceent.eform.config.ConditionalOnNodeRole;
+import com.ceent.eform.config.LogSummaries;
+import com.ceent.eform.config.NodeRoles;
+import com.ceent.eform.dto.BulkImportResultDto;
 import com.ceent.eform.dto.FormDto;
+import com.ceent.eform.dto.RenderArtifactDto;
 import com.ceent.eform.dto.TemplateDto;
 import com.ceent.eform.dto.request.FormDataRequest;
 import com.ceent.eform.dto.request.GeneratePdfRequest;
+import com.ceent.eform.dto.request.TemplateSettingsRequest;
+import com.ceent.eform.repository.FormRepository;
 import com.ceent.eform.service.EFormService;
 import com.ceent.eform.service.PdfProService;
+import com.ceent.eform.service.artifact.RenderArtifactStore;
+import com.ceent.eform.service.change.ChangeCounters;
+import com.ceent.eform.service.change.ChangeStamp;
+import com.ceent.eform.service.convert.PdfEngineComparisonService;
+import com.ceent.eform.service.convert.PdfEngineRegistry;
+import com.ceent.eform.service.optimize.PdfOptimizeProfile;
+import com.ceent.eform.service.optimize.PdfOptimizer;
+import com.ceent.eform.service.preview.PreviewImage;
+import com.ceent.eform.service.preview.TemplateNotFoundException;
+import com.ceent.eform.service.preview.TemplatePreviewService;
+import com.ceent.eform.service.render.OutputFormat;
+import com.ceent.eform.service.render.RenderCancelledException;
+import com.ceent.eform.service.render.RenderLane;
+import com.ceent.eform.validator.FormValidationException;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1")
+@ConditionalOnNodeRole(NodeRoles.API)
 @RequiredArgsConstructor
 @Slf4j
 public class EFormController {
 
     private final EFormService eFormService;
     private final PdfProService pdfProService;
+    private final TemplatePreviewService templatePreviewService;
+    private final PdfEngineRegistry pdfEngineRegistry;
+    private final PdfEngineComparisonService pdfEngineComparisonService;
+    private final PdfOptimizer pdfOptimizer;
+    private final RenderArtifactStore renderArtifactStore;
+    private final ChangeCounters changeCounters;
+    private final CancellableRenders cancellableRenders;
 
     @PostMapping("/templates/upload")
     public ResponseEntity<TemplateDto> uploadTemplate(
@@ -54,10 +91,14 @@ public class EFormController {
     }
 
     @GetMapping("/templates")
-    public ResponseEntity<List<TemplateDto>> getAllTemplates() {
+    public ResponseEntity<List<TemplateDto>> getAllTemplates(WebRequest webRequest) {
         try {
+            ChangeStamp stamp = changeCounters.current(ChangeCounters.TEMPLATES);
+            if (webRequest.checkNotModified(stamp.etag(), stamp.lastModified())) {
+                return ConditionalResponses.notModified(stamp);
+            }
             List<TemplateDto> templates = eFormService.getAllTemplates();
-            return ResponseEntity.ok(templates);
+            return ConditionalResponses.revalidated(stamp).body(templates);
         } catch (Exception e) {
             log.error("Error getting templates", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -65,10 +106,14 @@ public class EFormController {
     }
 
     @GetMapping("/templates/{id}")
-    public ResponseEntity<TemplateDto> getTemplate(@PathVariable Long id) {
+    public ResponseEntity<TemplateDto> getTemplate(@PathVariable Long id, WebRequest webRequest) {
         try {
+            ChangeStamp stamp = changeCounters.current(ChangeCounters.TEMPLATES);
+            if (webRequest.checkNotModified(stamp.etag(), stamp.lastModified())) {
+                return ConditionalResponses.notModified(stamp);
+            }
             TemplateDto template = eFormService.getTemplate(id);
-            return ResponseEntity.ok(template);
+            return ConditionalResponses.revalidated(stamp).body(template);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -77,17 +122,107 @@ public class EFormController {
         }
     }
 
+    /**
+     * Cập nhật cấu hình render của template (render profile...)
+     */
+    @PutMapping("/templates/{id}/settings")
+    public ResponseEntity<?> updateTemplateSettings(@PathVariable Long id,
+                                                    @RequestBody TemplateSettingsRequest request) {
+        try {
+            return ResponseEntity.ok(eFormService.updateTemplateSettings(id, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Danh sách PDF engine và engine mặc định
+     */
+    @GetMapping("/pdf-engines")
+    public ResponseEntity<Map<String, Object>> getPdfEngines() {
+        return ResponseEntity.ok(Map.of(
+                "engines", pdfEngineRegistry.engineNames(),
+                "default", pdfEngineRegistry.getDefaultEngine().name()
+        ));
+    }
+
+    /**
+     * Chạy template qua mọi PDF engine (body: sample data, tùy chọn) và đề xuất engine phù hợp
+     */
+    @PostMapping("/templates/{id}/pdf-engines/compare")
+    public DeferredResult<ResponseEntity<?>> comparePdfEngines(
+            @PathVariable Long id,
+            @RequestBody(required = false) Map<String, Object> sampleData,
+            @RequestParam(defaultValue = "3") int iterations) {
+        return cancellableRenders.submitJson(RenderLane.BATCH, "compare pdf engines template " + id, () -> {
+            try {
+                return ResponseEntity.ok(pdfEngineComparisonService.compare(id, sampleData, iterations));
+            } catch (RuntimeException e) {
+                RenderCancelledException.rethrowIfCancelled(e);
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    /**
+     * Thumbnail trang đầu của template cho gallery
+     */
+    @GetMapping("/templates/{id}/thumbnail")
+    public ResponseEntity<byte[]> getTemplateThumbnail(@PathVariable Long id) {
+        try {
+            PreviewImage thumbnail = templatePreviewService.thumbnail(id);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(thumbnail.getContentType()))
+                    .cacheControl(CacheControl.maxAge(Duration.ofMinutes(10)))
+                    .body(thumbnail.getData());
+        } catch (TemplateNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error getting thumbnail for template {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Preview trang đầu của template với sample data (biến thiếu được điền [tên biến])
+     */
+    @PostMapping("/templates/{id}/preview")
+    public DeferredResult<ResponseEntity<byte[]>> previewTemplate(
+            @PathVariable Long id,
+            @RequestBody(required = false) Map<String, Object> sampleData,
+            @RequestParam(required = false) Float dpi,
+            @RequestParam(required = false) String format) {
+        return cancellableRenders.submit(RenderLane.PREVIEW, "preview template " + id, () -> {
+            try {
+                PreviewImage preview = templatePreviewService.preview(id, sampleData, dpi, format);
+                return ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(preview.getContentType()))
+                        .body(preview.getData());
+            } catch (TemplateNotFoundException e) {
+                return ResponseEntity.notFound().build();
+            } catch (RuntimeException e) {
+                RenderCancelledException.rethrowIfCancelled(e);
+                log.error("Error generating preview for template {}", id, e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }
+        });
+    }
+
     @PostMapping("/forms")
-    public ResponseEntity<FormDto> saveForm(@RequestBody FormDataRequest request) {
+    public ResponseEntity<?> saveForm(@RequestBody FormDataRequest request) {
         try {
             // Clean data trước khi lưu
             Map<String, Object> cleanData = pdfProService.cleanDataForPdf(request.getData());
             request.setData(cleanData);
 
             FormDto form = eFormService.saveForm(request);
-            log.info("Form saved successfully: {}", form);
+            log.info("Form {} saved: {}", form.getId(), LogSummaries.formData(form.getFormData()));
 
             return ResponseEntity.ok(form);
+        } catch (FormValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("errors", e.getResult().getErrors()));
         } catch (RuntimeException e) {
             log.error("Error saving form: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
@@ -97,11 +232,38 @@ public class EFormController {
         }
     }
 
+    /**
+     * Import hàng loạt form, trả về danh sách form đã lưu và các dòng lỗi validation
+     */
+    @PostMapping("/forms/bulk")
+    public ResponseEntity<BulkImportResultDto> importForms(@RequestBody List<FormDataRequest> requests) {
+        try {
+            for (FormDataRequest request : requests) {
+                if (request.getData() != null) {
+                    request.setData(pdfProService.cleanDataForPdf(request.getData()));
+                }
+            }
+
+            BulkImportResultDto result = eFormService.importForms(requests);
+            log.info("Bulk import: {} imported, {} failed", result.getImported().size(), result.getFailed().size());
+
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("Error importing forms", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/forms")
-    public ResponseEntity<List<FormDto>> getAllForms() {
+    public ResponseEntity<List<FormDto>> getAllForms(WebRequest webRequest) {
         try {
+            // FormDto có tên template nên ETag gồm cả bộ đếm của templates
+            ChangeStamp stamp = changeCounters.current(ChangeCounters.FORMS, ChangeCounters.TEMPLATES);
+            if (webRequest.checkNotModified(stamp.etag(), stamp.lastModified())) {
+                return ConditionalResponses.notModified(stamp);
+            }
             List<FormDto> forms = eFormService.getAllForms();
-            return ResponseEntity.ok(forms);
+            return ConditionalResponses.revalidated(stamp).body(forms);
         } catch (Exception e) {
             log.error("Error getting forms", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -109,10 +271,16 @@ public class EFormController {
     }
 
     @GetMapping("/forms/{id}")
-    public ResponseEntity<FormDto> getForm(@PathVariable Long id) {
+    public ResponseEntity<FormDto> getForm(@PathVariable Long id, WebRequest webRequest) {
         try {
+            // ETag là "version form.version template" (phần đầu dùng cho If-Match khi PATCH), chỉ đọc hai cột version
+            FormRepository.FormVersions versions = eFormService.getFormVersions(id);
+            String etag = formETag(versions.getVersion(), versions.getTemplateVersion());
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             FormDto form = eFormService.getForm(id);
-            return ResponseEntity.ok(form);
+            return ResponseEntity.ok().eTag(formETag(form)).cacheControl(CacheControl.noCache()).body(form);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -122,17 +290,75 @@ public class EFormController {
     }
 
     /**
-     * Generate PDF với format cải thiện
+     * Sửa form bằng JSON Merge Patch (RFC 7386), ví dụ {"formData": {"ho_ten": "A", "ghi_chu": null}}.
+     * If-Match lấy từ ETag của GET /forms/{id}; lệch version thì trả về 412.
      */
-    @PostMapping("/forms/{id}/generate-pdf-pro")
-    public ResponseEntity<byte[]> generateProPdfFromForm(@PathVariable Long id) {
+    @PatchMapping(value = "/forms/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchForm(@PathVariable Long id,
+                                       @RequestBody JsonNode patch,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            log.info("Generating PDF for form ID: {}", id);
+            FormDto form = eFormService.patchForm(id, patch, parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(formETag(form)).body(form);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", "Form was modified by another request, reload and retry"));
+        } catch (FormValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("errors", e.getResult().getErrors()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error patching form {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 
-            // Debug template paths
-            pdfProService.debugTemplatePaths();
+    private String formETag(FormDto form) {
+        return formETag(form.getVersion(), form.getTemplateVersion());
+    }
+
+    private static String formETag(Long formVersion, Long templateVersion) {
+        return "\"" + formVersion + "." + templateVersion + "\"";
+    }
 
-            byte[] pdfBytes = pdfProService.generateProPdf(id, null);
+    /**
+     * Version form trong If-Match, null nếu không có hoặc là "*". Phần version template được bỏ qua:
+     * template đổi không làm form bị sửa chồng. ETag weak hay không đọc được thì không khớp version nào.
+     */
+    private Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("\"") && value.endsWith("\"") && value.length() > 2) {
+            String version = value.substring(1, value.length() - 1);
+            int dot = version.indexOf('.');
+            try {
+                return Long.parseLong(dot >= 0 ? version.substring(0, dot) : version);
+            } catch (NumberFormatException ignored) {
+                // rơi xuống dưới
+            }
+        }
+        throw new OptimisticLockingFailureException("If-Match does not match any form version: " + ifMatch);
+    }
+
+    /**
+     * Generate PDF với format cải thiện
+     */
+    @PostMapping("/forms/{id}/generate-pdf-pro")
+    public DeferredResult<ResponseEntity<byte[]>> generateProPdfFromForm(@PathVariable Long id,
+                                                                         @RequestParam(required = false) String optimize,
+                                                                         @RequestParam(defaultValue = "false") boolean linearize) {
+        String optimizeError = optimizeProfileError(optimize);
+        if (optimizeError != null) {
+            return CancellableRenders.completed(ResponseEntity.badRequest().body(("Error: " + optimizeError).getBytes()));
+        }
+        return cancellableRenders.submit(RenderLane.INTERACTIVE, "generate-pdf-pro form " + id, () -> {
+            log.debug("Generating PDF for form ID: {}", id);
+
+            byte[] pdfBytes = pdfProService.generateProPdf(id, null, optimize, linearize);
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
@@ -144,23 +370,58 @@ public class EFormController {
             return ResponseEntity.ok()
                     .headers(headers)
                     .body(pdfBytes);
-        } catch (RuntimeException e) {
-            log.error("Runtime error generating PDF for form {}: {}", id, e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(("Error: " + e.getMessage()).getBytes());
-        } catch (Exception e) {
-            log.error("Error generating PDF from form {}", id, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(("Internal error: " + e.getMessage()).getBytes());
+        });
+    }
+
+    /**
+     * Sinh output của form theo ?format= hoặc header Accept: docx (không convert), html (xem trên trình duyệt), pdf.
+     * optimize/linearize chỉ áp dụng cho pdf.
+     */
+    @RequestMapping(value = "/forms/{id}/generate", method = {RequestMethod.GET, RequestMethod.POST})
+    public DeferredResult<ResponseEntity<byte[]>> generateFromForm(@PathVariable Long id,
+                                                                   @RequestParam(required = false) String format,
+                                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                   @RequestParam(required = false) String optimize,
+                                                                   @RequestParam(defaultValue = "false") boolean linearize) {
+        OutputFormat outputFormat;
+        try {
+            outputFormat = OutputFormat.resolve(format, accept);
+        } catch (IllegalArgumentException e) {
+            return CancellableRenders.completed(ResponseEntity.badRequest().body(("Error: " + e.getMessage()).getBytes()));
+        }
+        if (outputFormat == null) {
+            return CancellableRenders.completed(ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build());
         }
+        String optimizeError = outputFormat == OutputFormat.PDF ? optimizeProfileError(optimize) : null;
+        if (optimizeError != null) {
+            return CancellableRenders.completed(ResponseEntity.badRequest().body(("Error: " + optimizeError).getBytes()));
+        }
+
+        return cancellableRenders.submit(RenderLane.INTERACTIVE, "generate " + outputFormat + " form " + id, () -> {
+            byte[] bytes = pdfProService.generate(id, null, outputFormat, optimize, linearize);
+
+            ContentDisposition disposition = (outputFormat == OutputFormat.HTML ? ContentDisposition.inline() : ContentDisposition.attachment())
+                    .filename("form_" + id + "." + outputFormat.getExtension())
+                    .build();
+            return ResponseEntity.ok()
+                    .contentType(outputFormat.getMediaType())
+                    .contentLength(bytes.length)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .body(bytes);
+        });
     }
 
     /**
      * Generate PDF chuẩn (fallback)
      */
     @PostMapping("/forms/generate-pdf")
-    public ResponseEntity<byte[]> generatePdf(@RequestBody GeneratePdfRequest request) {
-        try {
+    public DeferredResult<ResponseEntity<byte[]>> generatePdf(@RequestBody GeneratePdfRequest request) {
+        String optimizeError = optimizeProfileError(request.getOptimize());
+        if (optimizeError != null) {
+            return CancellableRenders.completed(ResponseEntity.badRequest().body(("Error: " + optimizeError).getBytes()));
+        }
+        return cancellableRenders.submit(RenderLane.INTERACTIVE, "generate-pdf form " + request.getFormId(), () -> {
             byte[] pdfBytes = eFormService.generatePdf(request);
 
             HttpHeaders headers = new HttpHeaders();
@@ -171,19 +432,22 @@ public class EFormController {
             return ResponseEntity.ok()
                     .headers(headers)
                     .body(pdfBytes);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
-        } catch (Exception e) {
-            log.error("Error generating PDF", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        });
     }
 
     @PostMapping("/forms/{id}/generate-pdf")
-    public ResponseEntity<byte[]> generatePdfFromForm(@PathVariable Long id) {
-        try {
+    public DeferredResult<ResponseEntity<byte[]>> generatePdfFromForm(@PathVariable Long id,
+                                                                      @RequestParam(required = false) String optimize,
+                                                                      @RequestParam(defaultValue = "false") boolean linearize) {
+        String optimizeError = optimizeProfileError(optimize);
+        if (optimizeError != null) {
+            return CancellableRenders.completed(ResponseEntity.badRequest().body(("Error: " + optimizeError).getBytes()));
+        }
+        return cancellableRenders.submit(RenderLane.INTERACTIVE, "generate-pdf form " + id, () -> {
             GeneratePdfRequest request = new GeneratePdfRequest();
             request.setFormId(id);
+            request.setOptimize(optimize);
+            request.setLinearize(linearize);
 
             byte[] pdfBytes = eFormService.generatePdf(request);
 
@@ -195,12 +459,61 @@ public class EFormController {
             return ResponseEntity.ok()
                     .headers(headers)
                     .body(pdfBytes);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
-        } catch (Exception e) {
-            log.error("Error generating PDF from form", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        });
+    }
+
+    /**
+     * Render rồi lưu PDF (mặc định linearized) thành artifact, trả về URL để viewer tải theo byte range
+     */
+    @PostMapping("/forms/{id}/pdf-artifacts")
+    public DeferredResult<ResponseEntity<?>> createPdfArtifact(@PathVariable Long id,
+                                                               @RequestParam(required = false) String optimize,
+                                                               @RequestParam(defaultValue = "true") boolean linearize) {
+        String optimizeError = optimizeProfileError(optimize);
+        if (optimizeError != null) {
+            return CancellableRenders.completed(ResponseEntity.badRequest().body(Map.of("error", optimizeError)));
+        }
+        return cancellableRenders.submitJson(RenderLane.INTERACTIVE, "pdf-artifact form " + id, () -> {
+            try {
+                byte[] pdfBytes = pdfProService.generateProPdf(id, null, optimize, linearize);
+                RenderArtifactDto artifact = renderArtifactStore.store(id, pdfBytes);
+                return ResponseEntity.created(URI.create(artifact.getUrl())).body(artifact);
+            } catch (RuntimeException e) {
+                RenderCancelledException.rethrowIfCancelled(e);
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Báo cáo tối ưu PDF của form theo profile: byte tiết kiệm và thời gian của từng pass
+     */
+    @PostMapping("/forms/{id}/pdf-optimization")
+    public DeferredResult<ResponseEntity<?>> reportPdfOptimization(@PathVariable Long id,
+                                                                   @RequestParam(defaultValue = "web") String profile) {
+        String profileError = optimizeProfileError(profile);
+        if (profileError != null) {
+            return CancellableRenders.completed(ResponseEntity.badRequest().body(Map.of("error", profileError)));
+        }
+        return cancellableRenders.submitJson(RenderLane.BATCH, "pdf-optimization form " + id, () -> {
+            try {
+                byte[] pdfBytes = pdfProService.generateProPdf(id, null, PdfOptimizeProfile.NONE);
+                return ResponseEntity.ok(pdfOptimizer.optimizeWithReport(pdfBytes, profile).getReport());
+            } catch (RuntimeException e) {
+                RenderCancelledException.rethrowIfCancelled(e);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Thông báo lỗi nếu ?optimize= không phải profile đã cấu hình, null nếu hợp lệ hoặc không truyền
+     */
+    private String optimizeProfileError(String optimize) {
+        if (pdfOptimizer.hasProfile(optimize)) {
+            return null;
         }
+        return "Unknown PDF optimize profile: " + optimize + ", available: " + pdfOptimizer.profileNames();
     }
 
     /**
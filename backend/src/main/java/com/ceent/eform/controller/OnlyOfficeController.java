@@ -1,7 +1,11 @@
 package com.ceent.eform.controller;
 
+import com.ceent.eform.config.ConditionalOnNodeRole;
+import com.ceent.eform.config.NodeRoles;
 import com.ceent.eform.dto.OnlyOfficeConfigDto;
 import com.ceent.eform.service.OnlyOfficeService;
+import com.ceent.eform.service.change.ChangeCounters;
+import com.ceent.eform.service.change.ChangeStamp;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,18 +15,21 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/onlyoffice")
+@ConditionalOnNodeRole(NodeRoles.API)
 @RequiredArgsConstructor
 @Slf4j
 @CrossOrigin(origins = "*")
 public class OnlyOfficeController {
 
     private final OnlyOfficeService onlyOfficeService;
+    private final ChangeCounters changeCounters;
 
     @Value("${onlyoffice.jwt.secret:}")
     private String jwtSecret;
@@ -148,12 +155,17 @@ public class OnlyOfficeController {
      * Get file info
      */
     @GetMapping("/info/{templateId}")
-    public ResponseEntity<?> getFileInfo(@PathVariable Long templateId) {
+    public ResponseEntity<?> getFileInfo(@PathVariable Long templateId, WebRequest webRequest) {
         try {
+            // Callback lưu file mới luôn cập nhật dòng template nên bộ đếm templates đủ làm ETag
+            ChangeStamp stamp = changeCounters.current(ChangeCounters.TEMPLATES);
+            if (webRequest.checkNotModified(stamp.etag(), stamp.lastModified())) {
+                return ConditionalResponses.notModified(stamp);
+            }
             log.info("Getting file info for template {}", templateId);
 
             Map<String, Object> fileInfo = onlyOfficeService.getFileInfo(templateId);
-            return ResponseEntity.ok(fileInfo);
+            return ConditionalResponses.revalidated(stamp).body(fileInfo);
 
         } catch (RuntimeException e) {
             log.error("Template not found: {}", e.getMessage());
@@ -0,0 +1,55 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.config.ConditionalOnNodeRole;
+import com.ceent.eform.config.NodeRoles;
+import com.ceent.eform.service.artifact.RenderArtifactStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Phục vụ PDF đã lưu. Body là Resource nên Spring MVC tự xử lý Range/If-Range (206 Partial Content)
+ * và HEAD, viewer tải trang 1 của file linearized mà không cần tải hết.
+ */
+@RestController
+@RequestMapping("/api/v1/artifacts")
+@ConditionalOnNodeRole(NodeRoles.API)
+@RequiredArgsConstructor
+@Slf4j
+public class RenderArtifactController {
+
+    private final RenderArtifactStore artifactStore;
+
+    @GetMapping("/{key}")
+    public ResponseEntity<Resource> getArtifact(@PathVariable String key) {
+        try {
+            Path file = artifactStore.resolve(key);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_PDF)
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.inline().filename(key + ".pdf").build().toString())
+                    // key là UUID mới cho mỗi lần render nên nội dung không đổi
+                    .cacheControl(CacheControl.maxAge(artifactStore.getTtl()).cachePrivate().immutable())
+                    .lastModified(Files.getLastModifiedTime(file).toMillis())
+                    .body(new FileSystemResource(file));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error serving render artifact {}", key, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.config.ConditionalOnNodeRole;
+import com.ceent.eform.config.NodeRoles;
+import com.ceent.eform.dto.RenderJobDto;
+import com.ceent.eform.dto.request.RenderJobRequest;
+import com.ceent.eform.entity.RenderJobType;
+import com.ceent.eform.service.job.RenderJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hàng đợi render: enqueue trả về 202 ngay, worker node render nền, client poll trạng thái và tải kết quả
+ */
+@RestController
+@RequestMapping("/api/v1/render-jobs")
+@ConditionalOnNodeRole(NodeRoles.API)
+@RequiredArgsConstructor
+@Slf4j
+public class RenderJobController {
+
+    private final RenderJobService renderJobService;
+    private final Tenants tenants;
+
+    @PostMapping
+    public ResponseEntity<?> enqueue(@RequestBody RenderJobRequest request) {
+        try {
+            return ResponseEntity.accepted().body(renderJobService.enqueue(request, tenants.current()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error enqueueing render job", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Enqueue cả lô (mọi job hoặc không job nào)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> enqueueBatch(@RequestBody List<RenderJobRequest> requests) {
+        try {
+            return ResponseEntity.accepted().body(renderJobService.enqueueAll(requests, tenants.current()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error enqueueing render job batch", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<RenderJobDto> getJob(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(renderJobService.getJob(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * PDF của job đã xong (hỗ trợ Range), 409 nếu job chưa xong hoặc lỗi
+     */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> getResult(@PathVariable Long id) {
+        try {
+            Path result = renderJobService.resultFile(id);
+            if (result == null) {
+                RenderJobDto job = renderJobService.getJob(id);
+                if (RenderJobType.PRERENDER.name().equals(job.getType())) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body(Map.of("error", "Pre-rendered output is served by /api/v1/forms/" + job.getFormId() + "/generate", "job", job));
+                }
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "Render job is " + job.getStatus(), "job", job));
+            }
+            if (!Files.exists(result)) {
+                log.error("Result file of render job {} is missing: {}", id, result);
+                return ResponseEntity.status(HttpStatus.GONE).body(Map.of("error", "Result file is missing"));
+            }
+
+            // Trả về Resource để Spring MVC xử lý Range, viewer đọc file linearized theo từng đoạn
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentDispositionFormData("attachment", "render_job_" + id + ".pdf");
+            return ResponseEntity.ok().headers(headers).body(new FileSystemResource(result));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error reading result of render job {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.config.ConditionalOnNodeRole;
+import com.ceent.eform.config.NodeRoles;
+import com.ceent.eform.dto.TemplateUploadDto;
+import com.ceent.eform.dto.request.TemplateUploadRequest;
+import com.ceent.eform.service.ingest.ChunkedUploadService;
+import com.ceent.eform.service.ingest.UploadOffsetMismatchException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Upload template lớn theo chunk, resume được:
+ * POST tạo phiên, PUT /{id} gửi body thô kèm header Upload-Offset, GET (hoặc HEAD) /{id} trả offset để resume.
+ */
+@RestController
+@RequestMapping("/api/v1/templates/uploads")
+@ConditionalOnNodeRole(NodeRoles.API)
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateUploadController {
+
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    private final ChunkedUploadService uploadService;
+
+    @PostMapping
+    public ResponseEntity<?> createUpload(@RequestBody TemplateUploadRequest request) {
+        try {
+            TemplateUploadDto upload = uploadService.create(request);
+            return ResponseEntity.created(URI.create("/api/v1/templates/uploads/" + upload.getUploadId()))
+                    .header(UPLOAD_OFFSET, String.valueOf(upload.getOffset()))
+                    .body(upload);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error creating template upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<TemplateUploadDto> getUpload(@PathVariable String id) {
+        try {
+            TemplateUploadDto upload = uploadService.status(id);
+            return ResponseEntity.ok()
+                    .header(UPLOAD_OFFSET, String.valueOf(upload.getOffset()))
+                    .cacheControl(CacheControl.noStore())
+                    .body(upload);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String id,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request) {
+        try {
+            TemplateUploadDto upload = uploadService.appendChunk(id, offset, request.getInputStream());
+            return ResponseEntity.status(upload.getTemplate() != null ? HttpStatus.CREATED : HttpStatus.OK)
+                    .header(UPLOAD_OFFSET, String.valueOf(upload.getOffset()))
+                    .body(upload);
+        } catch (UploadOffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(UPLOAD_OFFSET, String.valueOf(e.getCurrentOffset()))
+                    .body(Map.of("error", e.getMessage(), "offset", e.getCurrentOffset()));
+        } catch (OptimisticLockingFailureException e) {
+            // Chunk cùng offset đang được ghi trên node khác
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Concurrent chunk for this upload"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error receiving chunk for template upload {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable String id) {
+        try {
+            uploadService.cancel(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Error cancelling template upload {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
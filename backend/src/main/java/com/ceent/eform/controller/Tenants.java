@@ -0,0 +1,50 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.service.render.TenantWeights;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tenant của request dùng cho chia capacity render: user đã xác thực, sau đó header X-Tenant-Id nếu request
+ * đi qua gateway tin cậy (app.render.tenant.trusted-gateways, gateway tự đặt header), không có thì anonymous.
+ * Header từ client khác bị bỏ qua: client đặt id ngẫu nhiên cho mỗi request sẽ được fair queuing coi là
+ * nhiều tenant mới và luôn được xếp đầu hàng.
+ */
+@Component
+class Tenants {
+
+    static final String HEADER = "X-Tenant-Id";
+
+    private static final int MAX_LENGTH = 100;
+
+    private final Set<String> trustedGateways;
+
+    Tenants(@Value("${app.render.tenant.trusted-gateways:}") List<String> trustedGateways) {
+        this.trustedGateways = Set.copyOf(trustedGateways);
+    }
+
+    String current() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return of(attributes.getRequest());
+        }
+        return TenantWeights.DEFAULT_TENANT;
+    }
+
+    String of(HttpServletRequest request) {
+        String tenant = request.getRemoteUser();
+        if ((tenant == null || tenant.isBlank()) && trustedGateways.contains(request.getRemoteAddr())) {
+            tenant = request.getHeader(HEADER);
+        }
+        if (tenant == null || tenant.isBlank()) {
+            return TenantWeights.DEFAULT_TENANT;
+        }
+        tenant = tenant.trim();
+        return tenant.length() > MAX_LENGTH ? tenant.substring(0, MAX_LENGTH) : tenant;
+    }
+}
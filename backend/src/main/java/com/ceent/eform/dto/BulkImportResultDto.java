@@ -0,0 +1,27 @@
+package com.ceent.eform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResultDto {
+    private int total;
+    private List<FormDto> imported = new ArrayList<>();
+    private List<RowError> failed = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int index;
+        private String name;
+        private Map<String, List<String>> errors;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -18,4 +19,8 @@ public class FormDto {
     private Map<String, Object> formData;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version; // dùng làm If-Match khi PATCH
+    private Long templateVersion; // ETag gồm cả version template vì DTO có tên template
+    private long renderRevision;
+    private List<String> lastChangedFields;
 }
@@ -0,0 +1,35 @@
+package com.ceent.eform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfEngineComparisonDto {
+    private Long templateId;
+    private String currentEngine;
+    private String referenceEngine; // engine dùng làm chuẩn để so sánh số trang / hình ảnh
+    private String recommendedEngine; // null nếu không engine nào đạt ngưỡng fidelity
+    private int iterations;
+    private List<EngineResult> engines = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EngineResult {
+        private String engine;
+        private boolean success;
+        private String error;
+        private long medianMillis;
+        private long pdfBytes;
+        private int pageCount;
+        private double textRecall; // tỉ lệ từ trong DOCX xuất hiện trong text PDF (0..1)
+        private double firstPageSimilarity; // so với trang đầu của reference engine (0..1)
+        private boolean acceptable;
+    }
+}
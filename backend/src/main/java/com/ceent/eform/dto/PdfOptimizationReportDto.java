@@ -0,0 +1,29 @@
+package com.ceent.eform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfOptimizationReportDto {
+    private String profile;
+    private long originalBytes;
+    private long optimizedBytes;
+    private long totalMillis;
+    private List<PassResult> passes = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PassResult {
+        private String pass;
+        private long bytesSaved; // so với kích thước sau pass trước, âm nếu pass làm file lớn hơn
+        private long millis;
+        private String detail;
+    }
+}
@@ -0,0 +1,19 @@
+package com.ceent.eform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderArtifactDto {
+    private String key;
+    private Long formId;
+    private long size;
+    private boolean linearized;
+    private String url; // tải qua GET, hỗ trợ Range
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,27 @@
+package com.ceent.eform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderJobDto {
+    private Long id;
+    private Long formId;
+    private String type;
+    private String status;
+    private int priority;
+    private String tenant;
+    private int attempts;
+    private int maxAttempts;
+    private String workerNode;
+    private Long resultSize;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -15,6 +16,13 @@ public class TemplateDto {
     private String name;
     private String filename;
     private List<String> variables;
+    private String status;
+    private String contentHash;
+    private Map<String, Long> stageTimings;
+    private String renderProfile;
+    private String pdfEngine;
+    private Long renderTimeoutMs; // null = app.render.deadline.default
+    private boolean preRender;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,18 @@
+package com.ceent.eform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateUploadDto {
+    private String uploadId;
+    private String name;
+    private String filename;
+    private long totalSize;
+    private long offset; // số byte đã nhận, chunk tiếp theo bắt đầu từ đây
+    private long maxChunkSize;
+    private TemplateDto template; // có khi upload đã xong
+}
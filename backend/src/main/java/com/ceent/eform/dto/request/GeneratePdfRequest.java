@@ -12,5 +12,7 @@ import java.util.Map;
 public class GeneratePdfRequest {
     private Long formId;
     private Map<String, Object> data;
+    private String optimize; // profile tối ưu PDF: none | web | archive, null = mặc định
+    private boolean linearize; // fast web view (qpdf)
 }
 
@@ -0,0 +1,18 @@
+package com.ceent.eform.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderJobRequest {
+    private Long formId;
+    private String type; // PDF | PDF_PRO, null = PDF_PRO
+    private Integer priority;
+    private Map<String, Object> data; // null = dùng formData đã lưu
+    private boolean linearize; // linearize PDF kết quả để xem nhanh qua byte range
+}
@@ -0,0 +1,19 @@
+package com.ceent.eform.dto.request;
+
+import com.ceent.eform.validator.FieldValidation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateSettingsRequest {
+    private String renderProfile;
+    private String pdfEngine; // tên engine DOCX → PDF, xem GET /api/v1/pdf-engines
+    private List<FieldValidation> validations; // null = giữ nguyên, [] = xóa rule
+    private Long renderTimeoutMs; // deadline compile/render/convert, 0 = về mặc định
+    private Boolean preRender; // render PDF nền khi lưu form, tải về không phải chờ render
+}
@@ -0,0 +1,15 @@
+package com.ceent.eform.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateUploadRequest {
+    private String name;
+    private String filename;
+    private Long size;
+    private String sha256; // tuỳ chọn, kiểm tra khi upload xong
+}
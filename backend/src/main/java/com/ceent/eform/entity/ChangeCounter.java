@@ -0,0 +1,29 @@
+package com.ceent.eform.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bộ đếm thay đổi cho mỗi bảng, tăng trong cùng transaction với thao tác ghi.
+ * Dùng làm ETag/Last-Modified cho API đọc danh sách mà không cần load dòng nào.
+ */
+@Entity
+@Table(name = "change_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeCounter {
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(name = "counter_value", nullable = false)
+    private long value;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.ceent.eform.entity;
 
+import com.ceent.eform.service.change.ChangeCountingListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "forms")
+@EntityListeners(ChangeCountingListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,6 +30,17 @@ public class Form {
     @Column(columnDefinition = "TEXT")
     private String formData; // JSON string chứa dữ liệu form
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Chỉ tăng khi field được template tham chiếu thay đổi, PDF cùng renderRevision là như nhau
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long renderRevision;
+
+    @Column(length = 1000)
+    private String lastChangedFields; // JSON list field đổi ở lần PATCH gần nhất
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,101 @@
+package com.ceent.eform.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Job render trong hàng đợi dùng chung giữa các node. Worker claim job bằng
+ * SELECT ... FOR UPDATE SKIP LOCKED, giữ lease bằng heartbeat; lease hết hạn thì job được đưa lại hàng đợi.
+ */
+@Entity
+@Table(name = "render_jobs", indexes = {
+        @Index(name = "idx_render_jobs_claim", columnList = "status, available_at"),
+        @Index(name = "idx_render_jobs_lease", columnList = "status, lease_expires_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_render_jobs_queued_prerender", columnNames = "queued_prerender_form_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long formId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RenderJobType type;
+
+    @Lob
+    @Column(columnDefinition = "TEXT")
+    private String requestData; // JSON data override, null = dùng formData đã lưu
+
+    private Boolean linearize; // linearize PDF kết quả (fast web view)
+
+    // = formId khi là job PRERENDER đang chờ lần claim đầu, null với job khác và sau khi claim.
+    // Unique (NULL không trùng nhau) nên mỗi form có nhiều nhất một job pre-render chờ, kể cả khi nhiều node cùng enqueue
+    private Long queuedPrerenderFormId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RenderJobStatus status;
+
+    @Column(nullable = false)
+    private int priority; // lớn hơn được claim trước
+
+    @Column(length = 100)
+    private String tenant; // chia lượt claim công bằng giữa các tenant cùng priority
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private int maxAttempts;
+
+    @Column(nullable = false)
+    private LocalDateTime availableAt; // chưa claim trước thời điểm này (backoff khi retry)
+
+    @Column(length = 100)
+    private String leaseOwner; // id của worker node đang giữ job
+
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(length = 500)
+    private String resultPath;
+
+    private Long resultSize;
+
+    @Column(length = 1000)
+    private String error;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (availableAt == null) {
+            availableAt = createdAt;
+        }
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,11 @@
+package com.ceent.eform.entity;
+
+/**
+ * Trạng thái của job render trong hàng đợi render_jobs
+ */
+public enum RenderJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package com.ceent.eform.entity;
+
+/**
+ * Loại output của job render: PDF cơ bản (generate-pdf), PDF font Times New Roman (generate-pdf-pro),
+ * hoặc pre-render: PDF pro từ formData đã lưu, kết quả nằm trong RenditionCache thay vì file của job
+ */
+public enum RenderJobType {
+    PDF,
+    PDF_PRO,
+    PRERENDER
+}
@@ -1,14 +1,20 @@
 package com.ceent.eform.entity;
 
+import com.ceent.eform.config.SecondLevelCacheConfig;
+import com.ceent.eform.service.change.ChangeCountingListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "templates")
+@EntityListeners(ChangeCountingListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.TEMPLATE_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,6 +36,46 @@ public class Template {
     @Column(columnDefinition = "TEXT")
     private String variables; // JSON string chứa danh sách biến
 
+    private Boolean variablesComplete; // Danh sách biến đã quét hết mọi phần của file, null/false = không chắc chắn
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private TemplateStatus status;
+
+    @Column(length = 64)
+    private String contentHash; // SHA-256 của file gốc, dùng làm version của template
+
+    // Optimistic lock: pipeline ingestion chạy nền không ghi đè contentHash/settings vừa được lưu
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    private Long fileSize;
+
+    private String preparedFilePath; // Bản đã chuẩn hóa font/media dùng khi render
+
+    private String thumbnailPath;
+
+    @Lob
+    @Column(columnDefinition = "TEXT")
+    private String stageTimings; // JSON: thời gian (ms) của từng stage ingestion
+
+    @Column(length = 1000)
+    private String statusMessage;
+
+    @Column(length = 50)
+    private String renderProfile; // Profile Configure của POI-TL, null = default
+
+    @Column(length = 50)
+    private String pdfEngine; // Engine DOCX → PDF, null = app.pdf.engine
+
+    private Long renderTimeoutMs; // Deadline của một lần render, null = app.render.deadline.default
+
+    private Boolean preRender; // Render PDF nền ngay sau khi lưu form, null = không
+
+    @Column(columnDefinition = "TEXT")
+    private String validationRules; // JSON: danh sách FieldValidation áp dụng khi lưu form
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -40,6 +86,9 @@ public class Template {
     public void prePersist() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (status == null) {
+            status = TemplateStatus.UPLOADED;
+        }
     }
 
     @PreUpdate
@@ -0,0 +1,43 @@
+package com.ceent.eform.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change-log phiên bản template, các node poll bảng này để invalidate cache của mình
+ */
+@Entity
+@Table(name = "template_changes", indexes = {
+        @Index(name = "idx_template_changes_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long templateId;
+
+    @Column(length = 64)
+    private String contentHash; // phiên bản mới, null khi template bị xóa
+
+    @Column(nullable = false, length = 20)
+    private String reason;
+
+    @Column(nullable = false, length = 100)
+    private String originNode;
+
+    // Lấy giờ của database để mọi node so sánh trên cùng một đồng hồ
+    @CreationTimestamp(source = SourceType.DB)
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
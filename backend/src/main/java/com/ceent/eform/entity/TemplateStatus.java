@@ -0,0 +1,11 @@
+package com.ceent.eform.entity;
+
+/**
+ * Trạng thái xử lý template sau khi upload
+ */
+public enum TemplateStatus {
+    UPLOADED,
+    PROCESSING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,63 @@
+package com.ceent.eform.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Phiên upload template theo chunk. Bytes được ghi thẳng vào file .part trong app.upload.chunked.part-dir,
+ * receivedBytes là offset client phải gửi tiếp khi resume.
+ */
+@Entity
+@Table(name = "template_uploads")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateUpload {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private String filename;
+
+    @Column(nullable = false)
+    private long totalSize;
+
+    @Column(length = 64)
+    private String expectedSha256; // client gửi khi tạo phiên, null = không kiểm tra
+
+    @Column(nullable = false)
+    private long receivedBytes;
+
+    @Column(nullable = false, length = 500)
+    private String partPath;
+
+    private Long templateId; // template đã tạo khi upload xong
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -2,16 +2,26 @@ package com.ceent.eform.repository;
 
 import com.ceent.eform.entity.Form;
 import com.ceent.eform.entity.Template;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FormRepository extends JpaRepository<Form, Long> {
 
+    /**
+     * Form kèm template trong một query: render chạy trên thread của scheduler/worker, không có session
+     * để load template lazy sau khi repository trả về
+     */
+    @EntityGraph(attributePaths = "template")
+    @Query("SELECT f FROM Form f WHERE f.id = :id")
+    Optional<Form> findWithTemplateById(@Param("id") Long id);
+
     List<Form> findByTemplate(Template template);
 
     List<Form> findByTemplateId(Long templateId);
@@ -25,4 +35,16 @@ public interface FormRepository extends JpaRepository<Form, Long> {
     List<Form> findAllOrderByCreatedAtDesc();
 
     long countByTemplateId(Long templateId);
+
+    /**
+     * Version của form và template của nó (FormDto có tên template), không đọc formData
+     */
+    @Query("SELECT f.version AS version, t.version AS templateVersion FROM Form f JOIN f.template t WHERE f.id = :id")
+    Optional<FormVersions> findVersionsById(@Param("id") Long id);
+
+    interface FormVersions {
+        Long getVersion();
+
+        Long getTemplateVersion();
+    }
 }
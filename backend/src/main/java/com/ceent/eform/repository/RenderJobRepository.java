@@ -0,0 +1,76 @@
+package com.ceent.eform.repository;
+
+import com.ceent.eform.entity.RenderJob;
+import com.ceent.eform.entity.RenderJobStatus;
+import com.ceent.eform.entity.RenderJobType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RenderJobRepository extends JpaRepository<RenderJob, Long> {
+
+    /**
+     * Khóa các job sẵn sàng, bỏ qua dòng đang bị worker khác khóa (H2 2.x và PostgreSQL đều hỗ trợ)
+     */
+    @Query(value = "SELECT * FROM render_jobs WHERE status = 'QUEUED' AND available_at <= :now " +
+            "ORDER BY priority DESC, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<RenderJob> lockNextQueued(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Số job đang chạy của từng tenant trên mọi worker: [tenant, count]
+     */
+    @Query("SELECT j.tenant, COUNT(j) FROM RenderJob j " +
+            "WHERE j.status = com.ceent.eform.entity.RenderJobStatus.RUNNING GROUP BY j.tenant")
+    List<Object[]> countRunningByTenant();
+
+    @Modifying
+    @Query("UPDATE RenderJob j SET j.leaseExpiresAt = :expiresAt, j.updatedAt = :now " +
+            "WHERE j.id IN :ids AND j.leaseOwner = :owner AND j.status = com.ceent.eform.entity.RenderJobStatus.RUNNING")
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+                    @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RenderJob j SET j.status = com.ceent.eform.entity.RenderJobStatus.QUEUED, " +
+            "j.leaseOwner = null, j.leaseExpiresAt = null, j.availableAt = :now, j.updatedAt = :now " +
+            "WHERE j.status = com.ceent.eform.entity.RenderJobStatus.RUNNING AND j.leaseExpiresAt < :now " +
+            "AND j.attempts < j.maxAttempts")
+    int requeueExpired(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RenderJob j SET j.status = com.ceent.eform.entity.RenderJobStatus.FAILED, " +
+            "j.error = 'Lease expired, no attempts left', j.leaseOwner = null, j.leaseExpiresAt = null, " +
+            "j.completedAt = :now, j.updatedAt = :now " +
+            "WHERE j.status = com.ceent.eform.entity.RenderJobStatus.RUNNING AND j.leaseExpiresAt < :now " +
+            "AND j.attempts >= j.maxAttempts")
+    int failExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Chỉ worker còn giữ lease mới được ghi kết quả
+     */
+    @Modifying
+    @Query("UPDATE RenderJob j SET j.status = com.ceent.eform.entity.RenderJobStatus.SUCCEEDED, " +
+            "j.resultPath = :resultPath, j.resultSize = :resultSize, j.error = null, " +
+            "j.leaseOwner = null, j.leaseExpiresAt = null, j.completedAt = :now, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = com.ceent.eform.entity.RenderJobStatus.RUNNING")
+    int markSucceeded(@Param("id") Long id, @Param("owner") String owner, @Param("resultPath") String resultPath,
+                      @Param("resultSize") long resultSize, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RenderJob j SET j.status = :status, j.error = :error, j.availableAt = :availableAt, " +
+            "j.leaseOwner = null, j.leaseExpiresAt = null, j.completedAt = :completedAt, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = com.ceent.eform.entity.RenderJobStatus.RUNNING")
+    int releaseWithError(@Param("id") Long id, @Param("owner") String owner, @Param("status") RenderJobStatus status,
+                         @Param("error") String error, @Param("availableAt") LocalDateTime availableAt,
+                         @Param("completedAt") LocalDateTime completedAt, @Param("now") LocalDateTime now);
+
+    long countByStatus(RenderJobStatus status);
+
+    boolean existsByFormIdAndTypeAndStatus(Long formId, RenderJobType type, RenderJobStatus status);
+}
@@ -0,0 +1,25 @@
+package com.ceent.eform.repository;
+
+import com.ceent.eform.entity.TemplateChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TemplateChangeRepository extends JpaRepository<TemplateChange, Long> {
+
+    List<TemplateChange> findByCreatedAtGreaterThanEqualOrderByIdAsc(LocalDateTime since, Pageable pageable);
+
+    Optional<TemplateChange> findTopByOrderByIdDesc();
+
+    @Modifying
+    @Query("DELETE FROM TemplateChange c WHERE c.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
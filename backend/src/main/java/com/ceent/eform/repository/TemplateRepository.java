@@ -1,10 +1,19 @@
 package com.ceent.eform.repository;
 
+import com.ceent.eform.config.SecondLevelCacheConfig;
 import com.ceent.eform.entity.Template;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,7 +25,27 @@ public interface TemplateRepository extends JpaRepository<Template, Long> {
     List<Template> findByNameContainingIgnoreCase(String name);
 
     @Query("SELECT t FROM Template t ORDER BY t.createdAt DESC")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.TEMPLATE_LIST_REGION)
+    })
     List<Template> findAllOrderByCreatedAtDesc();
 
     boolean existsByName(String name);
+
+    List<Template> findByFilePathIn(Collection<String> filePaths);
+
+    /**
+     * Ghi nhận nội dung mới của file gốc nếu DB chưa có hash này. Nhiều node cùng thấy một lần sửa file
+     * (hoặc node lưu từ OnlyOffice và node khác thấy qua watcher) thì chỉ một câu UPDATE trả về 1,
+     * node đó mới chạy lại ingestion. Bulk update không qua entity listener: caller tự bump ChangeCounters.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Template t SET t.contentHash = :contentHash, t.fileSize = :fileSize, " +
+            "t.status = com.ceent.eform.entity.TemplateStatus.UPLOADED, t.statusMessage = null, t.variablesComplete = null, " +
+            "t.version = t.version + 1, t.updatedAt = :now " +
+            "WHERE t.id = :id AND (t.contentHash IS NULL OR t.contentHash <> :contentHash)")
+    int markContentChanged(@Param("id") Long id, @Param("contentHash") String contentHash,
+                           @Param("fileSize") long fileSize, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,14 @@
+package com.ceent.eform.repository;
+
+import com.ceent.eform.entity.TemplateUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TemplateUploadRepository extends JpaRepository<TemplateUpload, String> {
+
+    List<TemplateUpload> findByTemplateIdIsNullAndUpdatedAtBefore(LocalDateTime cutoff);
+}
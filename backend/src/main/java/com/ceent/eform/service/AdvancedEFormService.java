@@ -1,14 +1,15 @@
 package com.ceent.eform.service;
 
-import com.ceent.eform.dto.TemplateDto;
 import com.ceent.eform.dto.request.GeneratePdfRequest;
+import com.ceent.eform.service.image.ImagePipeline;
+import com.ceent.eform.service.preview.PreviewImage;
+import com.ceent.eform.service.preview.TemplatePreviewService;
+import com.ceent.eform.service.table.TableRowSource;
+import com.ceent.eform.validator.CompiledFormValidator;
 import com.ceent.eform.validator.FieldValidation;
 import com.ceent.eform.validator.PreviewResult;
 import com.ceent.eform.validator.ValidationResult;
-import com.deepoove.poi.config.Configure;
 import com.deepoove.poi.data.*;
-import com.deepoove.poi.plugin.table.LoopRowTableRenderPolicy;
-import com.deepoove.poi.policy.PictureRenderPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
@@ -16,8 +17,11 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 @Service
@@ -26,15 +30,32 @@ import java.util.concurrent.CompletableFuture;
 public class AdvancedEFormService {
 
     private final EFormService eFormService;
+    private final TemplatePreviewService templatePreviewService;
+    private final ImagePipeline imagePipeline;
 
     /**
-     * Tạo template với bảng động
+     * Tạo template với bảng động (cột theo thứ tự key của dòng đầu tiên)
      */
     public Map<String, Object> createTableData(List<Map<String, Object>> tableRows) {
+        List<String> columns = new ArrayList<>();
+        if (tableRows != null) {
+            tableRows.stream()
+                    .filter(row -> row != null && !row.isEmpty())
+                    .findFirst()
+                    .ifPresent(row -> columns.addAll(row.keySet()));
+        }
+        return createTableData(tableRows, columns);
+    }
+
+    /**
+     * Tạo template với bảng động theo thứ tự cột khai báo.
+     * Phù hợp cho bảng nhỏ; bảng lớn nên dùng createStreamingTableData.
+     */
+    public Map<String, Object> createTableData(List<Map<String, Object>> tableRows, List<String> columns) {
         Map<String, Object> data = new HashMap<>();
 
         // Validate input
-        if (tableRows == null || tableRows.isEmpty()) {
+        if (tableRows == null || tableRows.isEmpty() || columns.isEmpty()) {
             data.put("table", Tables.create());
             return data;
         }
@@ -43,17 +64,12 @@ public class AdvancedEFormService {
         List<RowRenderData> rows = new ArrayList<>();
         for (Map<String, Object> row : tableRows) {
             if (row != null && !row.isEmpty()) {
-                // Convert map values to CellRenderData array
-                List<CellRenderData> cells = new ArrayList<>();
-                for (Object value : row.values()) {
-                    // Convert each value to a cell
-                    String cellText = value != null ? value.toString() : "";
-                    cells.add(Cells.of(cellText).create());
+                CellRenderData[] cells = new CellRenderData[columns.size()];
+                for (int i = 0; i < cells.length; i++) {
+                    Object value = row.get(columns.get(i));
+                    cells[i] = Cells.of(value != null ? value.toString() : "").create();
                 }
-
-                // Create row with cells
-                RowRenderData rowData = Rows.of(cells.toArray(new CellRenderData[0])).create();
-                rows.add(rowData);
+                rows.add(Rows.of(cells).create());
             }
         }
 
@@ -68,29 +84,34 @@ public class AdvancedEFormService {
     }
 
     /**
-     * Xử lý hình ảnh trong template
+     * Dữ liệu cho bảng lớn {{%tagName}}: các dòng được đọc lần lượt từ iterator và
+     * ghi thẳng vào document.xml, không tạo Cells/Rows/Tables cho từng dòng
      */
-    public Map<String, Object> processImages(Map<String, Object> formData) {
-        Map<String, Object> processedData = new HashMap<>(formData);
+    public Map<String, Object> createStreamingTableData(String tagName, List<String> columns,
+                                                        Iterator<? extends Map<String, ?>> rows) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(tagName, TableRowSource.ofRows(columns, rows));
+        return data;
+    }
 
+    /**
+     * Xử lý hình ảnh trong template: field có giá trị là nguồn ảnh (data URI, URL, đường dẫn ảnh)
+     */
+    public Map<String, Object> processImages(Map<String, Object> formData) {
+        Set<String> imageFields = new HashSet<>();
         formData.forEach((key, value) -> {
-            if (key.contains("image") || key.contains("picture")) {
-                if (value instanceof String) {
-                    String imagePath = (String) value;
-                    try {
-                        PictureRenderData picture = Pictures.ofLocal(imagePath)
-                                .size(150, 150)
-                                .create();
-                        processedData.put(key, picture);
-                    } catch (Exception e) {
-                        log.error("Error processing image: " + imagePath, e);
-                        processedData.put(key, Texts.of("").create());
-                    }
-                }
+            if (imagePipeline.looksLikeImageSource(value)) {
+                imageFields.add(key);
             }
         });
+        return processImages(formData, imageFields);
+    }
 
-        return processedData;
+    /**
+     * Xử lý hình ảnh cho các field đã biết là picture ({{@tên}} trong template)
+     */
+    public Map<String, Object> processImages(Map<String, Object> formData, Set<String> imageFields) {
+        return imagePipeline.resolvePictures(new HashMap<>(formData), imageFields);
     }
 
     /**
@@ -115,66 +136,11 @@ public class AdvancedEFormService {
     }
 
     /**
-     * Validation nâng cao cho form data
+     * Validation nâng cao cho form data, rule được compile qua CompiledFormValidator
      */
     public ValidationResult validateFormData(Map<String, Object> formData,
                                              List<FieldValidation> validations) {
-        ValidationResult result = new ValidationResult();
-        Map<String, String> errors = new HashMap<>();
-
-        for (FieldValidation validation : validations) {
-            String fieldName = validation.getFieldName();
-            Object value = formData.get(fieldName);
-
-            // Required validation
-            if (validation.isRequired() && (value == null || value.toString().trim().isEmpty())) {
-                errors.put(fieldName, "Trường " + fieldName + " là bắt buộc");
-                continue;
-            }
-
-            if (value != null && !value.toString().trim().isEmpty()) {
-                String stringValue = value.toString().trim();
-
-                // Email validation
-                if ("email".equals(validation.getType())) {
-                    if (!isValidEmail(stringValue)) {
-                        errors.put(fieldName, "Email không hợp lệ");
-                    }
-                }
-
-                // Phone validation
-                if ("phone".equals(validation.getType())) {
-                    if (!isValidPhone(stringValue)) {
-                        errors.put(fieldName, "Số điện thoại không hợp lệ");
-                    }
-                }
-
-                // Date validation
-                if ("date".equals(validation.getType())) {
-                    if (!isValidDate(stringValue)) {
-                        errors.put(fieldName, "Định dạng ngày không hợp lệ");
-                    }
-                }
-
-                // Length validation
-                if (validation.getMinLength() > 0 && stringValue.length() < validation.getMinLength()) {
-                    errors.put(fieldName, "Độ dài tối thiểu " + validation.getMinLength() + " ký tự");
-                }
-
-                if (validation.getMaxLength() > 0 && stringValue.length() > validation.getMaxLength()) {
-                    errors.put(fieldName, "Độ dài tối đa " + validation.getMaxLength() + " ký tự");
-                }
-
-                // Pattern validation
-                if (validation.getPattern() != null && !stringValue.matches(validation.getPattern())) {
-                    errors.put(fieldName, "Định dạng không hợp lệ");
-                }
-            }
-        }
-
-        result.setValid(errors.isEmpty());
-        result.setErrors(errors);
-        return result;
+        return CompiledFormValidator.compile(validations).validate(formData);
     }
 
     /**
@@ -237,79 +203,21 @@ public class AdvancedEFormService {
      */
     public PreviewResult previewTemplate(Long templateId, Map<String, Object> sampleData) {
         try {
-            TemplateDto template = eFormService.getTemplate(templateId);
-
-            // Create sample data for preview
-            Map<String, Object> previewData = new HashMap<>();
-            for (String variable : template.getVariables()) {
-                if (sampleData.containsKey(variable)) {
-                    previewData.put(variable, sampleData.get(variable));
-                } else {
-                    previewData.put(variable, "[" + variable + "]");
-                }
-            }
-
-            // Generate preview (first page only)
-            GeneratePdfRequest request = new GeneratePdfRequest();
-            request.setFormId(null); // Use template directly
-            request.setData(previewData);
+            // Render trang đầu thành ảnh, biến thiếu được điền [tên biến]
+            PreviewImage preview = templatePreviewService.preview(templateId, sampleData, null, null);
 
-            // This would need modification in the service to accept template ID directly
-            byte[] previewPdf = generatePreviewPdf(templateId, previewData);
-
-            return new PreviewResult(true, previewPdf, "Preview generated successfully");
+            return new PreviewResult(true, preview.getData(), "Preview generated successfully", preview.getContentType());
         } catch (Exception e) {
             log.error("Error generating preview", e);
             return new PreviewResult(false, null, "Error: " + e.getMessage());
         }
     }
 
-    /**
-     * Configure POI-TL with advanced features
-     */
-    private Configure createAdvancedConfigure() {
-        return Configure.builder()
-                .useSpringEL() // Enable Spring Expression Language
-                .addPlugin('=', new LoopRowTableRenderPolicy()) // Table loops
-                .addPlugin('@', new PictureRenderPolicy()) // Image handling
-                .build();
-    }
-
     // Helper methods
-    private boolean isValidEmail(String email) {
-        return email.matches("^[A-Za-z0-9+_.-]+@([A-Za-z0-9.-]+\\.[A-Za-z]{2,})$");
-    }
-
-    private boolean isValidPhone(String phone) {
-        return phone.matches("^[0-9+\\-\\s()]{10,15}$");
-    }
-
-    private boolean isValidDate(String date) {
-        try {
-            // Support multiple date formats
-            String[] patterns = {"yyyy-MM-dd", "dd/MM/yyyy", "dd-MM-yyyy"};
-            for (String pattern : patterns) {
-                try {
-                    java.time.LocalDate.parse(date, java.time.format.DateTimeFormatter.ofPattern(pattern));
-                    return true;
-                } catch (Exception ignored) {}
-            }
-            return false;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
     private void updateProgress(String taskId, int progress, String message) {
         // Implementation would depend on your progress tracking mechanism
         // Could use WebSocket, Redis, or database
         log.info("Task {}: {}% - {}", taskId, progress, message);
     }
 
-    private byte[] generatePreviewPdf(Long templateId, Map<String, Object> data) throws Exception {
-        // This would need to be implemented to work directly with template ID
-        // For now, this is a placeholder
-        return new byte[0];
-    }
-
 }
@@ -1,46 +1,83 @@
 package com.ceent.eform.service;
 
+import com.ceent.eform.dto.BulkImportResultDto;
 import com.ceent.eform.dto.FormDto;
 import com.ceent.eform.dto.TemplateDto;
 import com.ceent.eform.dto.request.FormDataRequest;
 import com.ceent.eform.dto.request.GeneratePdfRequest;
+import com.ceent.eform.dto.request.TemplateSettingsRequest;
 import com.ceent.eform.entity.Form;
 import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
 import com.ceent.eform.repository.FormRepository;
 import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.convert.PdfEngineRegistry;
+import com.ceent.eform.service.ingest.StoredFile;
+import com.ceent.eform.service.ingest.TemplateStorage;
+import com.ceent.eform.service.ingest.TemplateStoredEvent;
+import com.ceent.eform.service.invalidation.InvalidationBus;
+import com.ceent.eform.service.invalidation.TemplateInvalidation;
+import com.ceent.eform.service.metrics.RenderMetrics;
+import com.ceent.eform.service.normalize.FormDataNormalizer;
+import com.ceent.eform.service.optimize.PdfLinearizer;
+import com.ceent.eform.service.optimize.PdfOptimizer;
+import com.ceent.eform.service.patch.JsonMergePatch;
+import com.ceent.eform.service.patch.TemplateFieldReferences;
+import com.ceent.eform.service.prerender.FormRenderChangedEvent;
+import com.ceent.eform.service.render.RenderCancelledException;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import com.ceent.eform.service.render.RenderContext;
+import com.ceent.eform.service.render.RenderGuard;
+import com.ceent.eform.service.validation.FormValidationService;
+import com.ceent.eform.validator.FormValidationException;
+import com.ceent.eform.validator.ValidationResult;
 import com.deepoove.poi.XWPFTemplate;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import fr.opensagres.poi.xwpf.converter.pdf.PdfConverter;
-import fr.opensagres.poi.xwpf.converter.pdf.PdfOptions;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EFormService {
 
+    private static final Set<String> PATCHABLE_FORM_FIELDS = Set.of("name", "formData");
+
     private final TemplateRepository templateRepository;
     private final FormRepository formRepository;
     private final ObjectMapper objectMapper;
+    private final TemplateStorage templateStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RenderConfigureRegistry configureRegistry;
+    private final FormValidationService formValidationService;
+    private final RenderMetrics renderMetrics;
+    private final PdfEngineRegistry pdfEngineRegistry;
+    private final InvalidationBus invalidationBus;
+    private final PdfOptimizer pdfOptimizer;
+    private final PdfLinearizer pdfLinearizer;
+    private final TemplateFieldReferences templateFieldReferences;
+    private final FormDataNormalizer dataNormalizer;
+    private final RenderGuard renderGuard;
 
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
@@ -56,38 +93,42 @@ public class EFormService {
             Files.createDirectories(uploadPath);
         }
 
-        // Lưu file
+        // Lưu file (tính SHA-256 và fsync trong lúc ghi)
         String filename = StringUtils.cleanPath(file.getOriginalFilename());
         String uniqueFilename = System.currentTimeMillis() + "_" + filename;
         Path targetPath = uploadPath.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+        StoredFile storedFile;
+        try (InputStream inputStream = file.getInputStream()) {
+            storedFile = templateStorage.store(inputStream, targetPath);
+        }
 
-        // Phân tích biến trong template
-        List<String> variables = extractVariablesFromTemplate(targetPath.toString());
+        return registerTemplate(templateName, filename, storedFile);
+    }
 
-        // Lưu thông tin template vào database
+    /**
+     * Lưu thông tin template cho file đã nằm trong thư mục upload, biến sẽ được phân tích bởi pipeline chạy nền
+     */
+    @Transactional
+    public TemplateDto registerTemplate(String templateName, String filename, StoredFile storedFile) {
         Template template = new Template();
         template.setName(templateName);
         template.setFilename(filename);
-        template.setFilePath(targetPath.toString());
-        template.setVariables(objectMapper.writeValueAsString(variables));
+        template.setFilePath(storedFile.getPath().toString());
+        template.setVariables("[]");
+        template.setStatus(TemplateStatus.UPLOADED);
+        template.setContentHash(storedFile.getSha256());
+        template.setFileSize(storedFile.getSize());
 
         template = templateRepository.save(template);
+        eventPublisher.publishEvent(new TemplateStoredEvent(template.getId(), template.getContentHash()));
+        invalidationBus.publish(template.getId(), template.getContentHash(), TemplateInvalidation.REASON_UPLOAD);
 
         // Chuyển đổi sang DTO
-        TemplateDto dto = new TemplateDto();
-        dto.setId(template.getId());
-        dto.setName(template.getName());
-        dto.setFilename(template.getFilename());
-        dto.setVariables(variables);
-        dto.setCreatedAt(template.getCreatedAt());
-        dto.setUpdatedAt(template.getUpdatedAt());
-
-        return dto;
+        return convertToDto(template);
     }
 
     public List<TemplateDto> getAllTemplates() {
-        List<Template> templates = templateRepository.findAll();
+        List<Template> templates = templateRepository.findAllOrderByCreatedAtDesc();
         return templates.stream().map(this::convertToDto).toList();
     }
 
@@ -97,26 +138,229 @@ public class EFormService {
         return convertToDto(template);
     }
 
+    /**
+     * Cập nhật cấu hình render của template
+     */
+    @Transactional
+    public TemplateDto updateTemplateSettings(Long id, TemplateSettingsRequest request) {
+        Template template = templateRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Template not found"));
+
+        if (request.getRenderProfile() != null) {
+            if (!configureRegistry.hasProfile(request.getRenderProfile())) {
+                throw new IllegalArgumentException("Unknown render profile: " + request.getRenderProfile()
+                        + ", available: " + configureRegistry.profileNames());
+            }
+            template.setRenderProfile(request.getRenderProfile());
+        }
+
+        if (request.getPdfEngine() != null) {
+            if (!pdfEngineRegistry.hasEngine(request.getPdfEngine())) {
+                throw new IllegalArgumentException("Unknown PDF engine: " + request.getPdfEngine()
+                        + ", available: " + pdfEngineRegistry.engineNames());
+            }
+            template.setPdfEngine(request.getPdfEngine());
+        }
+
+        if (request.getRenderTimeoutMs() != null) {
+            if (request.getRenderTimeoutMs() < 0) {
+                throw new IllegalArgumentException("renderTimeoutMs must be >= 0 (0 = app.render.deadline.default)");
+            }
+            template.setRenderTimeoutMs(request.getRenderTimeoutMs() == 0 ? null : request.getRenderTimeoutMs());
+        }
+
+        if (request.getPreRender() != null) {
+            template.setPreRender(request.getPreRender());
+        }
+
+        if (request.getValidations() != null) {
+            // Compile thử trước khi lưu để báo lỗi pattern ngay
+            template.setValidationRules(formValidationService.serializeRules(request.getValidations()));
+        }
+
+        template = templateRepository.save(template);
+        // Cache validator/preview trên mọi node (kể cả node này) được bỏ sau khi commit
+        invalidationBus.publish(id, template.getContentHash(), TemplateInvalidation.REASON_SETTINGS);
+        return convertToDto(template);
+    }
+
     @Transactional
     public FormDto saveForm(FormDataRequest request) throws Exception {
         Template template = templateRepository.findById(request.getTemplateId())
                 .orElseThrow(() -> new RuntimeException("Template not found"));
 
+        ValidationResult validation = formValidationService.validate(template, request.getData());
+        if (!validation.isValid()) {
+            throw new FormValidationException(validation);
+        }
+
         Form form = new Form();
         form.setTemplate(template);
         form.setName(request.getName());
         form.setFormData(objectMapper.writeValueAsString(request.getData()));
 
         form = formRepository.save(form);
+        publishFormRendered(form);
+
+        return convertToFormDto(form);
+    }
+
+    /**
+     * Sửa form bằng JSON Merge Patch trên {"name": ..., "formData": {...}}.
+     * expectedVersion (từ If-Match) khác version hiện tại thì ném OptimisticLockingFailureException.
+     * renderRevision chỉ tăng khi field đổi được template tham chiếu, đổi tên hay field thừa không cần render lại.
+     */
+    @Transactional
+    public FormDto patchForm(Long id, JsonNode patch, Long expectedVersion) throws Exception {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Merge patch must be a JSON object");
+        }
+        Iterator<String> patchedFields = patch.fieldNames();
+        while (patchedFields.hasNext()) {
+            String field = patchedFields.next();
+            if (!PATCHABLE_FORM_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Field cannot be patched: " + field);
+            }
+        }
+
+        Form form = formRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Form not found"));
+        if (expectedVersion != null && !expectedVersion.equals(form.getVersion())) {
+            throw new OptimisticLockingFailureException("Form " + id + " is at version " + form.getVersion()
+                    + ", not " + expectedVersion);
+        }
+
+        ObjectNode current = objectMapper.createObjectNode();
+        current.put("name", form.getName());
+        current.set("formData", objectMapper.readTree(form.getFormData()));
+        JsonNode patched = JsonMergePatch.apply(current, patch);
+
+        JsonNode name = patched.get("name");
+        JsonNode formData = patched.get("formData");
+        if (name == null || !name.isTextual() || name.asText().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (formData == null || !formData.isObject()) {
+            throw new IllegalArgumentException("formData must be a JSON object");
+        }
+
+        // Chuẩn hoá như khi lưu form (POST /forms) trước khi so sánh
+        Map<String, Object> data = dataNormalizer.normalize(
+                objectMapper.convertValue(formData, new TypeReference<Map<String, Object>>() {}));
+
+        List<String> changedFields = new ArrayList<>();
+        if (!name.asText().equals(form.getName())) {
+            changedFields.add("name");
+        }
+        Set<String> changedDataFields = changedTopLevelFields(current.get("formData"), objectMapper.valueToTree(data));
+        changedDataFields.forEach(field -> changedFields.add("formData." + field));
+        if (changedFields.isEmpty()) {
+            return convertToFormDto(form);
+        }
+
+        if (!changedDataFields.isEmpty()) {
+            ValidationResult validation = formValidationService.validate(form.getTemplate(), data);
+            if (!validation.isValid()) {
+                throw new FormValidationException(validation);
+            }
+        }
 
+        boolean renderChanged = templateFieldReferences.affectsRender(form.getTemplate(), changedDataFields);
+        form.setName(name.asText());
+        form.setFormData(objectMapper.writeValueAsString(data));
+        form.setLastChangedFields(objectMapper.writeValueAsString(changedFields));
+        if (renderChanged) {
+            form.setRenderRevision(form.getRenderRevision() + 1);
+        }
+        // saveAndFlush để version mới (và lỗi optimistic lock nếu có) xuất hiện ngay trong response
+        form = formRepository.saveAndFlush(form);
+        if (renderChanged) {
+            publishFormRendered(form);
+        }
+        log.debug("Form {} patched to version {}, changed {}, render {}", id, form.getVersion(), changedFields,
+                renderChanged ? "revision " + form.getRenderRevision() : "unchanged");
         return convertToFormDto(form);
     }
 
+    /**
+     * Template bật preRender: PreRenderService render PDF của renderRevision mới sau khi transaction commit
+     */
+    private void publishFormRendered(Form form) {
+        if (Boolean.TRUE.equals(form.getTemplate().getPreRender())) {
+            eventPublisher.publishEvent(new FormRenderChangedEvent(form.getId(), form.getRenderRevision()));
+        }
+    }
+
+    private Set<String> changedTopLevelFields(JsonNode before, JsonNode after) {
+        Set<String> changed = new LinkedHashSet<>();
+        before.fieldNames().forEachRemaining(field -> {
+            if (!before.get(field).equals(after.get(field))) {
+                changed.add(field);
+            }
+        });
+        after.fieldNames().forEachRemaining(field -> {
+            if (!before.has(field)) {
+                changed.add(field);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Import nhiều form một lần: dòng hợp lệ được lưu, dòng lỗi được trả về kèm toàn bộ lỗi theo field.
+     * Template và validator được load một lần cho mỗi template trong batch.
+     */
+    @Transactional
+    public BulkImportResultDto importForms(List<FormDataRequest> requests) throws Exception {
+        BulkImportResultDto result = new BulkImportResultDto();
+        result.setTotal(requests.size());
+
+        Map<Long, Template> templates = new HashMap<>();
+        List<Form> accepted = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            FormDataRequest request = requests.get(i);
+            Template template = request.getTemplateId() != null ?
+                    templates.computeIfAbsent(request.getTemplateId(), id -> templateRepository.findById(id).orElse(null)) :
+                    null;
+            if (template == null) {
+                result.getFailed().add(new BulkImportResultDto.RowError(i, request.getName(),
+                        Map.of("templateId", List.of("Template not found"))));
+                continue;
+            }
+
+            ValidationResult validation = formValidationService.validate(template, request.getData());
+            if (!validation.isValid()) {
+                result.getFailed().add(new BulkImportResultDto.RowError(i, request.getName(), validation.getErrors()));
+                continue;
+            }
+
+            Form form = new Form();
+            form.setTemplate(template);
+            form.setName(request.getName());
+            form.setFormData(objectMapper.writeValueAsString(request.getData()));
+            accepted.add(form);
+        }
+
+        for (Form form : formRepository.saveAll(accepted)) {
+            result.getImported().add(convertToFormDto(form));
+        }
+        return result;
+    }
+
     public List<FormDto> getAllForms() {
         List<Form> forms = formRepository.findAll();
         return forms.stream().map(this::convertToFormDto).toList();
     }
 
+    /**
+     * Version hiện tại của form, không load formData
+     */
+    public FormRepository.FormVersions getFormVersions(Long id) {
+        return formRepository.findVersionsById(id)
+                .orElseThrow(() -> new RuntimeException("Form not found"));
+    }
+
     public FormDto getForm(Long id) {
         Form form = formRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Form not found"));
@@ -124,9 +368,42 @@ public class EFormService {
     }
 
     public byte[] generatePdf(GeneratePdfRequest request) throws Exception {
-        Form form = formRepository.findById(request.getFormId())
+        Form form = formRepository.findWithTemplateById(request.getFormId())
                 .orElseThrow(() -> new RuntimeException("Form not found"));
 
+        Long templateId = form.getTemplate().getId();
+        Timer.Sample total = renderMetrics.start();
+        try (RenderGuard.Scope scope = renderGuard.enterOrJoin("form " + form.getId())) {
+            scope.context().limit(templateId, renderGuard.deadlineFor(form.getTemplate()));
+            byte[] pdfBytes = generatePdf(form, request);
+            if (pdfOptimizer.isEnabled(request.getOptimize())) {
+                RenderContext.beginStage(RenderMetrics.STAGE_OPTIMIZE);
+                Timer.Sample stage = renderMetrics.start();
+                pdfBytes = pdfOptimizer.optimize(pdfBytes, request.getOptimize());
+                renderMetrics.stopStage(stage, RenderMetrics.STAGE_OPTIMIZE, templateId);
+            }
+            if (request.isLinearize()) {
+                RenderContext.beginStage(RenderMetrics.STAGE_LINEARIZE);
+                Timer.Sample stage = renderMetrics.start();
+                pdfBytes = pdfLinearizer.linearize(pdfBytes);
+                renderMetrics.stopStage(stage, RenderMetrics.STAGE_LINEARIZE, templateId);
+            }
+            renderMetrics.stopStage(total, RenderMetrics.STAGE_END_TO_END, templateId);
+            renderMetrics.recordPdfSize(templateId, pdfBytes.length);
+            return pdfBytes;
+        } catch (Exception e) {
+            RenderCancelledException cancelled = RenderCancelledException.find(e);
+            renderMetrics.stopStage(total, RenderMetrics.STAGE_END_TO_END, templateId,
+                    cancelled != null ? RenderMetrics.OUTCOME_CANCELLED : RenderMetrics.OUTCOME_ERROR);
+            if (cancelled != null) {
+                renderGuard.recordCancelled(cancelled);
+                throw cancelled;
+            }
+            throw e;
+        }
+    }
+
+    private byte[] generatePdf(Form form, GeneratePdfRequest request) throws Exception {
         // Tạo thư mục output nếu chưa tồn tại
         Path outputPath = Paths.get(outputDir);
         if (!Files.exists(outputPath)) {
@@ -139,83 +416,59 @@ public class EFormService {
                 objectMapper.readValue(form.getFormData(), new TypeReference<Map<String, Object>>() {});
 
         // Tạo file Word từ template
-        XWPFTemplate template = XWPFTemplate.compile(form.getTemplate().getFilePath())
-                .render(data);
-
-        // Tạo file tạm thời cho Word
-        String tempWordFile = outputPath.resolve("temp_" + System.currentTimeMillis() + ".docx").toString();
-        FileOutputStream wordOut = new FileOutputStream(tempWordFile);
-        template.write(wordOut);
-        wordOut.close();
-        template.close();
-
-        // Chuyển đổi Word sang PDF
-        ByteArrayOutputStream pdfOut = new ByteArrayOutputStream();
-        try (FileInputStream wordIn = new FileInputStream(tempWordFile)) {
-            XWPFDocument document = new XWPFDocument(wordIn);
-            PdfOptions options = PdfOptions.create();
-            PdfConverter.getInstance().convert(document, pdfOut, options);
-            document.close();
-        }
-
-        // Xóa file tạm thời
-        Files.deleteIfExists(Paths.get(tempWordFile));
+        RenderContext.beginStage(RenderMetrics.STAGE_COMPILE);
+        XWPFTemplate template = XWPFTemplate.compile(form.getTemplate().getFilePath());
+        RenderContext.beginStage(RenderMetrics.STAGE_RENDER);
+        template.render(data);
 
-        return pdfOut.toByteArray();
-    }
-
-    private List<String> extractVariablesFromTemplate(String filePath) throws Exception {
-        Set<String> variables = new HashSet<>();
-
-        try (FileInputStream fis = new FileInputStream(filePath);
-             XWPFDocument document = new XWPFDocument(fis)) {
-
-            // Tìm biến trong paragraphs
-            document.getParagraphs().forEach(paragraph -> {
-                String text = paragraph.getText();
-                if (text != null) {
-                    variables.addAll(findVariables(text));
+        // Tạo file tạm thời cho Word, tên không trùng giữa các render đồng thời
+        Path tempWordFile = null;
+        try {
+            try {
+                tempWordFile = Files.createTempFile(outputPath, "temp_", ".docx");
+                try (OutputStream wordOut = Files.newOutputStream(tempWordFile)) {
+                    template.write(wordOut);
                 }
-            });
-
-            // Tìm biến trong tables
-            document.getTables().forEach(table -> {
-                table.getRows().forEach(row -> {
-                    row.getTableCells().forEach(cell -> {
-                        String text = cell.getText();
-                        if (text != null) {
-                            variables.addAll(findVariables(text));
-                        }
-                    });
-                });
-            });
+            } finally {
+                template.close();
+            }
+
+            // Chuyển đổi Word sang PDF
+            ByteArrayOutputStream pdfOut = new ByteArrayOutputStream();
+            RenderContext.beginStage(RenderMetrics.STAGE_CONVERT);
+            try (InputStream wordIn = Files.newInputStream(tempWordFile);
+                 XWPFDocument document = new XWPFDocument(wordIn)) {
+                pdfEngineRegistry.forTemplate(form.getTemplate()).convert(document, RenderContext.guard(pdfOut));
+            }
+            return pdfOut.toByteArray();
+        } finally {
+            // Xóa file tạm thời, kể cả khi render lỗi hoặc bị cancel
+            if (tempWordFile != null) {
+                Files.deleteIfExists(tempWordFile);
+            }
         }
-
-        return new ArrayList<>(variables);
-    }
-
-    private Set<String> findVariables(String text) {
-        Set<String> variables = new HashSet<>();
-        Pattern pattern = Pattern.compile("\\{\\{([^}]+)\\}\\}");
-        Matcher matcher = pattern.matcher(text);
-
-        while (matcher.find()) {
-            variables.add(matcher.group(1).trim());
-        }
-
-        return variables;
     }
 
     private TemplateDto convertToDto(Template template) {
         try {
             List<String> variables = objectMapper.readValue(template.getVariables(),
                     new TypeReference<List<String>>() {});
+            Map<String, Long> stageTimings = template.getStageTimings() != null ?
+                    objectMapper.readValue(template.getStageTimings(), new TypeReference<Map<String, Long>>() {}) :
+                    new LinkedHashMap<>();
 
             return new TemplateDto(
                     template.getId(),
                     template.getName(),
                     template.getFilename(),
                     variables,
+                    statusName(template),
+                    template.getContentHash(),
+                    stageTimings,
+                    template.getRenderProfile(),
+                    template.getPdfEngine(),
+                    template.getRenderTimeoutMs(),
+                    Boolean.TRUE.equals(template.getPreRender()),
                     template.getCreatedAt(),
                     template.getUpdatedAt()
             );
@@ -226,12 +479,23 @@ public class EFormService {
                     template.getName(),
                     template.getFilename(),
                     new ArrayList<>(),
+                    statusName(template),
+                    template.getContentHash(),
+                    new LinkedHashMap<>(),
+                    template.getRenderProfile(),
+                    template.getPdfEngine(),
+                    template.getRenderTimeoutMs(),
+                    Boolean.TRUE.equals(template.getPreRender()),
                     template.getCreatedAt(),
                     template.getUpdatedAt()
             );
         }
     }
 
+    private String statusName(Template template) {
+        return template.getStatus() != null ? template.getStatus().name() : TemplateStatus.READY.name();
+    }
+
     private FormDto convertToFormDto(Form form) {
         try {
             Map<String, Object> formData = objectMapper.readValue(form.getFormData(),
@@ -244,7 +508,11 @@ public class EFormService {
                     form.getName(),
                     formData,
                     form.getCreatedAt(),
-                    form.getUpdatedAt()
+                    form.getUpdatedAt(),
+                    form.getVersion(),
+                    form.getTemplate().getVersion(),
+                    form.getRenderRevision(),
+                    readChangedFields(form)
             );
         } catch (Exception e) {
             log.error("Error converting form to DTO", e);
@@ -255,8 +523,19 @@ public class EFormService {
                     form.getName(),
                     new HashMap<>(),
                     form.getCreatedAt(),
-                    form.getUpdatedAt()
+                    form.getUpdatedAt(),
+                    form.getVersion(),
+                    form.getTemplate().getVersion(),
+                    form.getRenderRevision(),
+                    null
             );
         }
     }
+
+    private List<String> readChangedFields(Form form) throws Exception {
+        if (form.getLastChangedFields() == null) {
+            return null;
+        }
+        return objectMapper.readValue(form.getLastChangedFields(), new TypeReference<List<String>>() {});
+    }
 }
@@ -3,10 +3,21 @@ package com.ceent.eform.service;
 import com.ceent.eform.dto.OnlyOfficeConfigDto;
 import com.ceent.eform.entity.Template;
 import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.change.ChangeCounters;
+import com.ceent.eform.service.index.TemplateFileEntry;
+import com.ceent.eform.service.index.TemplateFileIndex;
+import com.ceent.eform.service.ingest.StoredFile;
+import com.ceent.eform.service.ingest.TemplateStorage;
+import com.ceent.eform.service.ingest.TemplateStoredEvent;
+import com.ceent.eform.service.invalidation.InvalidationBus;
+import com.ceent.eform.service.invalidation.TemplateInvalidation;
+import com.ceent.eform.service.metrics.RenderMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
@@ -19,6 +30,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
@@ -30,6 +42,12 @@ public class OnlyOfficeService {
 
     private final TemplateRepository templateRepository;
     private final ObjectMapper objectMapper;
+    private final TemplateStorage templateStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InvalidationBus invalidationBus;
+    private final RenderMetrics renderMetrics;
+    private final TemplateFileIndex templateFileIndex;
+    private final ChangeCounters changeCounters;
 
     @Value("${onlyoffice.docs.url:http://localhost:80}")
     private String onlyOfficeUrl;
@@ -267,6 +285,8 @@ public class OnlyOfficeService {
     public Map<String, Object> handleCallback(Long templateId, Map<String, Object> callbackData) throws Exception {
         log.info("Received OnlyOffice callback for template {}: {}", templateId, callbackData);
 
+        Timer.Sample callbackSample = renderMetrics.start();
+        Object statusTag = callbackData.get("status");
         try {
             Integer status = (Integer) callbackData.get("status");
             String downloadUrl = (String) callbackData.get("url");
@@ -304,10 +324,13 @@ public class OnlyOfficeService {
                 log.info("Callback acknowledged for template {} with status {}", templateId, status);
             }
 
+            renderMetrics.stopCallback(callbackSample, templateId, statusTag,
+                    Integer.valueOf(0).equals(response.get("error")) ? RenderMetrics.OUTCOME_SUCCESS : RenderMetrics.OUTCOME_ERROR);
             return response;
 
         } catch (Exception e) {
             log.error("Error processing callback for template {}: {}", templateId, e.getMessage());
+            renderMetrics.stopCallback(callbackSample, templateId, statusTag, RenderMetrics.OUTCOME_ERROR);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", 1);
             errorResponse.put("message", e.getMessage());
@@ -325,6 +348,8 @@ public class OnlyOfficeService {
         log.info("Downloading updated document from: {}", downloadUrl);
 
         // Download file từ OnlyOffice
+        Timer.Sample downloadSample = renderMetrics.start();
+        boolean downloaded = false;
         try (InputStream inputStream = new URL(downloadUrl).openStream()) {
             Path filePath = Paths.get(template.getFilePath());
 
@@ -336,9 +361,28 @@ public class OnlyOfficeService {
             }
 
             // Save new version
-            Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
+            StoredFile storedFile = templateStorage.store(inputStream, filePath);
+            downloaded = true;
+            renderMetrics.stopDownload(downloadSample, templateId, storedFile.getSize(), RenderMetrics.OUTCOME_SUCCESS);
 
             log.info("Template file updated successfully: {}", template.getFilePath());
+
+            // Chạy lại pipeline ingestion cho phiên bản mới. Watcher của node khác có thể đã ghi nhận
+            // file này trước (recordWrite chỉ có hiệu lực trên node hiện tại): khi đó node kia đã chạy ingestion
+            int updated = templateRepository.markContentChanged(template.getId(), storedFile.getSha256(),
+                    storedFile.getSize(), LocalDateTime.now());
+            if (updated == 0) {
+                log.info("Content {} of template {} was already recorded, skipping re-ingestion",
+                        storedFile.getSha256(), templateId);
+                return;
+            }
+            changeCounters.bump(ChangeCounters.TEMPLATES);
+            eventPublisher.publishEvent(new TemplateStoredEvent(template.getId(), storedFile.getSha256()));
+            invalidationBus.publish(template.getId(), storedFile.getSha256(), TemplateInvalidation.REASON_EDITED);
+        } finally {
+            if (!downloaded) {
+                renderMetrics.stopDownload(downloadSample, templateId, 0, RenderMetrics.OUTCOME_ERROR);
+            }
         }
     }
 
@@ -367,13 +411,14 @@ public class OnlyOfficeService {
         Template template = templateRepository.findById(templateId)
                 .orElseThrow(() -> new RuntimeException("Template not found"));
 
-        Path filePath = Paths.get(template.getFilePath());
+        TemplateFileEntry file = templateFileIndex.get(template.getFilePath())
+                .orElseThrow(() -> new RuntimeException("Template file not found: " + template.getFilePath()));
 
         Map<String, Object> fileInfo = new HashMap<>();
         fileInfo.put("id", templateId);
         fileInfo.put("name", template.getName() + ".docx");
-        fileInfo.put("size", Files.size(filePath));
-        fileInfo.put("lastModified", Files.getLastModifiedTime(filePath).toMillis());
+        fileInfo.put("size", file.size());
+        fileInfo.put("lastModified", file.lastModified());
         fileInfo.put("downloadUrl", serverUrl + "/api/v1/onlyoffice/files/" + templateId);
 
         return fileInfo;
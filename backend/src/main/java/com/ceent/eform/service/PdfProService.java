@@ -1,35 +1,59 @@
 package com.ceent.eform.service;
 
+import com.ceent.eform.config.LogSummaries;
 import com.ceent.eform.entity.Form;
 import com.ceent.eform.entity.Template;
 import com.ceent.eform.repository.FormRepository;
 import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.artifact.RenditionCache;
+import com.ceent.eform.service.artifact.RenditionKey;
+import com.ceent.eform.service.convert.PdfEngine;
+import com.ceent.eform.service.convert.PdfEngineRegistry;
+import com.ceent.eform.service.image.ImagePipeline;
+import com.ceent.eform.service.ingest.DocumentFontNormalizer;
+import com.ceent.eform.service.metrics.RenderMetrics;
+import com.ceent.eform.service.normalize.FormDataNormalizer;
+import com.ceent.eform.service.index.TemplateFileIndex;
+import com.ceent.eform.service.optimize.PdfLinearizer;
+import com.ceent.eform.service.optimize.PdfOptimizer;
+import com.ceent.eform.service.render.OutputFormat;
+import com.ceent.eform.service.render.RenderCancelledException;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import com.ceent.eform.service.render.RenderContext;
+import com.ceent.eform.service.render.RenderGuard;
+import com.ceent.eform.service.render.TemplateCache;
+import com.ceent.eform.service.table.StreamingTablePolicy;
+import com.ceent.eform.service.table.StreamingTableWriter;
+import com.ceent.eform.service.table.TableRowSource;
+import com.ceent.eform.service.validation.FormValidationService;
 import com.deepoove.poi.XWPFTemplate;
 import com.deepoove.poi.config.Configure;
-import com.deepoove.poi.config.ConfigureBuilder;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.itextpdf.text.pdf.BaseFont;
-import com.lowagie.text.FontFactory;
-import fr.opensagres.poi.xwpf.converter.pdf.PdfConverter;
-import fr.opensagres.poi.xwpf.converter.pdf.PdfOptions;
+import fr.opensagres.poi.xwpf.converter.xhtml.Base64EmbedImgManager;
+import fr.opensagres.poi.xwpf.converter.xhtml.XHTMLConverter;
+import fr.opensagres.poi.xwpf.converter.xhtml.XHTMLOptions;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.apache.poi.xwpf.usermodel.XWPFRun;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -39,6 +63,19 @@ public class PdfProService {
     private final TemplateRepository templateRepository;
     private final FormRepository formRepository;
     private final ObjectMapper objectMapper;
+    private final TemplateCache templateCache;
+    private final DocumentFontNormalizer fontNormalizer;
+    private final ImagePipeline imagePipeline;
+    private final RenderConfigureRegistry configureRegistry;
+    private final FormDataNormalizer dataNormalizer;
+    private final FormValidationService formValidationService;
+    private final RenderMetrics renderMetrics;
+    private final PdfEngineRegistry pdfEngineRegistry;
+    private final PdfOptimizer pdfOptimizer;
+    private final PdfLinearizer pdfLinearizer;
+    private final TemplateFileIndex templateFileIndex;
+    private final RenditionCache renditionCache;
+    private final RenderGuard renderGuard;
 
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
@@ -50,17 +87,108 @@ public class PdfProService {
      * Tạo PDF với font Times New Roman và UTF-8 support
      */
     public byte[] generateProPdf(Long formId, Map<String, Object> data) throws Exception {
+        return generateProPdf(formId, data, null);
+    }
+
+    /**
+     * Tạo PDF rồi tối ưu theo profile (none | web | archive, null = app.pdf.optimize.default-profile)
+     */
+    public byte[] generateProPdf(Long formId, Map<String, Object> data, String optimizeProfile) throws Exception {
+        return generateProPdf(formId, data, optimizeProfile, false);
+    }
+
+    /**
+     * Như trên, linearize = true thì linearize sau khi tối ưu để viewer hiển thị trang 1 trước khi tải hết file
+     */
+    public byte[] generateProPdf(Long formId, Map<String, Object> data, String optimizeProfile, boolean linearize) throws Exception {
+        return generate(formId, data, OutputFormat.PDF, optimizeProfile, linearize);
+    }
+
+    /**
+     * Render form ra định dạng yêu cầu. Docx dừng sau bước render, html convert qua XHTML, chỉ pdf mới
+     * convert/optimize/linearize. Render từ formData đã lưu được cache theo RenditionKey.
+     */
+    public byte[] generate(Long formId, Map<String, Object> data, OutputFormat format,
+                           String optimizeProfile, boolean linearize) throws Exception {
         // Lấy thông tin form và template
-        Form form = formRepository.findById(formId)
+        Form form = formRepository.findWithTemplateById(formId)
                 .orElseThrow(() -> new RuntimeException("Form not found with id: " + formId));
 
         Template template = form.getTemplate();
-        String templatePath = template.getFilePath();
+        RenditionKey key = data == null ? renditionKey(form, format, optimizeProfile, linearize) : null;
+        if (key != null) {
+            Optional<Path> cached = renditionCache.find(key);
+            if (cached.isPresent()) {
+                log.debug("Serving cached {} of form {} (revision {})", format, formId, form.getRenderRevision());
+                return Files.readAllBytes(cached.get());
+            }
+        }
+
+        Timer.Sample total = renderMetrics.start();
+        try (RenderGuard.Scope scope = renderGuard.enterOrJoin("form " + formId)) {
+            scope.context().limit(template.getId(), renderGuard.deadlineFor(template));
+            byte[] bytes = render(form, template, data, format);
+            if (format == OutputFormat.PDF) {
+                if (pdfOptimizer.isEnabled(optimizeProfile)) {
+                    RenderContext.beginStage(RenderMetrics.STAGE_OPTIMIZE);
+                    Timer.Sample stage = renderMetrics.start();
+                    bytes = pdfOptimizer.optimize(bytes, optimizeProfile);
+                    renderMetrics.stopStage(stage, RenderMetrics.STAGE_OPTIMIZE, template.getId());
+                }
+                if (linearize) {
+                    RenderContext.beginStage(RenderMetrics.STAGE_LINEARIZE);
+                    Timer.Sample stage = renderMetrics.start();
+                    bytes = pdfLinearizer.linearize(bytes);
+                    renderMetrics.stopStage(stage, RenderMetrics.STAGE_LINEARIZE, template.getId());
+                }
+                renderMetrics.recordPdfSize(template.getId(), bytes.length);
+            }
+            renderMetrics.stopStage(total, RenderMetrics.STAGE_END_TO_END, template.getId());
+            if (key != null) {
+                renditionCache.store(key, bytes);
+            }
+            return bytes;
+        } catch (Exception e) {
+            RenderCancelledException cancelled = RenderCancelledException.find(e);
+            renderMetrics.stopStage(total, RenderMetrics.STAGE_END_TO_END, template.getId(),
+                    cancelled != null ? RenderMetrics.OUTCOME_CANCELLED : RenderMetrics.OUTCOME_ERROR);
+            if (cancelled != null) {
+                renderGuard.recordCancelled(cancelled);
+                log.warn("Render of form {} (template {}) cancelled: {}", formId, template.getId(), cancelled.getMessage());
+                throw cancelled;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Khoá cache cho render từ formData đã lưu, null (không cache) nếu không đọc được ảnh URL/file để tính khoá
+     */
+    private RenditionKey renditionKey(Form form, OutputFormat format, String optimizeProfile, boolean linearize) {
+        String externalImages = null;
+        Set<String> pictureFields = tagFields(form.getTemplate(), '@');
+        if (!pictureFields.isEmpty()) {
+            try {
+                Map<String, Object> formData = form.getFormData() != null
+                        ? objectMapper.readValue(form.getFormData(), new TypeReference<Map<String, Object>>() {})
+                        : Map.of();
+                externalImages = imagePipeline.externalSourcesHash(formData, pictureFields);
+            } catch (Exception e) {
+                log.debug("Not caching output of form {}: {}", form.getId(), e.getMessage());
+                return null;
+            }
+        }
+        return RenditionKey.of(form, format, pdfOptimizer.resolveProfileName(optimizeProfile), linearize, externalImages);
+    }
+
+    private byte[] render(Form form, Template template, Map<String, Object> data, OutputFormat format) throws Exception {
+        Long formId = form.getId();
+        String templatePath = templateCache.resolveTemplatePath(template);
 
-        log.info("Generating PDF for form ID: {}, template path: {}", formId, templatePath);
+        log.debug("Generating {} for form ID: {}, template path: {}", format, formId, templatePath);
 
         // Kiểm tra file template tồn tại
-        if (!Files.exists(Paths.get(templatePath))) {
+        if (!templateFileIndex.exists(templatePath)) {
             log.error("Template file not found at path: {}", templatePath);
             throw new RuntimeException("Template file not found: " + templatePath);
         }
@@ -69,199 +197,217 @@ public class PdfProService {
         Map<String, Object> formData = data != null ? data :
                 objectMapper.readValue(form.getFormData(), new TypeReference<Map<String, Object>>() {});
 
-        log.info("Form data: {}", formData);
+        log.debug("Form data: {}", LogSummaries.formData(formData));
 
-        return generatePdfFromTemplateWithProperFont(templatePath, formData);
+        // Format tiền/ngày theo kiểu field khai báo trong validation rules của template
+        Map<String, String> typeHints = formValidationService.validatorFor(template).fieldTypes();
+        if (!typeHints.isEmpty()) {
+            formData = dataNormalizer.normalize(formData, typeHints);
+        }
+
+        // Ảnh cho các picture tag {{@tên}}: thu nhỏ về kích thước placeholder, có cache
+        Set<String> pictureFields = tagFields(template, '@');
+        if (!pictureFields.isEmpty()) {
+            formData = imagePipeline.resolvePictures(new HashMap<>(formData), pictureFields);
+        }
+
+        // Bảng lớn {{%tên}}: dòng được sinh streaming sau khi render
+        Map<String, TableRowSource> streamingTables = new HashMap<>();
+        for (String field : tagFields(template, StreamingTablePolicy.PREFIX)) {
+            if (formData.get(field) != null) {
+                streamingTables.put(field, TableRowSource.from(formData.get(field)));
+            }
+        }
+
+        return generateFromTemplateWithProperFont(template, formData, streamingTables, format);
+    }
+
+    /**
+     * Tên các field được khai báo với prefix (vd. {{@tên}} cho ảnh) trong template
+     */
+    private Set<String> tagFields(Template template, char prefix) {
+        Set<String> fields = new HashSet<>();
+        try {
+            List<String> variables = objectMapper.readValue(template.getVariables(), new TypeReference<List<String>>() {});
+            for (String variable : variables) {
+                if (variable.length() > 1 && variable.charAt(0) == prefix) {
+                    fields.add(variable.substring(1).trim());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not read variables of template {}: {}", template.getId(), e.getMessage());
+        }
+        return fields;
     }
 
     /**
-     * Tạo PDF từ template với font configuration đúng
+     * Tạo output từ template với font configuration đúng
      */
-    private byte[] generatePdfFromTemplateWithProperFont(String templatePath, Map<String, Object> data) throws Exception {
+    private byte[] generateFromTemplateWithProperFont(Template templateEntity, Map<String, Object> data,
+                                                      Map<String, TableRowSource> streamingTables,
+                                                      OutputFormat format) throws Exception {
         // Tạo thư mục output nếu chưa tồn tại
         Path outputPath = Paths.get(outputDir);
         if (!Files.exists(outputPath)) {
             Files.createDirectories(outputPath);
-            log.info("Created output directory: {}", outputPath.toAbsolutePath());
+            log.debug("Created output directory: {}", outputPath.toAbsolutePath());
         }
 
-        log.info("Starting PDF generation with proper font handling");
+        log.debug("Starting PDF generation with proper font handling");
 
         // Step 1: Render template với POI-TL
-        Configure config = createUtf8Configure();
+        Configure config = configureRegistry.forTemplate(templateEntity);
         XWPFTemplate template = null;
 
         try {
-            template = XWPFTemplate.compile(templatePath, config).render(data);
-            log.info("Template rendered successfully");
+            RenderContext.beginStage(RenderMetrics.STAGE_COMPILE);
+            Timer.Sample stage = renderMetrics.start();
+            template = templateCache.compile(templateEntity, config);
+            renderMetrics.stopStage(stage, RenderMetrics.STAGE_COMPILE, templateEntity.getId());
+
+            RenderContext.beginStage(RenderMetrics.STAGE_RENDER);
+            stage = renderMetrics.start();
+            template.render(data);
+            renderMetrics.stopStage(stage, RenderMetrics.STAGE_RENDER, templateEntity.getId());
+            log.debug("Template rendered successfully");
+
+            // Cải thiện font ngay trên document vừa render (bỏ qua nếu template đã được chuẩn hóa lúc ingestion).
+            // Làm trước khi ghi và sinh dòng streaming: dòng sinh ra thừa hưởng rPr/pPr đã chuẩn hóa của dòng mẫu,
+            // nên không phải nạp lại cả DOCX (kèm các dòng lớn) chỉ để sửa font.
+            if (format == OutputFormat.PDF && !templateCache.isPrepared(templateEntity)) {
+                stage = renderMetrics.start();
+                improveWordDocumentFont(template.getXWPFDocument());
+                renderMetrics.stopStage(stage, RenderMetrics.STAGE_FONT_FIX, templateEntity.getId());
+            }
         } catch (Exception e) {
+            if (template != null) {
+                template.close();
+            }
+            RenderCancelledException.rethrowIfCancelled(e);
             log.error("Error rendering template: {}", e.getMessage());
             throw new RuntimeException("Failed to render template: " + e.getMessage(), e);
         }
 
-        // Step 2: Tạo file Word tạm thời
-        String tempWordFile = outputPath.resolve("temp_" + System.currentTimeMillis() + ".docx").toString();
+        // Step 2: Tạo file Word tạm thời, tên không trùng giữa các render đồng thời
+        Path tempWordFile = null;
+        try {
+            try {
+                tempWordFile = Files.createTempFile(outputPath, "temp_", ".docx");
+                try (OutputStream wordOut = Files.newOutputStream(tempWordFile)) {
+                    RenderContext.beginStage(RenderMetrics.STAGE_WRITE);
+                    Timer.Sample stage = renderMetrics.start();
+                    template.write(RenderContext.guard(wordOut));
+                    renderMetrics.stopStage(stage, RenderMetrics.STAGE_WRITE, templateEntity.getId());
+                }
+                log.debug("Temporary Word file created: {}", tempWordFile);
+            } catch (Exception e) {
+                RenderCancelledException.rethrowIfCancelled(e);
+                log.error("Error writing temporary Word file: {}", e.getMessage());
+                throw new RuntimeException("Failed to create temporary Word file", e);
+            } finally {
+                if (template != null) {
+                    template.close();
+                }
+            }
 
-        try (FileOutputStream wordOut = new FileOutputStream(tempWordFile)) {
-            template.write(wordOut);
-            log.info("Temporary Word file created: {}", tempWordFile);
-        } catch (Exception e) {
-            log.error("Error writing temporary Word file: {}", e.getMessage());
-            throw new RuntimeException("Failed to create temporary Word file", e);
-        } finally {
-            if (template != null) {
-                template.close();
+            // Step 2b: Sinh các dòng của bảng lớn trực tiếp vào document.xml
+            if (!streamingTables.isEmpty()) {
+                Path renderedWordFile = tempWordFile;
+                tempWordFile = Files.createTempFile(outputPath, "temp_", "_rows.docx");
+                try {
+                    RenderContext.beginStage(RenderMetrics.STAGE_STREAM_TABLES);
+                    Timer.Sample stage = renderMetrics.start();
+                    long rows = StreamingTableWriter.write(renderedWordFile, tempWordFile, streamingTables);
+                    renderMetrics.stopStage(stage, RenderMetrics.STAGE_STREAM_TABLES, templateEntity.getId());
+                    log.debug("Streaming tables written: {} rows", rows);
+                } catch (Exception e) {
+                    RenderCancelledException.rethrowIfCancelled(e);
+                    throw new RuntimeException("Failed to write streaming tables: " + e.getMessage(), e);
+                } finally {
+                    deleteTempFile(renderedWordFile);
+                }
             }
-        }
 
-        // Step 3: Cải thiện font trong Word document
-        try {
-            improveWordDocumentFont(tempWordFile);
-            log.info("Word document font improved");
-        } catch (Exception e) {
-            log.warn("Error improving Word document font: {}", e.getMessage());
-        }
+            // Docx: trả luôn document đã render, không qua bước font/convert
+            if (format == OutputFormat.DOCX) {
+                return Files.readAllBytes(tempWordFile);
+            }
 
-        // Step 4: Chuyển đổi sang PDF với font configuration
-        byte[] pdfBytes;
-        try {
-            pdfBytes = convertToPdfWithFontConfig(tempWordFile);
-            log.info("PDF conversion completed, size: {} bytes", pdfBytes.length);
-        } catch (Exception e) {
-            log.error("Error converting to PDF: {}", e.getMessage());
-            throw new RuntimeException("Failed to convert to PDF", e);
+            // Step 3: Chuyển đổi sang PDF với font configuration (hoặc HTML)
+            try {
+                RenderContext.beginStage(RenderMetrics.STAGE_CONVERT);
+                Timer.Sample stage = renderMetrics.start();
+                byte[] outputBytes = format == OutputFormat.HTML
+                        ? convertToHtml(tempWordFile.toString())
+                        : convertToPdfWithFontConfig(tempWordFile.toString(), pdfEngineRegistry.forTemplate(templateEntity));
+                renderMetrics.stopStage(stage, RenderMetrics.STAGE_CONVERT, templateEntity.getId());
+                log.debug("{} conversion completed, size: {} bytes", format, outputBytes.length);
+                return outputBytes;
+            } catch (Exception e) {
+                RenderCancelledException.rethrowIfCancelled(e);
+                log.error("Error converting to {}: {}", format, e.getMessage());
+                throw new RuntimeException("Failed to convert to " + format, e);
+            }
+        } finally {
+            // Step 4: Xóa file tạm thời, kể cả khi render lỗi hoặc bị cancel
+            deleteTempFile(tempWordFile);
         }
+    }
 
-        // Step 5: Xóa file tạm thời
+    private void deleteTempFile(Path file) {
+        if (file == null) {
+            return;
+        }
         try {
-            Files.deleteIfExists(Paths.get(tempWordFile));
-            log.info("Temporary file deleted: {}", tempWordFile);
-        } catch (Exception e) {
-            log.warn("Could not delete temporary file: {}", tempWordFile);
+            Files.deleteIfExists(file);
+            log.debug("Temporary file deleted: {}", file);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file: {}", file);
         }
-
-        return pdfBytes;
     }
 
     /**
      * Cải thiện font trong Word document trước khi convert
      */
-    private void improveWordDocumentFont(String wordFilePath) throws Exception {
-        try (FileInputStream fis = new FileInputStream(wordFilePath);
-             XWPFDocument document = new XWPFDocument(fis)) {
-
-            boolean documentChanged = false;
-
-            // Cải thiện font cho tất cả paragraphs
-            for (XWPFParagraph paragraph : document.getParagraphs()) {
-                if (improveFont(paragraph)) {
-                    documentChanged = true;
-                }
-            }
-
-            // Cải thiện font cho tables
-            document.getTables().forEach(table -> {
-                table.getRows().forEach(row -> {
-                    row.getTableCells().forEach(cell -> {
-                        cell.getParagraphs().forEach(this::improveFont);
-                    });
-                });
-            });
-
-            // Lưu lại document nếu có thay đổi
-            if (documentChanged) {
-                try (FileOutputStream fos = new FileOutputStream(wordFilePath)) {
-                    document.write(fos);
-                }
-                log.info("Word document font updated");
-            }
-        }
-    }
-
-    /**
-     * Cải thiện font cho paragraph
-     */
-    private boolean improveFont(XWPFParagraph paragraph) {
-        boolean changed = false;
-
+    private void improveWordDocumentFont(XWPFDocument document) {
         try {
-            // Thiết lập spacing
-            paragraph.setSpacingBetween(1.15);
-            paragraph.setSpacingAfter(120);
-            paragraph.setSpacingBefore(0);
-
-            // Cải thiện font cho từng run
-            for (XWPFRun run : paragraph.getRuns()) {
-                // Thiết lập font Times New Roman
-                String currentFont = run.getFontFamily();
-                if (currentFont == null || !currentFont.equals("Times New Roman")) {
-                    run.setFontFamily("Times New Roman");
-                    changed = true;
-                }
-
-                // Thiết lập font size
-                int currentSize = run.getFontSize();
-                if (currentSize == -1 || currentSize != 12) {
-                    run.setFontSize(12);
-                    changed = true;
-                }
+            if (fontNormalizer.normalize(document)) {
+                log.debug("Word document font improved");
             }
         } catch (Exception e) {
-            log.warn("Error improving font for paragraph: {}", e.getMessage());
+            log.warn("Error improving Word document font: {}", e.getMessage());
         }
-
-        return changed;
     }
 
     /**
-     * Chuyển đổi Word sang PDF với font configuration
+     * Chuyển đổi Word sang PDF bằng engine của template
      */
-    private byte[] convertToPdfWithFontConfig(String wordFilePath) throws Exception {
+    private byte[] convertToPdfWithFontConfig(String wordFilePath, PdfEngine engine) throws Exception {
         ByteArrayOutputStream pdfOut = new ByteArrayOutputStream();
 
         try (FileInputStream wordIn = new FileInputStream(wordFilePath);
              XWPFDocument document = new XWPFDocument(wordIn)) {
-
-            // Tạo PDF options với font configuration
-            PdfOptions options = createPdfOptionsWithFont();
-
-            // Chuyển đổi
-            PdfConverter.getInstance().convert(document, pdfOut, options);
-
-            log.info("PDF converted successfully with font configuration");
+            engine.convert(document, RenderContext.guard(pdfOut));
         }
 
+        log.debug("PDF converted successfully with engine {}", engine.name());
         return pdfOut.toByteArray();
     }
 
     /**
-     * Tạo PdfOptions với font configuration
+     * Chuyển Word sang XHTML để xem trên trình duyệt, ảnh nhúng base64 nên file tự chứa
      */
-    private PdfOptions createPdfOptionsWithFont() {
-        PdfOptions options = PdfOptions.create();
-
-        try {
-            // Thiết lập UTF-8 encoding
-            options.fontEncoding("UTF-8");
-
-            // Kiểm tra font resources có tồn tại
-            checkFontResources();
-
-            options.fontProvider((familyName, encoding, size, style, color) -> {
-                try {
-                    return FontFactory.getFont("fonts/times.ttf", BaseFont.IDENTITY_H, BaseFont.EMBEDDED, size, style, color);
-                } catch (Exception e) {
-                    throw new IllegalArgumentException("Font was not found" + e);
-                }
-            });
+    private byte[] convertToHtml(String wordFilePath) throws Exception {
+        ByteArrayOutputStream htmlOut = new ByteArrayOutputStream();
 
-            log.info("PDF options created with font configuration");
-
-        } catch (Exception e) {
-            log.warn("Error configuring PDF options: {}", e.getMessage());
+        try (FileInputStream wordIn = new FileInputStream(wordFilePath);
+             XWPFDocument document = new XWPFDocument(wordIn)) {
+            XHTMLOptions options = XHTMLOptions.create();
+            options.setImageManager(new Base64EmbedImgManager());
+            XHTMLConverter.getInstance().convert(document, RenderContext.guard(htmlOut), options);
         }
 
-        return options;
+        return htmlOut.toByteArray();
     }
 
     /**
@@ -291,61 +437,24 @@ public class PdfProService {
     }
 
     /**
-     * Tạo cấu hình POI-TL
-     */
-    private Configure createUtf8Configure() {
-        ConfigureBuilder builder = Configure.builder();
-        return builder
-                .useSpringEL(false)
-                .build();
-    }
-
-    /**
-     * Clean data cho PDF - giữ nguyên UTF-8
+     * Clean data cho PDF - giữ nguyên UTF-8 và cấu trúc list/map (bảng, vòng lặp)
      */
     public Map<String, Object> cleanDataForPdf(Map<String, Object> rawData) {
-        Map<String, Object> cleanData = new HashMap<>();
-
-        for (Map.Entry<String, Object> entry : rawData.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-
-            if (value == null) {
-                cleanData.put(key, "");
-            } else {
-                String stringValue = value.toString();
-                // Chỉ xử lý line breaks thừa, giữ nguyên dấu tiếng Việt
-                stringValue = stringValue.replace("\r\n", " ")
-                        .replace("\r", " ")
-                        .replaceAll("  +", " ")
-                        .trim();
-                cleanData.put(key, stringValue);
-            }
-        }
-
-        return cleanData;
+        return dataNormalizer.normalize(rawData);
     }
 
     /**
      * Format số tiền
      */
     public String formatCurrency(Object amount) {
-        if (amount == null) return "0";
-
-        try {
-            long value = Long.parseLong(amount.toString().replaceAll("[^\\d]", ""));
-            return String.format("%,d", value).replace(",", ".") + " VND";
-        } catch (NumberFormatException e) {
-            return amount.toString();
-        }
+        return FormDataNormalizer.formatCurrency(amount);
     }
 
     /**
      * Format ngày tháng
      */
     public String formatDate(Object date) {
-        if (date == null) return "";
-        return date.toString();
+        return FormDataNormalizer.formatDate(date);
     }
 
     /**
@@ -0,0 +1,113 @@
+package com.ceent.eform.service.artifact;
+
+import com.ceent.eform.dto.RenderArtifactDto;
+import com.ceent.eform.service.optimize.PdfLinearizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Lưu PDF đã render thành file trong app.output.dir/artifacts để phục vụ lại bằng GET có Range:
+ * viewer trên trình duyệt (pdf.js) chỉ tải phần cần cho trang đang xem thay vì cả file.
+ * Artifact hết hạn sau app.artifacts.ttl và được dọn định kỳ.
+ */
+@Service
+@Slf4j
+public class RenderArtifactStore {
+
+    public static final String URL_PREFIX = "/api/v1/artifacts/";
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    @Value("${app.output.dir:outputs}")
+    private String outputDir;
+
+    @Value("${app.artifacts.ttl:24h}")
+    private Duration ttl;
+
+    /**
+     * Ghi PDF (atomic rename) và trả về key để tải lại
+     */
+    public RenderArtifactDto store(Long formId, byte[] pdfBytes) throws IOException {
+        Path dir = artifactsDir();
+        Files.createDirectories(dir);
+        String key = UUID.randomUUID().toString();
+        Path target = dir.resolve(key + ".pdf");
+        Path temp = Files.createTempFile(dir, key + "-", ".part");
+        try {
+            Files.write(temp, pdfBytes);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        log.debug("Stored render artifact {} for form {} ({} bytes)", key, formId, pdfBytes.length);
+        return new RenderArtifactDto(key, formId, pdfBytes.length, PdfLinearizer.isLinearized(pdfBytes),
+                URL_PREFIX + key, LocalDateTime.now().plus(ttl));
+    }
+
+    /**
+     * File của artifact còn hạn
+     */
+    public Path resolve(String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new RuntimeException("Artifact not found");
+        }
+        Path file = artifactsDir().resolve(key + ".pdf");
+        if (!Files.isRegularFile(file) || isExpired(file)) {
+            throw new RuntimeException("Artifact not found");
+        }
+        return file;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    @Scheduled(fixedDelayString = "${app.artifacts.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Path dir = artifactsDir();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (isExpired(file) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not purge render artifacts: {}", e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Purged {} expired render artifacts", deleted);
+        }
+    }
+
+    private boolean isExpired(Path file) {
+        try {
+            Instant modified = Files.getLastModifiedTime(file).toInstant();
+            return modified.plus(ttl).isBefore(Instant.now());
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private Path artifactsDir() {
+        return Paths.get(outputDir, "artifacts");
+    }
+}
@@ -0,0 +1,140 @@
+package com.ceent.eform.service.artifact;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Output đã render của form (docx/html/pdf) lưu trong app.output.dir/renditions/{formId}, mỗi định dạng một file
+ * theo RenditionKey: docx/html rẻ không phải chờ convert PDF, và ngược lại pdf không bị tính lại khi form chưa đổi.
+ * Chỉ dùng cho render từ formData đã lưu (data truyền kèm request thì không cache).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RenditionCache {
+
+    public static final String CACHE_METRIC = "eform.rendition.cache";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.output.dir:outputs}")
+    private String outputDir;
+
+    @Value("${app.renditions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.renditions.ttl:7d}")
+    private Duration ttl;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<Path> find(RenditionKey key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Path file = formDir(key.formId()).resolve(key.fileName());
+        boolean hit = Files.isRegularFile(file);
+        count(key, hit);
+        return hit ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Ghi output (atomic rename) và xoá output của các renderRevision cũ hơn của form
+     */
+    public void store(RenditionKey key, byte[] bytes) {
+        if (!enabled) {
+            return;
+        }
+        Path dir = formDir(key.formId());
+        try {
+            Files.createDirectories(dir);
+            Path target = dir.resolve(key.fileName());
+            Path temp = Files.createTempFile(dir, key.fileName() + "-", ".part");
+            try {
+                Files.write(temp, bytes);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            deleteOlderRevisions(dir, key.renderRevision());
+            log.debug("Stored {} rendition of form {} ({} bytes)", key.format(), key.formId(), bytes.length);
+        } catch (IOException e) {
+            // Cache hỏng không làm hỏng request, lần sau render lại
+            log.warn("Could not store {} rendition of form {}: {}", key.format(), key.formId(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.renditions.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Path root = Paths.get(outputDir, "renditions");
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(ttl);
+        AtomicInteger deleted = new AtomicInteger();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (attrs.lastModifiedTime().toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                        deleted.incrementAndGet();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not purge renditions: {}", e.getMessage());
+        }
+        if (deleted.get() > 0) {
+            log.info("Purged {} expired renditions", deleted.get());
+        }
+    }
+
+    /**
+     * Chỉ xoá revision nhỏ hơn: render chậm của revision cũ xong sau không được xoá output mới
+     */
+    private void deleteOlderRevisions(Path dir, long renderRevision) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                long revision = RenditionKey.revisionOf(file.getFileName().toString());
+                if (revision >= 0 && revision < renderRevision) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void count(RenditionKey key, boolean hit) {
+        Counter.builder(CACHE_METRIC)
+                .description("Số lần tra output đã render theo định dạng")
+                .tag("format", key.format().getExtension())
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Path formDir(Long formId) {
+        return Paths.get(outputDir, "renditions", String.valueOf(formId));
+    }
+}
@@ -0,0 +1,64 @@
+package com.ceent.eform.service.artifact;
+
+import com.ceent.eform.entity.Form;
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.service.ingest.TemplateStorage;
+import com.ceent.eform.service.render.OutputFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Khoá của một output đã render: form ở renderRevision nào, template ở phiên bản/cấu hình nào, định dạng và biến thể
+ * (profile optimize, linearize với pdf). Output cùng khoá thì giống nhau nên dùng lại được.
+ */
+public record RenditionKey(Long formId, long renderRevision, String templateFingerprint, OutputFormat format, String variant) {
+
+    /**
+     * optimizeProfile là tên profile đã resolve (PdfOptimizer.resolveProfileName): đổi profile mặc định thì khoá đổi theo.
+     * externalImages là hash ảnh lấy từ URL/file (ImagePipeline.externalSourcesHash), null nếu form không có.
+     */
+    public static RenditionKey of(Form form, OutputFormat format, String optimizeProfile, boolean linearize,
+                                  String externalImages) {
+        String variant = format == OutputFormat.PDF
+                ? optimizeProfile + (linearize ? "-linearized" : "")
+                : "plain";
+        return new RenditionKey(form.getId(), form.getRenderRevision(), fingerprint(form.getTemplate(), externalImages),
+                format, variant);
+    }
+
+    /**
+     * Mọi thứ ngoài renderRevision ảnh hưởng tới output: nội dung file template, profile render, engine PDF,
+     * rule (định dạng tiền/ngày) và nội dung ảnh tham chiếu từ form
+     */
+    static String fingerprint(Template template, String externalImages) {
+        MessageDigest digest = TemplateStorage.newSha256();
+        String content = template.getContentHash() != null ? template.getContentHash() : String.valueOf(template.getUpdatedAt());
+        for (String part : new String[]{content, template.getRenderProfile(), template.getPdfEngine(), template.getValidationRules(),
+                externalImages}) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+    }
+
+    String fileName() {
+        return renderRevision + "-" + templateFingerprint + "-" + variant.replaceAll("[^A-Za-z0-9_-]", "_") + "." + format.getExtension();
+    }
+
+    /**
+     * renderRevision từ tên file output, -1 nếu không phải file output (vd. file .part đang ghi)
+     */
+    static long revisionOf(String fileName) {
+        int dash = fileName.indexOf('-');
+        if (dash <= 0 || fileName.endsWith(".part")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(fileName.substring(0, dash));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.ceent.eform.service.change;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Đọc/tăng bộ đếm trong bảng change_counters. Bộ đếm được tăng sau khi transaction ghi dữ liệu đã commit,
+ * trong transaction riêng chỉ gồm một câu UPDATE: transaction ghi không giữ khoá dòng bộ đếm nên các lần ghi
+ * không bị xếp hàng qua dòng đó và không deadlock vì thứ tự khoá. Mỗi bảng chỉ tăng một lần mỗi transaction.
+ * Giữa lúc commit và lúc tăng, request poll có thể nhận 304 cho dữ liệu vừa đổi; lần poll kế tiếp sẽ thấy.
+ * Đọc là một lookup theo khoá chính nên request poll không chạm tới bảng dữ liệu.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChangeCounters {
+
+    public static final String TEMPLATES = "templates";
+    public static final String FORMS = "forms";
+
+    private static final String INSERT =
+            "INSERT INTO change_counters (name, counter_value, updated_at) VALUES (?, 1, CURRENT_TIMESTAMP)";
+    private static final String BUMPED_KEY = ChangeCounters.class.getName() + ".bumped";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Lấy lúc dùng: listener (và bean này) được tạo trong lúc dựng EntityManagerFactory mà transaction manager phụ thuộc
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    /**
+     * Tăng bộ đếm của bảng, gọi từ ChangeCountingListener. Trong transaction thì hoãn tới sau commit
+     * (rollback thì không tăng).
+     */
+    public void bump(String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(name);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(BUMPED_KEY);
+        if (pending == null) {
+            Set<String> names = new LinkedHashSet<>();
+            pending = names;
+            TransactionSynchronizationManager.bindResource(BUMPED_KEY, names);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // Connection của transaction vừa commit vẫn còn bind vào thread: cần transaction mới
+                    TransactionTemplate template = new TransactionTemplate(transactionManager.getObject());
+                    template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                    for (String pendingName : names) {
+                        try {
+                            template.executeWithoutResult(status -> increment(pendingName));
+                        } catch (RuntimeException e) {
+                            log.warn("Could not bump change counter {}: {}", pendingName, e.getMessage());
+                        }
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BUMPED_KEY);
+                }
+            });
+        }
+        pending.add(name);
+    }
+
+    private void increment(String name) {
+        int updated = jdbcTemplate.update(
+                "UPDATE change_counters SET counter_value = counter_value + 1, updated_at = CURRENT_TIMESTAMP WHERE name = ?",
+                name);
+        if (updated == 0) {
+            // Chưa seed (ghi trước khi app ready)
+            jdbcTemplate.update(INSERT, name);
+        }
+    }
+
+    /**
+     * Tạo sẵn dòng cho mỗi bảng để bump chỉ cần UPDATE. Lỗi trùng khoá khi nhiều node cùng khởi động được bỏ qua.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        for (String name : List.of(TEMPLATES, FORMS)) {
+            try {
+                Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_counters WHERE name = ?",
+                        Integer.class, name);
+                if (count == null || count == 0) {
+                    jdbcTemplate.update(INSERT, name);
+                }
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Change counter {} was created by another node", name);
+            }
+        }
+    }
+
+    /**
+     * Trạng thái gộp của một hoặc nhiều bảng, ví dụ danh sách form cũng hiển thị tên template
+     */
+    public ChangeStamp current(String... names) {
+        StringBuilder etag = new StringBuilder("W/\"");
+        long lastModified = 0;
+        for (int i = 0; i < names.length; i++) {
+            List<ChangeStamp> rows = jdbcTemplate.query(
+                    "SELECT counter_value, updated_at FROM change_counters WHERE name = ?",
+                    (rs, rowNum) -> {
+                        Timestamp updatedAt = rs.getTimestamp("updated_at");
+                        return new ChangeStamp(String.valueOf(rs.getLong("counter_value")),
+                                updatedAt != null ? updatedAt.getTime() : 0);
+                    },
+                    names[i]);
+            ChangeStamp stamp = rows.isEmpty() ? new ChangeStamp("0", 0) : rows.get(0);
+            etag.append(i > 0 ? "-" : "").append(names[i]).append('.').append(stamp.etag());
+            lastModified = Math.max(lastModified, stamp.lastModified());
+        }
+        return new ChangeStamp(etag.append('"').toString(), lastModified);
+    }
+}
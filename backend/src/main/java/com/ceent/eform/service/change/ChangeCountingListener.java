@@ -0,0 +1,30 @@
+package com.ceent.eform.service.change;
+
+import com.ceent.eform.entity.Form;
+import com.ceent.eform.entity.Template;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Entity listener của Template/Form: mọi insert/update/delete đều tăng bộ đếm của bảng tương ứng,
+ * kể cả các chỗ ghi không qua EFormService (ingestion, OnlyOffice callback).
+ * Hibernate tạo listener qua Spring bean container nên inject được bean.
+ */
+@RequiredArgsConstructor
+public class ChangeCountingListener {
+
+    private final ChangeCounters changeCounters;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Template) {
+            changeCounters.bump(ChangeCounters.TEMPLATES);
+        } else if (entity instanceof Form) {
+            changeCounters.bump(ChangeCounters.FORMS);
+        }
+    }
+}
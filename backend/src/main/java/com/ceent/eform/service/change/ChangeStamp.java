@@ -0,0 +1,7 @@
+package com.ceent.eform.service.change;
+
+/**
+ * Trạng thái bộ đếm tại thời điểm đọc: etag (weak) và lastModified (epoch millis)
+ */
+public record ChangeStamp(String etag, long lastModified) {
+}
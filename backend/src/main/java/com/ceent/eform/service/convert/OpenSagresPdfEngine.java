@@ -0,0 +1,44 @@
+package com.ceent.eform.service.convert;
+
+import com.itextpdf.text.pdf.BaseFont;
+import com.lowagie.text.FontFactory;
+import fr.opensagres.poi.xwpf.converter.pdf.PdfConverter;
+import fr.opensagres.poi.xwpf.converter.pdf.PdfOptions;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+
+/**
+ * Engine hiện tại: opensagres XWPF → PDF (layout trực tiếp bằng iText/OpenPDF), font Times New Roman nhúng
+ */
+@Component
+public class OpenSagresPdfEngine implements PdfEngine {
+
+    public static final String NAME = "opensagres";
+
+    private static final String FONT_PATH = "fonts/times.ttf";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void convert(XWPFDocument document, OutputStream pdfOut) throws Exception {
+        PdfConverter.getInstance().convert(document, pdfOut, createOptions());
+    }
+
+    private PdfOptions createOptions() {
+        PdfOptions options = PdfOptions.create();
+        options.fontEncoding("UTF-8");
+        options.fontProvider((familyName, encoding, size, style, color) -> {
+            try {
+                return FontFactory.getFont(FONT_PATH, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, size, style, color);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Font was not found" + e);
+            }
+        });
+        return options;
+    }
+}
@@ -0,0 +1,19 @@
+package com.ceent.eform.service.convert;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import java.io.OutputStream;
+
+/**
+ * Engine chuyển DOCX (đã render) sang PDF. Các engine là bean Spring, được chọn qua PdfEngineRegistry
+ * theo cấu hình app.pdf.engine hoặc trường pdfEngine của template. Cài đặt phải thread-safe.
+ */
+public interface PdfEngine {
+
+    /**
+     * Tên dùng trong cấu hình và API (vd. "opensagres")
+     */
+    String name();
+
+    void convert(XWPFDocument document, OutputStream pdfOut) throws Exception;
+}
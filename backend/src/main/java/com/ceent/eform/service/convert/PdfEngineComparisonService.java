@@ -0,0 +1,223 @@
+package com.ceent.eform.service.convert;
+
+import com.ceent.eform.dto.PdfEngineComparisonDto;
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.preview.TemplatePreviewService;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import com.ceent.eform.service.render.TemplateCache;
+import com.deepoove.poi.XWPFTemplate;
+import com.deepoove.poi.config.Configure;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * So sánh các PDF engine trên một template: thời gian convert (median), kích thước, số trang,
+ * độ phủ text so với DOCX và độ giống trang đầu so với engine mặc định.
+ * Engine được đề xuất là engine nhanh nhất vượt qua các ngưỡng fidelity.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PdfEngineComparisonService {
+
+    private static final float SIMILARITY_DPI = 36f;
+
+    private final TemplateRepository templateRepository;
+    private final TemplateCache templateCache;
+    private final RenderConfigureRegistry configureRegistry;
+    private final TemplatePreviewService templatePreviewService;
+    private final PdfEngineRegistry pdfEngineRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.pdf.compare.max-iterations:10}")
+    private int maxIterations;
+
+    @Value("${app.pdf.compare.min-text-recall:0.98}")
+    private double minTextRecall;
+
+    @Value("${app.pdf.compare.min-similarity:0.9}")
+    private double minSimilarity;
+
+    public PdfEngineComparisonDto compare(Long templateId, Map<String, Object> sampleData, int iterations) throws Exception {
+        Template template = templateRepository.findById(templateId)
+                .orElseThrow(() -> new RuntimeException("Template not found"));
+
+        int runs = Math.max(1, Math.min(iterations, maxIterations));
+        List<String> variables = objectMapper.readValue(template.getVariables(), new TypeReference<List<String>>() {});
+        Map<String, Object> data = templatePreviewService.placeholderData(variables, sampleData != null ? sampleData : Map.of());
+        Configure configure = configureRegistry.forTemplate(template);
+
+        PdfEngine reference = pdfEngineRegistry.getDefaultEngine();
+        Map<String, EngineRun> runsByEngine = new HashMap<>();
+        for (String name : pdfEngineRegistry.engineNames()) {
+            runsByEngine.put(name, run(template, configure, data, pdfEngineRegistry.get(name), runs));
+        }
+
+        EngineRun referenceRun = runsByEngine.get(reference.name());
+        BufferedImage referencePage = referenceRun.pdf != null ? firstPage(referenceRun.pdf) : null;
+
+        List<PdfEngineComparisonDto.EngineResult> results = new ArrayList<>();
+        for (String name : pdfEngineRegistry.engineNames()) {
+            EngineRun run = runsByEngine.get(name);
+            PdfEngineComparisonDto.EngineResult result = new PdfEngineComparisonDto.EngineResult();
+            result.setEngine(name);
+            result.setSuccess(run.error == null);
+            result.setError(run.error);
+            if (run.error == null) {
+                result.setMedianMillis(run.medianMillis);
+                result.setPdfBytes(run.pdf.length);
+                result.setPageCount(run.pageCount);
+                result.setTextRecall(textRecall(run.sourceText, run.pdfText));
+                result.setFirstPageSimilarity(referencePage != null ? similarity(referencePage, firstPage(run.pdf)) : 0);
+                result.setAcceptable(result.getTextRecall() >= minTextRecall
+                        && referenceRun.error == null && run.pageCount == referenceRun.pageCount
+                        && result.getFirstPageSimilarity() >= minSimilarity);
+            }
+            results.add(result);
+        }
+
+        String recommended = results.stream()
+                .filter(PdfEngineComparisonDto.EngineResult::isAcceptable)
+                .min(Comparator.comparingLong(PdfEngineComparisonDto.EngineResult::getMedianMillis))
+                .map(PdfEngineComparisonDto.EngineResult::getEngine)
+                .orElse(null);
+
+        log.info("PDF engine comparison for template {}: recommended {}", templateId, recommended);
+        return new PdfEngineComparisonDto(templateId, pdfEngineRegistry.forTemplate(template).name(),
+                reference.name(), recommended, runs, results);
+    }
+
+    /**
+     * Render lại template cho mỗi lần chạy (convert có thể thay đổi document), chỉ đo thời gian convert
+     */
+    private EngineRun run(Template template, Configure configure, Map<String, Object> data,
+                          PdfEngine engine, int iterations) {
+        EngineRun run = new EngineRun();
+        long[] durations = new long[iterations];
+        try {
+            for (int i = 0; i < iterations; i++) {
+                try (XWPFTemplate compiled = templateCache.compile(template, configure)) {
+                    compiled.render(data);
+                    if (i == 0) {
+                        try (XWPFWordExtractor extractor = new XWPFWordExtractor(compiled.getXWPFDocument())) {
+                            run.sourceText = extractor.getText();
+                        }
+                    }
+                    ByteArrayOutputStream pdfOut = new ByteArrayOutputStream();
+                    long start = System.nanoTime();
+                    engine.convert(compiled.getXWPFDocument(), pdfOut);
+                    durations[i] = System.nanoTime() - start;
+                    run.pdf = pdfOut.toByteArray();
+                }
+            }
+            Arrays.sort(durations);
+            run.medianMillis = durations[iterations / 2] / 1_000_000;
+
+            try (PDDocument pdf = PDDocument.load(run.pdf)) {
+                run.pageCount = pdf.getNumberOfPages();
+                run.pdfText = new PDFTextStripper().getText(pdf);
+            }
+        } catch (Exception e) {
+            log.warn("PDF engine {} failed on template {}: {}", engine.name(), template.getId(), e.getMessage());
+            run.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            run.pdf = null;
+        }
+        return run;
+    }
+
+    /**
+     * Tỉ lệ từ của DOCX có trong text PDF (đếm theo multiset, bỏ dấu câu và khoảng trắng)
+     */
+    static double textRecall(String sourceText, String pdfText) {
+        List<String> expected = tokens(sourceText);
+        if (expected.isEmpty()) {
+            return 1.0;
+        }
+        Map<String, Integer> available = new HashMap<>();
+        for (String token : tokens(pdfText)) {
+            available.merge(token, 1, Integer::sum);
+        }
+        int found = 0;
+        for (String token : expected) {
+            Integer count = available.get(token);
+            if (count != null && count > 0) {
+                available.put(token, count - 1);
+                found++;
+            }
+        }
+        return (double) found / expected.size();
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase();
+        for (String token : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static BufferedImage firstPage(byte[] pdfBytes) throws Exception {
+        try (PDDocument pdf = PDDocument.load(pdfBytes)) {
+            return new PDFRenderer(pdf).renderImageWithDPI(0, SIMILARITY_DPI, ImageType.GRAY);
+        }
+    }
+
+    /**
+     * 1 - sai khác trung bình của mức xám trên vùng giao nhau, trừ thêm phần kích thước lệch nhau
+     */
+    static double similarity(BufferedImage a, BufferedImage b) {
+        int width = Math.min(a.getWidth(), b.getWidth());
+        int height = Math.min(a.getHeight(), b.getHeight());
+        int maxWidth = Math.max(a.getWidth(), b.getWidth());
+        int maxHeight = Math.max(a.getHeight(), b.getHeight());
+        if (width == 0 || height == 0) {
+            return 0;
+        }
+
+        double diff = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int ga = a.getRaster().getSample(x, y, 0);
+                int gb = b.getRaster().getSample(x, y, 0);
+                diff += Math.abs(ga - gb) / 255.0;
+            }
+        }
+        double overlap = (double) width * height / ((double) maxWidth * maxHeight);
+        return (1 - diff / ((double) width * height)) * overlap;
+    }
+
+    private static class EngineRun {
+        private byte[] pdf;
+        private String sourceText;
+        private String pdfText;
+        private int pageCount;
+        private long medianMillis;
+        private String error;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ceent.eform.service.convert;
+
+import com.ceent.eform.entity.Template;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Danh sách engine DOCX → PDF. Engine mặc định lấy từ app.pdf.engine,
+ * template có thể chọn engine riêng qua trường pdfEngine.
+ */
+@Component
+@Slf4j
+public class PdfEngineRegistry {
+
+    private final Map<String, PdfEngine> engines;
+    private final PdfEngine defaultEngine;
+
+    public PdfEngineRegistry(List<PdfEngine> engines,
+                             @Value("${app.pdf.engine:" + OpenSagresPdfEngine.NAME + "}") String defaultEngineName) {
+        Map<String, PdfEngine> byName = new LinkedHashMap<>();
+        for (PdfEngine engine : engines) {
+            byName.put(engine.name(), engine);
+        }
+        this.engines = Collections.unmodifiableMap(byName);
+
+        PdfEngine configured = byName.get(defaultEngineName);
+        if (configured == null) {
+            throw new IllegalStateException("Unknown app.pdf.engine: " + defaultEngineName + ", available: " + byName.keySet());
+        }
+        this.defaultEngine = configured;
+        log.info("PDF engines: {}, default: {}", byName.keySet(), defaultEngineName);
+    }
+
+    /**
+     * Engine theo cấu hình của template, engine không còn tồn tại thì dùng mặc định
+     */
+    public PdfEngine forTemplate(Template template) {
+        String name = template != null ? template.getPdfEngine() : null;
+        if (name == null) {
+            return defaultEngine;
+        }
+        PdfEngine engine = engines.get(name);
+        if (engine == null) {
+            log.warn("Template {} uses unknown PDF engine {}, falling back to {}", template.getId(), name, defaultEngine.name());
+            return defaultEngine;
+        }
+        return engine;
+    }
+
+    public PdfEngine get(String name) {
+        PdfEngine engine = engines.get(name);
+        if (engine == null) {
+            throw new IllegalArgumentException("Unknown PDF engine: " + name + ", available: " + engines.keySet());
+        }
+        return engine;
+    }
+
+    public PdfEngine getDefaultEngine() {
+        return defaultEngine;
+    }
+
+    public boolean hasEngine(String name) {
+        return engines.containsKey(name);
+    }
+
+    public Set<String> engineNames() {
+        return engines.keySet();
+    }
+}
@@ -0,0 +1,120 @@
+package com.ceent.eform.service.convert;
+
+import com.lowagie.text.pdf.BaseFont;
+import fr.opensagres.poi.xwpf.converter.xhtml.Base64EmbedImgManager;
+import fr.opensagres.poi.xwpf.converter.xhtml.XHTMLConverter;
+import fr.opensagres.poi.xwpf.converter.xhtml.XHTMLOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPageMar;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPageSz;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSectPr;
+import org.springframework.stereotype.Component;
+import org.xhtmlrenderer.pdf.ITextRenderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * DOCX → XHTML (opensagres, ảnh nhúng base64) → PDF bằng Flying Saucer.
+ * Khổ giấy và lề lấy từ sectPr cuối của document và đưa vào CSS @page.
+ */
+@Component
+@Slf4j
+public class XhtmlFlyingSaucerPdfEngine implements PdfEngine {
+
+    public static final String NAME = "xhtml-flyingsaucer";
+
+    private static final String[] FONT_PATHS = {
+            "fonts/times.ttf", "fonts/timesbd.ttf", "fonts/timesi.ttf", "fonts/timesbi.ttf", "fonts/arial.ttf"
+    };
+
+    // A4 và lề 2cm (đơn vị pt) khi document không khai báo sectPr
+    private static final double DEFAULT_WIDTH = 595.3;
+    private static final double DEFAULT_HEIGHT = 841.9;
+    private static final double DEFAULT_MARGIN = 56.7;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void convert(XWPFDocument document, OutputStream pdfOut) throws Exception {
+        String xhtml = withPageStyle(toXhtml(document), pageStyle(document));
+
+        // ITextRenderer giữ trạng thái layout nên tạo mới cho mỗi lần convert
+        ITextRenderer renderer = new ITextRenderer();
+        for (String fontPath : FONT_PATHS) {
+            try {
+                renderer.getFontResolver().addFont(fontPath, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+            } catch (Exception e) {
+                log.warn("Could not register font {}: {}", fontPath, e.getMessage());
+            }
+        }
+        renderer.setDocumentFromString(xhtml);
+        renderer.layout();
+        renderer.createPDF(pdfOut);
+    }
+
+    private String toXhtml(XWPFDocument document) throws Exception {
+        XHTMLOptions options = XHTMLOptions.create();
+        options.setImageManager(new Base64EmbedImgManager());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XHTMLConverter.getInstance().convert(document, out, options);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String withPageStyle(String xhtml, String pageStyle) {
+        int head = xhtml.indexOf("<head>");
+        if (head < 0) {
+            return xhtml;
+        }
+        int insertAt = head + "<head>".length();
+        return xhtml.substring(0, insertAt) + "<style>" + pageStyle + "</style>" + xhtml.substring(insertAt);
+    }
+
+    /**
+     * CSS @page theo pgSz/pgMar (twip = 1/20 pt)
+     */
+    static String pageStyle(XWPFDocument document) {
+        double width = DEFAULT_WIDTH;
+        double height = DEFAULT_HEIGHT;
+        double top = DEFAULT_MARGIN;
+        double right = DEFAULT_MARGIN;
+        double bottom = DEFAULT_MARGIN;
+        double left = DEFAULT_MARGIN;
+
+        CTSectPr sectPr = document.getDocument().getBody().getSectPr();
+        if (sectPr != null) {
+            CTPageSz pageSize = sectPr.getPgSz();
+            if (pageSize != null) {
+                width = twipsToPoints(pageSize.getW(), width);
+                height = twipsToPoints(pageSize.getH(), height);
+            }
+            CTPageMar margin = sectPr.getPgMar();
+            if (margin != null) {
+                top = twipsToPoints(margin.getTop(), top);
+                right = twipsToPoints(margin.getRight(), right);
+                bottom = twipsToPoints(margin.getBottom(), bottom);
+                left = twipsToPoints(margin.getLeft(), left);
+            }
+        }
+
+        return String.format(Locale.ROOT, "@page { size: %.1fpt %.1fpt; margin: %.1fpt %.1fpt %.1fpt %.1fpt; }",
+                width, height, Math.abs(top), right, Math.abs(bottom), left);
+    }
+
+    private static double twipsToPoints(Object twips, double fallback) {
+        if (twips == null) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(twips.toString()) / 20.0;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
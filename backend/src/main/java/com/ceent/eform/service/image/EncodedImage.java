@@ -0,0 +1,17 @@
+package com.ceent.eform.service.image;
+
+import com.deepoove.poi.data.PictureType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Ảnh đã được thu nhỏ và encode lại, sẵn sàng nhúng vào document
+ */
+@Getter
+@AllArgsConstructor
+public class EncodedImage {
+    private final byte[] data;
+    private final PictureType pictureType;
+    private final int width;   // kích thước hiển thị (px)
+    private final int height;
+}
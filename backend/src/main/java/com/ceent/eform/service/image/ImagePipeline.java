@@ -0,0 +1,473 @@
+package com.ceent.eform.service.image;
+
+import com.ceent.eform.service.ingest.TemplateStorage;
+import com.deepoove.poi.data.PictureRenderData;
+import com.deepoove.poi.data.PictureType;
+import com.deepoove.poi.data.Pictures;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Pipeline xử lý ảnh cho picture placeholder ({{@tên}}).
+ * Nguồn ảnh: đường dẫn local, data URI base64 hoặc URL http(s).
+ * Nguồn đến từ dữ liệu form nên mặc định bị chặn: URL chỉ được tải từ host trong
+ * {@code app.image.http.allowed-hosts}, đường dẫn local chỉ được đọc bên trong {@code app.image.local-dir}.
+ * Ảnh được decode và thu nhỏ về kích thước placeholder một lần, kết quả encode
+ * được cache theo (hash nguồn, kích thước đích) nên các lần render sau chỉ nhúng bytes đã nhỏ.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImagePipeline {
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of(".png", ".jpg", ".jpeg", ".gif", ".bmp");
+    private static final int MAX_REDIRECTS = 5;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.image.default-width:150}")
+    private int defaultWidth;
+
+    @Value("${app.image.default-height:150}")
+    private int defaultHeight;
+
+    @Value("${app.image.density:2}")
+    private int density; // số pixel ảnh trên mỗi px hiển thị, giữ ảnh nét khi in
+
+    @Value("${app.image.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Value("${app.image.max-source-bytes:20971520}")
+    private long maxSourceBytes;
+
+    @Value("${app.image.max-source-pixels:40000000}")
+    private long maxSourcePixels;
+
+    @Value("${app.image.http.timeout:PT10S}")
+    private Duration httpTimeout;
+
+    @Value("${app.image.http.allowed-hosts:}")
+    private List<String> allowedHosts; // rỗng = không cho tải ảnh qua URL
+
+    @Value("${app.image.local-dir:}")
+    private String localDir; // rỗng = không cho đọc ảnh local
+
+    @Value("${app.image.cache.max-bytes:67108864}")
+    private long cacheMaxBytes;
+
+    @Value("${app.image.url-ttl:PT10M}")
+    private Duration urlTtl;
+
+    private HttpClient httpClient;
+    private Path localRoot;
+    private Cache<ImageKey, EncodedImage> encodedCache;
+    private Cache<String, String> localSourceHashes;
+    private Cache<String, byte[]> urlSources;
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(httpTimeout)
+                // Redirect tự xử lý để kiểm tra host ở từng bước
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        localRoot = localDir == null || localDir.isBlank() ? null : Paths.get(localDir).toAbsolutePath().normalize();
+        encodedCache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((ImageKey key, EncodedImage image) -> image.getData().length)
+                .recordStats()
+                .build();
+        // path|mtime|size → hash, tránh đọc lại file local chỉ để tính hash
+        localSourceHashes = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .recordStats()
+                .build();
+        // URL → bytes ảnh gốc, giữ ngắn hạn để không tải lại trong các lần render liên tiếp
+        urlSources = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes / 4)
+                .weigher((String url, byte[] bytes) -> bytes.length)
+                .expireAfterWrite(urlTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, encodedCache, "image-encoded");
+        CaffeineCacheMetrics.monitor(meterRegistry, localSourceHashes, "image-source-hash");
+        CaffeineCacheMetrics.monitor(meterRegistry, urlSources, "image-url-source");
+    }
+
+    /**
+     * Thay giá trị các picture field bằng PictureRenderData đã tối ưu.
+     * Giá trị có thể là chuỗi nguồn ảnh hoặc map {src, width, height}.
+     */
+    public Map<String, Object> resolvePictures(Map<String, Object> data, Set<String> pictureFields) {
+        for (String field : pictureFields) {
+            Object value = data.get(field);
+            if (value == null || value instanceof PictureRenderData) {
+                continue;
+            }
+
+            try {
+                data.put(field, toPicture(value));
+            } catch (Exception e) {
+                log.error("Error processing image for field {}: {}", field, e.getMessage());
+                data.remove(field);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Tạo PictureRenderData từ chuỗi nguồn hoặc map {src, width, height}
+     */
+    public PictureRenderData toPicture(Object value) throws IOException {
+        if (value instanceof Map<?, ?> map) {
+            Object src = map.get("src");
+            if (src == null) {
+                throw new IllegalArgumentException("Image map requires 'src'");
+            }
+            return toPicture(src.toString(), intValue(map.get("width"), defaultWidth), intValue(map.get("height"), defaultHeight));
+        }
+        return toPicture(value.toString(), defaultWidth, defaultHeight);
+    }
+
+    public PictureRenderData toPicture(String source, int width, int height) throws IOException {
+        EncodedImage image = load(source, width, height);
+        return Pictures.ofBytes(image.getData(), image.getPictureType())
+                .size(image.getWidth(), image.getHeight())
+                .create();
+    }
+
+    /**
+     * Ảnh đã thu nhỏ để vừa khung width x height (giữ tỉ lệ)
+     */
+    public EncodedImage load(String source, int width, int height) throws IOException {
+        String trimmed = source.trim();
+        byte[] sourceBytes = null;
+        String sourceHash;
+
+        if (trimmed.startsWith("data:")) {
+            // Hash trực tiếp chuỗi base64, chỉ decode khi cache miss
+            sourceHash = sha256(trimmed.getBytes(StandardCharsets.US_ASCII));
+        } else if (isHttpUrl(trimmed)) {
+            sourceBytes = fetchUrl(trimmed);
+            sourceHash = sha256(sourceBytes);
+        } else {
+            sourceHash = localSourceHash(resolveLocal(trimmed));
+        }
+
+        ImageKey key = new ImageKey(sourceHash, width, height);
+        EncodedImage cached = encodedCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (sourceBytes == null) {
+            sourceBytes = trimmed.startsWith("data:") ? decodeDataUri(trimmed) : readLocal(resolveLocal(trimmed));
+        }
+        EncodedImage encoded = downscale(sourceBytes, width, height);
+        encodedCache.put(key, encoded);
+        return encoded;
+    }
+
+    /**
+     * Hash nội dung các ảnh không nằm trong form data (URL, file local) của picture field, null nếu không có.
+     * Ảnh ở URL/file có thể đổi trong khi form giữ nguyên: output đã render chỉ dùng lại được khi hash này không đổi.
+     * URL được tải qua cache urlSources nên lần render ngay sau đó không tải lại.
+     */
+    public String externalSourcesHash(Map<String, Object> data, Set<String> pictureFields) throws IOException {
+        MessageDigest digest = null;
+        for (String field : new TreeSet<>(pictureFields)) {
+            Object value = data.get(field);
+            Object src = value instanceof Map<?, ?> map ? map.get("src") : value;
+            if (src == null || value instanceof PictureRenderData) {
+                continue;
+            }
+            String source = src.toString().trim();
+            if (source.startsWith("data:")) {
+                continue;
+            }
+            String hash = isHttpUrl(source) ? sha256(fetchUrl(source)) : localSourceHash(resolveLocal(source));
+            if (digest == null) {
+                digest = TemplateStorage.newSha256();
+            }
+            digest.update((field + "=" + hash).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return digest != null ? HexFormat.of().formatHex(digest.digest()) : null;
+    }
+
+    /**
+     * Đoán giá trị có phải nguồn ảnh hay không (dùng khi template không khai báo picture tag)
+     */
+    public boolean looksLikeImageSource(Object value) {
+        if (!(value instanceof String text)) {
+            return false;
+        }
+        String lower = text.trim().toLowerCase(Locale.ROOT);
+        if (lower.startsWith("data:image/")) {
+            return true;
+        }
+        int query = lower.indexOf('?');
+        String path = query >= 0 ? lower.substring(0, query) : lower;
+        return IMAGE_EXTENSIONS.stream().anyMatch(path::endsWith);
+    }
+
+    private EncodedImage downscale(byte[] sourceBytes, int width, int height) throws IOException {
+        BufferedImage image;
+        int displayWidth;
+        int displayHeight;
+        int pixelWidth;
+        int pixelHeight;
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(sourceBytes))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                // Đọc kích thước từ header trước khi decode: ảnh nén nhỏ vẫn có thể bung ra hàng GB pixel
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                if ((long) sourceWidth * sourceHeight > maxSourcePixels) {
+                    throw new IOException("Image too large: " + sourceWidth + "x" + sourceHeight + " pixels");
+                }
+
+                // Kích thước hiển thị: vừa khung placeholder, giữ tỉ lệ
+                double ratio = Math.min((double) width / sourceWidth, (double) height / sourceHeight);
+                displayWidth = Math.max(1, (int) Math.round(sourceWidth * ratio));
+                displayHeight = Math.max(1, (int) Math.round(sourceHeight * ratio));
+
+                pixelWidth = Math.min(sourceWidth, displayWidth * density);
+                pixelHeight = Math.min(sourceHeight, displayHeight * density);
+
+                // Ảnh lớn hơn nhiều lần kích thước cần: decode cách dòng/cột, không giữ đủ pixel gốc trong bộ nhớ
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.min(sourceWidth / pixelWidth, sourceHeight / pixelHeight);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        boolean opaque = !image.getColorModel().hasAlpha();
+
+        BufferedImage scaled = new BufferedImage(pixelWidth, pixelHeight,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, pixelWidth, pixelHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (opaque) {
+            writeJpeg(scaled, out);
+            return new EncodedImage(out.toByteArray(), PictureType.JPEG, displayWidth, displayHeight);
+        }
+        ImageIO.write(scaled, "png", out);
+        return new EncodedImage(out.toByteArray(), PictureType.PNG, displayWidth, displayHeight);
+    }
+
+    private void writeJpeg(BufferedImage image, ByteArrayOutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private byte[] fetchUrl(String url) throws IOException {
+        byte[] cached = urlSources.getIfPresent(url);
+        if (cached != null) {
+            return cached;
+        }
+
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid image URL: " + url, e);
+        }
+        try {
+            for (int hop = 0; hop <= MAX_REDIRECTS; hop++) {
+                checkAllowed(uri);
+                HttpRequest request = HttpRequest.newBuilder(uri).timeout(httpTimeout).GET().build();
+                HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                try (InputStream body = response.body()) {
+                    int status = response.statusCode();
+                    if (status >= 300 && status < 400) {
+                        String location = response.headers().firstValue("Location")
+                                .orElseThrow(() -> new IOException("HTTP " + status + " without Location when fetching " + url));
+                        uri = uri.resolve(location);
+                        continue;
+                    }
+                    if (status != 200) {
+                        throw new IOException("HTTP " + status + " when fetching " + url);
+                    }
+                    byte[] bytes = readLimited(body);
+                    urlSources.put(url, bytes);
+                    return bytes;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid redirect when fetching " + url, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + url, e);
+        }
+        throw new IOException("Too many redirects when fetching " + url);
+    }
+
+    private void checkAllowed(URI uri) throws IOException {
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            throw new IOException("Image URL scheme not allowed: " + uri);
+        }
+        String host = uri.getHost();
+        if (host == null || allowedHosts.stream().noneMatch(allowed -> allowed.trim().equalsIgnoreCase(host))) {
+            throw new IOException("Image host not allowed: " + host);
+        }
+    }
+
+    /**
+     * Đường dẫn local chỉ hợp lệ khi nằm trong thư mục ảnh đã cấu hình (kể cả sau khi giải symlink)
+     */
+    private Path resolveLocal(String source) throws IOException {
+        if (localRoot == null) {
+            throw new IOException("Local image paths are disabled");
+        }
+        Path path;
+        try {
+            path = localRoot.resolve(source).normalize();
+        } catch (InvalidPathException e) {
+            throw new IOException("Invalid image path: " + source, e);
+        }
+        if (!path.startsWith(localRoot)) {
+            throw new IOException("Image path outside image directory: " + source);
+        }
+        if (Files.exists(path) && !path.toRealPath().startsWith(localRoot.toRealPath())) {
+            throw new IOException("Image path outside image directory: " + source);
+        }
+        return path;
+    }
+
+    private String localSourceHash(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        String identity = path.toAbsolutePath() + "|" + attributes.lastModifiedTime().toMillis() + "|" + attributes.size();
+        String hash = localSourceHashes.getIfPresent(identity);
+        if (hash == null) {
+            hash = sha256(readLocal(path));
+            localSourceHashes.put(identity, hash);
+        }
+        return hash;
+    }
+
+    private byte[] readLocal(Path path) throws IOException {
+        if (Files.size(path) > maxSourceBytes) {
+            throw new IOException("Image too large: " + path);
+        }
+        return Files.readAllBytes(path);
+    }
+
+    private byte[] decodeDataUri(String dataUri) throws IOException {
+        int comma = dataUri.indexOf(',');
+        if (comma < 0 || !dataUri.substring(0, comma).endsWith(";base64")) {
+            throw new IOException("Only base64 data URIs are supported");
+        }
+        byte[] bytes = Base64.getMimeDecoder().decode(dataUri.substring(comma + 1));
+        if (bytes.length > maxSourceBytes) {
+            throw new IOException("Image too large");
+        }
+        return bytes;
+    }
+
+    private byte[] readLimited(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxSourceBytes + 1));
+        if (bytes.length > maxSourceBytes) {
+            throw new IOException("Image too large");
+        }
+        return bytes;
+    }
+
+    private static boolean isHttpUrl(String source) {
+        String lower = source.toLowerCase(Locale.ROOT);
+        return lower.startsWith("http://") || lower.startsWith("https://");
+    }
+
+    private static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(TemplateStorage.newSha256().digest(bytes));
+    }
+
+    private static int intValue(Object value, int defaultValue) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException ignored) {
+                // dùng giá trị mặc định
+            }
+        }
+        return defaultValue;
+    }
+
+    private record ImageKey(String sourceHash, int width, int height) {
+    }
+}
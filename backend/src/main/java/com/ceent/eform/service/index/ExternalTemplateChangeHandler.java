@@ -0,0 +1,68 @@
+package com.ceent.eform.service.index;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.change.ChangeCounters;
+import com.ceent.eform.service.ingest.TemplateStoredEvent;
+import com.ceent.eform.service.invalidation.InvalidationBus;
+import com.ceent.eform.service.invalidation.TemplateInvalidation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Xử lý file template gốc bị sửa/xoá ngoài ứng dụng: nội dung mới thì cập nhật contentHash và chạy lại
+ * ingestion như khi lưu từ OnlyOffice, bị xoá thì bỏ cache để lần render sau báo lỗi rõ ràng.
+ * File phụ (bản prepared, thumbnail, backup) không gắn với template nào nên được bỏ qua.
+ * Watcher chạy trên mọi node và không biết file do node khác ghi, nên hash mới được ghi bằng UPDATE có điều kiện:
+ * chỉ node đầu tiên ghi được hash (node lưu từ OnlyOffice hoặc một node thấy file đổi) chạy lại ingestion.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExternalTemplateChangeHandler {
+
+    private final TemplateRepository templateRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InvalidationBus invalidationBus;
+    private final ChangeCounters changeCounters;
+
+    @EventListener
+    public void onFileChanged(TemplateFileChangedEvent event) {
+        // filePath trong DB có thể là tương đối (app.upload.dir mặc định) hoặc tuyệt đối
+        Path absolute = event.getPath();
+        Path relative = Paths.get("").toAbsolutePath().relativize(absolute);
+        List<Template> templates = templateRepository.findByFilePathIn(List.of(absolute.toString(), relative.toString()));
+
+        for (Template template : templates) {
+            if (event.isDeleted()) {
+                log.warn("Source file of template {} was deleted: {}", template.getId(), absolute);
+                invalidationBus.publish(template.getId(), null, TemplateInvalidation.REASON_EXTERNAL);
+                continue;
+            }
+
+            String sha256 = event.getEntry().sha256();
+            if (Objects.equals(sha256, template.getContentHash())) {
+                continue;
+            }
+            int updated = templateRepository.markContentChanged(template.getId(), sha256, event.getEntry().size(),
+                    LocalDateTime.now());
+            if (updated == 0) {
+                log.debug("Content {} of template {} was already recorded by another node", sha256, template.getId());
+                continue;
+            }
+            log.info("Template {} was modified outside the application, re-ingesting", template.getId());
+            changeCounters.bump(ChangeCounters.TEMPLATES);
+            eventPublisher.publishEvent(new TemplateStoredEvent(template.getId(), sha256));
+            invalidationBus.publish(template.getId(), sha256, TemplateInvalidation.REASON_EXTERNAL);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ceent.eform.service.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * File trong thư mục upload bị sửa hoặc xoá không qua ứng dụng (entry null = đã bị xoá)
+ */
+@Getter
+@AllArgsConstructor
+public class TemplateFileChangedEvent {
+    private final Path path;
+    private final TemplateFileEntry entry;
+
+    public boolean isDeleted() {
+        return entry == null;
+    }
+}
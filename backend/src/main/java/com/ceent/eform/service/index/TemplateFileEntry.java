@@ -0,0 +1,9 @@
+package com.ceent.eform.service.index;
+
+import java.nio.file.Path;
+
+/**
+ * Thông tin một file trong thư mục upload. sha256 null khi chưa kịp hash (file vừa được phát hiện qua fallback).
+ */
+public record TemplateFileEntry(Path path, long size, long lastModified, String sha256) {
+}
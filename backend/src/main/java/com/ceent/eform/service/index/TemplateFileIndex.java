@@ -0,0 +1,334 @@
+package com.ceent.eform.service.index;
+
+import com.ceent.eform.service.ingest.TemplateStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Index trong bộ nhớ của các file trong app.upload.dir (size, mtime, SHA-256), được WatchService cập nhật.
+ * Hot path (kiểm tra tồn tại, file info) chỉ đọc map, không gọi syscall. File do ứng dụng ghi được báo qua
+ * recordWrite nên không bị coi là sửa từ ngoài; thay đổi/xoá từ ngoài phát TemplateFileChangedEvent.
+ * Sự kiện của một file được gom lại tới khi file yên (app.template-index.settle-ms) mới hash.
+ * WatchService không thấy thay đổi từ host khác trên volume mạng nên có thêm quét định kỳ để đối chiếu.
+ */
+@Component
+@Slf4j
+public class TemplateFileIndex {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Path uploadDir;
+    private final boolean enabled;
+    private final long settleMillis;
+
+    private final Map<Path, TemplateFileEntry> entries = new ConcurrentHashMap<>();
+    private final Map<Path, Long> pending = new ConcurrentHashMap<>(); // path -> thời điểm sự kiện cuối
+    private final Set<Path> writing = ConcurrentHashMap.newKeySet();
+
+    private final Counter hits;
+    private final Counter fallbacks;
+
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public TemplateFileIndex(ApplicationEventPublisher eventPublisher,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.upload.dir:uploads}") String uploadDir,
+                             @Value("${app.template-index.enabled:true}") boolean enabled,
+                             @Value("${app.template-index.settle-ms:1000}") long settleMillis) {
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.uploadDir = normalize(Paths.get(uploadDir));
+        this.enabled = enabled;
+        this.settleMillis = settleMillis;
+        this.hits = meterRegistry.counter("eform.template.index.lookups", "result", "hit");
+        this.fallbacks = meterRegistry.counter("eform.template.index.lookups", "result", "fallback");
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        Gauge.builder("eform.template.index.files", entries, Map::size)
+                .description("Số file trong index thư mục upload")
+                .register(meterRegistry);
+        if (!enabled) {
+            log.info("Template file index disabled, lookups go to the filesystem");
+            return;
+        }
+
+        Files.createDirectories(uploadDir);
+        watchService = uploadDir.getFileSystem().newWatchService();
+        uploadDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        // Quét ban đầu: ghi nhận trạng thái hiện tại (không coi là thay đổi), hash sau trong thread watch
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            files.forEach(file -> {
+                TemplateFileEntry entry = read(normalize(file));
+                if (entry != null) {
+                    putWithoutHash(entry);
+                }
+            });
+        }
+        log.info("Template file index: {} files in {}", entries.size(), uploadDir);
+
+        running = true;
+        watchThread = new Thread(this::watchLoop, "template-file-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        running = false;
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+
+    /**
+     * File có tồn tại không. Path chưa có trong index (file vừa ghi, chưa kịp nhận sự kiện, hoặc index tắt)
+     * thì hỏi filesystem một lần rồi đưa vào index.
+     */
+    public boolean exists(String path) {
+        return get(path).isPresent();
+    }
+
+    public Optional<TemplateFileEntry> get(String path) {
+        Path key = normalize(Paths.get(path));
+        TemplateFileEntry entry = entries.get(key);
+        if (entry != null) {
+            hits.increment();
+            return Optional.of(entry);
+        }
+        fallbacks.increment();
+        TemplateFileEntry current = read(key);
+        if (current != null && enabled && key.startsWith(uploadDir)) {
+            putWithoutHash(current);
+        }
+        return Optional.ofNullable(current);
+    }
+
+    /**
+     * Gọi trước khi ứng dụng ghi file, sự kiện của file đang ghi được hoãn tới recordWrite
+     */
+    public void beginWrite(Path path) {
+        writing.add(normalize(path));
+    }
+
+    /**
+     * Ứng dụng đã ghi xong file với hash đã biết (null nếu ghi lỗi)
+     */
+    public void recordWrite(Path path, String sha256) {
+        Path key = normalize(path);
+        try {
+            if (sha256 != null) {
+                BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+                entries.put(key, new TemplateFileEntry(key, attributes.size(), attributes.lastModifiedTime().toMillis(), sha256));
+            }
+        } catch (IOException e) {
+            log.debug("Could not stat {} after write: {}", key, e.getMessage());
+        } finally {
+            writing.remove(key);
+        }
+    }
+
+    /**
+     * Đối chiếu định kỳ với thư mục, bắt thay đổi mà WatchService bỏ sót
+     */
+    @Scheduled(fixedDelayString = "${app.template-index.rescan-interval-ms:300000}",
+            initialDelayString = "${app.template-index.rescan-interval-ms:300000}")
+    public void rescan() {
+        if (!running) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            files.map(TemplateFileIndex::normalize).forEach(file -> {
+                TemplateFileEntry entry = entries.get(file);
+                if (entry == null || changedOnDisk(entry)) {
+                    pending.putIfAbsent(file, now);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not rescan {}: {}", uploadDir, e.getMessage());
+            return;
+        }
+        entries.keySet().forEach(file -> {
+            if (!Files.exists(file)) {
+                pending.putIfAbsent(file, now);
+            }
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(Math.max(settleMillis / 2, 50), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    long now = System.currentTimeMillis();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            log.warn("Template file watch overflow, rescanning {}", uploadDir);
+                            rescan();
+                            continue;
+                        }
+                        pending.put(normalize(uploadDir.resolve((Path) event.context())), now);
+                    }
+                    if (!key.reset()) {
+                        log.error("Upload directory {} is no longer watchable, falling back to periodic rescans", uploadDir);
+                        return;
+                    }
+                }
+                processSettled();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.warn("Template file watch error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void processSettled() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> next = iterator.next();
+            Path file = next.getKey();
+            if (now - next.getValue() < settleMillis || writing.contains(file)) {
+                continue;
+            }
+            iterator.remove();
+            refresh(file);
+        }
+    }
+
+    private void refresh(Path file) {
+        TemplateFileEntry previous = entries.get(file);
+        TemplateFileEntry current = read(file);
+        if (current == null) {
+            if (entries.remove(file) != null) {
+                publish(file, null, "deleted");
+            }
+            return;
+        }
+        boolean statChanged = previous == null
+                || previous.size() != current.size() || previous.lastModified() != current.lastModified();
+        if (previous != null && previous.sha256() != null && !statChanged) {
+            return;
+        }
+
+        String sha256;
+        try {
+            sha256 = hash(file);
+        } catch (NoSuchFileException e) {
+            if (entries.remove(file) != null) {
+                publish(file, null, "deleted");
+            }
+            return;
+        } catch (IOException e) {
+            log.warn("Could not hash {}: {}", file, e.getMessage());
+            return;
+        }
+
+        TemplateFileEntry entry = new TemplateFileEntry(file, current.size(), current.lastModified(), sha256);
+        entries.put(file, entry);
+        if (previous == null) {
+            publish(file, entry, "created");
+        } else if (previous.sha256() == null ? statChanged : !sha256.equals(previous.sha256())) {
+            // Entry chưa có hash: chỉ biết là đã đổi qua size/mtime, handler đối chiếu với contentHash trong DB
+            publish(file, entry, "modified");
+        }
+    }
+
+    private void publish(Path file, TemplateFileEntry entry, String type) {
+        log.info("Template file {} {} outside the application", file.getFileName(), type);
+        Counter.builder("eform.template.index.changes")
+                .description("Thay đổi file template phát hiện qua WatchService/rescan")
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment();
+        try {
+            eventPublisher.publishEvent(new TemplateFileChangedEvent(file, entry));
+        } catch (Exception e) {
+            log.warn("Handling change of {} failed: {}", file, e.getMessage());
+        }
+    }
+
+    private boolean changedOnDisk(TemplateFileEntry entry) {
+        TemplateFileEntry current = read(entry.path());
+        return current == null || current.size() != entry.size() || current.lastModified() != entry.lastModified();
+    }
+
+    private void putWithoutHash(TemplateFileEntry entry) {
+        if (entries.putIfAbsent(entry.path(), entry) == null) {
+            // Hash sau trong thread watch
+            pending.putIfAbsent(entry.path(), 0L);
+        }
+    }
+
+    private TemplateFileEntry read(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new TemplateFileEntry(file, attributes.size(), attributes.lastModifiedTime().toMillis(), null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest = TemplateStorage.newSha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,309 @@
+package com.ceent.eform.service.ingest;
+
+import com.ceent.eform.dto.TemplateDto;
+import com.ceent.eform.dto.TemplateUploadDto;
+import com.ceent.eform.dto.request.TemplateUploadRequest;
+import com.ceent.eform.entity.TemplateUpload;
+import com.ceent.eform.repository.TemplateUploadRepository;
+import com.ceent.eform.service.EFormService;
+import com.ceent.eform.service.index.TemplateFileIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
+
+/**
+ * Upload template theo chunk, resume được: mỗi chunk được ghi thẳng vào file .part trong app.upload.chunked.part-dir
+ * (ghi đĩa một lần, không giữ cả file trong bộ nhớ), SHA-256 được tính dần theo chunk. Thư mục này nằm ngoài tầng
+ * TemplateFileIndex theo dõi nên file .part không bị hash lại sau mỗi chunk. Khi đủ byte thì
+ * kiểm tra hash/cấu trúc zip, rename atomic sang tên cuối và đưa vào pipeline ingestion như upload thường.
+ * Trạng thái phiên nằm trong DB nên chunk tiếp theo có thể tới node khác (thư mục upload dùng chung);
+ * node không có trạng thái digest trong bộ nhớ thì hash lại phần đã nhận từ đĩa.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] ZIP_SIGNATURE = {'P', 'K', 3, 4};
+    private static final Pattern SHA256_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final TemplateUploadRepository uploadRepository;
+    private final EFormService eFormService;
+    private final TemplateFileIndex fileIndex;
+
+    private final Map<String, DigestState> digests = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.upload.chunked.part-dir:${app.upload.dir:uploads}/.chunks}")
+    private String partDir;
+
+    @Value("${app.upload.chunked.max-template-size:200MB}")
+    private DataSize maxTemplateSize;
+
+    @Value("${app.upload.chunked.max-chunk-size:8MB}")
+    private DataSize maxChunkSize;
+
+    @Value("${app.upload.chunked.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    public TemplateUploadDto create(TemplateUploadRequest request) throws IOException {
+        if (!StringUtils.hasText(request.getName())) {
+            throw new IllegalArgumentException("name is required");
+        }
+        String filename = request.getFilename() != null ? StringUtils.cleanPath(request.getFilename()) : null;
+        if (filename == null || filename.contains("/") || !filename.toLowerCase().endsWith(".docx")) {
+            throw new IllegalArgumentException("filename must be a .docx file name");
+        }
+        if (request.getSize() == null || request.getSize() <= 0 || request.getSize() > maxTemplateSize.toBytes()) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxTemplateSize.toBytes() + " bytes");
+        }
+        String sha256 = request.getSha256() != null ? request.getSha256().toLowerCase() : null;
+        if (sha256 != null && !SHA256_PATTERN.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("sha256 must be 64 hex characters");
+        }
+
+        Path dir = Paths.get(partDir);
+        Files.createDirectories(dir);
+        String id = UUID.randomUUID().toString();
+        Path part = dir.resolve(id + ".part");
+        Files.createFile(part);
+
+        TemplateUpload upload = new TemplateUpload();
+        upload.setId(id);
+        upload.setName(request.getName());
+        upload.setFilename(filename);
+        upload.setTotalSize(request.getSize());
+        upload.setExpectedSha256(sha256);
+        upload.setPartPath(part.toString());
+        return toDto(uploadRepository.save(upload), null);
+    }
+
+    public TemplateUploadDto status(String id) {
+        TemplateUpload upload = find(id);
+        return toDto(upload, upload.getTemplateId() != null ? eFormService.getTemplate(upload.getTemplateId()) : null);
+    }
+
+    /**
+     * Ghi một chunk bắt đầu tại offset. Chunk cuối hoàn tất upload và trả về template đã tạo.
+     */
+    public TemplateUploadDto appendChunk(String id, long offset, InputStream body) throws IOException {
+        synchronized (locks.computeIfAbsent(id, key -> new Object())) {
+            TemplateUpload upload = find(id);
+            if (upload.getTemplateId() != null) {
+                return status(id);
+            }
+            if (offset != upload.getReceivedBytes()) {
+                throw new UploadOffsetMismatchException(upload.getReceivedBytes(), offset);
+            }
+
+            Path part = Paths.get(upload.getPartPath());
+            DigestState state = digestFor(upload, part);
+            long limit = Math.min(maxChunkSize.toBytes(), upload.getTotalSize() - offset);
+            long written = 0;
+
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                channel.position(offset);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    if (written + read > limit) {
+                        throw new IllegalArgumentException("Chunk exceeds " + limit + " bytes (max chunk size or remaining size)");
+                    }
+                    state.checkSignature(buffer, read);
+                    state.digest.update(buffer, 0, read);
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                    while (byteBuffer.hasRemaining()) {
+                        channel.write(byteBuffer);
+                    }
+                    written += read;
+                }
+                // Chunk đã nhận phải còn sau khi crash, vì client sẽ resume từ offset mới
+                channel.force(false);
+            } catch (IOException | RuntimeException e) {
+                // Digest đã cập nhật một phần, lần sau hash lại từ đĩa
+                digests.remove(id);
+                throw e;
+            }
+
+            upload.setReceivedBytes(offset + written);
+            state.offset = upload.getReceivedBytes();
+            upload = uploadRepository.save(upload);
+
+            if (upload.getReceivedBytes() < upload.getTotalSize()) {
+                return toDto(upload, null);
+            }
+            return complete(upload, part, state);
+        }
+    }
+
+    public void cancel(String id) throws IOException {
+        TemplateUpload upload = find(id);
+        if (upload.getTemplateId() == null) {
+            Files.deleteIfExists(Paths.get(upload.getPartPath()));
+        }
+        digests.remove(id);
+        locks.remove(id);
+        uploadRepository.delete(upload);
+    }
+
+    /**
+     * Xoá phiên bỏ dở quá app.upload.chunked.session-ttl
+     */
+    @Scheduled(fixedDelayString = "${app.upload.chunked.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        for (TemplateUpload upload : uploadRepository.findByTemplateIdIsNullAndUpdatedAtBefore(LocalDateTime.now().minus(sessionTtl))) {
+            try {
+                Files.deleteIfExists(Paths.get(upload.getPartPath()));
+                digests.remove(upload.getId());
+                locks.remove(upload.getId());
+                uploadRepository.delete(upload);
+                log.info("Purged abandoned template upload {} ({}/{} bytes)", upload.getId(),
+                        upload.getReceivedBytes(), upload.getTotalSize());
+            } catch (Exception e) {
+                log.warn("Could not purge template upload {}: {}", upload.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private TemplateUploadDto complete(TemplateUpload upload, Path part, DigestState state) throws IOException {
+        String sha256 = HexFormat.of().formatHex(state.digest.digest());
+        digests.remove(upload.getId());
+
+        String error;
+        if (upload.getExpectedSha256() != null && !upload.getExpectedSha256().equals(sha256)) {
+            error = "SHA-256 mismatch: expected " + upload.getExpectedSha256() + ", received " + sha256;
+        } else {
+            error = validateDocx(part);
+        }
+        if (error != null) {
+            // Cho phép upload lại từ đầu trong cùng phiên
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+            }
+            upload.setReceivedBytes(0);
+            uploadRepository.save(upload);
+            throw new IllegalArgumentException(error);
+        }
+
+        Path target = Paths.get(uploadDir).resolve(System.currentTimeMillis() + "_" + upload.getFilename());
+        fileIndex.beginWrite(target);
+        try {
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            fileIndex.recordWrite(target, sha256);
+        }
+
+        TemplateDto template = eFormService.registerTemplate(upload.getName(), upload.getFilename(),
+                new StoredFile(target, sha256, upload.getTotalSize()));
+        upload.setTemplateId(template.getId());
+        upload.setPartPath(target.toString());
+        upload = uploadRepository.save(upload);
+        locks.remove(upload.getId());
+        log.info("Chunked upload {} completed as template {} ({} bytes)", upload.getId(), template.getId(), upload.getTotalSize());
+        return toDto(upload, template);
+    }
+
+    /**
+     * Chỉ đọc central directory ở cuối file, không giải nén nội dung
+     */
+    private String validateDocx(Path part) {
+        try (ZipFile zip = new ZipFile(part.toFile())) {
+            if (zip.getEntry("[Content_Types].xml") == null || zip.getEntry("word/document.xml") == null) {
+                return "File is a zip archive but not a Word document";
+            }
+            return null;
+        } catch (IOException e) {
+            return "File is not a valid DOCX (zip) archive: " + e.getMessage();
+        }
+    }
+
+    private DigestState digestFor(TemplateUpload upload, Path part) throws IOException {
+        DigestState state = digests.get(upload.getId());
+        if (state != null && state.offset == upload.getReceivedBytes()) {
+            return state;
+        }
+
+        // Phiên bắt đầu trên node khác hoặc trước khi restart: hash lại phần đã nhận
+        state = new DigestState();
+        try (InputStream in = Files.newInputStream(part)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = upload.getReceivedBytes();
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new IOException("Part file of upload " + upload.getId() + " is shorter than received bytes");
+                }
+                state.checkSignature(buffer, read);
+                state.digest.update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        state.offset = upload.getReceivedBytes();
+        digests.put(upload.getId(), state);
+        return state;
+    }
+
+    private TemplateUpload find(String id) {
+        return uploadRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Upload not found"));
+    }
+
+    private TemplateUploadDto toDto(TemplateUpload upload, TemplateDto template) {
+        return new TemplateUploadDto(upload.getId(), upload.getName(), upload.getFilename(), upload.getTotalSize(),
+                upload.getReceivedBytes(), maxChunkSize.toBytes(), template);
+    }
+
+    /**
+     * SHA-256 đang tính dở và 4 byte đầu (chữ ký zip) của một phiên
+     */
+    private static final class DigestState {
+        private final MessageDigest digest = TemplateStorage.newSha256();
+        private final byte[] head = new byte[ZIP_SIGNATURE.length];
+        private int headLength;
+        private long offset;
+
+        /**
+         * Từ chối ngay ở chunk đầu nếu không phải file zip, không chờ tới khi nhận đủ
+         */
+        private void checkSignature(byte[] buffer, int length) {
+            if (headLength == head.length) {
+                return;
+            }
+            int copy = Math.min(length, head.length - headLength);
+            System.arraycopy(buffer, 0, head, headLength, copy);
+            headLength += copy;
+            for (int i = 0; i < headLength; i++) {
+                if (head[i] != ZIP_SIGNATURE[i]) {
+                    throw new IllegalArgumentException("File is not a DOCX (zip) archive");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ceent.eform.service.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chuẩn hóa font (Times New Roman 12) và spacing cho document
+ */
+@Component
+@Slf4j
+public class DocumentFontNormalizer {
+
+    public static final String FONT_FAMILY = "Times New Roman";
+    public static final int FONT_SIZE = 12;
+
+    /**
+     * Chuẩn hóa toàn bộ paragraphs và tables, trả về true nếu document có thay đổi
+     */
+    public boolean normalize(XWPFDocument document) {
+        boolean changed = false;
+
+        for (XWPFParagraph paragraph : document.getParagraphs()) {
+            changed |= normalize(paragraph);
+        }
+
+        for (var table : document.getTables()) {
+            for (var row : table.getRows()) {
+                for (var cell : row.getTableCells()) {
+                    for (XWPFParagraph paragraph : cell.getParagraphs()) {
+                        changed |= normalize(paragraph);
+                    }
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Cải thiện font cho paragraph
+     */
+    public boolean normalize(XWPFParagraph paragraph) {
+        boolean changed = false;
+
+        try {
+            // Thiết lập spacing
+            paragraph.setSpacingBetween(1.15);
+            paragraph.setSpacingAfter(120);
+            paragraph.setSpacingBefore(0);
+
+            for (XWPFRun run : paragraph.getRuns()) {
+                if (!FONT_FAMILY.equals(run.getFontFamily())) {
+                    run.setFontFamily(FONT_FAMILY);
+                    changed = true;
+                }
+
+                if (run.getFontSize() != FONT_SIZE) {
+                    run.setFontSize(FONT_SIZE);
+                    changed = true;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Error improving font for paragraph: {}", e.getMessage());
+        }
+
+        return changed;
+    }
+}
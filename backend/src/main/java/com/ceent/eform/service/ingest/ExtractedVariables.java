@@ -0,0 +1,16 @@
+package com.ceent.eform.service.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Các biến tìm được trong template và việc đã chắc chắn quét hết mọi phần có thể chứa tag hay chưa
+ */
+@Getter
+@AllArgsConstructor
+public class ExtractedVariables {
+    private final List<String> names;
+    private final boolean complete;
+}
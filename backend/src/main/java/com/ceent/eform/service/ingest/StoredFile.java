@@ -0,0 +1,17 @@
+package com.ceent.eform.service.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Kết quả lưu file template: đường dẫn, SHA-256 và kích thước
+ */
+@Getter
+@AllArgsConstructor
+public class StoredFile {
+    private final Path path;
+    private final String sha256;
+    private final long size;
+}
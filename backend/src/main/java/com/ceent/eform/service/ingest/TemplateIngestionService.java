@@ -0,0 +1,254 @@
+package com.ceent.eform.service.ingest;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.preview.TemplatePreviewService;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import com.ceent.eform.service.render.TemplateCache;
+import com.deepoove.poi.config.Configure;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline xử lý template chạy nền sau khi upload:
+ * extract biến → chuẩn hóa font → tối ưu media → precompile vào cache → thumbnail.
+ * Request upload chỉ chờ lưu file và tính hash, không phụ thuộc độ phức tạp của template.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateIngestionService {
+
+    public static final String STAGE_EXTRACT_VARIABLES = "extractVariables";
+    public static final String STAGE_NORMALIZE_FONTS = "normalizeFonts";
+    public static final String STAGE_OPTIMIZE_MEDIA = "optimizeMedia";
+    public static final String STAGE_PRECOMPILE = "precompile";
+    public static final String STAGE_THUMBNAIL = "thumbnail";
+
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    private final TemplateRepository templateRepository;
+    private final ObjectMapper objectMapper;
+    private final TemplateVariableExtractor variableExtractor;
+    private final DocumentFontNormalizer fontNormalizer;
+    private final TemplateMediaOptimizer mediaOptimizer;
+    private final TemplateCache templateCache;
+    private final TemplatePreviewService previewService;
+    private final RenderConfigureRegistry configureRegistry;
+
+    /**
+     * Chạy pipeline sau khi transaction lưu template đã commit
+     */
+    @Async("ingestionExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTemplateStored(TemplateStoredEvent event) {
+        ingest(event.getTemplateId(), event.getContentHash());
+    }
+
+    /**
+     * Xử lý một phiên bản template. Nếu trong lúc chạy file đã được thay bằng phiên bản khác
+     * thì kết quả bị bỏ qua, pipeline của phiên bản mới sẽ ghi đè.
+     */
+    public void ingest(Long templateId, String contentHash) {
+        Template template = updateIfCurrent(templateId, contentHash, current -> {
+            current.setStatus(TemplateStatus.PROCESSING);
+            current.setStatusMessage(null);
+        });
+        if (template == null) {
+            log.debug("Skip ingestion for template {} (deleted or superseded)", templateId);
+            return;
+        }
+
+        Map<String, Long> timings = new LinkedHashMap<>();
+        String currentStage = STAGE_EXTRACT_VARIABLES;
+
+        try {
+            Path sourcePath = Paths.get(template.getFilePath());
+            ExtractedVariables variables;
+            byte[] preparedBytes;
+            long start;
+
+            try (InputStream in = Files.newInputStream(sourcePath);
+                 XWPFDocument document = new XWPFDocument(in)) {
+                start = System.nanoTime();
+                variables = variableExtractor.extract(document);
+                timings.put(STAGE_EXTRACT_VARIABLES, elapsedMillis(start));
+
+                currentStage = STAGE_NORMALIZE_FONTS;
+                start = System.nanoTime();
+                fontNormalizer.normalize(document);
+                timings.put(STAGE_NORMALIZE_FONTS, elapsedMillis(start));
+
+                currentStage = STAGE_OPTIMIZE_MEDIA;
+                start = System.nanoTime();
+                int optimizedPictures = mediaOptimizer.optimize(document);
+                timings.put(STAGE_OPTIMIZE_MEDIA, elapsedMillis(start));
+                log.debug("Template {}: {} pictures optimized", templateId, optimizedPictures);
+
+                ByteArrayOutputStream preparedOut = new ByteArrayOutputStream();
+                document.write(preparedOut);
+                preparedBytes = preparedOut.toByteArray();
+            }
+
+            Path preparedPath = variantPath(sourcePath, "prepared", contentHash, ".docx");
+            Files.write(preparedPath, preparedBytes);
+
+            currentStage = STAGE_PRECOMPILE;
+            start = System.nanoTime();
+            Configure configure = configureRegistry.forTemplate(template);
+            templateCache.precompile(templateId, contentHash, preparedBytes, configure);
+            timings.put(STAGE_PRECOMPILE, elapsedMillis(start));
+
+            currentStage = STAGE_THUMBNAIL;
+            start = System.nanoTime();
+            Path thumbnailPath = null;
+            try {
+                byte[] thumbnail = previewService.renderThumbnail(preparedBytes, variables.getNames(), configure);
+                thumbnailPath = variantPath(sourcePath, "thumb", contentHash, ".png");
+                Files.write(thumbnailPath, thumbnail);
+            } catch (Exception e) {
+                // Thumbnail không bắt buộc, template vẫn dùng được
+                log.warn("Could not generate thumbnail for template {}: {}", templateId, e.getMessage());
+            }
+            timings.put(STAGE_THUMBNAIL, elapsedMillis(start));
+
+            String variablesJson = objectMapper.writeValueAsString(variables.getNames());
+            String timingsJson = objectMapper.writeValueAsString(timings);
+            String thumbnail = thumbnailPath != null ? thumbnailPath.toString() : null;
+            Template latest = updateIfCurrent(templateId, contentHash, current -> {
+                current.setVariables(variablesJson);
+                current.setVariablesComplete(variables.isComplete());
+                current.setPreparedFilePath(preparedPath.toString());
+                current.setThumbnailPath(thumbnail);
+                current.setStageTimings(timingsJson);
+                current.setStatus(TemplateStatus.READY);
+                current.setStatusMessage(null);
+            });
+            if (latest == null) {
+                log.info("Template {} changed during ingestion, discarding results", templateId);
+                deleteQuietly(preparedPath);
+                deleteQuietly(thumbnailPath);
+                return;
+            }
+            deleteOtherVariants(sourcePath, preparedPath, thumbnailPath);
+
+            log.info("Template {} ingested in {} ms: {}", templateId,
+                    timings.values().stream().mapToLong(Long::longValue).sum(), timings);
+        } catch (Exception e) {
+            log.error("Ingestion of template {} failed at stage {}", templateId, currentStage, e);
+            markFailed(templateId, contentHash, currentStage, e, timings);
+        }
+    }
+
+    private void markFailed(Long templateId, String contentHash, String stage, Exception error, Map<String, Long> timings) {
+        try {
+            String timingsJson = objectMapper.writeValueAsString(timings);
+            Template latest = updateIfCurrent(templateId, contentHash, current -> {
+                current.setStatus(TemplateStatus.FAILED);
+                current.setStatusMessage(truncate(stage + ": " + error.getMessage(), 1000));
+                current.setStageTimings(timingsJson);
+            });
+            if (latest != null) {
+                templateCache.evict(templateId);
+            }
+        } catch (Exception e) {
+            log.error("Could not mark template {} as failed", templateId, e);
+        }
+    }
+
+    /**
+     * Ghi thay đổi của pipeline nếu template vẫn ở phiên bản contentHash. Template có @Version: nếu một
+     * request khác (OnlyOffice save, đổi settings) commit xen giữa thì đọc lại và kiểm tra hash lần nữa,
+     * không ghi đè contentHash mới bằng bản entity cũ. Trả về null nếu template đã bị xoá hoặc thay phiên bản.
+     */
+    private Template updateIfCurrent(Long templateId, String contentHash, Consumer<Template> change) {
+        for (int attempt = 1; ; attempt++) {
+            Template latest = templateRepository.findById(templateId).orElse(null);
+            if (latest == null || !Objects.equals(latest.getContentHash(), contentHash)) {
+                return null;
+            }
+            change.accept(latest);
+            try {
+                return templateRepository.save(latest);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Template {} was updated concurrently, retrying ({}/{})", templateId, attempt, MAX_UPDATE_ATTEMPTS);
+            }
+        }
+    }
+
+    /**
+     * Xoá bản prepared/thumbnail của các phiên bản trước cùng file gốc
+     */
+    private void deleteOtherVariants(Path sourcePath, Path preparedPath, Path thumbnailPath) {
+        String baseName = baseName(sourcePath.getFileName().toString());
+        Path dir = sourcePath.toAbsolutePath().getParent();
+        DirectoryStream.Filter<Path> variants = file -> {
+            String name = file.getFileName().toString();
+            return name.startsWith(baseName + "_prepared_") || name.startsWith(baseName + "_thumb_");
+        };
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, variants)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!name.equals(preparedPath.getFileName().toString())
+                        && (thumbnailPath == null || !name.equals(thumbnailPath.getFileName().toString()))) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not clean up old variants of {}: {}", sourcePath, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (Exception e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * uploads/123_form.docx → uploads/123_form_prepared_ab12cd34.docx
+     */
+    private Path variantPath(Path sourcePath, String variant, String contentHash, String extension) {
+        String baseName = baseName(sourcePath.getFileName().toString());
+        return sourcePath.resolveSibling(baseName + "_" + variant + "_" + contentHash.substring(0, 8) + extension);
+    }
+
+    private static String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
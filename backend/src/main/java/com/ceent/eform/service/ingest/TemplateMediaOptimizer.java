@@ -0,0 +1,88 @@
+package com.ceent.eform.service.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xwpf.usermodel.Document;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFPictureData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+
+/**
+ * Thu nhỏ ảnh nhúng quá lớn trong template. Kích thước hiển thị (extent) của ảnh
+ * trong document không đổi nên layout giữ nguyên.
+ */
+@Component
+@Slf4j
+public class TemplateMediaOptimizer {
+
+    @Value("${app.ingestion.media.max-dimension:1600}")
+    private int maxDimension;
+
+    /**
+     * Trả về số ảnh đã được thu nhỏ
+     */
+    public int optimize(XWPFDocument document) {
+        int optimized = 0;
+
+        for (XWPFPictureData picture : document.getAllPictures()) {
+            String format = imageFormat(picture.getPictureType());
+            if (format == null) {
+                continue;
+            }
+
+            try {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(picture.getData()));
+                if (image == null || Math.max(image.getWidth(), image.getHeight()) <= maxDimension) {
+                    continue;
+                }
+
+                BufferedImage scaled = scale(image, "jpg".equals(format));
+                try (OutputStream out = picture.getPackagePart().getOutputStream()) {
+                    ImageIO.write(scaled, format, out);
+                }
+                optimized++;
+                log.debug("Downscaled picture {} from {}x{} to {}x{}", picture.getFileName(),
+                        image.getWidth(), image.getHeight(), scaled.getWidth(), scaled.getHeight());
+            } catch (Exception e) {
+                log.warn("Could not optimize picture {}: {}", picture.getFileName(), e.getMessage());
+            }
+        }
+
+        return optimized;
+    }
+
+    private BufferedImage scale(BufferedImage image, boolean opaque) {
+        double ratio = (double) maxDimension / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private String imageFormat(int pictureType) {
+        if (pictureType == Document.PICTURE_TYPE_JPEG) {
+            return "jpg";
+        }
+        if (pictureType == Document.PICTURE_TYPE_PNG) {
+            return "png";
+        }
+        return null;
+    }
+}
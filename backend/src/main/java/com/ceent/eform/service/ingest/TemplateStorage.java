@@ -0,0 +1,91 @@
+package com.ceent.eform.service.ingest;
+
+import com.ceent.eform.service.index.TemplateFileIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Ghi file template xuống đĩa một lần, tính SHA-256 trong lúc ghi và fsync trước khi trả về
+ */
+@Component
+@Slf4j
+public class TemplateStorage {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TemplateFileIndex fileIndex;
+
+    /**
+     * Không báo cho index (benchmark, công cụ chạy ngoài Spring)
+     */
+    public TemplateStorage() {
+        this(null);
+    }
+
+    @Autowired
+    public TemplateStorage(TemplateFileIndex fileIndex) {
+        this.fileIndex = fileIndex;
+    }
+
+    /**
+     * Lưu stream vào targetPath (ghi đè nếu đã tồn tại)
+     */
+    public StoredFile store(InputStream inputStream, Path targetPath) throws IOException {
+        if (fileIndex == null) {
+            return write(inputStream, targetPath);
+        }
+        // Báo index trước/sau khi ghi để WatchService không coi đây là sửa từ ngoài
+        fileIndex.beginWrite(targetPath);
+        StoredFile storedFile = null;
+        try {
+            storedFile = write(inputStream, targetPath);
+            return storedFile;
+        } finally {
+            fileIndex.recordWrite(targetPath, storedFile != null ? storedFile.getSha256() : null);
+        }
+    }
+
+    private StoredFile write(InputStream inputStream, Path targetPath) throws IOException {
+        MessageDigest digest = newSha256();
+        long size = 0;
+
+        try (FileChannel channel = FileChannel.open(targetPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer);
+                }
+                size += read;
+            }
+            // Đảm bảo dữ liệu đã xuống đĩa trước khi ghi nhận template
+            channel.force(true);
+        }
+
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        log.debug("Stored {} ({} bytes, sha256={})", targetPath, size, sha256);
+        return new StoredFile(targetPath, sha256, size);
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
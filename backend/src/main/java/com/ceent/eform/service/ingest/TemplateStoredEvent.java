@@ -0,0 +1,14 @@
+package com.ceent.eform.service.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra khi file template mới (hoặc phiên bản mới) đã được lưu xuống đĩa
+ */
+@Getter
+@AllArgsConstructor
+public class TemplateStoredEvent {
+    private final Long templateId;
+    private final String contentHash;
+}
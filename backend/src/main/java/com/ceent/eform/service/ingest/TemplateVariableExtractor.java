@@ -0,0 +1,139 @@
+package com.ceent.eform.service.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.ContentTypes;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFAbstractFootnoteEndnote;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFHeaderFooter;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFSDT;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.xmlbeans.XmlObject;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tìm các biến {{...}} trong template: thân văn bản, header/footer, footnote/endnote và text box.
+ * Sau đó quét thô mọi phần XML của file, nếu còn tag nằm ngoài những chỗ đã quét thì kết quả không được coi là đầy đủ.
+ */
+@Component
+@Slf4j
+public class TemplateVariableExtractor {
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{([^}]+)\\}\\}");
+    private static final Pattern XML_TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern XML_WHITESPACE = Pattern.compile(">\\s+<");
+
+    private static final String W_NAMESPACE = "declare namespace w='http://schemas.openxmlformats.org/wordprocessingml/2006/main' ";
+    private static final String TEXT_BOX_PARAGRAPHS = W_NAMESPACE + ".//w:txbxContent//w:p";
+    private static final String TEXTS = W_NAMESPACE + ".//w:t";
+
+    public ExtractedVariables extract(XWPFDocument document) {
+        Set<String> variables = new LinkedHashSet<>();
+
+        scanBody(document.getBodyElements(), variables);
+        scanTextBoxes(document.getDocument().getBody(), variables);
+        for (XWPFHeaderFooter headerFooter : headersAndFooters(document)) {
+            scanBody(headerFooter.getBodyElements(), variables);
+            scanTextBoxes(headerFooter._getHdrFtr(), variables);
+        }
+        List<XWPFAbstractFootnoteEndnote> notes = new ArrayList<>(document.getFootnotes());
+        notes.addAll(document.getEndnotes());
+        notes.forEach(note -> scanBody(note.getBodyElements(), variables));
+
+        return new ExtractedVariables(new ArrayList<>(variables), coversAllParts(document, variables));
+    }
+
+    private void scanBody(List<IBodyElement> elements, Set<String> variables) {
+        for (IBodyElement element : elements) {
+            if (element instanceof XWPFParagraph paragraph) {
+                findVariables(paragraph.getText(), variables);
+            } else if (element instanceof XWPFTable table) {
+                // Duyệt từng cell để tìm cả bảng lồng trong bảng
+                table.getRows().forEach(row ->
+                        row.getTableCells().forEach(cell -> scanBody(cell.getBodyElements(), variables)));
+            } else if (element instanceof XWPFSDT sdt) {
+                findVariables(sdt.getContent().getText(), variables);
+            }
+        }
+    }
+
+    /**
+     * Text box không nằm trong getParagraphs(), đọc trực tiếp các w:p trong w:txbxContent
+     */
+    private void scanTextBoxes(XmlObject container, Set<String> variables) {
+        for (XmlObject paragraph : container.selectPath(TEXT_BOX_PARAGRAPHS)) {
+            StringBuilder text = new StringBuilder();
+            for (XmlObject run : paragraph.selectPath(TEXTS)) {
+                text.append(run.newCursor().getTextValue());
+            }
+            findVariables(text.toString(), variables);
+        }
+    }
+
+    private List<XWPFHeaderFooter> headersAndFooters(XWPFDocument document) {
+        List<XWPFHeaderFooter> parts = new ArrayList<>(document.getHeaderList());
+        parts.addAll(document.getFooterList());
+        return parts;
+    }
+
+    /**
+     * Mọi tag xuất hiện trong text của các phần XML (bỏ markup) đều đã được tìm thấy ở trên.
+     * Tag bị tách qua nhiều run vẫn ghép lại được; chỗ nào lệch (tag trong chart, comment, ...) thì coi là chưa đủ.
+     */
+    private boolean coversAllParts(XWPFDocument document, Set<String> variables) {
+        try {
+            for (PackagePart part : document.getPackage().getParts()) {
+                // Core properties (tiêu đề, tác giả) không được render
+                if (!part.getContentType().endsWith("xml") || ContentTypes.CORE_PROPERTIES_PART.equals(part.getContentType())) {
+                    continue;
+                }
+                Set<String> found = new LinkedHashSet<>();
+                findVariables(plainText(part), found);
+                if (!variables.containsAll(found)) {
+                    found.removeAll(variables);
+                    log.debug("Tags outside scanned parts in {}: {}", part.getPartName(), found);
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not verify template variable coverage: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private String plainText(PackagePart part) throws IOException {
+        try (InputStream in = part.getInputStream()) {
+            String xml = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            if (xml.indexOf('{') < 0) {
+                return "";
+            }
+            String text = XML_TAG.matcher(XML_WHITESPACE.matcher(xml).replaceAll("><")).replaceAll("");
+            return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                    .replace("&apos;", "'").replace("&amp;", "&");
+        }
+    }
+
+    private void findVariables(String text, Set<String> variables) {
+        if (text == null || text.indexOf("{{") < 0) {
+            return;
+        }
+
+        Matcher matcher = VARIABLE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            variables.add(matcher.group(1).trim());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.ceent.eform.service.ingest;
+
+import lombok.Getter;
+
+/**
+ * Chunk không bắt đầu ở offset server đang chờ (client gửi lại hoặc gửi song song), client resume từ currentOffset
+ */
+@Getter
+public class UploadOffsetMismatchException extends RuntimeException {
+
+    private final long currentOffset;
+
+    public UploadOffsetMismatchException(long currentOffset, long requestedOffset) {
+        super("Upload is at offset " + currentOffset + ", chunk starts at " + requestedOffset);
+        this.currentOffset = currentOffset;
+    }
+}
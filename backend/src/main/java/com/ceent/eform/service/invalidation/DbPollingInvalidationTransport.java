@@ -0,0 +1,47 @@
+package com.ceent.eform.service.invalidation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport mặc định: ghi change-log vào database, mỗi node poll theo app.invalidation.poll-interval-ms.
+ * Độ trễ tối đa ≈ poll interval, chạy được trên mọi database.
+ */
+@Component
+@ConditionalOnProperty(name = "app.invalidation.transport", havingValue = "db", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class DbPollingInvalidationTransport implements InvalidationTransport {
+
+    private final TemplateChangeLog changeLog;
+
+    private volatile Consumer<TemplateInvalidation> receiver;
+
+    @Override
+    public void publish(TemplateInvalidation invalidation) {
+        changeLog.append(invalidation);
+    }
+
+    @Override
+    public void subscribe(Consumer<TemplateInvalidation> receiver) {
+        this.receiver = receiver;
+    }
+
+    @Scheduled(fixedDelayString = "${app.invalidation.poll-interval-ms:1000}")
+    public void poll() {
+        Consumer<TemplateInvalidation> target = receiver;
+        if (target == null) {
+            return;
+        }
+        try {
+            changeLog.poll().forEach(target);
+        } catch (Exception e) {
+            log.warn("Could not poll template change-log: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.ceent.eform.service.invalidation;
+
+import com.ceent.eform.config.NodeIdentity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bus invalidation cache theo template giữa các node. publish() ghi sự kiện qua transport
+ * (trong transaction hiện tại) và invalidate cache của node này sau khi commit;
+ * sự kiện từ node khác được transport giao về và phát cho mọi TemplateInvalidationListener.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InvalidationBus {
+
+    private final InvalidationTransport transport;
+    private final List<TemplateInvalidationListener> listeners;
+    private final NodeIdentity nodeIdentity;
+    private final MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void subscribe() {
+        transport.subscribe(this::receive);
+        log.info("Invalidation bus: transport {}, {} listeners", transport.getClass().getSimpleName(), listeners.size());
+    }
+
+    public void publish(Long templateId, String contentHash, String reason) {
+        TemplateInvalidation invalidation = new TemplateInvalidation(templateId, contentHash, reason,
+                nodeIdentity.getId(), null);
+        transport.publish(invalidation);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(invalidation, "local");
+                }
+            });
+        } else {
+            deliver(invalidation, "local");
+        }
+    }
+
+    private void receive(TemplateInvalidation invalidation) {
+        if (nodeIdentity.getId().equals(invalidation.getOriginNode())) {
+            return;
+        }
+        if (invalidation.getCreatedAt() != null) {
+            Duration lag = Duration.between(invalidation.getCreatedAt(), LocalDateTime.now());
+            Timer.builder("eform.cache.invalidation.lag")
+                    .description("Độ trễ từ lúc ghi change-log tới lúc node nhận được")
+                    .register(meterRegistry)
+                    .record(lag.isNegative() ? Duration.ZERO : lag);
+        }
+        deliver(invalidation, "remote");
+    }
+
+    private void deliver(TemplateInvalidation invalidation, String source) {
+        log.debug("Invalidating caches of template {} ({} {})", invalidation.getTemplateId(), source, invalidation.getReason());
+        for (TemplateInvalidationListener listener : listeners) {
+            try {
+                listener.onTemplateInvalidated(invalidation);
+            } catch (Exception e) {
+                log.warn("Listener {} failed to invalidate template {}: {}", listener.getClass().getSimpleName(),
+                        invalidation.getTemplateId(), e.getMessage());
+            }
+        }
+        Counter.builder("eform.cache.invalidations")
+                .tag("source", source)
+                .tag("reason", invalidation.getReason())
+                .register(meterRegistry)
+                .increment();
+    }
+}
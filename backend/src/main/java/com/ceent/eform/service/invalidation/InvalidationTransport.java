@@ -0,0 +1,19 @@
+package com.ceent.eform.service.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Kênh truyền sự kiện invalidation giữa các node, chọn qua app.invalidation.transport (db | postgres)
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Ghi sự kiện, tham gia transaction hiện tại nếu có: sự kiện chỉ tới node khác khi transaction commit
+     */
+    void publish(TemplateInvalidation invalidation);
+
+    /**
+     * Đăng ký nơi nhận sự kiện từ các node (kể cả của chính node này, bus tự lọc)
+     */
+    void subscribe(Consumer<TemplateInvalidation> receiver);
+}
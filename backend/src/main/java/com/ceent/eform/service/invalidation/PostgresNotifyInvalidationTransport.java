@@ -0,0 +1,120 @@
+package com.ceent.eform.service.invalidation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * Transport PostgreSQL: vẫn ghi change-log (bền vững, dùng để bắt kịp sau khi mất kết nối),
+ * kèm NOTIFY trong cùng transaction nên node khác được báo ngay khi commit thay vì chờ poll.
+ * Một connection riêng giữ LISTEN; hết timeout không có notification thì poll change-log như transport db.
+ */
+@Component
+@ConditionalOnProperty(name = "app.invalidation.transport", havingValue = "postgres")
+@Slf4j
+public class PostgresNotifyInvalidationTransport implements InvalidationTransport {
+
+    private static final String CHANNEL = "eform_template_changes";
+
+    private final TemplateChangeLog changeLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final int fallbackPollMillis;
+
+    private volatile Consumer<TemplateInvalidation> receiver;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresNotifyInvalidationTransport(TemplateChangeLog changeLog,
+                                               JdbcTemplate jdbcTemplate,
+                                               DataSource dataSource,
+                                               @Value("${app.invalidation.postgres.fallback-poll-interval-ms:30000}") int fallbackPollMillis) {
+        this.changeLog = changeLog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.fallbackPollMillis = fallbackPollMillis;
+    }
+
+    @Override
+    public void publish(TemplateInvalidation invalidation) {
+        changeLog.append(invalidation);
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL,
+                String.valueOf(invalidation.getTemplateId()));
+    }
+
+    @Override
+    public void subscribe(Consumer<TemplateInvalidation> receiver) {
+        this.receiver = receiver;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for template changes on channel {}", CHANNEL);
+
+                // Bắt kịp các thay đổi trong lúc chưa LISTEN
+                deliverPending();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(fallbackPollMillis);
+                    if (notifications == null || notifications.length == 0) {
+                        // Timeout: poll dự phòng, đồng thời kiểm tra connection còn sống
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                    }
+                    deliverPending();
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Template change listener failed, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliverPending() {
+        Consumer<TemplateInvalidation> target = receiver;
+        if (target != null) {
+            changeLog.poll().forEach(target);
+        }
+    }
+}
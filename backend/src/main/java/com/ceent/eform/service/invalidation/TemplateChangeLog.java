@@ -0,0 +1,106 @@
+package com.ceent.eform.service.invalidation;
+
+import com.ceent.eform.entity.TemplateChange;
+import com.ceent.eform.repository.TemplateChangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bảng template_changes dùng làm change-log cho invalidation. Đọc theo cửa sổ thời gian (giờ database)
+ * lùi lại app.invalidation.commit-grace để không bỏ sót dòng có id nhỏ nhưng commit muộn,
+ * các dòng đã giao trong cửa sổ được nhớ theo id để không giao lại.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateChangeLog {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TemplateChangeRepository repository;
+
+    @Value("${app.invalidation.commit-grace:10s}")
+    private Duration commitGrace;
+
+    @Value("${app.invalidation.retention:1h}")
+    private Duration retention;
+
+    @Value("${app.invalidation.batch-size:500}")
+    private int batchSize;
+
+    private LocalDateTime latest;
+    private final Map<Long, LocalDateTime> delivered = new HashMap<>();
+
+    @Transactional
+    public void append(TemplateInvalidation invalidation) {
+        TemplateChange change = new TemplateChange();
+        change.setTemplateId(invalidation.getTemplateId());
+        change.setContentHash(invalidation.getContentHash());
+        change.setReason(invalidation.getReason());
+        change.setOriginNode(invalidation.getOriginNode());
+        repository.save(change);
+    }
+
+    /**
+     * Các thay đổi chưa giao kể từ lần poll trước. Lần poll đầu tiên bắt đầu từ dòng mới nhất:
+     * cache của node vừa khởi động còn rỗng nên không cần đọc lại lịch sử.
+     */
+    public synchronized List<TemplateInvalidation> poll() {
+        if (latest == null) {
+            latest = repository.findTopByOrderByIdDesc().map(TemplateChange::getCreatedAt).orElse(EPOCH);
+        }
+
+        LocalDateTime since = latest.minus(commitGrace);
+        List<TemplateInvalidation> changes = new ArrayList<>();
+        List<TemplateChange> page;
+        int pageNumber = 0;
+        do {
+            page = repository.findByCreatedAtGreaterThanEqualOrderByIdAsc(since, PageRequest.of(pageNumber++, batchSize));
+            for (TemplateChange change : page) {
+                if (delivered.putIfAbsent(change.getId(), change.getCreatedAt()) != null) {
+                    continue;
+                }
+                if (change.getCreatedAt().isAfter(latest)) {
+                    latest = change.getCreatedAt();
+                }
+                changes.add(new TemplateInvalidation(change.getTemplateId(), change.getContentHash(),
+                        change.getReason(), change.getOriginNode(), change.getCreatedAt()));
+            }
+        } while (page.size() == batchSize);
+
+        LocalDateTime windowStart = latest.minus(commitGrace);
+        delivered.values().removeIf(createdAt -> createdAt.isBefore(windowStart));
+        return changes;
+    }
+
+    /**
+     * Xóa change-log cũ hơn retention (mọi node đều chạy, xóa trùng không sao)
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.invalidation.purge-interval-ms:600000}")
+    public void purge() {
+        LocalDateTime reference;
+        synchronized (this) {
+            reference = latest;
+        }
+        if (reference == null) {
+            return;
+        }
+        int deleted = repository.deleteOlderThan(reference.minus(retention));
+        if (deleted > 0) {
+            log.debug("Purged {} template change-log rows", deleted);
+        }
+    }
+}
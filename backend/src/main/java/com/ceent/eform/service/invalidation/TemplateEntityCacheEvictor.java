@@ -0,0 +1,29 @@
+package com.ceent.eform.service.invalidation;
+
+import com.ceent.eform.config.SecondLevelCacheConfig;
+import com.ceent.eform.entity.Template;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bỏ Template khỏi second-level cache khi template đổi (upload, callback OnlyOffice, settings, file sửa ngoài).
+ * Thay đổi trên chính node này Hibernate đã tự cập nhật cache; thay đổi từ node khác chỉ biết qua bus.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateEntityCacheEvictor implements TemplateInvalidationListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void onTemplateInvalidated(TemplateInvalidation invalidation) {
+        entityManagerFactory.getCache().evict(Template.class, invalidation.getTemplateId());
+        entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                .evictQueryRegion(SecondLevelCacheConfig.TEMPLATE_LIST_REGION);
+        log.debug("Evicted template {} from second-level cache ({})", invalidation.getTemplateId(), invalidation.getReason());
+    }
+}
@@ -0,0 +1,34 @@
+package com.ceent.eform.service.invalidation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Template đã đổi phiên bản (contentHash) hoặc cấu hình render, mọi cache của template trên mọi node phải bỏ bản cũ
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class TemplateInvalidation {
+
+    public static final String REASON_UPLOAD = "UPLOAD";
+    public static final String REASON_EDITED = "EDITED";
+    public static final String REASON_SETTINGS = "SETTINGS";
+    public static final String REASON_EXTERNAL = "EXTERNAL"; // file bị sửa/xoá ngoài ứng dụng
+
+    private final Long templateId;
+    private final String contentHash;
+    private final String reason;
+    private final String originNode;
+    private final LocalDateTime createdAt; // giờ database, null khi chưa ghi change-log
+
+    /**
+     * Chỉ đổi cấu hình (profile, engine, validation): nội dung giữ nguyên nhưng output có thể khác
+     */
+    public boolean isSettingsChange() {
+        return REASON_SETTINGS.equals(reason);
+    }
+}
@@ -0,0 +1,10 @@
+package com.ceent.eform.service.invalidation;
+
+/**
+ * Cache giữ dữ liệu theo template, được InvalidationBus gọi khi template đổi trên bất kỳ node nào.
+ * Cài đặt phải idempotent: cùng một sự kiện có thể đến nhiều lần.
+ */
+public interface TemplateInvalidationListener {
+
+    void onTemplateInvalidated(TemplateInvalidation invalidation);
+}
@@ -0,0 +1,344 @@
+package com.ceent.eform.service.job;
+
+import com.ceent.eform.dto.RenderJobDto;
+import com.ceent.eform.dto.request.RenderJobRequest;
+import com.ceent.eform.entity.RenderJob;
+import com.ceent.eform.entity.RenderJobStatus;
+import com.ceent.eform.entity.RenderJobType;
+import com.ceent.eform.repository.FormRepository;
+import com.ceent.eform.repository.RenderJobRepository;
+import com.ceent.eform.service.render.RenderCancelledException;
+import com.ceent.eform.service.render.TenantWeights;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hàng đợi render bền vững trên bảng render_jobs, dùng chung cho mọi node.
+ * Node api enqueue, node worker claim theo lô với SKIP LOCKED nên nhiều worker không tranh nhau cùng một job.
+ * Mọi thay đổi trạng thái sau claim đều kiểm tra leaseOwner: worker đã mất lease không ghi đè được kết quả.
+ * File kết quả nằm trong app.output.dir/jobs, cần là volume dùng chung khi chạy nhiều node.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RenderJobService {
+
+    private final RenderJobRepository renderJobRepository;
+    private final FormRepository formRepository;
+    private final ObjectMapper objectMapper;
+    private final TenantWeights tenantWeights;
+
+    @Value("${app.output.dir:outputs}")
+    private String outputDir;
+
+    @Value("${app.render.jobs.lease:60s}")
+    private Duration lease;
+
+    @Value("${app.render.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.render.jobs.retry-backoff:10s}")
+    private Duration retryBackoff;
+
+    @Value("${app.render.jobs.claim-fanout:4}")
+    private int claimFanout;
+
+    @Transactional
+    public RenderJobDto enqueue(RenderJobRequest request, String tenant) throws Exception {
+        return toDto(renderJobRepository.save(newJob(request, tenant)));
+    }
+
+    /**
+     * Enqueue cả lô trong một transaction
+     */
+    @Transactional
+    public List<RenderJobDto> enqueueAll(List<RenderJobRequest> requests, String tenant) throws Exception {
+        List<RenderJob> jobs = new ArrayList<>(requests.size());
+        for (RenderJobRequest request : requests) {
+            jobs.add(newJob(request, tenant));
+        }
+        return renderJobRepository.saveAll(jobs).stream().map(this::toDto).toList();
+    }
+
+    /**
+     * Job pre-render của form, false nếu form đã có job PRERENDER đang chờ (job đó render revision mới nhất).
+     * Kiểm tra exists chỉ để tránh insert thừa; hai node cùng enqueue thì unique constraint trên
+     * queuedPrerenderFormId chặn job thứ hai. Không chạy trong transaction chung để lỗi trùng khoá
+     * không làm rollback transaction của caller.
+     */
+    public boolean enqueuePreRender(Long formId, String tenant, int priority) {
+        if (!formRepository.existsById(formId)) {
+            throw new RuntimeException("Form not found");
+        }
+        if (renderJobRepository.existsByFormIdAndTypeAndStatus(formId, RenderJobType.PRERENDER, RenderJobStatus.QUEUED)) {
+            return false;
+        }
+
+        RenderJob job = new RenderJob();
+        job.setFormId(formId);
+        job.setType(RenderJobType.PRERENDER);
+        job.setPriority(priority);
+        job.setTenant(tenant);
+        job.setLinearize(false);
+        job.setStatus(RenderJobStatus.QUEUED);
+        job.setMaxAttempts(maxAttempts);
+        job.setQueuedPrerenderFormId(formId);
+        try {
+            renderJobRepository.saveAndFlush(job);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Pre-render of form {} already queued by another node", formId);
+            return false;
+        }
+        return true;
+    }
+
+    public RenderJobDto getJob(Long id) {
+        return toDto(findJob(id));
+    }
+
+    /**
+     * File PDF của job đã xong, null nếu job chưa xong
+     */
+    public Path resultFile(Long id) {
+        RenderJob job = findJob(id);
+        if (job.getStatus() != RenderJobStatus.SUCCEEDED || job.getResultPath() == null) {
+            return null;
+        }
+        return Paths.get(job.getResultPath());
+    }
+
+    /**
+     * Claim tối đa limit job: khóa bằng FOR UPDATE SKIP LOCKED rồi gán lease trong cùng transaction.
+     * Khóa dư limit * claim-fanout ứng viên để chọn công bằng giữa các tenant: trong nhóm priority cao nhất
+     * còn lại, tenant có ít job đang chạy nhất (chia theo trọng số) được chọn trước. Dòng khóa thừa được nhả
+     * khi transaction commit.
+     */
+    @Transactional
+    public List<RenderJob> claim(String owner, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<RenderJob> candidates = renderJobRepository.lockNextQueued(now, limit * Math.max(1, claimFanout));
+        List<RenderJob> jobs = pickFairly(candidates, limit);
+        for (RenderJob job : jobs) {
+            job.setStatus(RenderJobStatus.RUNNING);
+            // Bản render mới của form lại được enqueue trong lúc job này chạy
+            job.setQueuedPrerenderFormId(null);
+            job.setLeaseOwner(owner);
+            job.setLeaseExpiresAt(now.plus(lease));
+            job.setAttempts(job.getAttempts() + 1);
+            job.setStartedAt(now);
+        }
+        return renderJobRepository.saveAll(jobs);
+    }
+
+    /**
+     * Gia hạn lease cho các job worker đang chạy, trả về số job còn giữ được lease
+     */
+    @Transactional
+    public int renewLeases(Collection<Long> jobIds, String owner) {
+        if (jobIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return renderJobRepository.renewLeases(jobIds, owner, now.plus(lease), now);
+    }
+
+    /**
+     * Đưa job có lease hết hạn (worker chết hoặc treo) về hàng đợi, hết lượt retry thì FAILED
+     */
+    @Transactional
+    public int requeueExpiredLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        int requeued = renderJobRepository.requeueExpired(now);
+        int failed = renderJobRepository.failExpired(now);
+        if (requeued > 0 || failed > 0) {
+            log.warn("Expired render job leases: {} requeued, {} failed", requeued, failed);
+        }
+        return requeued + failed;
+    }
+
+    public Map<String, Object> readData(RenderJob job) throws Exception {
+        if (job.getRequestData() == null) {
+            return null;
+        }
+        return objectMapper.readValue(job.getRequestData(), new TypeReference<Map<String, Object>>() {});
+    }
+
+    /**
+     * Ghi PDF rồi đánh dấu SUCCEEDED nếu worker còn giữ lease. Trả về false nếu worker đã mất lease.
+     * Mỗi lần claim ghi vào file riêng (job-{id}-{attempt}.pdf) và resultPath chỉ được set có điều kiện,
+     * nên worker mất lease không ghi đè được file của lần chạy đã thắng.
+     */
+    @Transactional
+    public boolean complete(RenderJob job, String owner, byte[] pdfBytes) throws Exception {
+        Path jobsDir = Paths.get(outputDir, "jobs");
+        Files.createDirectories(jobsDir);
+        Path target = jobsDir.resolve("job-" + job.getId() + "-" + job.getAttempts() + ".pdf");
+        Path temp = Files.createTempFile(jobsDir, "job-" + job.getId() + "-", ".part");
+        try {
+            Files.write(temp, pdfBytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        int updated = renderJobRepository.markSucceeded(job.getId(), owner, target.toString(),
+                pdfBytes.length, LocalDateTime.now());
+        if (updated == 0) {
+            Files.deleteIfExists(target);
+            log.warn("Render job {} finished on {} after losing its lease, result discarded", job.getId(), owner);
+        }
+        return updated > 0;
+    }
+
+    /**
+     * Job pre-render đã xong: output nằm trong RenditionCache nên job không có file kết quả riêng
+     */
+    @Transactional
+    public boolean completeRendition(RenderJob job, String owner, long size) {
+        int updated = renderJobRepository.markSucceeded(job.getId(), owner, null, size, LocalDateTime.now());
+        if (updated == 0) {
+            log.warn("Pre-render job {} finished on {} after losing its lease", job.getId(), owner);
+        }
+        return updated > 0;
+    }
+
+    /**
+     * Job lỗi: còn lượt thì QUEUED lại sau backoff (tăng theo số lần thử), hết lượt thì FAILED
+     */
+    @Transactional
+    public void fail(RenderJob job, String owner, Exception error) {
+        LocalDateTime now = LocalDateTime.now();
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        if (message.length() > 1000) {
+            message = message.substring(0, 1000);
+        }
+
+        // Quá deadline thì chạy lại cũng quá deadline, không tốn thêm lượt của worker khác
+        boolean retry = job.getAttempts() < job.getMaxAttempts() && RenderCancelledException.find(error) == null;
+        renderJobRepository.releaseWithError(job.getId(), owner,
+                retry ? RenderJobStatus.QUEUED : RenderJobStatus.FAILED,
+                message,
+                retry ? now.plus(retryBackoff.multipliedBy(job.getAttempts())) : job.getAvailableAt(),
+                retry ? null : now,
+                now);
+        log.warn("Render job {} attempt {}/{} failed: {}", job.getId(), job.getAttempts(), job.getMaxAttempts(), message);
+    }
+
+    public long countByStatus(RenderJobStatus status) {
+        return renderJobRepository.countByStatus(status);
+    }
+
+    private List<RenderJob> pickFairly(List<RenderJob> candidates, int limit) {
+        if (candidates.size() <= limit) {
+            return candidates;
+        }
+        Map<String, Long> load = new HashMap<>();
+        for (Object[] row : renderJobRepository.countRunningByTenant()) {
+            load.put(tenantOf((String) row[0]), (Long) row[1]);
+        }
+
+        // candidates đã theo priority DESC, id: mỗi lượt chỉ xét nhóm priority cao nhất còn lại
+        List<RenderJob> remaining = new ArrayList<>(candidates);
+        List<RenderJob> picked = new ArrayList<>(limit);
+        while (picked.size() < limit && !remaining.isEmpty()) {
+            int priority = remaining.get(0).getPriority();
+            RenderJob best = null;
+            double bestLoad = Double.MAX_VALUE;
+            for (RenderJob job : remaining) {
+                if (job.getPriority() != priority) {
+                    break;
+                }
+                String tenant = tenantOf(job.getTenant());
+                double tenantLoad = (double) load.getOrDefault(tenant, 0L) / tenantWeights.weightOf(tenant);
+                if (tenantLoad < bestLoad) {
+                    best = job;
+                    bestLoad = tenantLoad;
+                }
+            }
+            remaining.remove(best);
+            picked.add(best);
+            load.merge(tenantOf(best.getTenant()), 1L, Long::sum);
+        }
+        return picked;
+    }
+
+    private static String tenantOf(String tenant) {
+        return tenant != null ? tenant : TenantWeights.DEFAULT_TENANT;
+    }
+
+    private RenderJob newJob(RenderJobRequest request, String tenant) throws Exception {
+        if (request.getFormId() == null || !formRepository.existsById(request.getFormId())) {
+            throw new RuntimeException("Form not found");
+        }
+
+        RenderJob job = new RenderJob();
+        job.setFormId(request.getFormId());
+        job.setType(parseType(request.getType()));
+        job.setPriority(request.getPriority() != null ? request.getPriority() : 0);
+        job.setTenant(tenant != null ? tenant : TenantWeights.DEFAULT_TENANT);
+        job.setRequestData(request.getData() != null ? objectMapper.writeValueAsString(request.getData()) : null);
+        job.setLinearize(request.isLinearize());
+        job.setStatus(RenderJobStatus.QUEUED);
+        job.setMaxAttempts(maxAttempts);
+        return job;
+    }
+
+    private static RenderJobType parseType(String type) {
+        if (type == null || type.isBlank()) {
+            return RenderJobType.PDF_PRO;
+        }
+        RenderJobType parsed;
+        try {
+            parsed = RenderJobType.valueOf(type.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown render job type: " + type);
+        }
+        if (parsed == RenderJobType.PRERENDER) {
+            // Chỉ PreRenderService tạo, bật bằng preRender của template
+            throw new IllegalArgumentException("Render job type PRERENDER cannot be enqueued directly");
+        }
+        return parsed;
+    }
+
+    private RenderJob findJob(Long id) {
+        return renderJobRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Render job not found"));
+    }
+
+    private RenderJobDto toDto(RenderJob job) {
+        return new RenderJobDto(
+                job.getId(),
+                job.getFormId(),
+                job.getType().name(),
+                job.getStatus().name(),
+                job.getPriority(),
+                job.getTenant(),
+                job.getAttempts(),
+                job.getMaxAttempts(),
+                job.getLeaseOwner(),
+                job.getResultSize(),
+                job.getError(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getCompletedAt()
+        );
+    }
+}
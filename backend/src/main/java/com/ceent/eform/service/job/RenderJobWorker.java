@@ -0,0 +1,183 @@
+package com.ceent.eform.service.job;
+
+import com.ceent.eform.config.ConditionalOnNodeRole;
+import com.ceent.eform.config.NodeIdentity;
+import com.ceent.eform.config.NodeRoles;
+import com.ceent.eform.dto.request.GeneratePdfRequest;
+import com.ceent.eform.entity.RenderJob;
+import com.ceent.eform.entity.RenderJobType;
+import com.ceent.eform.service.EFormService;
+import com.ceent.eform.service.PdfProService;
+import com.ceent.eform.service.render.OutputFormat;
+import com.ceent.eform.service.render.RenderCancelledException;
+import com.ceent.eform.service.render.RenderContext;
+import com.ceent.eform.service.render.RenderGuard;
+import com.ceent.eform.service.render.RenderLane;
+import com.ceent.eform.service.render.RenderScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Worker render chạy trên node có vai trò worker: poll hàng đợi render_jobs, claim theo số slot trống
+ * (app.render.worker.concurrency) và chạy job trên làn batch của RenderScheduler, heartbeat để giữ lease và đưa lại hàng đợi các job có lease hết hạn.
+ * Job quá deadline của template bị RenderGuard cancel và không được gia hạn lease nữa.
+ */
+@Component
+@ConditionalOnNodeRole(NodeRoles.WORKER)
+@Slf4j
+public class RenderJobWorker {
+
+    private static final String MDC_JOB_ID = "jobId";
+
+    private final RenderJobService renderJobService;
+    private final EFormService eFormService;
+    private final PdfProService pdfProService;
+    private final RenderScheduler renderScheduler;
+    private final MeterRegistry meterRegistry;
+    private final RenderGuard renderGuard;
+    private final String nodeId;
+    private final int concurrency;
+
+    private final Map<Long, RenderContext> runningJobs = new ConcurrentHashMap<>();
+    private volatile boolean stopping;
+
+    public RenderJobWorker(RenderJobService renderJobService,
+                           EFormService eFormService,
+                           PdfProService pdfProService,
+                           RenderScheduler renderScheduler,
+                           MeterRegistry meterRegistry,
+                           RenderGuard renderGuard,
+                           NodeIdentity nodeIdentity,
+                           @Value("${app.render.worker.concurrency:2}") int concurrency) {
+        this.renderJobService = renderJobService;
+        this.eFormService = eFormService;
+        this.pdfProService = pdfProService;
+        this.renderScheduler = renderScheduler;
+        this.meterRegistry = meterRegistry;
+        this.renderGuard = renderGuard;
+        this.nodeId = nodeIdentity.getId();
+        this.concurrency = concurrency;
+        log.info("Render worker {} started with concurrency {}", this.nodeId, concurrency);
+    }
+
+    /**
+     * Claim job mới khi còn slot trống
+     */
+    @Scheduled(fixedDelayString = "${app.render.jobs.poll-interval-ms:1000}")
+    public void poll() {
+        int free = concurrency - runningJobs.size();
+        if (stopping || free <= 0) {
+            return;
+        }
+
+        List<RenderJob> jobs;
+        try {
+            jobs = renderJobService.claim(nodeId, free);
+        } catch (Exception e) {
+            log.warn("Could not claim render jobs: {}", e.getMessage());
+            return;
+        }
+
+        for (RenderJob job : jobs) {
+            RenderContext context = renderGuard.newContext("render job " + job.getId());
+            // Đăng ký trước khi submit: job có thể chạy xong (và tự remove) trước khi submit trả về
+            runningJobs.put(job.getId(), context);
+            try {
+                renderScheduler.submit(RenderLane.BATCH, job.getTenant(), () -> process(job, context));
+            } catch (RuntimeException e) {
+                // Không vào được làn (đầy hoặc pool đang shutdown): heartbeat không được gia hạn lease của job này nữa
+                runningJobs.remove(job.getId());
+                log.warn("Render job {} rejected on {}: {}", job.getId(), nodeId, e.getMessage());
+                try {
+                    renderJobService.fail(job, nodeId, e);
+                } catch (RuntimeException failError) {
+                    log.warn("Could not release render job {}, reaper requeues it when the lease expires: {}",
+                            job.getId(), failError.getMessage());
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.render.jobs.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        // Job đã bị cancel mà thread chưa dừng: để lease hết hạn cho reaper xử lý
+        Set<Long> ids = runningJobs.entrySet().stream()
+                .filter(entry -> !entry.getValue().isCancelled())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return;
+        }
+        int renewed = renderJobService.renewLeases(ids, nodeId);
+        if (renewed < ids.size()) {
+            // Job đã bị node khác re-drive, kết quả của lần chạy này sẽ bị bỏ khi complete
+            log.warn("Render worker {} lost {} of {} leases", nodeId, ids.size() - renewed, ids.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.render.jobs.reaper-interval-ms:30000}")
+    public void requeueExpiredLeases() {
+        renderJobService.requeueExpiredLeases();
+    }
+
+    /**
+     * Ngừng claim job mới, job đang chạy được RenderScheduler chờ chạy xong khi shutdown
+     */
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    private void process(RenderJob job, RenderContext context) {
+        String outcome = "success";
+        MDC.put(MDC_JOB_ID, String.valueOf(job.getId()));
+        try (RenderGuard.Scope ignored = renderGuard.enter(context)) {
+            Map<String, Object> data = renderJobService.readData(job);
+            boolean linearize = Boolean.TRUE.equals(job.getLinearize());
+            if (job.getType() == RenderJobType.PRERENDER) {
+                // formData đã lưu nên PdfProService ghi kết quả vào RenditionCache theo renderRevision hiện tại
+                byte[] pdfBytes = pdfProService.generate(job.getFormId(), null, OutputFormat.PDF, null, false);
+                if (!renderJobService.completeRendition(job, nodeId, pdfBytes.length)) {
+                    outcome = "lease_lost";
+                }
+                return;
+            }
+            byte[] pdfBytes = job.getType() == RenderJobType.PDF
+                    ? eFormService.generatePdf(new GeneratePdfRequest(job.getFormId(), data, null, linearize))
+                    : pdfProService.generateProPdf(job.getFormId(), data, null, linearize);
+            if (!renderJobService.complete(job, nodeId, pdfBytes)) {
+                outcome = "lease_lost";
+            }
+        } catch (Exception e) {
+            if (RenderCancelledException.find(e) != null) {
+                outcome = "cancelled";
+                log.warn("Render job {} cancelled on {}: {}", job.getId(), nodeId, e.getMessage());
+            } else {
+                outcome = "error";
+                log.error("Render job {} failed on {}", job.getId(), nodeId, e);
+            }
+            renderJobService.fail(job, nodeId, e);
+        } finally {
+            MDC.remove(MDC_JOB_ID);
+            runningJobs.remove(job.getId());
+            Counter.builder("eform.render.jobs")
+                    .description("Số job render đã xử lý trên worker")
+                    .tag("type", job.getType().name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+}
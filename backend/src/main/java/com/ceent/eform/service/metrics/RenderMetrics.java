@@ -0,0 +1,154 @@
+package com.ceent.eform.service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metric Micrometer cho pipeline render và tích hợp OnlyOffice.
+ * Meter tổng hợp (eform.render, eform.pdf.size, eform.onlyoffice.*) chỉ mang tag có số giá trị giới hạn
+ * (stage, endpoint là pattern của handler, vd. /api/v1/forms/{id}/generate-pdf-pro, "background" khi chạy ngoài request)
+ * và có histogram p50/p95/p99 cấu hình qua management.metrics.distribution.*.
+ * Bản theo template (eform.template.*) chỉ có count/sum/max: số template không giới hạn nên không được nhân với bucket histogram.
+ */
+@Component
+@RequiredArgsConstructor
+public class RenderMetrics {
+
+    public static final String RENDER_TIMER = "eform.render";
+    public static final String PDF_SIZE = "eform.pdf.size";
+    public static final String ONLYOFFICE_CALLBACK_TIMER = "eform.onlyoffice.callback";
+    public static final String ONLYOFFICE_DOWNLOAD_TIMER = "eform.onlyoffice.download";
+    public static final String ONLYOFFICE_DOWNLOAD_SIZE = "eform.onlyoffice.download.size";
+    public static final String TEMPLATE_RENDER_TIMER = "eform.template.render";
+    public static final String TEMPLATE_PDF_SIZE = "eform.template.pdf.size";
+    public static final String TEMPLATE_ONLYOFFICE_CALLBACK_TIMER = "eform.template.onlyoffice.callback";
+    public static final String TEMPLATE_ONLYOFFICE_DOWNLOAD_TIMER = "eform.template.onlyoffice.download";
+
+    public static final String STAGE_COMPILE = "compile";
+    public static final String STAGE_RENDER = "render";
+    public static final String STAGE_WRITE = "write";
+    public static final String STAGE_STREAM_TABLES = "stream_tables";
+    public static final String STAGE_FONT_FIX = "font_fix";
+    public static final String STAGE_CONVERT = "convert";
+    public static final String STAGE_OPTIMIZE = "optimize";
+    public static final String STAGE_LINEARIZE = "linearize";
+    public static final String STAGE_END_TO_END = "end_to_end";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_CANCELLED = "cancelled";
+
+    private static final String UNKNOWN = "unknown";
+    private static final String BACKGROUND = "background";
+
+    private final MeterRegistry registry;
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Ghi thời gian một stage render thành công
+     */
+    public long stopStage(Timer.Sample sample, String stage, Long templateId) {
+        return stopStage(sample, stage, templateId, OUTCOME_SUCCESS);
+    }
+
+    public long stopStage(Timer.Sample sample, String stage, Long templateId, String outcome) {
+        long nanos = sample.stop(Timer.builder(RENDER_TIMER)
+                .description("Thời gian từng stage của pipeline render PDF")
+                .tag("stage", stage)
+                .tag("endpoint", currentEndpoint())
+                .tag("outcome", outcome)
+                .register(registry));
+        Timer.builder(TEMPLATE_RENDER_TIMER)
+                .description("Thời gian từng stage của pipeline render PDF theo template")
+                .tag("stage", stage)
+                .tag("template", templateTag(templateId))
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        return nanos;
+    }
+
+    public void recordPdfSize(Long templateId, long bytes) {
+        DistributionSummary.builder(PDF_SIZE)
+                .description("Kích thước PDF sinh ra")
+                .baseUnit("bytes")
+                .tag("endpoint", currentEndpoint())
+                .register(registry)
+                .record(bytes);
+        DistributionSummary.builder(TEMPLATE_PDF_SIZE)
+                .description("Kích thước PDF sinh ra theo template")
+                .baseUnit("bytes")
+                .tag("template", templateTag(templateId))
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * Thời gian xử lý callback OnlyOffice, tag theo status của callback
+     */
+    public void stopCallback(Timer.Sample sample, Long templateId, Object status, String outcome) {
+        long nanos = sample.stop(Timer.builder(ONLYOFFICE_CALLBACK_TIMER)
+                .description("Thời gian xử lý callback của OnlyOffice")
+                .tag("status", status != null ? status.toString() : UNKNOWN)
+                .tag("outcome", outcome)
+                .register(registry));
+        Timer.builder(TEMPLATE_ONLYOFFICE_CALLBACK_TIMER)
+                .description("Thời gian xử lý callback của OnlyOffice theo template")
+                .tag("template", templateTag(templateId))
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Thời gian tải document đã sửa từ OnlyOffice về và kích thước file
+     */
+    public void stopDownload(Timer.Sample sample, Long templateId, long bytes, String outcome) {
+        long nanos = sample.stop(Timer.builder(ONLYOFFICE_DOWNLOAD_TIMER)
+                .description("Thời gian tải document từ OnlyOffice")
+                .tag("outcome", outcome)
+                .register(registry));
+        Timer.builder(TEMPLATE_ONLYOFFICE_DOWNLOAD_TIMER)
+                .description("Thời gian tải document từ OnlyOffice theo template")
+                .tag("template", templateTag(templateId))
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (bytes > 0) {
+            DistributionSummary.builder(ONLYOFFICE_DOWNLOAD_SIZE)
+                    .baseUnit("bytes")
+                    .register(registry)
+                    .record(bytes);
+        }
+    }
+
+    private static String templateTag(Long templateId) {
+        return templateId != null ? templateId.toString() : UNKNOWN;
+    }
+
+    /**
+     * Pattern của handler đang xử lý request hiện tại
+     */
+    static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return BACKGROUND;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : UNKNOWN;
+    }
+}
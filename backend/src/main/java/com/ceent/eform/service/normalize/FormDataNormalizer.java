@@ -0,0 +1,205 @@
+package com.ceent.eform.service.normalize;
+
+import org.springframework.stereotype.Component;
+
+import java.text.ParsePosition;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chuẩn hóa dữ liệu form trước khi lưu/render.
+ * Đi đệ quy qua map/list (giữ nguyên cấu trúc cho bảng và vòng lặp), mỗi chuỗi được xử lý
+ * trong một lần quét ký tự và trả về chính chuỗi đó nếu không có gì thay đổi.
+ * Định dạng tiền/ngày được áp dụng theo type hint của field (tên field -> "currency" | "date").
+ */
+@Component
+public class FormDataNormalizer {
+
+    public static final String TYPE_CURRENCY = "currency";
+    public static final String TYPE_DATE = "date";
+
+    private static final DateTimeFormatter[] DATE_INPUTS = {
+            DateTimeFormatter.ofPattern("uuuu-MM-dd"),
+            DateTimeFormatter.ofPattern("dd/MM/uuuu"),
+            DateTimeFormatter.ofPattern("dd-MM-uuuu")
+    };
+
+    public Map<String, Object> normalize(Map<String, Object> data) {
+        return normalize(data, Map.of());
+    }
+
+    public Map<String, Object> normalize(Map<String, Object> data, Map<String, String> typeHints) {
+        Map<String, Object> result = new LinkedHashMap<>(Math.max(16, (int) (data.size() / 0.75f) + 1));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = entry.getValue();
+            // Giá trị null ở cấp đầu được thay bằng chuỗi rỗng để tag không hiện "null"
+            result.put(entry.getKey(), value == null ? "" : normalizeValue(entry.getKey(), value, typeHints));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object normalizeValue(String field, Object value, Map<String, String> typeHints) {
+        String type = field != null ? typeHints.get(field) : null;
+        if (type != null) {
+            if (TYPE_CURRENCY.equals(type)) {
+                return formatCurrency(value);
+            }
+            if (TYPE_DATE.equals(type)) {
+                return formatDate(value);
+            }
+        }
+
+        if (value instanceof String text) {
+            return normalizeText(text);
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> nested = new LinkedHashMap<>(Math.max(16, (int) (map.size() / 0.75f) + 1));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                Object nestedValue = entry.getValue();
+                nested.put(key, nestedValue == null ? null : normalizeValue(key, nestedValue, typeHints));
+            }
+            return nested;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> items = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                items.add(item == null ? null : normalizeValue(null, item, typeHints));
+            }
+            return items;
+        }
+        // Số, boolean, RenderData của POI-TL... giữ nguyên kiểu
+        return value;
+    }
+
+    /**
+     * CR/CRLF thành khoảng trắng, gộp các khoảng trắng liên tiếp và trim (giữ nguyên \n và dấu tiếng Việt).
+     * Tương đương replace("\r\n"," ").replace("\r"," ").replaceAll("  +"," ").trim() nhưng chỉ quét một lần.
+     */
+    public static String normalizeText(String text) {
+        int length = text.length();
+        int start = 0;
+        while (start < length && text.charAt(start) <= ' ') {
+            start++;
+        }
+        int end = length;
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        // Tìm vị trí đầu tiên cần sửa, không có thì không cấp phát gì
+        int dirty = -1;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\r' || (c == ' ' && i + 1 < end && isSpaceLike(text, i + 1))) {
+                dirty = i;
+                break;
+            }
+        }
+        if (dirty < 0) {
+            return start == 0 && end == length ? text : text.substring(start, end);
+        }
+
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(text, start, dirty);
+        boolean lastSpace = false;
+        for (int i = dirty; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\r') {
+                if (i + 1 < end && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                c = ' ';
+            }
+            if (c == ' ') {
+                if (lastSpace) {
+                    continue;
+                }
+                lastSpace = true;
+            } else {
+                lastSpace = false;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isSpaceLike(String text, int index) {
+        char c = text.charAt(index);
+        return c == ' ' || c == '\r';
+    }
+
+    /**
+     * Format số tiền: lấy các chữ số, nhóm hàng nghìn bằng dấu chấm, thêm " VND".
+     * Không có chữ số hoặc quá lớn thì trả về nguyên văn.
+     */
+    public static String formatCurrency(Object amount) {
+        if (amount == null) return "0";
+
+        String text = amount.toString();
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (value > (Long.MAX_VALUE - (c - '0')) / 10) {
+                    return text;
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return text;
+        }
+
+        String plain = Long.toString(value);
+        StringBuilder sb = new StringBuilder(plain.length() + plain.length() / 3 + 4);
+        int firstGroup = plain.length() % 3 == 0 ? 3 : plain.length() % 3;
+        sb.append(plain, 0, firstGroup);
+        for (int i = firstGroup; i < plain.length(); i += 3) {
+            sb.append('.').append(plain, i, i + 3);
+        }
+        return sb.append(" VND").toString();
+    }
+
+    /**
+     * Format ngày về dd/MM/yyyy, nhận yyyy-MM-dd, dd/MM/yyyy, dd-MM-yyyy hoặc kiểu ngày của java.time.
+     * Giá trị không nhận dạng được giữ nguyên văn.
+     */
+    public static String formatDate(Object date) {
+        if (date == null) return "";
+
+        if (date instanceof TemporalAccessor temporal && temporal.isSupported(ChronoField.DAY_OF_MONTH)) {
+            return format(temporal.get(ChronoField.DAY_OF_MONTH), temporal.get(ChronoField.MONTH_OF_YEAR),
+                    temporal.get(ChronoField.YEAR));
+        }
+
+        String text = normalizeText(date.toString());
+        for (DateTimeFormatter formatter : DATE_INPUTS) {
+            ParsePosition position = new ParsePosition(0);
+            TemporalAccessor parsed = formatter.parseUnresolved(text, position);
+            if (parsed != null && position.getErrorIndex() < 0 && position.getIndex() == text.length()) {
+                return format(parsed.getLong(ChronoField.DAY_OF_MONTH), parsed.getLong(ChronoField.MONTH_OF_YEAR),
+                        parsed.getLong(ChronoField.YEAR));
+            }
+        }
+        return text;
+    }
+
+    private static String format(long day, long month, long year) {
+        StringBuilder sb = new StringBuilder(10);
+        if (day < 10) sb.append('0');
+        sb.append(day).append('/');
+        if (month < 10) sb.append('0');
+        sb.append(month).append('/');
+        return sb.append(year).toString();
+    }
+}
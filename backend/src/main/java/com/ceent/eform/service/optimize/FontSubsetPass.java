@@ -0,0 +1,238 @@
+package com.ceent.eform.service.optimize;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TTFSubsetter;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDCIDFont;
+import org.apache.pdfbox.pdmodel.font.PDCIDFontType2;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Subset font TrueType nhúng đầy đủ (Type0 / CIDFontType2, Identity-H) về các glyph thực sự được dùng.
+ * Glyph được đổi số thứ tự nên ghi thêm CIDToGIDMap, mã ký tự trong content stream giữ nguyên.
+ * TTFSubsetter chọn glyph theo Unicode (qua cmap của font): font nào có glyph đã vẽ mà không lấy lại được
+ * từ Unicode (ligature, glyph thay thế...) thì giữ nguyên font đó.
+ * Font đã là subset (tên có tiền tố ABCDEF+) được bỏ qua; không chạy khi có form field hoặc annotation
+ * có appearance stream vì chúng có thể dùng glyph không xuất hiện trong content của trang.
+ */
+@Component
+@Order(30)
+@Slf4j
+public class FontSubsetPass implements PdfOptimizationPass {
+
+    public static final String NAME = "subset-fonts";
+
+    private static final List<String> TABLES = List.of(
+            "head", "hhea", "loca", "maxp", "cvt ", "prep", "glyf", "hmtx", "fpgm", "gasp");
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public PassOutcome apply(PDDocument document, PdfOptimizeProfile profile) throws Exception {
+        if (hasAppearanceStreams(document)) {
+            return new PassOutcome(0, "skipped: document has form fields or annotation appearances");
+        }
+
+        GlyphCollector collector = new GlyphCollector();
+        collector.writeText(document, Writer.nullWriter());
+
+        long saved = 0;
+        int subset = 0;
+        for (Map.Entry<PDFont, UsedGlyphs> entry : collector.usedByFont().entrySet()) {
+            try {
+                long fontSaved = subset(document, entry.getKey(), entry.getValue());
+                if (fontSaved > 0) {
+                    saved += fontSaved;
+                    subset++;
+                }
+            } catch (Exception e) {
+                log.debug("Skip subsetting font {}: {}", entry.getKey().getName(), e.getMessage());
+            }
+        }
+        return new PassOutcome(saved, subset + "/" + collector.usedByFont().size() + " fonts subset");
+    }
+
+    private long subset(PDDocument document, PDFont font, UsedGlyphs used) throws IOException {
+        if (!(font instanceof PDType0Font type0)) {
+            return 0;
+        }
+        COSBase encoding = type0.getCOSObject().getDictionaryObject(COSName.ENCODING);
+        if (!COSName.IDENTITY_H.equals(encoding) && !COSName.IDENTITY_V.equals(encoding)) {
+            return 0;
+        }
+        PDCIDFont descendant = type0.getDescendantFont();
+        if (!(descendant instanceof PDCIDFontType2)) {
+            return 0;
+        }
+        COSDictionary cidFont = descendant.getCOSObject();
+        COSBase cidToGid = cidFont.getDictionaryObject(COSName.CID_TO_GID_MAP);
+        if (cidToGid != null && !COSName.IDENTITY.equals(cidToGid)) {
+            return 0;
+        }
+        PDFontDescriptor descriptor = descendant.getFontDescriptor();
+        PDStream fontFile = descriptor != null ? descriptor.getFontFile2() : null;
+        if (fontFile == null || isSubsetName(descriptor.getFontName())) {
+            return 0;
+        }
+
+        // Identity-H: mã ký tự = CID = GID trong font gốc
+        Set<Integer> glyphIds = new TreeSet<>(used.codes());
+        glyphIds.add(0);
+        if (used.codePoints().isEmpty()) {
+            return 0;
+        }
+
+        byte[] subsetBytes;
+        Map<Integer, Integer> newToOld;
+        TrueTypeFont ttf = new TTFParser(true).parse(fontFile.createInputStream());
+        try {
+            TTFSubsetter subsetter = new TTFSubsetter(ttf, TABLES);
+            subsetter.addAll(used.codePoints());
+            newToOld = subsetter.getGIDMap();
+            if (!newToOld.values().containsAll(glyphIds)) {
+                // cmap không dẫn tới mọi glyph đã vẽ, subset sẽ làm mất chữ
+                return 0;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            subsetter.writeToStream(out);
+            subsetBytes = out.toByteArray();
+        } finally {
+            ttf.close();
+        }
+
+        int maxCid = newToOld.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        byte[] cidToGidMap = new byte[(maxCid + 1) * 2];
+        for (Map.Entry<Integer, Integer> mapping : newToOld.entrySet()) {
+            int cid = mapping.getValue();
+            int gid = mapping.getKey();
+            cidToGidMap[cid * 2] = (byte) (gid >> 8);
+            cidToGidMap[cid * 2 + 1] = (byte) gid;
+        }
+
+        PDStream newFontFile = new PDStream(document, new ByteArrayInputStream(subsetBytes), COSName.FLATE_DECODE);
+        newFontFile.getCOSObject().setInt(COSName.LENGTH1, subsetBytes.length);
+        PDStream newCidToGid = new PDStream(document, new ByteArrayInputStream(cidToGidMap), COSName.FLATE_DECODE);
+
+        long before = fontFile.getCOSObject().getLength();
+        long after = newFontFile.getCOSObject().getLength() + newCidToGid.getCOSObject().getLength();
+        if (after >= before) {
+            return 0;
+        }
+
+        descriptor.setFontFile2(newFontFile);
+        cidFont.setItem(COSName.CID_TO_GID_MAP, newCidToGid);
+
+        String tag = subsetTag(glyphIds);
+        descriptor.setFontName(tag + "+" + descriptor.getFontName());
+        prefixBaseFont(cidFont, tag);
+        prefixBaseFont(type0.getCOSObject(), tag);
+        return before - after;
+    }
+
+    private static boolean hasAppearanceStreams(PDDocument document) throws IOException {
+        if (document.getDocumentCatalog().getAcroForm() != null) {
+            return true;
+        }
+        for (PDPage page : document.getPages()) {
+            for (PDAnnotation annotation : page.getAnnotations()) {
+                if (annotation.getAppearance() != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void prefixBaseFont(COSDictionary font, String tag) {
+        String baseFont = font.getNameAsString(COSName.BASE_FONT);
+        if (baseFont != null && !isSubsetName(baseFont)) {
+            font.setName(COSName.BASE_FONT, tag + "+" + baseFont);
+        }
+    }
+
+    private static boolean isSubsetName(String name) {
+        return name != null && name.length() > 7 && name.charAt(6) == '+'
+                && name.substring(0, 6).chars().allMatch(c -> c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Tag 6 chữ in hoa tính từ tập glyph, giống cách PDFBox đặt tên subset
+     */
+    private static String subsetTag(Set<Integer> glyphIds) {
+        long hash = glyphIds.hashCode() & 0xFFFFFFFFL;
+        StringBuilder tag = new StringBuilder(6);
+        for (int i = 0; i < 6; i++) {
+            tag.append((char) ('A' + hash % 26));
+            hash /= 26;
+        }
+        return tag.toString();
+    }
+
+    /**
+     * Mã ký tự (= GID với Identity-H) và code point Unicode tương ứng đã vẽ bằng một font
+     */
+    private record UsedGlyphs(Set<Integer> codes, Set<Integer> codePoints) {
+    }
+
+    /**
+     * Thu thập mã ký tự đã vẽ theo từng font (theo identity của font dictionary)
+     */
+    private static final class GlyphCollector extends PDFTextStripper {
+        private final Map<COSDictionary, PDFont> fonts = new IdentityHashMap<>();
+        private final Map<COSDictionary, UsedGlyphs> used = new IdentityHashMap<>();
+
+        private GlyphCollector() throws IOException {
+        }
+
+        @Override
+        protected void processTextPosition(TextPosition text) {
+            PDFont font = text.getFont();
+            if (font == null || text.getCharacterCodes() == null) {
+                return;
+            }
+            fonts.putIfAbsent(font.getCOSObject(), font);
+            UsedGlyphs fontGlyphs = used.computeIfAbsent(font.getCOSObject(),
+                    key -> new UsedGlyphs(new TreeSet<>(), new TreeSet<>()));
+            for (int code : text.getCharacterCodes()) {
+                fontGlyphs.codes().add(code);
+            }
+            String unicode = text.getUnicode();
+            if (unicode != null) {
+                unicode.codePoints().forEach(fontGlyphs.codePoints()::add);
+            }
+        }
+
+        Map<PDFont, UsedGlyphs> usedByFont() {
+            Map<PDFont, UsedGlyphs> result = new IdentityHashMap<>();
+            used.forEach((dictionary, fontGlyphs) -> result.put(fonts.get(dictionary), fontGlyphs));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.ceent.eform.service.optimize;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetGraphicsStateParameters;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.util.Matrix;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thu nhỏ ảnh về imageDpi theo kích thước lớn nhất mà ảnh được vẽ trên trang, nén lại JPEG (profile lossy)
+ * hoặc Flate. Stream ảnh được ghi đè tại chỗ nên mọi tham chiếu vẫn đúng; chỉ thay khi kết quả nhỏ hơn.
+ * Bỏ qua image mask, ảnh 1 bit và ảnh có color-key mask.
+ */
+@Component
+@Order(20)
+@Slf4j
+public class ImageRecompressionPass implements PdfOptimizationPass {
+
+    public static final String NAME = "recompress-images";
+
+    // Chỉ thu nhỏ khi ảnh lớn hơn kích thước mục tiêu ít nhất 25%
+    private static final double DOWNSCALE_THRESHOLD = 1.25;
+
+    private static final COSName[] IMAGE_KEYS = {
+            COSName.FILTER, COSName.DECODE_PARMS, COSName.DECODE, COSName.COLORSPACE, COSName.BITS_PER_COMPONENT,
+            COSName.WIDTH, COSName.HEIGHT
+    };
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public PassOutcome apply(PDDocument document, PdfOptimizeProfile profile) throws Exception {
+        PlacementCollector collector = new PlacementCollector();
+        for (PDPage page : document.getPages()) {
+            collector.processPage(page);
+        }
+
+        long saved = 0;
+        int recompressed = 0;
+        for (Map.Entry<COSStream, Placement> entry : collector.placements.entrySet()) {
+            try {
+                long imageSaved = recompress(document, entry.getKey(), entry.getValue(), profile);
+                if (imageSaved > 0) {
+                    saved += imageSaved;
+                    recompressed++;
+                }
+            } catch (Exception e) {
+                log.debug("Skip recompressing image: {}", e.getMessage());
+            }
+        }
+        return new PassOutcome(saved, recompressed + "/" + collector.placements.size() + " images recompressed");
+    }
+
+    private long recompress(PDDocument document, COSStream stream, Placement placement, PdfOptimizeProfile profile)
+            throws IOException {
+        PDImageXObject image = new PDImageXObject(new PDStream(stream), null);
+        if (image.isStencil() || image.getBitsPerComponent() == 1 || stream.getDictionaryObject(COSName.MASK) != null) {
+            return 0;
+        }
+
+        int targetWidth = (int) Math.ceil(placement.widthPt / 72.0 * profile.getImageDpi());
+        int targetHeight = (int) Math.ceil(placement.heightPt / 72.0 * profile.getImageDpi());
+        double scale = Math.max((double) targetWidth / image.getWidth(), (double) targetHeight / image.getHeight());
+        boolean downscale = scale > 0 && scale * DOWNSCALE_THRESHOLD < 1.0;
+        boolean alreadyJpeg = COSName.DCT_DECODE.equals(stream.getDictionaryObject(COSName.FILTER));
+        if (!downscale && (!profile.isLossyImages() || alreadyJpeg)) {
+            return 0;
+        }
+
+        BufferedImage source = image.getOpaqueImage();
+        BufferedImage scaled = downscale
+                ? resize(source, Math.max(1, (int) Math.round(image.getWidth() * scale)),
+                Math.max(1, (int) Math.round(image.getHeight() * scale)), image.getColorSpace() instanceof PDDeviceGray)
+                : source;
+
+        PDImageXObject replacement = profile.isLossyImages()
+                ? JPEGFactory.createFromImage(document, scaled, profile.getJpegQuality())
+                : LosslessFactory.createFromImage(document, scaled);
+
+        COSStream newStream = replacement.getCOSObject();
+        long oldLength = stream.getLength();
+        long newLength = newStream.getLength();
+        if (newLength >= oldLength) {
+            return 0;
+        }
+
+        byte[] raw;
+        try (InputStream in = newStream.createRawInputStream()) {
+            raw = in.readAllBytes();
+        }
+        for (COSName key : IMAGE_KEYS) {
+            stream.removeItem(key);
+        }
+        try (OutputStream out = stream.createRawOutputStream()) {
+            out.write(raw);
+        }
+        for (COSName key : IMAGE_KEYS) {
+            COSBase value = newStream.getItem(key);
+            if (value != null) {
+                stream.setItem(key, value);
+            }
+        }
+        return oldLength - newLength;
+    }
+
+    /**
+     * Thu nhỏ nhiều bước (mỗi bước tối đa 1/2) để giữ chất lượng khi dùng nội suy bilinear
+     */
+    private static BufferedImage resize(BufferedImage source, int width, int height, boolean gray) {
+        int type = gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            graphics.dispose();
+            current = step;
+        } while (currentWidth > width || currentHeight > height);
+        return current;
+    }
+
+    /**
+     * Kích thước hiển thị lớn nhất (pt) của mỗi ảnh trên các trang
+     */
+    private static final class Placement {
+        private double widthPt;
+        private double heightPt;
+    }
+
+    /**
+     * Duyệt content stream, theo dõi CTM để biết kích thước vẽ của ảnh tại toán tử Do
+     */
+    private static final class PlacementCollector extends PDFStreamEngine {
+        private final Map<COSStream, Placement> placements = new IdentityHashMap<>();
+
+        private PlacementCollector() {
+            addOperator(new Concatenate());
+            addOperator(new DrawObject());
+            addOperator(new SetGraphicsStateParameters());
+            addOperator(new Save());
+            addOperator(new Restore());
+            addOperator(new SetMatrix());
+        }
+
+        @Override
+        protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+            if ("Do".equals(operator.getName()) && !operands.isEmpty() && operands.get(0) instanceof COSName name) {
+                PDXObject xObject = getResources().getXObject(name);
+                if (xObject instanceof PDImageXObject image) {
+                    Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+                    Placement placement = placements.computeIfAbsent(image.getCOSObject(), key -> new Placement());
+                    placement.widthPt = Math.max(placement.widthPt, Math.abs(ctm.getScalingFactorX()));
+                    placement.heightPt = Math.max(placement.heightPt, Math.abs(ctm.getScalingFactorY()));
+                    return;
+                }
+            }
+            super.processOperator(operator, operands);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.ceent.eform.service.optimize;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linearize PDF ("fast web view") bằng qpdf: sắp lại object để trang 1 hiển thị ngay khi viewer
+ * tải theo byte range. PDFBox không ghi được file linearized nên stage này gọi qpdf ngoài process;
+ * không có qpdf thì trả về nguyên bản và log cảnh báo một lần.
+ */
+@Service
+@Slf4j
+public class PdfLinearizer {
+
+    private static final int QPDF_OK = 0;
+    private static final int QPDF_WARNINGS = 3;
+
+    private final MeterRegistry meterRegistry;
+    private final String qpdfPath;
+    private final Duration timeout;
+    private final boolean objectStreams;
+
+    private volatile Boolean available;
+
+    public PdfLinearizer(MeterRegistry meterRegistry,
+                         @Value("${app.pdf.linearize.qpdf-path:qpdf}") String qpdfPath,
+                         @Value("${app.pdf.linearize.timeout:30s}") Duration timeout,
+                         @Value("${app.pdf.linearize.object-streams:true}") boolean objectStreams) {
+        this.meterRegistry = meterRegistry;
+        this.qpdfPath = qpdfPath;
+        this.timeout = timeout;
+        this.objectStreams = objectStreams;
+    }
+
+    /**
+     * Linearize PDF, trả về nguyên bản nếu không có qpdf hoặc qpdf lỗi
+     */
+    public byte[] linearize(byte[] pdfBytes) {
+        if (!isAvailable()) {
+            record("unavailable", null);
+            return pdfBytes;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Path input = null;
+        Path output = null;
+        try {
+            input = Files.createTempFile("linearize-", ".pdf");
+            output = Files.createTempFile("linearize-", ".out.pdf");
+            Files.write(input, pdfBytes);
+
+            List<String> command = new ArrayList<>(List.of(qpdfPath, "--linearize"));
+            if (objectStreams) {
+                // qpdf gộp object nhỏ vào object stream, bù cho PdfOptimizer (PDFBox 2 không ghi được)
+                command.add("--object-streams=generate");
+            }
+            command.add(input.toString());
+            command.add(output.toString());
+
+            int exitCode = run(command);
+            if (exitCode != QPDF_OK && exitCode != QPDF_WARNINGS) {
+                log.warn("qpdf exited with code {}, serving non-linearized PDF", exitCode);
+                record("error", sample);
+                return pdfBytes;
+            }
+            byte[] linearized = Files.readAllBytes(output);
+            record("success", sample);
+            return linearized;
+        } catch (Exception e) {
+            log.warn("Could not linearize PDF: {}", e.getMessage());
+            record("error", sample);
+            return pdfBytes;
+        } finally {
+            deleteQuietly(input);
+            deleteQuietly(output);
+        }
+    }
+
+    /**
+     * File đã linearized chứa dictionary /Linearized ngay trong object đầu tiên
+     */
+    public static boolean isLinearized(byte[] pdfBytes) {
+        int length = Math.min(pdfBytes.length, 1024);
+        return new String(pdfBytes, 0, length, StandardCharsets.ISO_8859_1).contains("/Linearized");
+    }
+
+    public boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            synchronized (this) {
+                if (available == null) {
+                    available = probe();
+                }
+                result = available;
+            }
+        }
+        return result;
+    }
+
+    private boolean probe() {
+        try {
+            int exitCode = run(List.of(qpdfPath, "--version"));
+            if (exitCode == QPDF_OK) {
+                log.info("PDF linearization enabled with {}", qpdfPath);
+                return true;
+            }
+            log.warn("'{} --version' exited with code {}, PDF linearization disabled", qpdfPath, exitCode);
+        } catch (Exception e) {
+            log.warn("qpdf not found at '{}', PDF linearization disabled: {}", qpdfPath, e.getMessage());
+        }
+        return false;
+    }
+
+    private int run(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("qpdf timed out after " + timeout);
+        }
+        return process.exitValue();
+    }
+
+    private void record(String outcome, Timer.Sample sample) {
+        if (sample == null) {
+            meterRegistry.counter("eform.pdf.linearize.skipped", "reason", outcome).increment();
+            return;
+        }
+        sample.stop(Timer.builder("eform.pdf.linearize")
+                .description("Thời gian linearize PDF bằng qpdf")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Could not delete temp file {}", path);
+        }
+    }
+}
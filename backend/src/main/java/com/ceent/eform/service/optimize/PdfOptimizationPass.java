@@ -0,0 +1,19 @@
+package com.ceent.eform.service.optimize;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Một pass tối ưu trên PDDocument đã load. Pass sửa document tại chỗ và trả về số byte stream đã tiết kiệm.
+ */
+public interface PdfOptimizationPass {
+
+    String name();
+
+    PassOutcome apply(PDDocument document, PdfOptimizeProfile profile) throws Exception;
+
+    /**
+     * bytesSaved tính trên độ dài raw của các stream bị thay/bỏ; kích thước file cuối cùng được đo lại khi save
+     */
+    record PassOutcome(long bytesSaved, String detail) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.ceent.eform.service.optimize;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * Cấu hình của một profile tối ưu PDF (web, archive): các pass được bật và tham số nén ảnh
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PdfOptimizeProfile {
+
+    public static final String NONE = "none";
+    public static final String WEB = "web";
+    public static final String ARCHIVE = "archive";
+
+    private final String name;
+    private final Set<String> passes;
+    private final float imageDpi; // độ phân giải tối đa của ảnh theo kích thước hiển thị trên trang
+    private final float jpegQuality;
+    private final boolean lossyImages; // false = ảnh thu nhỏ được nén lossless (Flate)
+
+    public boolean isEnabled(String pass) {
+        return passes.contains(pass);
+    }
+}
@@ -0,0 +1,172 @@
+package com.ceent.eform.service.optimize;
+
+import com.ceent.eform.dto.PdfOptimizationReportDto;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Stage hậu xử lý PDF (PDFBox): chạy các pass theo profile (web/archive) và báo cáo byte tiết kiệm,
+ * thời gian của từng pass. Profile "none" trả về nguyên bản; nếu kết quả không nhỏ hơn thì giữ bản gốc.
+ */
+@Service
+@Slf4j
+public class PdfOptimizer {
+
+    private final List<PdfOptimizationPass> passes;
+    private final MeterRegistry meterRegistry;
+    private final String defaultProfile;
+    private final Map<String, PdfOptimizeProfile> profiles = new LinkedHashMap<>();
+
+    public PdfOptimizer(List<PdfOptimizationPass> passes,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.pdf.optimize.default-profile:none}") String defaultProfile,
+                        @Value("${app.pdf.optimize.web.passes:dedupe-resources,recompress-images,subset-fonts,compress-streams}") String webPasses,
+                        @Value("${app.pdf.optimize.web.image-dpi:150}") float webImageDpi,
+                        @Value("${app.pdf.optimize.web.jpeg-quality:0.75}") float webJpegQuality,
+                        @Value("${app.pdf.optimize.archive.passes:dedupe-resources,subset-fonts,compress-streams}") String archivePasses,
+                        @Value("${app.pdf.optimize.archive.image-dpi:300}") float archiveImageDpi,
+                        @Value("${app.pdf.optimize.archive.jpeg-quality:0.9}") float archiveJpegQuality) {
+        this.passes = passes;
+        this.meterRegistry = meterRegistry;
+        profiles.put(PdfOptimizeProfile.WEB, new PdfOptimizeProfile(PdfOptimizeProfile.WEB, parsePasses(webPasses),
+                webImageDpi, webJpegQuality, true));
+        profiles.put(PdfOptimizeProfile.ARCHIVE, new PdfOptimizeProfile(PdfOptimizeProfile.ARCHIVE, parsePasses(archivePasses),
+                archiveImageDpi, archiveJpegQuality, false));
+        if (!PdfOptimizeProfile.NONE.equals(defaultProfile) && !profiles.containsKey(defaultProfile)) {
+            throw new IllegalStateException("Unknown app.pdf.optimize.default-profile: " + defaultProfile);
+        }
+        this.defaultProfile = defaultProfile;
+    }
+
+    /**
+     * Tối ưu theo profile (null = app.pdf.optimize.default-profile)
+     */
+    public byte[] optimize(byte[] pdfBytes, String profileName) throws Exception {
+        return optimizeWithReport(pdfBytes, profileName).getData();
+    }
+
+    public OptimizedPdf optimizeWithReport(byte[] pdfBytes, String profileName) throws Exception {
+        String name = resolveProfileName(profileName);
+        PdfOptimizationReportDto report = new PdfOptimizationReportDto();
+        report.setProfile(name);
+        report.setOriginalBytes(pdfBytes.length);
+        report.setOptimizedBytes(pdfBytes.length);
+
+        if (PdfOptimizeProfile.NONE.equals(name)) {
+            return new OptimizedPdf(pdfBytes, report);
+        }
+        PdfOptimizeProfile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown PDF optimize profile: " + name + ", available: " + profileNames());
+        }
+
+        long start = System.nanoTime();
+        byte[] optimized;
+        try (PDDocument document = PDDocument.load(pdfBytes)) {
+            if (document.isEncrypted()) {
+                log.debug("Skip optimizing encrypted PDF");
+                return new OptimizedPdf(pdfBytes, report);
+            }
+            for (PdfOptimizationPass pass : passes) {
+                if (!profile.isEnabled(pass.name())) {
+                    continue;
+                }
+                long passStart = System.nanoTime();
+                PdfOptimizationPass.PassOutcome outcome = pass.apply(document, profile);
+                long passNanos = System.nanoTime() - passStart;
+                report.getPasses().add(new PdfOptimizationReportDto.PassResult(pass.name(), outcome.bytesSaved(),
+                        TimeUnit.NANOSECONDS.toMillis(passNanos), outcome.detail()));
+                recordPass(profile.getName(), pass.name(), passNanos, outcome.bytesSaved());
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(pdfBytes.length);
+            document.save(out);
+            optimized = out.toByteArray();
+        }
+        report.setTotalMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        if (optimized.length >= pdfBytes.length) {
+            log.debug("PDF optimize ({}) did not reduce size: {} -> {} bytes", name, pdfBytes.length, optimized.length);
+            return new OptimizedPdf(pdfBytes, report);
+        }
+        report.setOptimizedBytes(optimized.length);
+        log.info("PDF optimized ({}): {} -> {} bytes in {} ms", name, pdfBytes.length, optimized.length, report.getTotalMillis());
+        return new OptimizedPdf(optimized, report);
+    }
+
+    /**
+     * Tên profile sẽ được dùng cho giá trị ?optimize= (null hoặc rỗng = profile mặc định)
+     */
+    public String resolveProfileName(String profileName) {
+        return profileName != null && !profileName.isBlank() ? profileName.trim().toLowerCase() : defaultProfile;
+    }
+
+    /**
+     * Profile sẽ dùng có chạy pass nào không (none = trả nguyên PDF, không cần stage optimize)
+     */
+    public boolean isEnabled(String profileName) {
+        return !PdfOptimizeProfile.NONE.equals(resolveProfileName(profileName));
+    }
+
+    public boolean hasProfile(String name) {
+        String resolved = resolveProfileName(name);
+        return PdfOptimizeProfile.NONE.equals(resolved) || profiles.containsKey(resolved);
+    }
+
+    public Set<String> profileNames() {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(PdfOptimizeProfile.NONE);
+        names.addAll(profiles.keySet());
+        return names;
+    }
+
+    private void recordPass(String profile, String pass, long nanos, long bytesSaved) {
+        Timer.builder("eform.pdf.optimize")
+                .description("Thời gian từng pass tối ưu PDF")
+                .tag("profile", profile)
+                .tag("pass", pass)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("eform.pdf.optimize.saved")
+                .baseUnit("bytes")
+                .tag("profile", profile)
+                .tag("pass", pass)
+                .register(meterRegistry)
+                .record(Math.max(0, bytesSaved));
+    }
+
+    private static Set<String> parsePasses(String passes) {
+        return Arrays.stream(passes.split(","))
+                .map(String::trim)
+                .filter(pass -> !pass.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * PDF sau tối ưu kèm báo cáo
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class OptimizedPdf {
+        private final byte[] data;
+        private final PdfOptimizationReportDto report;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ceent.eform.service.optimize;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gộp các XObject (ảnh, form) và font program giống hệt nhau: mỗi resource trỏ về một bản duy nhất,
+ * các bản trùng không còn được tham chiếu nên không được ghi khi save.
+ * Logo lặp lại ở header từng trang là trường hợp hay gặp.
+ */
+@Component
+@Order(10)
+public class ResourceDedupePass implements PdfOptimizationPass {
+
+    public static final String NAME = "dedupe-resources";
+
+    private static final COSName[] FONT_FILES = {COSName.FONT_FILE, COSName.FONT_FILE2, COSName.FONT_FILE3};
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public PassOutcome apply(PDDocument document, PdfOptimizeProfile profile) throws Exception {
+        Dedupe dedupe = new Dedupe();
+        for (PDPage page : document.getPages()) {
+            COSBase resources = page.getCOSObject().getDictionaryObject(COSName.RESOURCES);
+            if (resources instanceof COSDictionary dictionary) {
+                dedupe.resources(dictionary);
+            }
+        }
+        return new PassOutcome(dedupe.bytesSaved, dedupe.replaced + " duplicate streams merged");
+    }
+
+    private static final class Dedupe {
+        private final Map<String, COSStream> canonical = new HashMap<>();
+        private final Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        private long bytesSaved;
+        private int replaced;
+
+        void resources(COSDictionary resources) throws IOException {
+            if (!visited.add(resources)) {
+                return;
+            }
+            if (resources.getDictionaryObject(COSName.XOBJECT) instanceof COSDictionary xObjects) {
+                for (COSName name : xObjects.keySet()) {
+                    if (xObjects.getDictionaryObject(name) instanceof COSStream stream) {
+                        // Form XObject có resources riêng
+                        if (stream.getDictionaryObject(COSName.RESOURCES) instanceof COSDictionary nested) {
+                            resources(nested);
+                        }
+                        xObjects.setItem(name, canonical(stream));
+                    }
+                }
+            }
+            if (resources.getDictionaryObject(COSName.FONT) instanceof COSDictionary fonts) {
+                for (COSName name : fonts.keySet()) {
+                    if (fonts.getDictionaryObject(name) instanceof COSDictionary font) {
+                        fontFiles(font);
+                    }
+                }
+            }
+        }
+
+        private void fontFiles(COSDictionary font) throws IOException {
+            if (!visited.add(font)) {
+                return;
+            }
+            if (font.getDictionaryObject(COSName.DESCENDANT_FONTS) instanceof COSArray descendants) {
+                for (int i = 0; i < descendants.size(); i++) {
+                    if (descendants.getObject(i) instanceof COSDictionary descendant) {
+                        fontFiles(descendant);
+                    }
+                }
+            }
+            if (font.getDictionaryObject(COSName.FONT_DESC) instanceof COSDictionary descriptor) {
+                for (COSName key : FONT_FILES) {
+                    if (descriptor.getDictionaryObject(key) instanceof COSStream fontFile) {
+                        descriptor.setItem(key, canonical(fontFile));
+                    }
+                }
+            }
+        }
+
+        private COSStream canonical(COSStream stream) throws IOException {
+            String key = key(stream);
+            COSStream existing = canonical.putIfAbsent(key, stream);
+            if (existing == null || existing == stream) {
+                return stream;
+            }
+            replaced++;
+            bytesSaved += stream.getLength();
+            return existing;
+        }
+
+        /**
+         * Hash dữ liệu raw + các entry của dictionary (trừ Length); SMask được so theo key của chính nó
+         */
+        private String key(COSStream stream) throws IOException {
+            MessageDigest digest = sha256();
+            try (InputStream in = stream.createRawInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            for (Map.Entry<COSName, COSBase> entry : stream.entrySet()) {
+                if (COSName.LENGTH.equals(entry.getKey())) {
+                    continue;
+                }
+                COSBase value = entry.getValue() instanceof COSObject object ? object.getObject() : entry.getValue();
+                String text = value instanceof COSStream nestedStream ? key(nestedStream) : String.valueOf(value);
+                digest.update(entry.getKey().getName().getBytes());
+                digest.update(text.getBytes());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
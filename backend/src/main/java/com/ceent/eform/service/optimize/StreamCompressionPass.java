@@ -0,0 +1,105 @@
+package com.ceent.eform.service.optimize;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Nén Flate các stream chưa nén hoặc chỉ mã hóa ASCII/LZW (content stream, font, ICC...).
+ * PDFBox 2 chưa ghi được object stream / xref stream; bước đó dành cho công cụ ngoài (qpdf) ở stage sau.
+ * XMP metadata giữ nguyên không nén để các công cụ lưu trữ đọc được.
+ */
+@Component
+@Order(40)
+public class StreamCompressionPass implements PdfOptimizationPass {
+
+    public static final String NAME = "compress-streams";
+
+    private static final int MIN_STREAM_BYTES = 64;
+    private static final Set<COSName> RECODABLE_FILTERS = Set.of(
+            COSName.ASCII_HEX_DECODE, COSName.ASCII85_DECODE, COSName.LZW_DECODE);
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public PassOutcome apply(PDDocument document, PdfOptimizeProfile profile) throws Exception {
+        long saved = 0;
+        int compressed = 0;
+        for (COSObject object : document.getDocument().getObjects()) {
+            if (!(object.getObject() instanceof COSStream stream) || !isCompressible(stream)) {
+                continue;
+            }
+
+            byte[] decoded;
+            try (InputStream in = stream.createInputStream()) {
+                decoded = in.readAllBytes();
+            }
+            if (decoded.length < MIN_STREAM_BYTES) {
+                continue;
+            }
+            byte[] deflated = deflate(decoded);
+            long before = stream.getLength();
+            if (deflated.length >= before) {
+                continue;
+            }
+
+            stream.removeItem(COSName.DECODE_PARMS);
+            try (OutputStream out = stream.createRawOutputStream()) {
+                out.write(deflated);
+            }
+            stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+            saved += before - deflated.length;
+            compressed++;
+        }
+        return new PassOutcome(saved, compressed + " streams compressed");
+    }
+
+    private static boolean isCompressible(COSStream stream) {
+        COSName type = stream.getCOSName(COSName.TYPE);
+        if (COSName.METADATA.equals(type) || COSName.XREF.equals(type) || COSName.OBJ_STM.equals(type)) {
+            return false;
+        }
+        COSBase filter = stream.getDictionaryObject(COSName.FILTER);
+        if (filter == null) {
+            return true;
+        }
+        if (filter instanceof COSName name) {
+            return RECODABLE_FILTERS.contains(name);
+        }
+        if (filter instanceof COSArray filters) {
+            for (int i = 0; i < filters.size(); i++) {
+                if (!RECODABLE_FILTERS.contains(filters.getObject(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static byte[] deflate(byte[] data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater)) {
+            deflaterOut.write(data);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+}
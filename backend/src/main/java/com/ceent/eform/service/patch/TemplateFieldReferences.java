@@ -0,0 +1,77 @@
+package com.ceent.eform.service.patch;
+
+import com.ceent.eform.entity.Template;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Các field gốc của formData mà template thực sự dùng, lấy từ danh sách biến đã extract khi ingest.
+ * Dùng để biết một thay đổi dữ liệu có làm PDF khác đi hay không.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateFieldReferences {
+
+    // Bỏ ký hiệu tag của poi-tl (@ ảnh, # bảng, * danh sách, + docx, ?/ section) rồi lấy tên gốc trước . hoặc [
+    private static final Pattern ROOT_FIELD = Pattern.compile("^[@#*+?/>]?\\s*([A-Za-z_$][\\w$]*)\\s*(?:[.\\[]|$)");
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Có field nào trong changedFields được template tham chiếu không.
+     * Chưa biết danh sách biến (template đang ingest) hoặc có biến dạng biểu thức thì coi như có.
+     */
+    public boolean affectsRender(Template template, Collection<String> changedFields) {
+        if (changedFields.isEmpty()) {
+            return false;
+        }
+        Set<String> referenced = rootFields(template);
+        if (referenced == null) {
+            return true;
+        }
+        return changedFields.stream().anyMatch(referenced::contains);
+    }
+
+    /**
+     * null nếu không xác định được chắc chắn, kể cả khi lúc ingest chưa chứng minh được đã quét hết template
+     */
+    public Set<String> rootFields(Template template) {
+        if (template.getVariables() == null || !Boolean.TRUE.equals(template.getVariablesComplete())) {
+            return null;
+        }
+        try {
+            List<String> variables = objectMapper.readValue(template.getVariables(), new TypeReference<List<String>>() {});
+            if (variables.isEmpty()) {
+                return null;
+            }
+
+            Set<String> roots = new HashSet<>();
+            for (String variable : variables) {
+                if (variable.trim().startsWith("[")) {
+                    // Field của phần tử trong vòng lặp, đã được tính qua tag section chứa nó
+                    continue;
+                }
+                Matcher matcher = ROOT_FIELD.matcher(variable.trim());
+                if (!matcher.find()) {
+                    return null;
+                }
+                roots.add(matcher.group(1));
+            }
+            return roots;
+        } catch (Exception e) {
+            log.warn("Could not read variables of template {}: {}", template.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
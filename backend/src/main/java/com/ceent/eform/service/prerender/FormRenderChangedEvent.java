@@ -0,0 +1,14 @@
+package com.ceent.eform.service.prerender;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Phát ra khi form mới được lưu hoặc renderRevision của form tăng, với template bật preRender
+ */
+@Getter
+@AllArgsConstructor
+public class FormRenderChangedEvent {
+    private final Long formId;
+    private final long renderRevision;
+}
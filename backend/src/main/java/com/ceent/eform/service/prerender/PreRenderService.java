@@ -0,0 +1,91 @@
+package com.ceent.eform.service.prerender;
+
+import com.ceent.eform.config.ConditionalOnNodeRole;
+import com.ceent.eform.config.NodeRoles;
+import com.ceent.eform.service.artifact.RenditionCache;
+import com.ceent.eform.service.job.RenderJobService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-render (write-behind): sau khi form của template bật preRender được lưu, đưa job PRERENDER ưu tiên thấp
+ * vào render_jobs. Worker render PDF vào RenditionCache theo renderRevision, nên lần tải form sau đó
+ * (GET /forms/{id}/generate) chỉ còn đọc file. Các lần lưu cùng form trong app.prerender.coalesce-window
+ * gộp thành một job, job chạy luôn render revision mới nhất lúc worker lấy.
+ */
+@Service
+@ConditionalOnNodeRole(NodeRoles.API)
+@RequiredArgsConstructor
+@Slf4j
+public class PreRenderService {
+
+    public static final String TENANT = "prerender";
+
+    private final RenderJobService renderJobService;
+    private final RenditionCache renditionCache;
+    private final MeterRegistry meterRegistry;
+
+    // formId -> thời điểm (millis) đưa job vào hàng đợi
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    @Value("${app.prerender.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.prerender.coalesce-window:5s}")
+    private Duration coalesceWindow;
+
+    @Value("${app.prerender.priority:-10}")
+    private int priority;
+
+    /**
+     * Chỉ nhận sự kiện của transaction đã commit: form rollback thì không render
+     */
+    @TransactionalEventListener
+    public void onFormRenderChanged(FormRenderChangedEvent event) {
+        if (!enabled || !renditionCache.isEnabled()) {
+            return;
+        }
+        Long previous = pending.putIfAbsent(event.getFormId(), System.currentTimeMillis() + coalesceWindow.toMillis());
+        count(previous == null ? "scheduled" : "coalesced");
+        log.debug("Pre-render of form {} revision {} {}", event.getFormId(), event.getRenderRevision(),
+                previous == null ? "scheduled" : "coalesced");
+    }
+
+    @Scheduled(fixedDelayString = "${app.prerender.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, Long> entry : pending.entrySet()) {
+            if (entry.getValue() > now || !pending.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            try {
+                if (renderJobService.enqueuePreRender(entry.getKey(), TENANT, priority)) {
+                    count("enqueued");
+                } else {
+                    // Đã có job PRERENDER đang chờ (vd. từ node khác), job đó sẽ render revision mới nhất
+                    count("coalesced");
+                }
+            } catch (Exception e) {
+                log.warn("Could not enqueue pre-render of form {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("eform.prerender")
+                .description("Số yêu cầu pre-render PDF khi lưu form")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ceent.eform.service.preview;
+
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTBr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTR;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STBrType;
+
+import java.util.List;
+
+/**
+ * Cắt document chỉ còn nội dung của trang đầu để convert nhanh khi preview.
+ * Ranh giới trang được xác định từ page break, section break, pageBreakBefore
+ * và lastRenderedPageBreak do Word ghi lại ở lần lưu trước.
+ */
+final class FirstPageExtractor {
+
+    private FirstPageExtractor() {
+    }
+
+    /**
+     * Xóa mọi body element sau trang đầu, trả về số element đã xóa
+     */
+    static int truncateAfterFirstPage(XWPFDocument document, int maxElements) {
+        List<IBodyElement> elements = document.getBodyElements();
+        int keep = Math.min(elements.size(), maxElements);
+
+        for (int i = 0; i < keep; i++) {
+            if (!(elements.get(i) instanceof XWPFParagraph paragraph)) {
+                continue;
+            }
+            if (i > 0 && paragraph.isPageBreak()) {
+                // pageBreakBefore: paragraph này đã thuộc trang sau
+                keep = i;
+                break;
+            }
+            if (endsPage(paragraph)) {
+                keep = i + 1;
+                break;
+            }
+        }
+
+        int removed = 0;
+        for (int i = document.getBodyElements().size() - 1; i >= keep; i--) {
+            document.removeBodyElement(i);
+            removed++;
+        }
+        return removed;
+    }
+
+    private static boolean endsPage(XWPFParagraph paragraph) {
+        if (paragraph.getCTP().getPPr() != null && paragraph.getCTP().getPPr().isSetSectPr()) {
+            return true;
+        }
+        for (XWPFRun run : paragraph.getRuns()) {
+            CTR ctr = run.getCTR();
+            if (!ctr.getLastRenderedPageBreakList().isEmpty()) {
+                return true;
+            }
+            for (CTBr br : ctr.getBrList()) {
+                if (br.getType() == STBrType.PAGE) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
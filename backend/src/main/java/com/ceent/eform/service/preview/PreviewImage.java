@@ -0,0 +1,14 @@
+package com.ceent.eform.service.preview;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Ảnh preview đã render cùng content type tương ứng
+ */
+@Getter
+@AllArgsConstructor
+public class PreviewImage {
+    private final byte[] data;
+    private final String contentType;
+}
@@ -0,0 +1,52 @@
+package com.ceent.eform.service.preview;
+
+import com.ceent.eform.service.render.RenderCancelledException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Gộp các lần render đồng thời cùng key: request đầu render, các request đến trong lúc đó chờ và nhận cùng kết quả.
+ * Render đầu bị cancel (client của nó ngắt kết nối) thì request đang chờ tự render lại thay vì nhận lỗi cancel.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    V run(K key, Callable<V> render) throws Exception {
+        while (true) {
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+            if (existing == null) {
+                try {
+                    V value = render.call();
+                    mine.complete(value);
+                    return value;
+                } catch (Exception e) {
+                    mine.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            }
+
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                if (RenderCancelledException.find(e.getCause()) != null) {
+                    continue;
+                }
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+}
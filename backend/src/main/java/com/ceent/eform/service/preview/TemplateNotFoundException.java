@@ -0,0 +1,11 @@
+package com.ceent.eform.service.preview;
+
+/**
+ * Template không tồn tại: controller trả 404, các lỗi render khác là 500
+ */
+public class TemplateNotFoundException extends RuntimeException {
+
+    public TemplateNotFoundException(Long templateId) {
+        super("Template not found: " + templateId);
+    }
+}
@@ -0,0 +1,251 @@
+package com.ceent.eform.service.preview;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.convert.PdfEngine;
+import com.ceent.eform.service.convert.PdfEngineRegistry;
+import com.ceent.eform.service.ingest.TemplateStorage;
+import com.ceent.eform.service.invalidation.TemplateInvalidation;
+import com.ceent.eform.service.invalidation.TemplateInvalidationListener;
+import com.ceent.eform.service.render.RenderConfigureRegistry;
+import com.ceent.eform.service.render.TemplateCache;
+import com.deepoove.poi.XWPFTemplate;
+import com.deepoove.poi.config.Configure;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Render trang đầu của template thành ảnh (PNG/WebP/JPEG) để preview và làm thumbnail.
+ * Chỉ nội dung trang đầu được convert sang PDF, kết quả cache theo
+ * (template, content hash, hash sample data, dpi, format).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TemplatePreviewService implements TemplateInvalidationListener {
+
+    private static final int MAX_FIRST_PAGE_ELEMENTS = 200;
+
+    private final PdfEngineRegistry pdfEngineRegistry;
+    private final TemplateRepository templateRepository;
+    private final TemplateCache templateCache;
+    private final ObjectMapper objectMapper;
+    private final RenderConfigureRegistry configureRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.preview.dpi:72}")
+    private float defaultDpi;
+
+    @Value("${app.preview.max-dpi:300}")
+    private float maxDpi;
+
+    @Value("${app.preview.thumbnail-dpi:48}")
+    private float thumbnailDpi;
+
+    @Value("${app.preview.format:png}")
+    private String defaultFormat;
+
+    @Value("${app.preview.cache.max-bytes:67108864}")
+    private long cacheMaxBytes;
+
+    @Value("${app.preview.cache.expire-after-access:PT1H}")
+    private Duration cacheExpireAfterAccess;
+
+    private Cache<PreviewKey, PreviewImage> previewCache;
+
+    private final SingleFlight<PreviewKey, PreviewImage> inFlight = new SingleFlight<>();
+
+    @PostConstruct
+    void initCache() {
+        previewCache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((PreviewKey key, PreviewImage image) -> image.getData().length)
+                .expireAfterAccess(cacheExpireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, previewCache, "preview");
+    }
+
+    /**
+     * Preview trang đầu của template, biến thiếu được điền [tên biến]
+     */
+    public PreviewImage preview(Long templateId, Map<String, Object> sampleData, Float dpi, String format) throws Exception {
+        Template template = templateRepository.findById(templateId)
+                .orElseThrow(() -> new TemplateNotFoundException(templateId));
+
+        Map<String, Object> samples = sampleData != null ? sampleData : Map.of();
+        float effectiveDpi = Math.min(dpi != null && dpi > 0 ? dpi : defaultDpi, maxDpi);
+        String effectiveFormat = resolveFormat(format);
+        PreviewKey key = new PreviewKey(templateId, String.valueOf(template.getContentHash()),
+                hashSampleData(samples), effectiveDpi, effectiveFormat);
+
+        PreviewImage cached = previewCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Nhiều request cùng lúc cho một template (mở gallery, bấm preview liên tục) chỉ render một lần
+        return inFlight.run(key, () -> {
+            PreviewImage done = previewCache.getIfPresent(key);
+            if (done != null) {
+                return done;
+            }
+            long start = System.currentTimeMillis();
+            List<String> variables = objectMapper.readValue(template.getVariables(), new TypeReference<List<String>>() {});
+            PreviewImage image;
+            try (XWPFTemplate compiled = templateCache.compile(template, configureRegistry.forTemplate(template))) {
+                image = renderFirstPage(compiled, placeholderData(variables, samples), pdfEngineRegistry.forTemplate(template),
+                        effectiveDpi, effectiveFormat);
+            }
+            previewCache.put(key, image);
+
+            log.info("Preview for template {} rendered in {} ms ({} bytes)", templateId,
+                    System.currentTimeMillis() - start, image.getData().length);
+            return image;
+        });
+    }
+
+    /**
+     * Thumbnail cho gallery: lấy từ cache, file đã tạo lúc ingestion, hoặc render nếu chưa có
+     */
+    public PreviewImage thumbnail(Long templateId) throws Exception {
+        Template template = templateRepository.findById(templateId)
+                .orElseThrow(() -> new TemplateNotFoundException(templateId));
+
+        PreviewKey key = new PreviewKey(templateId, String.valueOf(template.getContentHash()), "", thumbnailDpi, "png");
+        PreviewImage cached = previewCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (template.getThumbnailPath() != null && Files.isReadable(Paths.get(template.getThumbnailPath()))) {
+            PreviewImage image = new PreviewImage(Files.readAllBytes(Paths.get(template.getThumbnailPath())), "image/png");
+            previewCache.put(key, image);
+            return image;
+        }
+
+        return preview(templateId, Map.of(), thumbnailDpi, "png");
+    }
+
+    /**
+     * Tạo thumbnail PNG từ bytes template (dùng trong pipeline ingestion)
+     */
+    public byte[] renderThumbnail(byte[] templateBytes, List<String> variables, Configure configure) throws Exception {
+        try (XWPFTemplate compiled = XWPFTemplate.compile(new ByteArrayInputStream(templateBytes), configure)) {
+            return renderFirstPage(compiled, placeholderData(variables, Map.of()), pdfEngineRegistry.getDefaultEngine(),
+                    thumbnailDpi, "png").getData();
+        }
+    }
+
+    /**
+     * Dữ liệu preview: dùng sample data nếu có, còn lại điền [tên biến].
+     * Chỉ điền cho biến text, các tag đặc biệt (@ # ? / ...) để trống.
+     */
+    public Map<String, Object> placeholderData(List<String> variables, Map<String, Object> sampleData) {
+        Map<String, Object> data = new HashMap<>(sampleData);
+        for (String variable : variables) {
+            if (variable.isEmpty() || !Character.isLetterOrDigit(variable.charAt(0))) {
+                continue;
+            }
+            data.putIfAbsent(variable, "[" + variable + "]");
+        }
+        return data;
+    }
+
+    /**
+     * Xóa mọi preview đã cache của template
+     */
+    public void evict(Long templateId) {
+        previewCache.asMap().keySet().removeIf(key -> key.templateId().equals(templateId));
+    }
+
+    /**
+     * Đổi cấu hình (engine, profile) thì mọi preview đều cũ; đổi nội dung thì chỉ bỏ preview của phiên bản khác
+     */
+    @Override
+    public void onTemplateInvalidated(TemplateInvalidation invalidation) {
+        if (invalidation.isSettingsChange() || invalidation.getContentHash() == null) {
+            evict(invalidation.getTemplateId());
+            return;
+        }
+        previewCache.asMap().keySet().removeIf(key -> key.templateId().equals(invalidation.getTemplateId())
+                && !key.contentHash().equals(invalidation.getContentHash()));
+    }
+
+    private PreviewImage renderFirstPage(XWPFTemplate compiled, Map<String, Object> data, PdfEngine engine,
+                                         float dpi, String format) throws Exception {
+        compiled.render(data);
+        FirstPageExtractor.truncateAfterFirstPage(compiled.getXWPFDocument(), MAX_FIRST_PAGE_ELEMENTS);
+
+        ByteArrayOutputStream pdfOut = new ByteArrayOutputStream();
+        engine.convert(compiled.getXWPFDocument(), pdfOut);
+
+        try (PDDocument pdf = PDDocument.load(pdfOut.toByteArray())) {
+            BufferedImage image = new PDFRenderer(pdf).renderImageWithDPI(0, dpi, ImageType.RGB);
+            ByteArrayOutputStream imageOut = new ByteArrayOutputStream();
+            ImageIO.write(image, format, imageOut);
+            return new PreviewImage(imageOut.toByteArray(), contentType(format));
+        }
+    }
+
+    /**
+     * WebP chỉ dùng được khi có ImageIO plugin, nếu không thì fallback về PNG
+     */
+    private String resolveFormat(String format) {
+        String requested = (format != null && !format.isBlank() ? format : defaultFormat).toLowerCase();
+        if ("jpeg".equals(requested)) {
+            requested = "jpg";
+        }
+        if (!List.of("png", "jpg", "webp").contains(requested)
+                || !ImageIO.getImageWritersByFormatName(requested).hasNext()) {
+            return "png";
+        }
+        return requested;
+    }
+
+    private String contentType(String format) {
+        return switch (format) {
+            case "jpg" -> "image/jpeg";
+            case "webp" -> "image/webp";
+            default -> "image/png";
+        };
+    }
+
+    private String hashSampleData(Map<String, Object> sampleData) throws Exception {
+        if (sampleData.isEmpty()) {
+            return "";
+        }
+        byte[] json = objectMapper.writer()
+                .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .writeValueAsBytes(sampleData);
+        return HexFormat.of().formatHex(TemplateStorage.newSha256().digest(json));
+    }
+
+    private record PreviewKey(Long templateId, String contentHash, String sampleDataHash, float dpi, String format) {
+    }
+}
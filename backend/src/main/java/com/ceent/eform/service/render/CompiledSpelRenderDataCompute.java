@@ -0,0 +1,65 @@
+package com.ceent.eform.service.render;
+
+import com.deepoove.poi.render.compute.EnvModel;
+import com.deepoove.poi.render.compute.RenderDataCompute;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.Map;
+
+/**
+ * RenderDataCompute dùng biểu thức SpEL đã parse và compile sẵn từ SpelExpressionCache.
+ * Biến môi trường của vòng lặp (_index, _is_first...) được ưu tiên như SpELRenderDataCompute của POI-TL.
+ */
+public class CompiledSpelRenderDataCompute implements RenderDataCompute {
+
+    private final SpelExpressionCache expressionCache;
+    private final boolean strict;
+    private final StandardEvaluationContext rootContext;
+    private final StandardEvaluationContext envContext;
+    private final Map<String, Object> env;
+
+    public CompiledSpelRenderDataCompute(EnvModel model, SpelExpressionCache expressionCache, boolean strict) {
+        this.expressionCache = expressionCache;
+        this.strict = strict;
+        this.rootContext = newContext(model.getRoot());
+        this.env = model.getEnv();
+        this.envContext = env != null && !env.isEmpty() ? newContext(env) : null;
+    }
+
+    @Override
+    public Object compute(String el) {
+        // Ngoài try: cancel không được bị nuốt như lỗi biểu thức ở chế độ không strict
+        RenderContext.checkpointCurrent();
+        try {
+            Expression expression = expressionCache.get(el);
+            if (envContext != null && env.containsKey(leadingIdentifier(el))) {
+                Object value = expression.getValue(envContext);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return expression.getValue(rootContext);
+        } catch (RuntimeException e) {
+            if (strict) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    private static StandardEvaluationContext newContext(Object root) {
+        StandardEvaluationContext context = new StandardEvaluationContext(root);
+        context.addPropertyAccessor(new MapAccessor());
+        return context;
+    }
+
+    private static String leadingIdentifier(String el) {
+        int end = 0;
+        while (end < el.length() && (Character.isLetterOrDigit(el.charAt(end)) || el.charAt(end) == '_')) {
+            end++;
+        }
+        return el.substring(0, end);
+    }
+}
@@ -0,0 +1,79 @@
+package com.ceent.eform.service.render;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Định dạng output của một lần render form: docx trả thẳng document đã render (không convert),
+ * html qua XHTML converter của opensagres, pdf đi pipeline convert/optimize như cũ
+ */
+public enum OutputFormat {
+    PDF(MediaType.APPLICATION_PDF, "pdf"), // đứng đầu: application/* chọn pdf
+    DOCX(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.wordprocessingml.document"), "docx"),
+    HTML(new MediaType("text", "html", StandardCharsets.UTF_8), "html");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    OutputFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * ?format= được ưu tiên, sau đó tới header Accept; null khi Accept không nhận định dạng nào (406)
+     */
+    public static OutputFormat resolve(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            return fromName(format);
+        }
+        if (accept == null || accept.isBlank()) {
+            return PDF;
+        }
+        return fromAccept(accept);
+    }
+
+    public static OutputFormat fromName(String format) {
+        for (OutputFormat candidate : values()) {
+            if (candidate.extension.equals(format.trim().toLowerCase(Locale.ROOT))) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format: " + format + ", available: docx, pdf, html");
+    }
+
+    /**
+     * Chọn định dạng theo thứ tự q-value của Accept; wildcard giữ mặc định là pdf
+     */
+    private static OutputFormat fromAccept(String accept) {
+        List<MediaType> mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        mediaTypes.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isWildcardType()) {
+                return PDF;
+            }
+            for (OutputFormat candidate : values()) {
+                if (mediaType.includes(candidate.mediaType)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ceent.eform.service.render;
+
+import lombok.Getter;
+
+/**
+ * Render bị dừng giữa chừng: quá deadline của template hoặc client đã ngắt kết nối
+ */
+@Getter
+public class RenderCancelledException extends RuntimeException {
+
+    public static final String REASON_DEADLINE = "deadline";
+    public static final String REASON_CLIENT_GONE = "client_gone";
+
+    private final String reason;
+    private final String stage;
+
+    public RenderCancelledException(String reason, String stage, long elapsedMs) {
+        super("Render cancelled (" + reason + ") during " + stage + " after " + elapsedMs + " ms");
+        this.reason = reason;
+        this.stage = stage;
+    }
+
+    public boolean isDeadline() {
+        return REASON_DEADLINE.equals(reason);
+    }
+
+    public static void rethrowIfCancelled(Throwable error) {
+        RenderCancelledException cancelled = find(error);
+        if (cancelled != null) {
+            throw cancelled;
+        }
+    }
+
+    /**
+     * POI-TL/converter có thể bọc exception, tìm lại nguyên nhân là cancel trong chuỗi cause
+     */
+    public static RenderCancelledException find(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RenderCancelledException cancelled) {
+                return cancelled;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ceent.eform.service.render;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.service.table.StreamingTablePolicy;
+import com.deepoove.poi.config.Configure;
+import com.deepoove.poi.config.ConfigureBuilder;
+import com.deepoove.poi.plugin.table.LoopRowTableRenderPolicy;
+import com.deepoove.poi.policy.PictureRenderPolicy;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Các profile Configure của POI-TL dùng chung cho mọi lần render.
+ * Configure và các policy bên trong không giữ state nên được build một lần khi khởi động.
+ * Template chọn profile qua trường renderProfile, mặc định là "default".
+ */
+@Component
+@Slf4j
+public class RenderConfigureRegistry {
+
+    public static final String DEFAULT_PROFILE = "default";
+    public static final String PLAIN_PROFILE = "plain";
+    public static final String ADVANCED_PROFILE = "advanced";
+
+    @Value("${app.render.spel.cache-size:2048}")
+    private long spelCacheSize;
+
+    @Value("${app.render.spel.strict:false}")
+    private boolean spelStrict;
+
+    private SpelExpressionCache spelExpressionCache;
+    private Map<String, Configure> profiles;
+
+    @PostConstruct
+    void init() {
+        spelExpressionCache = new SpelExpressionCache(spelCacheSize);
+
+        Map<String, Configure> built = new LinkedHashMap<>();
+
+        // Spring EL (không strict) với biểu thức đã compile, tương đương cấu hình cũ useSpringEL(false)
+        built.put(DEFAULT_PROFILE, baseBuilder()
+                .setRenderDataComputeFactory(model -> new CompiledSpelRenderDataCompute(model, spelExpressionCache, spelStrict))
+                .build());
+
+        // Không dùng Spring EL, tag được resolve theo tên/đường dẫn
+        built.put(PLAIN_PROFILE, baseBuilder()
+                .build());
+
+        // Spring EL + loop row table ({{=tên}}) + ảnh
+        built.put(ADVANCED_PROFILE, baseBuilder()
+                .setRenderDataComputeFactory(model -> new CompiledSpelRenderDataCompute(model, spelExpressionCache, spelStrict))
+                .addPlugin('=', new LoopRowTableRenderPolicy())
+                .addPlugin('@', new PictureRenderPolicy())
+                .build());
+
+        profiles = Collections.unmodifiableMap(built);
+        log.info("Render profiles: {}", profiles.keySet());
+    }
+
+    /**
+     * Configure theo profile của template
+     */
+    public Configure forTemplate(Template template) {
+        return get(template.getRenderProfile());
+    }
+
+    /**
+     * Configure theo tên profile, profile không tồn tại dùng "default"
+     */
+    public Configure get(String profile) {
+        Configure configure = profile != null ? profiles.get(profile) : null;
+        return configure != null ? configure : profiles.get(DEFAULT_PROFILE);
+    }
+
+    public boolean hasProfile(String profile) {
+        return profiles.containsKey(profile);
+    }
+
+    public Set<String> profileNames() {
+        return profiles.keySet();
+    }
+
+    public SpelExpressionCache getSpelExpressionCache() {
+        return spelExpressionCache;
+    }
+
+    private ConfigureBuilder baseBuilder() {
+        return Configure.builder()
+                .addPlugin(StreamingTablePolicy.PREFIX, new StreamingTablePolicy());
+    }
+}
@@ -0,0 +1,198 @@
+package com.ceent.eform.service.render;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Trạng thái của một lần render đang chạy: deadline, stage hiện tại và cờ cancel.
+ * Được gắn vào thread render (ThreadLocal) để các điểm kiểm tra trong pipeline (giữa các stage, mỗi lần
+ * tính biểu thức của POI-TL, mỗi lần converter ghi output) dừng sớm mà không cần truyền tham số.
+ * Cancel là cooperative: code không đi qua checkpoint chỉ dừng được bằng interrupt của RenderGuard.
+ */
+public final class RenderContext {
+
+    private static final ThreadLocal<RenderContext> CURRENT = new ThreadLocal<>();
+
+    private final String origin;
+    private final Instant startedAt = Instant.now();
+    private final long startedNanos = System.nanoTime();
+
+    private volatile long deadlineNanos = Long.MAX_VALUE;
+    private volatile Long templateId;
+    private volatile String stage = "queued";
+    private volatile String cancelReason;
+    private volatile long cancelledNanos;
+    private volatile Thread thread;
+    private volatile boolean finished;
+    private volatile boolean reported;
+    private boolean interrupted;
+
+    RenderContext(String origin) {
+        this.origin = origin;
+    }
+
+    public static RenderContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Checkpoint cho code không biết context (vd. RenderDataCompute), không làm gì khi thread không render
+     */
+    public static void checkpointCurrent() {
+        RenderContext context = CURRENT.get();
+        if (context != null) {
+            context.checkpoint();
+        }
+    }
+
+    /**
+     * Đánh dấu stage mới của render đang chạy trên thread hiện tại (nếu có) và kiểm tra cancel
+     */
+    public static void beginStage(String stage) {
+        RenderContext context = CURRENT.get();
+        if (context != null) {
+            context.stage(stage);
+        }
+    }
+
+    /**
+     * Bọc output của converter: mỗi lần ghi đều kiểm tra cancel, convert dài dừng ngay khi quá deadline
+     */
+    public static OutputStream guard(OutputStream out) {
+        RenderContext context = CURRENT.get();
+        return context == null ? out : new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                context.checkpoint();
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                context.checkpoint();
+                out.write(b, off, len);
+            }
+        };
+    }
+
+    public void checkpoint() {
+        if (cancelReason == null && System.nanoTime() - deadlineNanos > 0) {
+            cancel(RenderCancelledException.REASON_DEADLINE);
+        }
+        if (cancelReason != null) {
+            throw new RenderCancelledException(cancelReason, stage, elapsed().toMillis());
+        }
+    }
+
+    /**
+     * Bắt đầu stage mới, kiểm tra cancel trước khi làm
+     */
+    public void stage(String stage) {
+        this.stage = stage;
+        checkpoint();
+    }
+
+    /**
+     * Deadline tính từ lúc bắt đầu request (cả thời gian chờ trong hàng đợi), chỉ được rút ngắn
+     */
+    public void limit(Long templateId, Duration budget) {
+        this.templateId = templateId;
+        long deadline = startedNanos + budget.toNanos();
+        if (deadline - deadlineNanos < 0) {
+            deadlineNanos = deadline;
+        }
+    }
+
+    public void cancel(String reason) {
+        if (finished || cancelReason != null) {
+            return;
+        }
+        cancelledNanos = System.nanoTime();
+        cancelReason = reason;
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    public boolean isOverdue() {
+        return System.nanoTime() - deadlineNanos > 0;
+    }
+
+    public Duration elapsed() {
+        return Duration.ofNanos(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * Thời gian từ lúc bị cancel mà thread vẫn chưa dừng
+     */
+    public Duration sinceCancelled() {
+        return cancelReason == null ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - cancelledNanos);
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Long getTemplateId() {
+        return templateId;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getCancelReason() {
+        return cancelReason;
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    boolean isReported() {
+        return reported;
+    }
+
+    void markReported() {
+        reported = true;
+    }
+
+    /**
+     * Interrupt thread render một lần để nó thoát khỏi chỗ đang chờ I/O/lock và gặp checkpoint.
+     * Đồng bộ với unbind nên không interrupt nhầm việc khác của thread sau khi render đã xong.
+     */
+    synchronized void interruptOnce() {
+        if (thread != null && !interrupted) {
+            interrupted = true;
+            thread.interrupt();
+        }
+    }
+
+    RenderContext bind() {
+        RenderContext previous = CURRENT.get();
+        thread = Thread.currentThread();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    synchronized void unbind(RenderContext previous) {
+        finished = true;
+        thread = null;
+        if (interrupted) {
+            Thread.interrupted();
+        }
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ceent.eform.service.render;
+
+import com.ceent.eform.entity.Template;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Deadline và watchdog cho render: mỗi lần render chạy trong một RenderContext có deadline theo template
+ * (Template.renderTimeoutMs, mặc định app.render.deadline.default). Watchdog cancel context quá hạn,
+ * interrupt thread, và báo (log kèm stack + metric eform.render.runaway) các render đã cancel mà vẫn chưa dừng.
+ */
+@Component
+@Slf4j
+public class RenderGuard {
+
+    public static final String CANCELLED_METRIC = "eform.render.cancelled";
+    public static final String RUNAWAY_METRIC = "eform.render.runaway";
+
+    private final MeterRegistry meterRegistry;
+    private final Set<RenderContext> active = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.render.deadline.default:60s}")
+    private Duration defaultDeadline;
+
+    @Value("${app.render.deadline.max:5m}")
+    private Duration maxDeadline;
+
+    @Value("${app.render.deadline.runaway-after:30s}")
+    private Duration runawayAfter;
+
+    public RenderGuard(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder(RUNAWAY_METRIC, active, contexts -> contexts.stream().filter(RenderContext::isReported).count())
+                .description("Số render đã bị cancel nhưng thread vẫn chưa dừng")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Context chưa gắn thread, dùng khi cần cancel được trước khi render bắt đầu (vd. request đang chờ executor)
+     */
+    public RenderContext newContext(String origin) {
+        return new RenderContext(origin);
+    }
+
+    /**
+     * Gắn context vào thread hiện tại cho tới khi close
+     */
+    public Scope enter(RenderContext context) {
+        RenderContext previous = context.bind();
+        active.add(context);
+        return new Scope(context, previous, true);
+    }
+
+    /**
+     * Dùng context đang gắn với thread (request/job đã mở), nếu chưa có thì mở context mới
+     */
+    public Scope enterOrJoin(String origin) {
+        RenderContext current = RenderContext.current();
+        if (current != null) {
+            return new Scope(current, null, false);
+        }
+        return enter(newContext(origin));
+    }
+
+    /**
+     * Deadline của template, không vượt quá app.render.deadline.max
+     */
+    public Duration deadlineFor(Template template) {
+        Duration deadline = template.getRenderTimeoutMs() != null && template.getRenderTimeoutMs() > 0
+                ? Duration.ofMillis(template.getRenderTimeoutMs())
+                : defaultDeadline;
+        return deadline.compareTo(maxDeadline) > 0 ? maxDeadline : deadline;
+    }
+
+    public Duration getMaxDeadline() {
+        return maxDeadline;
+    }
+
+    public void recordCancelled(RenderCancelledException cancelled) {
+        Counter.builder(CANCELLED_METRIC)
+                .description("Số render bị dừng vì quá deadline hoặc client ngắt kết nối")
+                .tag("reason", cancelled.getReason())
+                .tag("stage", cancelled.getStage())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.render.deadline.watchdog-interval-ms:250}")
+    public void watchdog() {
+        for (RenderContext context : active) {
+            Thread thread = context.getThread();
+            if (thread == null) {
+                continue;
+            }
+            if (!context.isCancelled() && context.isOverdue()) {
+                context.cancel(RenderCancelledException.REASON_DEADLINE);
+            }
+            if (!context.isCancelled()) {
+                continue;
+            }
+            context.interruptOnce();
+            if (!context.isReported() && context.sinceCancelled().compareTo(runawayAfter) > 0) {
+                context.markReported();
+                log.error("Runaway render: {} template={} stage={} cancelled ({}) {} s ago, running {} s on {}\n\tat {}",
+                        context.getOrigin(), context.getTemplateId(), context.getStage(), context.getCancelReason(),
+                        context.sinceCancelled().toSeconds(), context.elapsed().toSeconds(), thread.getName(),
+                        Arrays.stream(thread.getStackTrace()).limit(20).map(String::valueOf)
+                                .collect(Collectors.joining("\n\tat ")));
+            }
+        }
+    }
+
+    /**
+     * Phạm vi context gắn với thread. Cờ interrupt do watchdog đặt được xoá khi ra khỏi phạm vi
+     * để không ảnh hưởng việc tiếp theo của thread pool.
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final RenderContext context;
+        private final RenderContext previous;
+        private final boolean owner;
+
+        private Scope(RenderContext context, RenderContext previous, boolean owner) {
+            this.context = context;
+            this.previous = previous;
+            this.owner = owner;
+        }
+
+        public RenderContext context() {
+            return context;
+        }
+
+        @Override
+        public void close() {
+            if (!owner) {
+                return;
+            }
+            active.remove(context);
+            context.unbind(previous);
+            if (context.isReported()) {
+                log.warn("Runaway render {} finally stopped after {} s", context.getOrigin(), context.elapsed().toSeconds());
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ceent.eform.service.render;
+
+/**
+ * Làn của RenderScheduler, theo thứ tự ưu tiên: thread rảnh luôn lấy việc của làn đứng trước
+ */
+public enum RenderLane {
+    INTERACTIVE, // tải một form (generate, generate-pdf...), người dùng đang chờ
+    PREVIEW,     // preview template trong màn hình thiết kế
+    BATCH        // render job (batch, mail-merge) trên worker
+}
@@ -0,0 +1,225 @@
+package com.ceent.eform.service.render;
+
+import com.ceent.eform.config.MdcTaskDecorator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread pool render dùng chung của node, chia theo làn (interactive > preview > batch).
+ * Thread rảnh luôn lấy việc của làn ưu tiên cao nhất còn được phép chạy; preview và batch bị giới hạn số thread
+ * (app.render.scheduler.preview-max, batch-max) và cộng lại không vượt quá threads - interactive-reserved,
+ * nên luôn còn thread cho interactive; khi không có interactive thì batch dùng hết phần được phép. Trong một làn, việc của các tenant được xếp theo
+ * start-time fair queuing: tenant gửi 1000 job không làm tenant gửi 1 job phải chờ cả 1000 job.
+ */
+@Component
+@Slf4j
+public class RenderScheduler {
+
+    public static final String QUEUED_METRIC = "eform.render.scheduler.queued";
+    public static final String RUNNING_METRIC = "eform.render.scheduler.running";
+    public static final String WAIT_METRIC = "eform.render.scheduler.wait";
+
+    private final TenantWeights tenantWeights;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor pool;
+    private final MdcTaskDecorator mdcTaskDecorator = new MdcTaskDecorator();
+    private final int threads;
+    private final int backgroundMax;
+    private final int queueCapacity;
+    private final Map<RenderLane, Lane> lanes = new EnumMap<>(RenderLane.class);
+
+    private int running;
+    private long sequence;
+
+    public RenderScheduler(TenantWeights tenantWeights,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.render.scheduler.threads:4}") int threads,
+                           @Value("${app.render.scheduler.preview-max:2}") int previewMax,
+                           @Value("${app.render.scheduler.batch-max:3}") int batchMax,
+                           @Value("${app.render.scheduler.interactive-reserved:1}") int interactiveReserved,
+                           @Value("${app.render.scheduler.queue-capacity:200}") int queueCapacity) {
+        if (interactiveReserved < 1 || interactiveReserved >= threads) {
+            throw new IllegalStateException("app.render.scheduler.interactive-reserved must be between 1 and threads - 1 ("
+                    + (threads - 1) + "), was " + interactiveReserved);
+        }
+        if (previewMax < 1 || batchMax < 1) {
+            throw new IllegalStateException("app.render.scheduler.preview-max and batch-max must be at least 1");
+        }
+        this.tenantWeights = tenantWeights;
+        this.meterRegistry = meterRegistry;
+        this.threads = threads;
+        this.backgroundMax = threads - interactiveReserved;
+        this.queueCapacity = queueCapacity;
+        lanes.put(RenderLane.INTERACTIVE, new Lane(threads));
+        lanes.put(RenderLane.PREVIEW, new Lane(Math.min(previewMax, backgroundMax)));
+        lanes.put(RenderLane.BATCH, new Lane(Math.min(batchMax, backgroundMax)));
+        // Chỉ giao việc khi còn thread rảnh nên hàng đợi của pool gần như luôn rỗng
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("render-"));
+
+        for (RenderLane lane : RenderLane.values()) {
+            String tag = lane.name().toLowerCase();
+            Gauge.builder(QUEUED_METRIC, this, scheduler -> scheduler.queued(lane))
+                    .description("Số việc render đang chờ theo làn")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder(RUNNING_METRIC, this, scheduler -> scheduler.running(lane))
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+        }
+        log.info("Render scheduler: {} threads ({} reserved for interactive), preview max {}, batch max {}", threads,
+                interactiveReserved, lanes.get(RenderLane.PREVIEW).limit, lanes.get(RenderLane.BATCH).limit);
+    }
+
+    /**
+     * Đưa việc vào làn của tenant. Làn đầy hoặc scheduler đang dừng thì TaskRejectedException (HTTP trả 503).
+     */
+    public void submit(RenderLane lane, String tenant, Runnable task) {
+        String key = tenant != null && !tenant.isBlank() ? tenant : TenantWeights.DEFAULT_TENANT;
+        Runnable decorated = mdcTaskDecorator.decorate(task);
+        synchronized (this) {
+            if (pool.isShutdown()) {
+                throw new TaskRejectedException("Render scheduler is shutting down");
+            }
+            Lane queue = lanes.get(lane);
+            if (queue.tasks.size() >= queueCapacity) {
+                throw new TaskRejectedException("Render lane " + lane + " is full (" + queueCapacity + " queued)");
+            }
+            queue.add(key, tenantWeights.weightOf(key), decorated, sequence++);
+            dispatch();
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public synchronized int queued(RenderLane lane) {
+        return lanes.get(lane).tasks.size();
+    }
+
+    public synchronized int running(RenderLane lane) {
+        return lanes.get(lane).running;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Render scheduler did not finish running renders within 30 s");
+        }
+    }
+
+    /**
+     * Giao việc cho thread rảnh: duyệt làn theo ưu tiên, bỏ qua làn đã dùng hết giới hạn của nó
+     * và làn nền (preview, batch) khi phần thread dành cho nền đã dùng hết
+     */
+    private void dispatch() {
+        while (running < threads) {
+            int background = running - lanes.get(RenderLane.INTERACTIVE).running;
+            RenderLane next = null;
+            for (RenderLane candidate : RenderLane.values()) {
+                Lane lane = lanes.get(candidate);
+                boolean backgroundFull = candidate != RenderLane.INTERACTIVE && background >= backgroundMax;
+                if (!lane.tasks.isEmpty() && lane.running < lane.limit && !backgroundFull) {
+                    next = candidate;
+                    break;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+
+            Lane lane = lanes.get(next);
+            Entry entry = lane.poll();
+            lane.running++;
+            running++;
+            RenderLane laneName = next;
+            Timer.builder(WAIT_METRIC)
+                    .description("Thời gian việc render chờ trong làn trước khi chạy")
+                    .tag("lane", laneName.name().toLowerCase())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - entry.enqueuedNanos, TimeUnit.NANOSECONDS);
+            try {
+                pool.execute(() -> {
+                    try {
+                        entry.task.run();
+                    } catch (RuntimeException e) {
+                        log.error("Render task in lane {} failed for tenant {}", laneName, entry.tenant, e);
+                    } finally {
+                        finished(laneName);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Pool đang dừng: trả việc về đầu làn và hoàn lại slot, không để bộ đếm running lệch
+                lane.running--;
+                running--;
+                lane.tasks.add(entry);
+                log.warn("Render pool rejected a task of lane {} for tenant {}: {}", laneName, entry.tenant, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private synchronized void finished(RenderLane lane) {
+        lanes.get(lane).running--;
+        running--;
+        dispatch();
+    }
+
+    private record Entry(String tenant, Runnable task, double startTag, long sequence, long enqueuedNanos) {
+    }
+
+    /**
+     * Một làn: hàng đợi theo start tag của start-time fair queuing. Việc mới của tenant bắt đầu sau việc trước
+     * của chính tenant đó (finish = start + 1/trọng số) nhưng không sớm hơn virtual time của làn.
+     */
+    private static final class Lane {
+
+        private final int limit;
+        private final PriorityQueue<Entry> tasks = new PriorityQueue<>(
+                Comparator.comparingDouble(Entry::startTag).thenComparingLong(Entry::sequence));
+        private final Map<String, Double> lastFinish = new HashMap<>();
+        private double virtualTime;
+        private int running;
+
+        private Lane(int limit) {
+            this.limit = limit;
+        }
+
+        private void add(String tenant, int weight, Runnable task, long sequence) {
+            double start = Math.max(virtualTime, lastFinish.getOrDefault(tenant, 0.0));
+            lastFinish.put(tenant, start + 1.0 / weight);
+            tasks.add(new Entry(tenant, task, start, sequence, System.nanoTime()));
+        }
+
+        private Entry poll() {
+            Entry entry = tasks.poll();
+            virtualTime = entry.startTag();
+            if (tasks.isEmpty()) {
+                // Làn rỗng: quên lịch sử để tenant quay lại sau không bị tính nợ cũ
+                lastFinish.clear();
+            } else if (lastFinish.size() > 1024) {
+                lastFinish.values().removeIf(finish -> finish <= virtualTime);
+            }
+            return entry;
+        }
+    }
+}
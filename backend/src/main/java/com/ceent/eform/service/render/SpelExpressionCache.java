@@ -0,0 +1,36 @@
+package com.ceent.eform.service.render;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+/**
+ * Cache giới hạn các biểu thức SpEL đã parse, key là nội dung tag.
+ * Parser chạy ở chế độ SpelCompilerMode.IMMEDIATE nên biểu thức được compile
+ * sang bytecode ngay lần evaluate đầu tiên và dùng chung cho mọi lần render.
+ */
+public class SpelExpressionCache {
+
+    private final SpelExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, SpelExpressionCache.class.getClassLoader()));
+
+    private final Cache<String, Expression> expressions;
+
+    public SpelExpressionCache(long maximumSize) {
+        this.expressions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public Expression get(String el) {
+        return expressions.get(el, parser::parseExpression);
+    }
+
+    public Cache<String, Expression> cache() {
+        return expressions;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ceent.eform.service.render;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.ceent.eform.service.invalidation.TemplateInvalidation;
+import com.ceent.eform.service.invalidation.TemplateInvalidationListener;
+import com.deepoove.poi.XWPFTemplate;
+import com.deepoove.poi.config.Configure;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache bản prepared của template trong bộ nhớ, đã được kiểm tra compile thành công.
+ * XWPFTemplate bị thay đổi khi render nên không thể dùng chung, cache giữ bytes
+ * để mỗi lần render chỉ parse từ bộ nhớ thay vì đọc lại file. Giới hạn theo tổng số byte,
+ * template bị đẩy ra thì render đọc lại file prepared.
+ */
+@Component
+@Slf4j
+public class TemplateCache implements TemplateInvalidationListener {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Value("${app.template-cache.max-bytes:134217728}")
+    private long maxBytes;
+
+    private Cache<Long, CachedTemplate> cache;
+
+    @PostConstruct
+    void initCache() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, CachedTemplate cached) -> cached.bytes.length)
+                .build();
+    }
+
+    /**
+     * Compile thử và đưa template vào cache
+     */
+    public void precompile(Long templateId, String contentHash, byte[] preparedBytes, Configure configure) throws Exception {
+        try (XWPFTemplate ignored = XWPFTemplate.compile(new ByteArrayInputStream(preparedBytes), configure)) {
+            cache.put(templateId, new CachedTemplate(contentHash, preparedBytes));
+        }
+        log.debug("Template {} precompiled ({} bytes)", templateId, preparedBytes.length);
+    }
+
+    /**
+     * Compile template để render: ưu tiên bản prepared trong cache, sau đó file prepared, cuối cùng file gốc
+     */
+    public XWPFTemplate compile(Template template, Configure configure) {
+        CachedTemplate cached = cache.getIfPresent(template.getId());
+        if (cached != null && Objects.equals(cached.contentHash, template.getContentHash())) {
+            hits.increment();
+            return XWPFTemplate.compile(new ByteArrayInputStream(cached.bytes), configure);
+        }
+        misses.increment();
+        return XWPFTemplate.compile(resolveTemplatePath(template), configure);
+    }
+
+    /**
+     * Đường dẫn file dùng để render
+     */
+    public String resolveTemplatePath(Template template) {
+        return isPrepared(template) ? template.getPreparedFilePath() : template.getFilePath();
+    }
+
+    /**
+     * Template đã qua stage chuẩn hóa font hay chưa
+     */
+    public boolean isPrepared(Template template) {
+        return template.getStatus() == TemplateStatus.READY && template.getPreparedFilePath() != null;
+    }
+
+    public void evict(Long templateId) {
+        cache.invalidate(templateId);
+    }
+
+    /**
+     * Bỏ bản prepared của phiên bản cũ; bản đúng contentHash mới (vd. vừa precompile trên node này) được giữ lại
+     */
+    @Override
+    public void onTemplateInvalidated(TemplateInvalidation invalidation) {
+        cache.asMap().computeIfPresent(invalidation.getTemplateId(), (id, cached) ->
+                invalidation.getContentHash() != null && invalidation.getContentHash().equals(cached.contentHash)
+                        ? cached : null);
+    }
+
+    public int size() {
+        return (int) cache.estimatedSize();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private static final class CachedTemplate {
+        private final String contentHash;
+        private final byte[] bytes;
+
+        private CachedTemplate(String contentHash, byte[] bytes) {
+            this.contentHash = contentHash;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ceent.eform.service.render;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Trọng số chia capacity render giữa các tenant (app.render.scheduler.tenant-weights), mặc định 1.
+ * Tenant trọng số 2 được phục vụ gấp đôi tenant trọng số 1 khi cả hai cùng có việc chờ.
+ */
+@Component
+public class TenantWeights {
+
+    public static final String DEFAULT_TENANT = "anonymous";
+
+    private final Map<String, Integer> weights;
+
+    public TenantWeights(@Value("#{${app.render.scheduler.tenant-weights:{:}}}") Map<String, Integer> weights) {
+        this.weights = Map.copyOf(weights);
+    }
+
+    public int weightOf(String tenant) {
+        Integer weight = weights.get(tenant);
+        return weight != null && weight > 0 ? weight : 1;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ceent.eform.service.table;
+
+import com.deepoove.poi.XWPFTemplate;
+import com.deepoove.poi.policy.RenderPolicy;
+import com.deepoove.poi.template.ElementTemplate;
+import com.deepoove.poi.template.run.RunTemplate;
+
+/**
+ * Policy cho tag {{%tên}} đặt trong dòng mẫu của bảng lớn.
+ * POI-TL chỉ ghi marker vào vị trí tag, các dòng dữ liệu được StreamingTableWriter
+ * sinh trực tiếp vào document.xml sau khi render nên không tạo object graph cho từng dòng.
+ */
+public class StreamingTablePolicy implements RenderPolicy {
+
+    public static final char PREFIX = '%';
+
+    @Override
+    public void render(ElementTemplate eleTemplate, Object data, XWPFTemplate template) {
+        RunTemplate runTemplate = (RunTemplate) eleTemplate;
+        runTemplate.getRun().setText(StreamingTableWriter.marker(runTemplate.getTagName()), 0);
+    }
+}
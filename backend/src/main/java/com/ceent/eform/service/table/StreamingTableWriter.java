@@ -0,0 +1,237 @@
+package com.ceent.eform.service.table;
+
+import com.ceent.eform.service.render.RenderContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Sinh các dòng của bảng lớn trực tiếp vào word/document.xml của DOCX đã render.
+ * Dòng chứa marker của tag {{%tên}} được dùng làm mẫu (trPr, tcPr, pPr, rPr của từng ô),
+ * mỗi dòng dữ liệu được ghi thẳng ra zip stream nên bộ nhớ chỉ phụ thuộc độ rộng dòng.
+ * Giới hạn: dòng mẫu không được chứa bảng lồng nhau.
+ */
+@Slf4j
+public final class StreamingTableWriter {
+
+    private static final String DOCUMENT_PART = "word/document.xml";
+    private static final String MARKER_PREFIX = "@@stream-table:";
+    private static final String MARKER_SUFFIX = "@@";
+
+    private StreamingTableWriter() {
+    }
+
+    public static String marker(String tagName) {
+        return MARKER_PREFIX + tagName + MARKER_SUFFIX;
+    }
+
+    /**
+     * Đọc DOCX source, ghi DOCX target với các bảng streaming đã được điền dữ liệu.
+     * Trả về tổng số dòng đã ghi.
+     */
+    public static long write(Path source, Path target, Map<String, TableRowSource> tables) throws IOException {
+        long rowsWritten = 0;
+
+        try (ZipFile zipFile = new ZipFile(source.toFile());
+             OutputStream fileOut = Files.newOutputStream(target);
+             ZipOutputStream zipOut = new ZipOutputStream(fileOut)) {
+
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                zipOut.putNextEntry(new ZipEntry(entry.getName()));
+
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    if (DOCUMENT_PART.equals(entry.getName())) {
+                        // document.xml của template nhỏ (các dòng chưa được sinh) nên đọc toàn bộ
+                        String documentXml = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                        Writer writer = new BufferedWriter(new OutputStreamWriter(zipOut, StandardCharsets.UTF_8), 64 * 1024);
+                        rowsWritten += writeDocument(documentXml, tables, writer);
+                        writer.flush();
+                    } else {
+                        in.transferTo(zipOut);
+                    }
+                }
+                zipOut.closeEntry();
+            }
+        }
+
+        return rowsWritten;
+    }
+
+    static long writeDocument(String xml, Map<String, TableRowSource> tables, Writer out) throws IOException {
+        long rowsWritten = 0;
+        int position = 0;
+
+        while (true) {
+            int markerIndex = xml.indexOf(MARKER_PREFIX, position);
+            if (markerIndex < 0) {
+                break;
+            }
+
+            int nameEnd = xml.indexOf(MARKER_SUFFIX, markerIndex + MARKER_PREFIX.length());
+            String tagName = xml.substring(markerIndex + MARKER_PREFIX.length(), nameEnd);
+            int rowStart = Math.max(xml.lastIndexOf("<w:tr>", markerIndex), xml.lastIndexOf("<w:tr ", markerIndex));
+            int rowEnd = xml.indexOf("</w:tr>", markerIndex);
+            if (rowStart < position || rowEnd < 0) {
+                log.warn("Streaming table tag {} is not inside a table row, ignored", tagName);
+                out.write(xml, position, nameEnd + MARKER_SUFFIX.length() - position);
+                position = nameEnd + MARKER_SUFFIX.length();
+                continue;
+            }
+            rowEnd += "</w:tr>".length();
+
+            out.write(xml, position, rowStart - position);
+
+            TableRowSource source = tables.get(tagName);
+            if (source != null) {
+                RowTemplate rowTemplate = RowTemplate.parse(xml.substring(rowStart, rowEnd));
+                rowsWritten += rowTemplate.writeRows(source, out);
+            } else {
+                log.warn("No data for streaming table {}, row removed", tagName);
+            }
+            position = rowEnd;
+        }
+
+        out.write(xml, position, xml.length() - position);
+        return rowsWritten;
+    }
+
+    /**
+     * Phần XML cố định của dòng mẫu, tách sẵn prefix/suffix cho từng ô
+     */
+    private static final class RowTemplate {
+        private final String rowPrefix;
+        private final List<String> cellPrefixes;
+        private static final String CELL_SUFFIX = "</w:t></w:r></w:p></w:tc>";
+        private static final String ROW_SUFFIX = "</w:tr>";
+
+        private RowTemplate(String rowPrefix, List<String> cellPrefixes) {
+            this.rowPrefix = rowPrefix;
+            this.cellPrefixes = cellPrefixes;
+        }
+
+        static RowTemplate parse(String rowXml) {
+            int firstCell = indexOfElement(rowXml, "w:tc", 0);
+            String rowHead = firstCell >= 0 ? rowXml.substring(0, firstCell) : rowXml;
+            String trPr = extractElement(rowHead, "w:trPr");
+
+            List<String> cellPrefixes = new ArrayList<>();
+            int cellStart = firstCell;
+            while (cellStart >= 0) {
+                int cellEnd = rowXml.indexOf("</w:tc>", cellStart);
+                String cellXml = rowXml.substring(cellStart, cellEnd);
+
+                String tcPr = extractElement(cellXml, "w:tcPr");
+                String pPr = extractElement(cellXml, "w:pPr");
+                int runStart = indexOfElement(cellXml, "w:r", 0);
+                String rPr = runStart >= 0 ? extractElement(cellXml.substring(runStart), "w:rPr") : "";
+
+                cellPrefixes.add("<w:tc>" + tcPr + "<w:p>" + pPr + "<w:r>" + rPr + "<w:t xml:space=\"preserve\">");
+                cellStart = indexOfElement(rowXml, "w:tc", cellEnd);
+            }
+
+            if (cellPrefixes.isEmpty()) {
+                cellPrefixes.add("<w:tc><w:p><w:r><w:t xml:space=\"preserve\">");
+            }
+            return new RowTemplate("<w:tr>" + trPr, cellPrefixes);
+        }
+
+        long writeRows(TableRowSource source, Writer out) throws IOException {
+            int columnCount = source.columns().size();
+            int cellCount = Math.max(columnCount, cellPrefixes.size());
+            long count = 0;
+
+            Iterator<Object[]> rows = source.rows();
+            while (rows.hasNext()) {
+                RenderContext.checkpointCurrent();
+                Object[] values = rows.next();
+                out.write(rowPrefix);
+                for (int i = 0; i < cellCount; i++) {
+                    // Cột thừa dùng định dạng của ô cuối trong dòng mẫu
+                    out.write(cellPrefixes.get(Math.min(i, cellPrefixes.size() - 1)));
+                    if (i < columnCount && values[i] != null) {
+                        writeEscaped(values[i].toString(), out);
+                    }
+                    out.write(CELL_SUFFIX);
+                }
+                out.write(ROW_SUFFIX);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Vị trí mở của element (bỏ qua các element có tên dài hơn như w:tcPr khi tìm w:tc)
+     */
+    private static int indexOfElement(String xml, String name, int from) {
+        String open = "<" + name;
+        int index = xml.indexOf(open, from);
+        while (index >= 0) {
+            int after = index + open.length();
+            if (after < xml.length()) {
+                char next = xml.charAt(after);
+                if (next == '>' || next == ' ' || next == '/') {
+                    return index;
+                }
+            }
+            index = xml.indexOf(open, after);
+        }
+        return -1;
+    }
+
+    /**
+     * Element đầu tiên có tên name (kể cả dạng tự đóng), hoặc chuỗi rỗng nếu không có
+     */
+    private static String extractElement(String xml, String name) {
+        int start = indexOfElement(xml, name, 0);
+        if (start < 0) {
+            return "";
+        }
+        int openEnd = xml.indexOf('>', start);
+        if (xml.charAt(openEnd - 1) == '/') {
+            return xml.substring(start, openEnd + 1);
+        }
+        String close = "</" + name + ">";
+        int end = xml.indexOf(close, openEnd);
+        return end < 0 ? "" : xml.substring(start, end + close.length());
+    }
+
+    private static void writeEscaped(String text, Writer out) throws IOException {
+        int length = text.length();
+        int last = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            String replacement = switch (c) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                default -> (c < 0x20 && c != '\t') ? " " : null;
+            };
+            if (replacement != null) {
+                out.write(text, last, i - last);
+                out.write(replacement);
+                last = i + 1;
+            }
+        }
+        out.write(text, last, length - last);
+    }
+}
@@ -0,0 +1,173 @@
+package com.ceent.eform.service.table;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Nguồn dữ liệu cho bảng lớn render theo kiểu streaming: thứ tự cột được khai báo,
+ * các dòng được đọc lần lượt nên bộ nhớ chỉ phụ thuộc độ rộng một dòng.
+ */
+public interface TableRowSource {
+
+    /**
+     * Thứ tự cột
+     */
+    List<String> columns();
+
+    /**
+     * Các dòng, mỗi dòng là mảng giá trị theo đúng thứ tự columns().
+     * Mảng trả về có thể được tái sử dụng giữa các lần next().
+     */
+    Iterator<Object[]> rows();
+
+    /**
+     * Nguồn theo dòng: mỗi phần tử là map cột → giá trị
+     */
+    static TableRowSource ofRows(List<String> columns, Iterator<? extends Map<String, ?>> rows) {
+        List<String> declared = List.copyOf(columns);
+        return new TableRowSource() {
+            @Override
+            public List<String> columns() {
+                return declared;
+            }
+
+            @Override
+            public Iterator<Object[]> rows() {
+                Object[] values = new Object[declared.size()];
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return rows.hasNext();
+                    }
+
+                    @Override
+                    public Object[] next() {
+                        Map<String, ?> row = rows.next();
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = row != null ? row.get(declared.get(i)) : null;
+                        }
+                        return values;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Nguồn theo cột: mỗi cột là một list giá trị cùng độ dài
+     */
+    static TableRowSource ofColumns(List<String> columns, Map<String, ? extends List<?>> data) {
+        List<String> declared = List.copyOf(columns);
+        List<List<?>> columnValues = new ArrayList<>(declared.size());
+        int rowCount = 0;
+        for (String column : declared) {
+            List<?> values = data.get(column);
+            columnValues.add(values != null ? values : List.of());
+            rowCount = Math.max(rowCount, values != null ? values.size() : 0);
+        }
+        int totalRows = rowCount;
+
+        return new TableRowSource() {
+            @Override
+            public List<String> columns() {
+                return declared;
+            }
+
+            @Override
+            public Iterator<Object[]> rows() {
+                Object[] values = new Object[declared.size()];
+                return new Iterator<>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < totalRows;
+                    }
+
+                    @Override
+                    public Object[] next() {
+                        if (index >= totalRows) {
+                            throw new NoSuchElementException();
+                        }
+                        for (int i = 0; i < values.length; i++) {
+                            List<?> column = columnValues.get(i);
+                            values[i] = index < column.size() ? column.get(index) : null;
+                        }
+                        index++;
+                        return values;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Chuyển dữ liệu form (JSON) sang TableRowSource:
+     * <ul>
+     *   <li>list các map: cột theo thứ tự key của dòng đầu</li>
+     *   <li>{columns: [...], rows: [map | list]}: cột theo khai báo</li>
+     *   <li>{columns: [...], data: {cột: [...]}}: dữ liệu dạng cột</li>
+     * </ul>
+     */
+    @SuppressWarnings("unchecked")
+    static TableRowSource from(Object value) {
+        if (value instanceof TableRowSource source) {
+            return source;
+        }
+        if (value instanceof List<?> list) {
+            if (list.isEmpty() || !(list.get(0) instanceof Map<?, ?> first)) {
+                return ofRows(List.of(), List.<Map<String, ?>>of().iterator());
+            }
+            List<String> columns = new ArrayList<>();
+            first.keySet().forEach(key -> columns.add(String.valueOf(key)));
+            return ofRows(columns, ((List<Map<String, ?>>) list).iterator());
+        }
+        if (value instanceof Map<?, ?> map && map.get("columns") instanceof List<?> declared) {
+            List<String> columns = declared.stream().map(String::valueOf).toList();
+            if (map.get("data") instanceof Map<?, ?> data) {
+                return ofColumns(columns, (Map<String, ? extends List<?>>) data);
+            }
+            if (map.get("rows") instanceof List<?> rows) {
+                if (!rows.isEmpty() && rows.get(0) instanceof List<?>) {
+                    return ofListRows(columns, (List<List<?>>) rows);
+                }
+                return ofRows(columns, ((List<Map<String, ?>>) rows).iterator());
+            }
+        }
+        throw new IllegalArgumentException("Unsupported table data: " + (value != null ? value.getClass().getSimpleName() : "null"));
+    }
+
+    private static TableRowSource ofListRows(List<String> columns, List<List<?>> rows) {
+        List<String> declared = List.copyOf(columns);
+        return new TableRowSource() {
+            @Override
+            public List<String> columns() {
+                return declared;
+            }
+
+            @Override
+            public Iterator<Object[]> rows() {
+                Iterator<List<?>> iterator = rows.iterator();
+                Object[] values = new Object[declared.size()];
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Object[] next() {
+                        List<?> row = iterator.next();
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = row != null && i < row.size() ? row.get(i) : null;
+                        }
+                        return values;
+                    }
+                };
+            }
+        };
+    }
+}
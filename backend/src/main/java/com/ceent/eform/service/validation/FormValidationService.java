@@ -0,0 +1,98 @@
+package com.ceent.eform.service.validation;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.service.invalidation.TemplateInvalidation;
+import com.ceent.eform.service.invalidation.TemplateInvalidationListener;
+import com.ceent.eform.validator.CompiledFormValidator;
+import com.ceent.eform.validator.FieldValidation;
+import com.ceent.eform.validator.ValidationResult;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compile rule validation của template một lần và cache theo template id.
+ * Entry được dùng lại chừng nào JSON rule của template còn giống hệt.
+ */
+@Service
+@Slf4j
+public class FormValidationService implements TemplateInvalidationListener {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, CachedValidator> validators;
+
+    public FormValidationService(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("${app.validation.cache-size:500}") long cacheSize) {
+        this.objectMapper = objectMapper;
+        this.validators = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validators, "form-validator");
+    }
+
+    public ValidationResult validate(Template template, Map<String, Object> data) {
+        return validatorFor(template).validate(data);
+    }
+
+    public CompiledFormValidator validatorFor(Template template) {
+        String rules = template.getValidationRules();
+        if (rules == null || rules.isBlank()) {
+            return CompiledFormValidator.empty();
+        }
+
+        if (template.getId() == null) {
+            return CompiledFormValidator.compile(parseRules(rules));
+        }
+
+        CachedValidator cached = validators.getIfPresent(template.getId());
+        if (cached != null && cached.rules.equals(rules)) {
+            return cached.validator;
+        }
+
+        CompiledFormValidator validator = CompiledFormValidator.compile(parseRules(rules));
+        validators.put(template.getId(), new CachedValidator(rules, validator));
+        return validator;
+    }
+
+    /**
+     * Compile thử để báo lỗi rule (pattern sai...) ngay khi cấu hình, trả về JSON lưu vào template
+     */
+    public String serializeRules(List<FieldValidation> validations) {
+        CompiledFormValidator.compile(validations);
+        try {
+            return validations.isEmpty() ? null : objectMapper.writeValueAsString(validations);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot serialize validation rules: " + e.getMessage());
+        }
+    }
+
+    public void evict(Long templateId) {
+        validators.invalidate(templateId);
+    }
+
+    @Override
+    public void onTemplateInvalidated(TemplateInvalidation invalidation) {
+        evict(invalidation.getTemplateId());
+    }
+
+    private List<FieldValidation> parseRules(String rules) {
+        try {
+            return objectMapper.readValue(rules, new TypeReference<List<FieldValidation>>() {});
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid validation rules stored for template: " + e.getMessage(), e);
+        }
+    }
+
+    private record CachedValidator(String rules, CompiledFormValidator validator) {
+    }
+}
@@ -0,0 +1,203 @@
+package com.ceent.eform.validator;
+
+import java.text.ParsePosition;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Validator bất biến được compile một lần từ danh sách FieldValidation của template.
+ * Regex (kể cả pattern do người dùng khai báo) được compile sẵn, formatter ngày dùng chung
+ * và việc kiểm tra ngày không dùng exception. Có thể dùng đồng thời từ nhiều thread.
+ */
+public final class CompiledFormValidator {
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@([A-Za-z0-9.-]+\\.[A-Za-z]{2,})$");
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^[0-9+\\-\\s()]{10,15}$");
+    private static final DateTimeFormatter[] DATE_FORMATTERS = {
+            DateTimeFormatter.ofPattern("uuuu-MM-dd"),
+            DateTimeFormatter.ofPattern("dd/MM/uuuu"),
+            DateTimeFormatter.ofPattern("dd-MM-uuuu")
+    };
+
+    private static final CompiledFormValidator EMPTY = new CompiledFormValidator(new FieldRule[0], Map.of());
+
+    private final FieldRule[] rules;
+    private final Map<String, String> fieldTypes;
+
+    private CompiledFormValidator(FieldRule[] rules, Map<String, String> fieldTypes) {
+        this.rules = rules;
+        this.fieldTypes = fieldTypes;
+    }
+
+    public static CompiledFormValidator empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compile danh sách rule, pattern không hợp lệ gây IllegalArgumentException
+     */
+    public static CompiledFormValidator compile(List<FieldValidation> validations) {
+        if (validations == null || validations.isEmpty()) {
+            return EMPTY;
+        }
+
+        FieldRule[] rules = new FieldRule[validations.size()];
+        Map<String, String> fieldTypes = new LinkedHashMap<>();
+        for (int i = 0; i < rules.length; i++) {
+            FieldValidation validation = validations.get(i);
+            if (validation.getFieldName() == null || validation.getFieldName().isBlank()) {
+                throw new IllegalArgumentException("Validation rule " + i + " has no fieldName");
+            }
+
+            Pattern pattern = null;
+            if (validation.getPattern() != null) {
+                try {
+                    pattern = Pattern.compile(validation.getPattern());
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("Invalid pattern for field " + validation.getFieldName()
+                            + ": " + e.getDescription());
+                }
+            }
+
+            if (validation.getType() != null) {
+                fieldTypes.put(validation.getFieldName(), validation.getType());
+            }
+            rules[i] = new FieldRule(validation.getFieldName(), validation.isRequired(), FieldType.of(validation.getType()),
+                    validation.getMinLength(), validation.getMaxLength(), pattern);
+        }
+        return new CompiledFormValidator(rules, Collections.unmodifiableMap(fieldTypes));
+    }
+
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    /**
+     * Kiểu khai báo của từng field (email, date, currency...), dùng làm type hint khi format dữ liệu
+     */
+    public Map<String, String> fieldTypes() {
+        return fieldTypes;
+    }
+
+    public ValidationResult validate(Map<String, Object> formData) {
+        ValidationResult result = new ValidationResult();
+
+        for (FieldRule rule : rules) {
+            Object value = formData != null ? formData.get(rule.fieldName) : null;
+            String stringValue = value != null ? value.toString().trim() : "";
+
+            // Required validation
+            if (stringValue.isEmpty()) {
+                if (rule.required) {
+                    result.addError(rule.fieldName, "Trường " + rule.fieldName + " là bắt buộc");
+                }
+                continue;
+            }
+
+            switch (rule.type) {
+                case EMAIL -> {
+                    if (!EMAIL_PATTERN.matcher(stringValue).matches()) {
+                        result.addError(rule.fieldName, "Email không hợp lệ");
+                    }
+                }
+                case PHONE -> {
+                    if (!PHONE_PATTERN.matcher(stringValue).matches()) {
+                        result.addError(rule.fieldName, "Số điện thoại không hợp lệ");
+                    }
+                }
+                case DATE -> {
+                    if (!isValidDate(stringValue)) {
+                        result.addError(rule.fieldName, "Định dạng ngày không hợp lệ");
+                    }
+                }
+                default -> {
+                    // Không có kiểm tra theo kiểu
+                }
+            }
+
+            // Length validation
+            if (rule.minLength > 0 && stringValue.length() < rule.minLength) {
+                result.addError(rule.fieldName, "Độ dài tối thiểu " + rule.minLength + " ký tự");
+            }
+
+            if (rule.maxLength > 0 && stringValue.length() > rule.maxLength) {
+                result.addError(rule.fieldName, "Độ dài tối đa " + rule.maxLength + " ký tự");
+            }
+
+            // Pattern validation
+            if (rule.pattern != null && !rule.pattern.matcher(stringValue).matches()) {
+                result.addError(rule.fieldName, "Định dạng không hợp lệ");
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Kiểm tra ngày theo các định dạng hỗ trợ mà không dùng exception:
+     * parse không resolve rồi tự kiểm tra tháng/ngày hợp lệ
+     */
+    static boolean isValidDate(String text) {
+        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
+            ParsePosition position = new ParsePosition(0);
+            TemporalAccessor parsed = formatter.parseUnresolved(text, position);
+            if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() != text.length()) {
+                continue;
+            }
+
+            long year = parsed.getLong(ChronoField.YEAR);
+            long month = parsed.getLong(ChronoField.MONTH_OF_YEAR);
+            long day = parsed.getLong(ChronoField.DAY_OF_MONTH);
+            if (month < 1 || month > 12 || day < 1 || year < Year.MIN_VALUE || year > Year.MAX_VALUE) {
+                continue;
+            }
+            if (day <= Month.of((int) month).length(Year.isLeap(year))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum FieldType {
+        NONE, EMAIL, PHONE, DATE;
+
+        static FieldType of(String type) {
+            if (type == null) {
+                return NONE;
+            }
+            return switch (type) {
+                case "email" -> EMAIL;
+                case "phone" -> PHONE;
+                case "date" -> DATE;
+                default -> NONE;
+            };
+        }
+    }
+
+    private static final class FieldRule {
+        private final String fieldName;
+        private final boolean required;
+        private final FieldType type;
+        private final int minLength;
+        private final int maxLength;
+        private final Pattern pattern;
+
+        private FieldRule(String fieldName, boolean required, FieldType type, int minLength, int maxLength, Pattern pattern) {
+            this.fieldName = fieldName;
+            this.required = required;
+            this.type = type;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.pattern = pattern;
+        }
+    }
+}
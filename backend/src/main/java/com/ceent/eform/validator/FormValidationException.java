@@ -0,0 +1,18 @@
+package com.ceent.eform.validator;
+
+/**
+ * Dữ liệu form không qua được validation của template
+ */
+public class FormValidationException extends RuntimeException {
+
+    private final ValidationResult result;
+
+    public FormValidationException(ValidationResult result) {
+        super("Form data is invalid: " + result.getErrors().keySet());
+        this.result = result;
+    }
+
+    public ValidationResult getResult() {
+        return result;
+    }
+}
@@ -4,6 +4,7 @@ public class PreviewResult {
     private boolean success;
     private byte[] previewData;
     private String message;
+    private String contentType;
 
     public PreviewResult(boolean success, byte[] previewData, String message) {
         this.success = success;
@@ -11,6 +12,11 @@ public class PreviewResult {
         this.message = message;
     }
 
+    public PreviewResult(boolean success, byte[] previewData, String message, String contentType) {
+        this(success, previewData, message);
+        this.contentType = contentType;
+    }
+
     // Getters and setters
     public boolean isSuccess() { return success; }
     public void setSuccess(boolean success) { this.success = success; }
@@ -20,4 +26,7 @@ public class PreviewResult {
 
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
 }
@@ -1,20 +1,31 @@
 package com.ceent.eform.validator;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ValidationResult {
     private boolean valid;
-    private Map<String, String> errors;
+    private Map<String, List<String>> errors;
 
     public ValidationResult() {
-        this.errors = new HashMap<>();
+        this.errors = new LinkedHashMap<>();
+        this.valid = true;
+    }
+
+    /**
+     * Thêm lỗi cho field, giữ lại tất cả lỗi của cùng một field
+     */
+    public void addError(String fieldName, String message) {
+        errors.computeIfAbsent(fieldName, key -> new ArrayList<>(2)).add(message);
+        valid = false;
     }
 
     // Getters and setters
     public boolean isValid() { return valid; }
     public void setValid(boolean valid) { this.valid = valid; }
 
-    public Map<String, String> getErrors() { return errors; }
-    public void setErrors(Map<String, String> errors) { this.errors = errors; }
+    public Map<String, List<String>> getErrors() { return errors; }
+    public void setErrors(Map<String, List<String>> errors) { this.errors = errors; }
 }
@@ -0,0 +1,39 @@
+package com.ceent.eform.config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL và bind parameter (chứa dữ liệu form) không được log ngoài profile dev
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:sql-logging;DB_CLOSE_DELAY=-1")
+class SqlLoggingProfileTest {
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void defaultProfileDoesNotLogSqlOrBindParameters() {
+        assertThat(environment.getProperty("spring.jpa.show-sql", Boolean.class)).isFalse();
+        assertThat(LoggerFactory.getLogger("org.hibernate.SQL").isDebugEnabled()).isFalse();
+        assertThat(LoggerFactory.getLogger("org.hibernate.orm.jdbc.bind").isTraceEnabled()).isFalse();
+        assertThat(LoggerFactory.getLogger("org.hibernate.type.descriptor.sql.BasicBinder").isTraceEnabled()).isFalse();
+    }
+
+    @Test
+    void devProfileEnablesSqlLogging() throws Exception {
+        Properties dev = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-dev.properties"));
+        assertThat(dev.getProperty("spring.jpa.show-sql")).isEqualTo("true");
+        assertThat(dev.getProperty("logging.level.org.hibernate.SQL")).isEqualTo("DEBUG");
+        assertThat(dev.getProperty("logging.level.org.hibernate.orm.jdbc.bind")).isEqualTo("TRACE");
+    }
+}
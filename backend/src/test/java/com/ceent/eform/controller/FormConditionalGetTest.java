@@ -0,0 +1,107 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.entity.Form;
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.ceent.eform.repository.FormRepository;
+import com.ceent.eform.repository.TemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag của GET /forms/{id} đổi khi template đổi (FormDto có tên template), If-Match vẫn chỉ so version form
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:form-conditional-get;DB_CLOSE_DELAY=-1",
+        "app.template-index.enabled=false"
+})
+@AutoConfigureMockMvc
+class FormConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Autowired
+    private FormRepository formRepository;
+
+    private Long templateId;
+    private Long formId;
+
+    @BeforeEach
+    void createForm() {
+        Template template = new Template();
+        template.setName("contract");
+        template.setFilename("contract.docx");
+        template.setFilePath("contract.docx");
+        template.setVariables("[\"name\"]");
+        template.setStatus(TemplateStatus.READY);
+        template = templateRepository.save(template);
+        templateId = template.getId();
+
+        Form form = new Form();
+        form.setTemplate(template);
+        form.setName("contract form");
+        form.setFormData("{\"name\":\"An\"}");
+        formId = formRepository.save(form).getId();
+    }
+
+    @Test
+    void templateRenameChangesFormETag() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/forms/{id}", formId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/v1/forms/{id}", formId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        Template template = templateRepository.findById(templateId).orElseThrow();
+        template.setName("contract v2");
+        templateRepository.save(template);
+
+        String renamed = mockMvc.perform(get("/api/v1/forms/{id}", formId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.templateName").value("contract v2"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(renamed).isNotEqualTo(etag);
+    }
+
+    @Test
+    void ifMatchUsesFormVersionOfETag() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/forms/{id}", formId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Template đổi sau khi client đọc form: không phải xung đột khi sửa form
+        Template template = templateRepository.findById(templateId).orElseThrow();
+        template.setName("contract v2");
+        templateRepository.save(template);
+
+        String patched = mockMvc.perform(patch("/api/v1/forms/{id}", formId)
+                        .contentType("application/merge-patch+json")
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .content("{\"formData\":{\"name\":\"Binh\"}}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // ETag cũ (version form đã qua) thì 412
+        mockMvc.perform(patch("/api/v1/forms/{id}", formId)
+                        .contentType("application/merge-patch+json")
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .content("{\"formData\":{\"name\":\"Chi\"}}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/v1/forms/{id}", formId).header(HttpHeaders.IF_NONE_MATCH, patched))
+                .andExpect(status().isNotModified());
+    }
+}
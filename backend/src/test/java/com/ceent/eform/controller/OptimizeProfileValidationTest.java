@@ -0,0 +1,60 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.service.optimize.PdfOptimizer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * ?optimize= không hợp lệ bị từ chối trước khi render, kèm danh sách profile hợp lệ
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:optimize-validation;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class OptimizeProfileValidationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PdfOptimizer pdfOptimizer;
+
+    @Test
+    void unknownProfileIsRejectedWithAvailableProfiles() throws Exception {
+        assertBadRequest(post("/api/v1/forms/1/generate-pdf-pro").param("optimize", "smallest"));
+        assertBadRequest(post("/api/v1/forms/1/generate-pdf").param("optimize", "smallest"));
+        assertBadRequest(get("/api/v1/forms/1/generate").param("format", "pdf").param("optimize", "smallest"));
+        assertBadRequest(post("/api/v1/forms/1/pdf-artifacts").param("optimize", "smallest"));
+        assertBadRequest(post("/api/v1/forms/generate-pdf").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"formId\":1,\"optimize\":\"smallest\"}"));
+    }
+
+    @Test
+    void profileNamesAreMatchedLikeTheOptimizer() {
+        assertThat(pdfOptimizer.hasProfile(" Web ")).isTrue();
+        assertThat(pdfOptimizer.hasProfile(null)).isTrue();
+        assertThat(pdfOptimizer.resolveProfileName(null)).isEqualTo("none");
+        assertThat(pdfOptimizer.resolveProfileName(" ARCHIVE")).isEqualTo("archive");
+        assertThat(pdfOptimizer.hasProfile("smallest")).isFalse();
+    }
+
+    private void assertBadRequest(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        assertThat(result.getResponse().getStatus()).isEqualTo(400);
+        assertThat(result.getResponse().getContentAsString())
+                .contains("Unknown PDF optimize profile: smallest")
+                .contains("none", "web", "archive");
+    }
+}
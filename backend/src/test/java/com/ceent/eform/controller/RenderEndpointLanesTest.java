@@ -0,0 +1,77 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.service.render.RenderLane;
+import com.ceent.eform.service.render.RenderScheduler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Các endpoint render còn lại cũng chạy trên RenderScheduler theo làn, không giữ thread của Tomcat
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:render-endpoint-lanes;DB_CLOSE_DELAY=-1",
+        "app.node.roles=api"
+})
+@AutoConfigureMockMvc
+class RenderEndpointLanesTest {
+
+    private static final long MISSING_ID = 987_654L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoSpyBean
+    private RenderScheduler renderScheduler;
+
+    @Test
+    void downloadAndArtifactRunOnInteractiveLane() throws Exception {
+        MvcResult download = performAsync(post("/api/v1/forms/generate-pdf").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"formId\":" + MISSING_ID + "}"));
+        assertThat(download.getResponse().getStatus()).isEqualTo(400);
+        verifyLane(RenderLane.INTERACTIVE);
+
+        MvcResult artifact = performAsync(post("/api/v1/forms/" + MISSING_ID + "/pdf-artifacts"));
+        assertThat(artifact.getResponse().getStatus()).isEqualTo(400);
+        assertThat(artifact.getResponse().getContentAsString()).contains("\"error\"");
+        verifyLane(RenderLane.INTERACTIVE);
+    }
+
+    @Test
+    void optimizationReportAndEngineCompareRunOnBatchLane() throws Exception {
+        MvcResult report = performAsync(post("/api/v1/forms/" + MISSING_ID + "/pdf-optimization"));
+        assertThat(report.getResponse().getStatus()).isEqualTo(404);
+        assertThat(report.getResponse().getContentAsString()).contains("\"error\"");
+        verifyLane(RenderLane.BATCH);
+
+        MvcResult compare = performAsync(post("/api/v1/templates/" + MISSING_ID + "/pdf-engines/compare"));
+        assertThat(compare.getResponse().getStatus()).isEqualTo(404);
+        verifyLane(RenderLane.BATCH);
+    }
+
+    private MvcResult performAsync(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        assertThat(result.getRequest().isAsyncStarted()).isTrue();
+        return mockMvc.perform(asyncDispatch(result)).andReturn();
+    }
+
+    private void verifyLane(RenderLane lane) {
+        verify(renderScheduler).submit(eq(lane), anyString(), any());
+        clearInvocations(renderScheduler);
+    }
+}
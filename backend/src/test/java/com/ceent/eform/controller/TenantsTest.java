@@ -0,0 +1,55 @@
+package com.ceent.eform.controller;
+
+import com.ceent.eform.service.render.TenantWeights;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * X-Tenant-Id chỉ được tin khi tới từ gateway cấu hình; user đã xác thực luôn thắng header
+ */
+class TenantsTest {
+
+    private static final String GATEWAY = "10.0.0.5";
+
+    private final Tenants tenants = new Tenants(List.of(GATEWAY));
+
+    @Test
+    void headerFromUntrustedClientIsIgnored() {
+        for (int i = 0; i < 3; i++) {
+            // Id ngẫu nhiên mỗi request không tách được thành tenant mới
+            assertThat(tenants.of(request("203.0.113.7", null, "random-" + i))).isEqualTo(TenantWeights.DEFAULT_TENANT);
+        }
+    }
+
+    @Test
+    void headerFromTrustedGatewayIsUsed() {
+        assertThat(tenants.of(request(GATEWAY, null, " acme "))).isEqualTo("acme");
+        assertThat(tenants.of(request(GATEWAY, null, null))).isEqualTo(TenantWeights.DEFAULT_TENANT);
+    }
+
+    @Test
+    void authenticatedUserWinsOverHeader() {
+        assertThat(tenants.of(request("203.0.113.7", "alice", "bob"))).isEqualTo("alice");
+        assertThat(tenants.of(request(GATEWAY, "alice", "bob"))).isEqualTo("alice");
+    }
+
+    @Test
+    void noGatewaysConfiguredTrustsNoHeader() {
+        Tenants defaults = new Tenants(List.of());
+        assertThat(defaults.of(request("127.0.0.1", null, "acme"))).isEqualTo(TenantWeights.DEFAULT_TENANT);
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String user, String tenantHeader) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        request.setRemoteUser(user);
+        if (tenantHeader != null) {
+            request.addHeader(Tenants.HEADER, tenantHeader);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,170 @@
+package com.ceent.eform.service;
+
+import com.ceent.eform.dto.request.GeneratePdfRequest;
+import com.ceent.eform.entity.Form;
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.ceent.eform.repository.FormRepository;
+import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.metrics.RenderMetrics;
+import com.ceent.eform.service.render.OutputFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPageMar;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSectPr;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Render chạy trên thread của scheduler/worker, không có Hibernate session mở sẵn như thread request (open-in-view).
+ * File Word tạm của mỗi render có tên riêng và luôn bị xoá sau khi xong.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:render-off-thread;DB_CLOSE_DELAY=-1")
+class RenderOffRequestThreadTest {
+
+    @TempDir
+    static Path workDir;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("app.upload.dir", () -> workDir.resolve("uploads").toString());
+        registry.add("app.output.dir", () -> workDir.resolve("outputs").toString());
+    }
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Autowired
+    private FormRepository formRepository;
+
+    @Autowired
+    private EFormService eFormService;
+
+    @Autowired
+    private PdfProService pdfProService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long formId;
+
+    @BeforeEach
+    void createForm() throws Exception {
+        Path docx = workDir.resolve("greeting.docx");
+        try (XWPFDocument document = new XWPFDocument(); OutputStream out = Files.newOutputStream(docx)) {
+            // Converter PDF cần styles.xml và khổ giấy, file Word thật luôn có
+            document.createStyles();
+            document.createParagraph().createRun().setText("Xin chao {{name}}");
+            CTSectPr section = document.getDocument().getBody().addNewSectPr();
+            section.addNewPgSz().setW(BigInteger.valueOf(11906));
+            section.getPgSz().setH(BigInteger.valueOf(16838));
+            CTPageMar margin = section.addNewPgMar();
+            margin.setTop(BigInteger.valueOf(1440));
+            margin.setBottom(BigInteger.valueOf(1440));
+            margin.setLeft(BigInteger.valueOf(1440));
+            margin.setRight(BigInteger.valueOf(1440));
+            document.write(out);
+        }
+
+        Template template = new Template();
+        template.setName("greeting");
+        template.setFilename("greeting.docx");
+        template.setFilePath(docx.toString());
+        template.setVariables("[\"name\"]");
+        template.setStatus(TemplateStatus.READY);
+        template = templateRepository.save(template);
+
+        Form form = new Form();
+        form.setTemplate(template);
+        form.setName("greeting form");
+        form.setFormData("{\"name\":\"An\"}");
+        formId = formRepository.save(form).getId();
+    }
+
+    @Test
+    void generatePdfOnPoolThread() throws Exception {
+        byte[] pdf = onPoolThread(() -> eFormService.generatePdf(new GeneratePdfRequest(formId, null, null, false)));
+        assertThat(new String(pdf, 0, 5)).isEqualTo("%PDF-");
+        assertNoTempFiles();
+    }
+
+    @Test
+    void generateDocxAndPdfOnPoolThread() throws Exception {
+        byte[] docx = onPoolThread(() -> pdfProService.generate(formId, null, OutputFormat.DOCX, null, false));
+        assertThat(docx).startsWith('P', 'K');
+
+        byte[] pdf = onPoolThread(() -> pdfProService.generate(formId, null, OutputFormat.PDF, null, false));
+        assertThat(new String(pdf, 0, 5)).isEqualTo("%PDF-");
+        assertNoTempFiles();
+    }
+
+    @Test
+    void concurrentRendersDoNotShareTempFiles() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> renders = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                renders.add(executor.submit(() -> eFormService.generatePdf(new GeneratePdfRequest(formId, null, null, false))));
+                renders.add(executor.submit(() -> pdfProService.generate(formId, null, OutputFormat.PDF, null, false)));
+            }
+            for (Future<byte[]> render : renders) {
+                assertThat(new String(render.get(120, TimeUnit.SECONDS), 0, 5)).isEqualTo("%PDF-");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertNoTempFiles();
+    }
+
+    @Test
+    void optimizeStageIsTimedOnlyForPdfWithAProfile() throws Exception {
+        onPoolThread(() -> pdfProService.generate(formId, null, OutputFormat.DOCX, "web", false));
+        onPoolThread(() -> pdfProService.generate(formId, null, OutputFormat.PDF, null, false));
+        onPoolThread(() -> eFormService.generatePdf(new GeneratePdfRequest(formId, null, "none", false)));
+        assertThat(optimizeStageCount()).isZero();
+
+        onPoolThread(() -> pdfProService.generate(formId, null, OutputFormat.PDF, "web", false));
+        assertThat(optimizeStageCount()).isEqualTo(1);
+    }
+
+    private long optimizeStageCount() {
+        Timer timer = meterRegistry.find(RenderMetrics.RENDER_TIMER).tag("stage", RenderMetrics.STAGE_OPTIMIZE).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private static void assertNoTempFiles() throws Exception {
+        try (Stream<Path> files = Files.list(workDir.resolve("outputs"))) {
+            assertThat(files).noneMatch(file -> file.getFileName().toString().startsWith("temp_"));
+        }
+    }
+
+    private static byte[] onPoolThread(Callable<byte[]> render) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(render).get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
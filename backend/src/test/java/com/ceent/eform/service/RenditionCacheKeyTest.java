@@ -0,0 +1,172 @@
+package com.ceent.eform.service;
+
+import com.ceent.eform.entity.Form;
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.ceent.eform.repository.FormRepository;
+import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.artifact.RenditionCache;
+import com.ceent.eform.service.render.OutputFormat;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPageMar;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSectPr;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Khoá output đã render: profile optimize được resolve trước khi vào khoá, ảnh lấy từ URL đổi thì không dùng lại output cũ
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rendition-key;DB_CLOSE_DELAY=-1",
+        "app.image.http.allowed-hosts=127.0.0.1",
+        "app.image.url-ttl=0s"
+})
+class RenditionCacheKeyTest {
+
+    @TempDir
+    static Path workDir;
+
+    private static HttpServer server;
+    private static final AtomicReference<byte[]> served = new AtomicReference<>();
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("app.upload.dir", () -> workDir.resolve("uploads").toString());
+        registry.add("app.output.dir", () -> workDir.resolve("outputs").toString());
+    }
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/photo.png", exchange -> {
+            byte[] body = served.get();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Autowired
+    private FormRepository formRepository;
+
+    @Autowired
+    private PdfProService pdfProService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void defaultProfileAliasesShareOneRendition() throws Exception {
+        Long formId = createForm("profile", "[\"name\"]", "{\"name\":\"An\"}");
+
+        double hitsBefore = pdfHits();
+        byte[] first = pdfProService.generate(formId, null, OutputFormat.PDF, null, false);
+        byte[] explicit = pdfProService.generate(formId, null, OutputFormat.PDF, "none", false);
+        byte[] spaced = pdfProService.generate(formId, null, OutputFormat.PDF, " None ", false);
+
+        assertThat(pdfHits() - hitsBefore).isEqualTo(2);
+        assertThat(explicit).isEqualTo(first);
+        assertThat(spaced).isEqualTo(first);
+    }
+
+    @Test
+    void changedUrlImageIsRenderedAgain() throws Exception {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/photo.png";
+        Long formId = createForm("photo", "[\"@photo\"]", "{\"photo\":\"" + url + "\"}");
+
+        served.set(png(Color.RED));
+        byte[] red = pdfProService.generate(formId, null, OutputFormat.DOCX, null, false);
+        assertThat(pdfProService.generate(formId, null, OutputFormat.DOCX, null, false)).isEqualTo(red);
+
+        // Form không đổi (renderRevision giữ nguyên) nhưng ảnh ở URL đã đổi
+        served.set(png(Color.BLUE));
+        byte[] blue = pdfProService.generate(formId, null, OutputFormat.DOCX, null, false);
+        assertThat(picture(blue)).isNotEqualTo(picture(red));
+    }
+
+    private double pdfHits() {
+        return meterRegistry.counter(RenditionCache.CACHE_METRIC, "format", "pdf", "result", "hit").count();
+    }
+
+    private Long createForm(String name, String variables, String formData) throws Exception {
+        Path docx = workDir.resolve(name + ".docx");
+        try (XWPFDocument document = new XWPFDocument(); OutputStream out = Files.newOutputStream(docx)) {
+            document.createStyles();
+            document.createParagraph().createRun().setText(variables.contains("@") ? "{{@photo}}" : "Xin chao {{name}}");
+            CTSectPr section = document.getDocument().getBody().addNewSectPr();
+            section.addNewPgSz().setW(BigInteger.valueOf(11906));
+            section.getPgSz().setH(BigInteger.valueOf(16838));
+            CTPageMar margin = section.addNewPgMar();
+            margin.setTop(BigInteger.valueOf(1440));
+            margin.setBottom(BigInteger.valueOf(1440));
+            margin.setLeft(BigInteger.valueOf(1440));
+            margin.setRight(BigInteger.valueOf(1440));
+            document.write(out);
+        }
+
+        Template template = new Template();
+        template.setName(name);
+        template.setFilename(name + ".docx");
+        template.setFilePath(docx.toString());
+        template.setVariables(variables);
+        template.setStatus(TemplateStatus.READY);
+        template = templateRepository.save(template);
+
+        Form form = new Form();
+        form.setTemplate(template);
+        form.setName(name + " form");
+        form.setFormData(formData);
+        return formRepository.save(form).getId();
+    }
+
+    private static byte[] picture(byte[] docx) throws Exception {
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(docx))) {
+            assertThat(document.getAllPictures()).hasSize(1);
+            return document.getAllPictures().get(0).getData();
+        }
+    }
+
+    private static byte[] png(Color color) throws Exception {
+        BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, 40, 40);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,107 @@
+package com.ceent.eform.service.change;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.ceent.eform.repository.TemplateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bộ đếm tăng sau commit trong transaction riêng: transaction ghi không giữ khoá dòng change_counters
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:change-counters;DB_CLOSE_DELAY=-1",
+        "app.template-index.enabled=false"
+})
+class ChangeCountersTest {
+
+    @Autowired
+    private ChangeCounters changeCounters;
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void bumpedOnceAfterCommitAndNotOnRollback() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        String before = etag();
+
+        tx.executeWithoutResult(status -> {
+            templateRepository.saveAndFlush(template("a"));
+            templateRepository.saveAndFlush(template("b"));
+            // Chưa commit: bộ đếm chưa đổi, kể cả khi đọc trên connection của transaction ghi
+            assertThat(etag()).isEqualTo(before);
+        });
+        String afterCommit = etag();
+        assertThat(afterCommit).isNotEqualTo(before);
+        assertThat(counter(afterCommit) - counter(before)).isEqualTo(1);
+
+        tx.executeWithoutResult(status -> {
+            templateRepository.saveAndFlush(template("c"));
+            status.setRollbackOnly();
+        });
+        assertThat(etag()).isEqualTo(afterCommit);
+    }
+
+    @Test
+    void concurrentWritersDoNotWaitOnCounterRow() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch firstWrote = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+            templateRepository.saveAndFlush(template("slow"));
+            firstWrote.countDown();
+            await(release);
+        }));
+        assertThat(firstWrote.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            // Transaction thứ hai commit được trong khi transaction đầu vẫn mở
+            CompletableFuture.runAsync(() -> tx.executeWithoutResult(status ->
+                    templateRepository.saveAndFlush(template("fast")))).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+        }
+        first.get(10, TimeUnit.SECONDS);
+    }
+
+    private String etag() {
+        return changeCounters.current(ChangeCounters.TEMPLATES).etag();
+    }
+
+    private static long counter(String etag) {
+        // W/"templates.N"
+        return Long.parseLong(etag.substring(etag.indexOf('.') + 1, etag.length() - 1));
+    }
+
+    private static Template template(String name) {
+        Template template = new Template();
+        template.setName(name);
+        template.setFilename(name + ".docx");
+        template.setFilePath(name + ".docx");
+        template.setVariables("[]");
+        template.setStatus(TemplateStatus.READY);
+        return template;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
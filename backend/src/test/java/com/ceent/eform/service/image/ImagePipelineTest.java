@@ -0,0 +1,155 @@
+package com.ceent.eform.service.image;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImagePipelineTest {
+
+    @TempDir
+    Path workDir;
+
+    private HttpServer server;
+    private byte[] png;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB), "png", out);
+        png = out.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/image.png", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, png.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(png);
+            }
+        });
+        server.createContext("/redirect-local", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/image.png");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/redirect-internal", exchange -> {
+            exchange.getResponseHeaders().add("Location", "http://169.254.169.254/latest/meta-data");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void urlsAreRejectedWhenNoHostIsAllowed() {
+        ImagePipeline pipeline = pipeline(List.of(), "");
+
+        assertThatThrownBy(() -> pipeline.load(url("/image.png"), 10, 10))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("not allowed");
+    }
+
+    @Test
+    void allowedHostIsFetchedAndRedirectsAreRechecked() throws IOException {
+        ImagePipeline pipeline = pipeline(List.of("127.0.0.1"), "");
+
+        assertThat(pipeline.load(url("/image.png"), 10, 10).getData()).isNotEmpty();
+        assertThat(pipeline.load(url("/redirect-local"), 10, 10).getData()).isNotEmpty();
+        assertThatThrownBy(() -> pipeline.load(url("/redirect-internal"), 10, 10))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Image host not allowed: 169.254.169.254");
+    }
+
+    @Test
+    void localPathsAreConfinedToImageDirectory() throws IOException {
+        Path root = Files.createDirectories(workDir.resolve("images"));
+        Files.write(root.resolve("logo.png"), png);
+        Path secret = Files.write(workDir.resolve("secret.png"), png);
+
+        ImagePipeline disabled = pipeline(List.of(), "");
+        assertThatThrownBy(() -> disabled.load("logo.png", 10, 10))
+                .hasMessageContaining("disabled");
+
+        ImagePipeline pipeline = pipeline(List.of(), root.toString());
+        assertThat(pipeline.load("logo.png", 10, 10).getData()).isNotEmpty();
+        assertThatThrownBy(() -> pipeline.load("../secret.png", 10, 10))
+                .hasMessageContaining("outside image directory");
+        assertThatThrownBy(() -> pipeline.load(secret.toString(), 10, 10))
+                .hasMessageContaining("outside image directory");
+    }
+
+    @Test
+    void oversizedDimensionsAreRejectedBeforeDecoding() throws IOException {
+        ImagePipeline pipeline = pipeline(List.of(), "");
+        ReflectionTestUtils.setField(pipeline, "maxSourcePixels", 1_000_000L);
+
+        // Nén rất nhỏ nhưng khai báo 2 triệu pixel
+        String huge = dataUri(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_ARGB), "png");
+        assertThatThrownBy(() -> pipeline.load(huge, 150, 150))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("2000x1000");
+    }
+
+    @Test
+    void largeImageIsSubsampledToPlaceholderSize() throws IOException {
+        ImagePipeline pipeline = pipeline(List.of(), "");
+
+        EncodedImage encoded = pipeline.load(dataUri(new BufferedImage(1200, 600, BufferedImage.TYPE_INT_RGB), "jpg"), 150, 150);
+        assertThat(encoded.getWidth()).isEqualTo(150);
+        assertThat(encoded.getHeight()).isEqualTo(75);
+        BufferedImage embedded = ImageIO.read(new ByteArrayInputStream(encoded.getData()));
+        assertThat(embedded.getWidth()).isEqualTo(300);
+        assertThat(embedded.getHeight()).isEqualTo(150);
+    }
+
+    private static String dataUri(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return "data:image/" + format + ";base64," + Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static ImagePipeline pipeline(List<String> allowedHosts, String localDir) {
+        ImagePipeline pipeline = new ImagePipeline(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pipeline, "defaultWidth", 150);
+        ReflectionTestUtils.setField(pipeline, "defaultHeight", 150);
+        ReflectionTestUtils.setField(pipeline, "density", 2);
+        ReflectionTestUtils.setField(pipeline, "jpegQuality", 0.85f);
+        ReflectionTestUtils.setField(pipeline, "maxSourceBytes", 1_048_576L);
+        ReflectionTestUtils.setField(pipeline, "maxSourcePixels", 40_000_000L);
+        ReflectionTestUtils.setField(pipeline, "httpTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(pipeline, "allowedHosts", allowedHosts);
+        ReflectionTestUtils.setField(pipeline, "localDir", localDir);
+        ReflectionTestUtils.setField(pipeline, "cacheMaxBytes", 1_048_576L);
+        ReflectionTestUtils.setField(pipeline, "urlTtl", Duration.ofMinutes(1));
+        pipeline.init();
+        return pipeline;
+    }
+}
@@ -0,0 +1,107 @@
+package com.ceent.eform.service.index;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.ingest.TemplateIngestionService;
+import com.ceent.eform.service.invalidation.InvalidationBus;
+import com.ceent.eform.service.invalidation.TemplateInvalidation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Mọi node đều thấy cùng một lần sửa file gốc: chỉ một node được ghi hash mới và chạy lại ingestion
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:external-change;DB_CLOSE_DELAY=-1",
+        "app.template-index.enabled=false"
+})
+class ExternalTemplateChangeHandlerTest {
+
+    private static final String HASH_V1 = "a".repeat(64);
+    private static final String HASH_V2 = "b".repeat(64);
+
+    @Autowired
+    private ExternalTemplateChangeHandler handler;
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @MockitoBean
+    private InvalidationBus invalidationBus;
+
+    @MockitoBean
+    private TemplateIngestionService ingestionService;
+
+    @Test
+    void concurrentHandlersReingestOnce() throws Exception {
+        Template template = templateRepository.save(template("concurrent"));
+        Long versionBefore = template.getVersion();
+        TemplateFileChangedEvent event = changed(template, HASH_V2);
+
+        CyclicBarrier start = new CyclicBarrier(2);
+        Runnable node = () -> {
+            try {
+                start.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            handler.onFileChanged(event);
+        };
+        CompletableFuture.allOf(CompletableFuture.runAsync(node), CompletableFuture.runAsync(node))
+                .get(20, TimeUnit.SECONDS);
+
+        verify(invalidationBus, times(1)).publish(template.getId(), HASH_V2, TemplateInvalidation.REASON_EXTERNAL);
+        verify(ingestionService, timeout(5000).times(1)).onTemplateStored(any());
+        Template latest = templateRepository.findById(template.getId()).orElseThrow();
+        assertThat(latest.getContentHash()).isEqualTo(HASH_V2);
+        assertThat(latest.getStatus()).isEqualTo(TemplateStatus.UPLOADED);
+        assertThat(latest.getVersion()).isEqualTo(versionBefore + 1);
+    }
+
+    @Test
+    void saveRecordedBySavingNodeIsNotReingestedAgain() {
+        Template template = templateRepository.save(template("saved-in-app"));
+
+        // Node lưu từ OnlyOffice ghi hash trước, watcher của node khác thấy file sau đó
+        assertThat(templateRepository.markContentChanged(template.getId(), HASH_V2, 20, LocalDateTime.now()))
+                .isEqualTo(1);
+        handler.onFileChanged(changed(template, HASH_V2));
+
+        verify(invalidationBus, never()).publish(eq(template.getId()), anyString(), anyString());
+        verify(ingestionService, never()).onTemplateStored(any());
+    }
+
+    private static TemplateFileChangedEvent changed(Template template, String sha256) {
+        Path path = Path.of(template.getFilePath()).toAbsolutePath();
+        return new TemplateFileChangedEvent(path, new TemplateFileEntry(path, 20, System.currentTimeMillis(), sha256));
+    }
+
+    private static Template template(String name) {
+        Template template = new Template();
+        template.setName(name);
+        template.setFilename(name + ".docx");
+        template.setFilePath(name + ".docx");
+        template.setVariables("[]");
+        template.setContentHash(HASH_V1);
+        template.setStatus(TemplateStatus.READY);
+        return template;
+    }
+}
@@ -0,0 +1,130 @@
+package com.ceent.eform.service.ingest;
+
+import com.ceent.eform.dto.TemplateUploadDto;
+import com.ceent.eform.dto.request.TemplateUploadRequest;
+import com.ceent.eform.repository.TemplateRepository;
+import com.ceent.eform.service.index.TemplateFileChangedEvent;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Upload theo chunk, resume trên "node khác" (mất digest trong bộ nhớ). File .part nằm ngoài tầng
+ * thư mục mà TemplateFileIndex theo dõi nên không sinh sự kiện sửa file trong lúc upload.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:chunked-upload;DB_CLOSE_DELAY=-1",
+        "app.template-index.settle-ms=50"
+})
+class ChunkedUploadServiceTest {
+
+    @TempDir
+    static Path workDir;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("app.upload.dir", () -> workDir.resolve("uploads").toString());
+        registry.add("app.output.dir", () -> workDir.resolve("outputs").toString());
+    }
+
+    @TestConfiguration
+    static class FileEvents {
+        @Bean
+        FileEventRecorder fileEventRecorder() {
+            return new FileEventRecorder();
+        }
+    }
+
+    static class FileEventRecorder {
+        private final List<Path> paths = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void onFileChanged(TemplateFileChangedEvent event) {
+            paths.add(event.getPath());
+        }
+    }
+
+    @Autowired
+    private ChunkedUploadService uploadService;
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Autowired
+    private FileEventRecorder fileEvents;
+
+    @Test
+    void resumedUploadCompletesWithoutFileIndexEvents() throws Exception {
+        byte[] docx = docx();
+        int half = docx.length / 2;
+        Path uploadDir = workDir.resolve("uploads");
+
+        TemplateUploadDto session = uploadService.create(new TemplateUploadRequest("chunked", "chunked.docx",
+                (long) docx.length, null));
+        TemplateUploadDto first = uploadService.appendChunk(session.getUploadId(), 0,
+                new ByteArrayInputStream(Arrays.copyOfRange(docx, 0, half)));
+        assertThat(first.getOffset()).isEqualTo(half);
+        assertThat(regularFiles(uploadDir)).noneMatch(file -> file.getFileName().toString().endsWith(".part"));
+
+        // Chunk tiếp theo tới node khác: không có digest trong bộ nhớ, phải hash lại phần đã nhận
+        ((Map<?, ?>) ReflectionTestUtils.getField(uploadService, "digests")).clear();
+        assertThatThrownBy(() -> uploadService.appendChunk(session.getUploadId(), 0,
+                new ByteArrayInputStream(docx)))
+                .isInstanceOf(UploadOffsetMismatchException.class);
+        TemplateUploadDto done = uploadService.appendChunk(session.getUploadId(), half,
+                new ByteArrayInputStream(Arrays.copyOfRange(docx, half, docx.length)));
+
+        assertThat(done.getTemplate()).isNotNull();
+        assertThat(done.getOffset()).isEqualTo(docx.length);
+        Path stored = Path.of(templateRepository.findById(done.getTemplate().getId()).orElseThrow().getFilePath())
+                .toAbsolutePath();
+        assertThat(stored.getParent()).isEqualTo(uploadDir.toAbsolutePath());
+        assertThat(Files.readAllBytes(stored)).isEqualTo(docx);
+        try (Stream<Path> parts = Files.list(uploadDir.resolve(".chunks"))) {
+            assertThat(parts).isEmpty();
+        }
+
+        // Đợi quá settle-ms vài lần: cả file .part lẫn file cuối (recordWrite) đều không bị coi là sửa ngoài ứng dụng
+        Thread.sleep(500);
+        assertThat(fileEvents.paths)
+                .noneMatch(file -> file.getFileName().toString().endsWith(".part"))
+                .doesNotContain(stored);
+    }
+
+    private static List<Path> regularFiles(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private static byte[] docx() throws Exception {
+        try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < 50; i++) {
+                document.createParagraph().createRun().setText("Dòng " + i + " của template upload theo chunk");
+            }
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+}
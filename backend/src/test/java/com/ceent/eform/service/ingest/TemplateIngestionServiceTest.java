@@ -0,0 +1,116 @@
+package com.ceent.eform.service.ingest;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.ceent.eform.repository.TemplateRepository;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Hash trong test là giả, tắt file index để file không bị coi là sửa ngoài ứng dụng
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ingestion-test;DB_CLOSE_DELAY=-1",
+        "app.template-index.enabled=false"
+})
+class TemplateIngestionServiceTest {
+
+    private static final String HASH_V1 = "a".repeat(64);
+    private static final String HASH_V2 = "b".repeat(64);
+
+    @TempDir
+    static Path workDir;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("app.upload.dir", () -> workDir.resolve("uploads").toString());
+        registry.add("app.output.dir", () -> workDir.resolve("outputs").toString());
+    }
+
+    @Autowired
+    private TemplateIngestionService ingestionService;
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Test
+    void newVersionReplacesVariantsOfPreviousVersion() throws Exception {
+        Template template = templateRepository.save(template("contract", HASH_V1));
+
+        ingestionService.ingest(template.getId(), HASH_V1);
+        Template v1 = templateRepository.findById(template.getId()).orElseThrow();
+        assertThat(v1.getStatus()).isEqualTo(TemplateStatus.READY);
+        Path preparedV1 = Path.of(v1.getPreparedFilePath());
+        assertThat(preparedV1).exists();
+
+        // Phiên bản mới được lưu (vd. OnlyOffice save) rồi pipeline chạy lại
+        v1.setContentHash(HASH_V2);
+        v1.setStatus(TemplateStatus.UPLOADED);
+        templateRepository.save(v1);
+        ingestionService.ingest(template.getId(), HASH_V2);
+
+        Template v2 = templateRepository.findById(template.getId()).orElseThrow();
+        assertThat(v2.getStatus()).isEqualTo(TemplateStatus.READY);
+        assertThat(Path.of(v2.getPreparedFilePath())).exists();
+        assertThat(preparedV1).doesNotExist();
+    }
+
+    @Test
+    void staleIngestionDoesNotTouchNewerVersion() throws Exception {
+        Template template = template("invoice", HASH_V1);
+        template.setContentHash(HASH_V2);
+        template = templateRepository.save(template);
+
+        ingestionService.ingest(template.getId(), HASH_V1);
+
+        Template latest = templateRepository.findById(template.getId()).orElseThrow();
+        assertThat(latest.getContentHash()).isEqualTo(HASH_V2);
+        assertThat(latest.getStatus()).isEqualTo(TemplateStatus.UPLOADED);
+        assertThat(latest.getPreparedFilePath()).isNull();
+    }
+
+    @Test
+    void staleEntityCannotOverwriteConcurrentSave() throws Exception {
+        Template saved = templateRepository.save(template("receipt", HASH_V1));
+        Template stale = templateRepository.findById(saved.getId()).orElseThrow();
+
+        Template current = templateRepository.findById(saved.getId()).orElseThrow();
+        current.setContentHash(HASH_V2);
+        templateRepository.save(current);
+
+        stale.setStatus(TemplateStatus.READY);
+        assertThatThrownBy(() -> templateRepository.save(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(templateRepository.findById(saved.getId()).orElseThrow().getContentHash()).isEqualTo(HASH_V2);
+    }
+
+    private static Template template(String name, String contentHash) throws Exception {
+        Path dir = Files.createDirectories(workDir.resolve("uploads"));
+        Path docx = dir.resolve(System.nanoTime() + "_" + name + ".docx");
+        try (XWPFDocument document = new XWPFDocument(); OutputStream out = Files.newOutputStream(docx)) {
+            document.createStyles();
+            document.createParagraph().createRun().setText("So {{number}} ngay {{date}}");
+            document.write(out);
+        }
+
+        Template template = new Template();
+        template.setName(name + System.nanoTime());
+        template.setFilename(docx.getFileName().toString());
+        template.setFilePath(docx.toString());
+        template.setVariables("[]");
+        template.setContentHash(contentHash);
+        template.setStatus(TemplateStatus.UPLOADED);
+        return template;
+    }
+}
@@ -0,0 +1,90 @@
+package com.ceent.eform.service.ingest;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.service.patch.TemplateFieldReferences;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.wp.usermodel.HeaderFooterType;
+import org.apache.poi.xwpf.usermodel.XWPFComment;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.junit.jupiter.api.Test;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTR;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Biến trong header, footer và text box cũng được tìm thấy; tag nằm ở chỗ không quét được thì kết quả không đầy đủ
+ */
+class TemplateVariableExtractorTest {
+
+    private final TemplateVariableExtractor extractor = new TemplateVariableExtractor();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void findsVariablesInHeadersFootersAndTextBoxes() throws Exception {
+        ExtractedVariables variables;
+        try (XWPFDocument document = reload(template(false))) {
+            variables = extractor.extract(document);
+        }
+
+        assertThat(variables.getNames()).containsExactlyInAnyOrder("name", "title", "page_note", "boxed");
+        assertThat(variables.isComplete()).isTrue();
+    }
+
+    @Test
+    void tagOutsideScannedPartsMakesEveryFieldAffectRender() throws Exception {
+        ExtractedVariables variables;
+        try (XWPFDocument document = reload(template(true))) {
+            variables = extractor.extract(document);
+        }
+        assertThat(variables.getNames()).doesNotContain("reviewer");
+        assertThat(variables.isComplete()).isFalse();
+
+        TemplateFieldReferences references = new TemplateFieldReferences(objectMapper);
+        Template template = new Template();
+        template.setVariables(objectMapper.writeValueAsString(variables.getNames()));
+        template.setVariablesComplete(variables.isComplete());
+        assertThat(references.affectsRender(template, List.of("unrelated"))).isTrue();
+
+        template.setVariablesComplete(true);
+        assertThat(references.affectsRender(template, List.of("unrelated"))).isFalse();
+        assertThat(references.affectsRender(template, List.of("title"))).isTrue();
+    }
+
+    private static XWPFDocument template(boolean taggedComment) throws Exception {
+        XWPFDocument document = new XWPFDocument();
+        document.createParagraph().createRun().setText("Xin chào {{name}}");
+
+        document.createHeader(HeaderFooterType.DEFAULT).createParagraph().createRun().setText("{{title}}");
+        XWPFTable footerTable = document.createFooter(HeaderFooterType.DEFAULT).createTable(1, 1);
+        footerTable.getRow(0).getCell(0).setText("{{page_note}}");
+
+        XWPFParagraph withTextBox = document.createParagraph();
+        withTextBox.getCTP().addNewR().set(CTR.Factory.parse(
+                "<w:r xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\""
+                        + " xmlns:v=\"urn:schemas-microsoft-com:vml\">"
+                        + "<w:pict><v:shape><v:textbox><w:txbxContent>"
+                        + "<w:p><w:r><w:t>{{bo</w:t></w:r><w:r><w:t>xed}}</w:t></w:r></w:p>"
+                        + "</w:txbxContent></v:textbox></v:shape></w:pict></w:r>"));
+
+        if (taggedComment) {
+            XWPFComment comment = document.createComments().createComment(BigInteger.ONE);
+            comment.setAuthor("reviewer");
+            comment.createParagraph().createRun().setText("{{reviewer}}");
+        }
+        return document;
+    }
+
+    private static XWPFDocument reload(XWPFDocument document) throws Exception {
+        try (document; ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.write(out);
+            return new XWPFDocument(new ByteArrayInputStream(out.toByteArray()));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.ceent.eform.service.job;
+
+import com.ceent.eform.dto.request.RenderJobRequest;
+import com.ceent.eform.entity.Form;
+import com.ceent.eform.entity.RenderJob;
+import com.ceent.eform.entity.RenderJobStatus;
+import com.ceent.eform.entity.RenderJobType;
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.ceent.eform.repository.FormRepository;
+import com.ceent.eform.repository.RenderJobRepository;
+import com.ceent.eform.repository.TemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Worker mất lease (bị reaper re-drive sang node khác) không được ghi đè kết quả của lần chạy sau;
+ * nhiều node cùng enqueue pre-render một form thì chỉ có một job chờ
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:render-jobs;DB_CLOSE_DELAY=-1",
+        "app.node.roles=api"
+})
+class RenderJobServiceTest {
+
+    @TempDir
+    static Path workDir;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("app.upload.dir", () -> workDir.resolve("uploads").toString());
+        registry.add("app.output.dir", () -> workDir.resolve("outputs").toString());
+    }
+
+    @Autowired
+    private RenderJobService renderJobService;
+
+    @Autowired
+    private RenderJobRepository renderJobRepository;
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Autowired
+    private FormRepository formRepository;
+
+    private Long formId;
+
+    @BeforeEach
+    void createForm() {
+        renderJobRepository.deleteAll();
+        Template template = new Template();
+        template.setName("jobs");
+        template.setFilename("jobs.docx");
+        template.setFilePath(workDir.resolve("jobs.docx").toString());
+        template.setVariables("[]");
+        template.setStatus(TemplateStatus.READY);
+        template = templateRepository.save(template);
+
+        Form form = new Form();
+        form.setTemplate(template);
+        form.setName("jobs form");
+        form.setFormData("{}");
+        formId = formRepository.save(form).getId();
+    }
+
+    @Test
+    void staleWorkerCannotOverwriteResultOfRedrivenJob() throws Exception {
+        Long jobId = enqueue();
+        RenderJob first = claimOne("node-a");
+        expireLease(jobId);
+        RenderJob second = claimOne("node-b");
+        assertThat(second.getAttempts()).isEqualTo(2);
+
+        assertThat(renderJobService.complete(second, "node-b", bytes("from node-b"))).isTrue();
+        assertThat(renderJobService.complete(first, "node-a", bytes("from node-a"))).isFalse();
+
+        Path result = renderJobService.resultFile(jobId);
+        assertThat(Files.readString(result)).isEqualTo("from node-b");
+        try (var files = Files.list(result.getParent())) {
+            assertThat(files.filter(path -> path.getFileName().toString().startsWith("job-" + jobId + "-")))
+                    .containsExactly(result);
+        }
+    }
+
+    @Test
+    void staleWorkerFinishingFirstLeavesNoResult() throws Exception {
+        Long jobId = enqueue();
+        RenderJob first = claimOne("node-a");
+        expireLease(jobId);
+        RenderJob second = claimOne("node-b");
+
+        assertThat(renderJobService.complete(first, "node-a", bytes("from node-a"))).isFalse();
+        assertThat(renderJobService.resultFile(jobId)).isNull();
+
+        assertThat(renderJobService.complete(second, "node-b", bytes("from node-b"))).isTrue();
+        assertThat(Files.readString(renderJobService.resultFile(jobId))).isEqualTo("from node-b");
+    }
+
+    @Test
+    void renewOnlyKeepsLeasesStillOwned() throws Exception {
+        Long jobId = enqueue();
+        claimOne("node-a");
+        expireLease(jobId);
+        claimOne("node-b");
+
+        assertThat(renderJobService.renewLeases(List.of(jobId), "node-a")).isZero();
+        assertThat(renderJobService.renewLeases(List.of(jobId), "node-b")).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentPreRenderEnqueuesCreateOneQueuedJob() throws Exception {
+        int nodes = 8;
+        CyclicBarrier start = new CyclicBarrier(nodes);
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < nodes; i++) {
+                results.add(executor.submit(() -> {
+                    start.await(10, TimeUnit.SECONDS);
+                    return renderJobService.enqueuePreRender(formId, "prerender", -10);
+                }));
+            }
+            int enqueued = 0;
+            for (Future<Boolean> result : results) {
+                enqueued += result.get(30, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertThat(enqueued).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(renderJobRepository.findAll())
+                .filteredOn(job -> job.getType() == RenderJobType.PRERENDER)
+                .hasSize(1);
+    }
+
+    @Test
+    void secondQueuedPreRenderRowIsRejectedByDatabase() {
+        assertThat(renderJobService.enqueuePreRender(formId, "prerender", -10)).isTrue();
+
+        // Node khác đã qua bước kiểm tra exists trước khi job đầu commit
+        RenderJob duplicate = new RenderJob();
+        duplicate.setFormId(formId);
+        duplicate.setType(RenderJobType.PRERENDER);
+        duplicate.setStatus(RenderJobStatus.QUEUED);
+        duplicate.setMaxAttempts(3);
+        duplicate.setQueuedPrerenderFormId(formId);
+        assertThatThrownBy(() -> renderJobRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void preRenderCanBeQueuedAgainOnceClaimed() {
+        assertThat(renderJobService.enqueuePreRender(formId, "prerender", -10)).isTrue();
+        assertThat(renderJobService.enqueuePreRender(formId, "prerender", -10)).isFalse();
+
+        claimOne("node-a");
+        assertThat(renderJobService.enqueuePreRender(formId, "prerender", -10)).isTrue();
+    }
+
+    private Long enqueue() throws Exception {
+        RenderJobRequest request = new RenderJobRequest();
+        request.setFormId(formId);
+        request.setType("PDF");
+        return renderJobService.enqueue(request, "acme").getId();
+    }
+
+    private RenderJob claimOne(String owner) {
+        List<RenderJob> jobs = renderJobService.claim(owner, 1);
+        assertThat(jobs).hasSize(1);
+        return jobs.get(0);
+    }
+
+    /**
+     * Worker treo quá lease: reaper đưa job về hàng đợi
+     */
+    private void expireLease(Long jobId) {
+        RenderJob job = renderJobRepository.findById(jobId).orElseThrow();
+        job.setLeaseExpiresAt(LocalDateTime.now().minusSeconds(1));
+        renderJobRepository.save(job);
+        assertThat(renderJobService.requeueExpiredLeases()).isEqualTo(1);
+        assertThat(renderJobRepository.findById(jobId).orElseThrow().getStatus()).isEqualTo(RenderJobStatus.QUEUED);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ceent.eform.service.job;
+
+import com.ceent.eform.config.NodeIdentity;
+import com.ceent.eform.entity.RenderJob;
+import com.ceent.eform.entity.RenderJobType;
+import com.ceent.eform.service.EFormService;
+import com.ceent.eform.service.PdfProService;
+import com.ceent.eform.service.render.RenderGuard;
+import com.ceent.eform.service.render.RenderLane;
+import com.ceent.eform.service.render.RenderScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RenderJobWorkerTest {
+
+    private final RenderJobService renderJobService = mock(RenderJobService.class);
+    private final RenderScheduler renderScheduler = mock(RenderScheduler.class);
+    private final RenderJobWorker worker = new RenderJobWorker(renderJobService, mock(EFormService.class),
+            mock(PdfProService.class), renderScheduler, new SimpleMeterRegistry(),
+            new RenderGuard(new SimpleMeterRegistry()), new NodeIdentity("node-a"), 2);
+
+    @Test
+    void rejectedJobIsReleasedAndItsLeaseNotRenewed() {
+        RenderJob job = new RenderJob();
+        job.setId(42L);
+        job.setType(RenderJobType.PDF_PRO);
+        job.setTenant("acme");
+        when(renderJobService.claim("node-a", 2)).thenReturn(List.of(job));
+        // Không phải TaskRejectedException: pool của scheduler đang shutdown
+        doThrow(new RejectedExecutionException("pool shut down"))
+                .when(renderScheduler).submit(eq(RenderLane.BATCH), eq("acme"), any());
+
+        worker.poll();
+        worker.heartbeat();
+
+        verify(renderJobService).fail(eq(job), eq("node-a"), any(RejectedExecutionException.class));
+        verify(renderJobService, never()).renewLeases(anyCollection(), anyString());
+    }
+
+    @Test
+    void rejectedJobFreesItsSlot() {
+        RenderJob job = new RenderJob();
+        job.setId(7L);
+        job.setType(RenderJobType.PDF);
+        when(renderJobService.claim(anyString(), anyInt())).thenReturn(List.of(job), List.of());
+        doThrow(new RejectedExecutionException("full")).when(renderScheduler).submit(any(), any(), any());
+
+        worker.poll();
+        worker.poll();
+
+        // Slot của job bị từ chối được trả lại nên lần poll sau vẫn claim đủ concurrency
+        verify(renderJobService, times(2)).claim("node-a", 2);
+    }
+}
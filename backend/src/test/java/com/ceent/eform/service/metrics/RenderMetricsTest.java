@@ -0,0 +1,50 @@
+package com.ceent.eform.service.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:render-metrics;DB_CLOSE_DELAY=-1")
+class RenderMetricsTest {
+
+    @Autowired
+    private RenderMetrics renderMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void percentilesOnlyOnMetersWithoutTemplateTag() {
+        for (long templateId = 1; templateId <= 20; templateId++) {
+            renderMetrics.stopStage(renderMetrics.start(), RenderMetrics.STAGE_CONVERT, templateId);
+            renderMetrics.recordPdfSize(templateId, 1024);
+        }
+
+        Timer aggregate = meterRegistry.get(RenderMetrics.RENDER_TIMER)
+                .tag("stage", RenderMetrics.STAGE_CONVERT).timer();
+        assertThat(aggregate.getId().getTag("template")).isNull();
+        assertThat(aggregate.count()).isEqualTo(20);
+        assertThat(aggregate.takeSnapshot().percentileValues()).hasSize(3);
+        assertThat(meterRegistry.get(RenderMetrics.PDF_SIZE).summary().takeSnapshot().percentileValues()).hasSize(3);
+
+        assertThat(meterRegistry.get(RenderMetrics.TEMPLATE_RENDER_TIMER).timers()).hasSize(20);
+        Timer perTemplate = meterRegistry.get(RenderMetrics.TEMPLATE_RENDER_TIMER).tag("template", "7").timer();
+        assertThat(perTemplate.count()).isEqualTo(1);
+        assertThat(perTemplate.takeSnapshot().histogramCounts()).isEmpty();
+        assertThat(perTemplate.takeSnapshot().percentileValues()).isEmpty();
+        assertThat(meterRegistry.get(RenderMetrics.TEMPLATE_PDF_SIZE).tag("template", "7").summary()
+                .takeSnapshot().percentileValues()).isEmpty();
+
+        // Tag template chỉ nằm trên các meter eform.template.*, không có cấu hình percentile/histogram
+        assertThat(meterRegistry.getMeters().stream()
+                .filter(meter -> meter.getId().getTag("template") != null)
+                .map(Meter::getId)
+                .map(Meter.Id::getName))
+                .allMatch(name -> name.startsWith("eform.template."));
+    }
+}
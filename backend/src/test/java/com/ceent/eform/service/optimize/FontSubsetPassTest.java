@@ -0,0 +1,88 @@
+package com.ceent.eform.service.optimize;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FontSubsetPassTest {
+
+    private static final String TEXT = "Hop dong so 123";
+
+    private final FontSubsetPass pass = new FontSubsetPass();
+    private final PdfOptimizeProfile profile = new PdfOptimizeProfile("web", Set.of(FontSubsetPass.NAME), 150, 0.75f, true);
+
+    @Test
+    void subsetsFullyEmbeddedFontAndKeepsText() throws Exception {
+        byte[] original = pdfWithFullFont();
+
+        byte[] optimized;
+        try (PDDocument document = PDDocument.load(original)) {
+            PdfOptimizationPass.PassOutcome outcome = pass.apply(document, profile);
+            assertThat(outcome.bytesSaved()).isPositive();
+            assertThat(outcome.detail()).isEqualTo("1/1 fonts subset");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            optimized = out.toByteArray();
+        }
+
+        assertThat(optimized.length).isLessThan(original.length);
+        try (PDDocument document = PDDocument.load(optimized)) {
+            assertThat(new PDFTextStripper().getText(document).trim()).isEqualTo(TEXT);
+            PDResources resources = document.getPage(0).getResources();
+            COSName fontName = resources.getFontNames().iterator().next();
+            assertThat(resources.getFont(fontName).getName()).matches("[A-Z]{6}\\+.*");
+        }
+    }
+
+    @Test
+    void skipsFontThatIsAlreadySubset() throws Exception {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (InputStream font = getClass().getResourceAsStream("/fonts/times.ttf");
+                 PDPageContentStream content = new PDPageContentStream(document, page)) {
+                PDType0Font type0 = PDType0Font.load(document, font, true);
+                writeText(content, type0);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+
+            try (PDDocument saved = PDDocument.load(out.toByteArray())) {
+                assertThat(pass.apply(saved, profile).bytesSaved()).isZero();
+            }
+        }
+    }
+
+    private static byte[] pdfWithFullFont() throws Exception {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (InputStream font = FontSubsetPassTest.class.getResourceAsStream("/fonts/times.ttf");
+                 PDPageContentStream content = new PDPageContentStream(document, page)) {
+                writeText(content, PDType0Font.load(document, font, false));
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void writeText(PDPageContentStream content, PDType0Font font) throws Exception {
+        content.beginText();
+        content.setFont(font, 12);
+        content.newLineAtOffset(72, 700);
+        content.showText(TEXT);
+        content.endText();
+    }
+}
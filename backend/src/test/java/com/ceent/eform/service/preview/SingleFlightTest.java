@@ -0,0 +1,108 @@
+package com.ceent.eform.service.preview;
+
+import com.ceent.eform.service.render.RenderCancelledException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsForSameKeyRenderOnce() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.run("t1", () -> {
+            renders.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "image";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> follower = new CompletableFuture<>();
+        Thread waiter = waiter(follower, () -> {
+            renders.incrementAndGet();
+            return "second render";
+        });
+
+        awaitBlocked(waiter);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("image");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("image");
+        assertThat(renders).hasValue(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    private Thread waiter(CompletableFuture<String> result, Callable<String> render) {
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(singleFlight.run("t1", render));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Chờ tới khi thread đang đợi kết quả của lần render đang chạy
+     */
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+    }
+
+    @Test
+    void failureIsSharedAndNotRemembered() throws Exception {
+        assertThatThrownBy(() -> singleFlight.run("t1", () -> {
+            throw new IOException("converter failed");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(singleFlight.run("t1", () -> "image")).isEqualTo("image");
+    }
+
+    @Test
+    void waiterRendersAgainWhenLeaderIsCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.run("t1", () -> {
+            started.countDown();
+            release.await();
+            throw new RenderCancelledException(RenderCancelledException.REASON_CLIENT_GONE, "render", 10);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> follower = new CompletableFuture<>();
+        Thread waiter = waiter(follower, () -> "own render");
+
+        awaitBlocked(waiter);
+        release.countDown();
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(RenderCancelledException.class);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("own render");
+    }
+}
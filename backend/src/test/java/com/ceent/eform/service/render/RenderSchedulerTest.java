@@ -0,0 +1,105 @@
+package com.ceent.eform.service.render;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Preview và batch cộng lại không chiếm hết pool: luôn còn thread cho interactive
+ */
+class RenderSchedulerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private RenderScheduler scheduler;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        release.countDown();
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void interactiveRunsWhilePreviewAndBatchAreSaturated() throws Exception {
+        // Cấu hình mặc định: preview-max + batch-max (5) lớn hơn threads (4)
+        scheduler = scheduler(4, 2, 3, 1);
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit(RenderLane.PREVIEW, "designer", this::block);
+            scheduler.submit(RenderLane.BATCH, "bulk", this::block);
+        }
+        assertThat(scheduler.running(RenderLane.PREVIEW) + scheduler.running(RenderLane.BATCH)).isEqualTo(3);
+
+        CountDownLatch interactive = new CountDownLatch(1);
+        scheduler.submit(RenderLane.INTERACTIVE, "user", interactive::countDown);
+        assertThat(interactive.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void rejectsReservationThatLeavesNoBackgroundThread() {
+        assertThatThrownBy(() -> scheduler(4, 2, 3, 4))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("interactive-reserved");
+        assertThatThrownBy(() -> scheduler(4, 2, 3, 0))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void submitAfterShutdownIsRejectedWithoutLeakingSlots() throws Exception {
+        scheduler = scheduler(2, 1, 1, 1);
+        scheduler.shutdown();
+
+        assertThatThrownBy(() -> scheduler.submit(RenderLane.INTERACTIVE, "user", () -> { }))
+                .isInstanceOf(TaskRejectedException.class);
+        for (RenderLane lane : RenderLane.values()) {
+            assertThat(scheduler.running(lane)).isZero();
+            assertThat(scheduler.queued(lane)).isZero();
+        }
+    }
+
+    @Test
+    void taskDispatchedAfterPoolStopsStaysQueued() throws Exception {
+        scheduler = scheduler(2, 1, 1, 1);
+        scheduler.submit(RenderLane.INTERACTIVE, "user", this::block);
+        scheduler.submit(RenderLane.INTERACTIVE, "user", this::block);
+        scheduler.submit(RenderLane.INTERACTIVE, "other", () -> { });
+        assertThat(scheduler.queued(RenderLane.INTERACTIVE)).isEqualTo(1);
+
+        // Pool dừng khi việc thứ ba còn chờ: việc đang chạy xong thì dispatch bị pool từ chối
+        Thread stopping = new Thread(() -> {
+            try {
+                scheduler.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stopping.start();
+        Thread.sleep(200);
+        release.countDown();
+        stopping.join(10_000);
+
+        assertThat(scheduler.running(RenderLane.INTERACTIVE)).isZero();
+        assertThat(scheduler.queued(RenderLane.INTERACTIVE)).isEqualTo(1);
+    }
+
+    private void block() {
+        try {
+            release.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static RenderScheduler scheduler(int threads, int previewMax, int batchMax, int interactiveReserved) {
+        return new RenderScheduler(new TenantWeights(Map.of()), new SimpleMeterRegistry(),
+                threads, previewMax, batchMax, interactiveReserved, 200);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ceent.eform.service.render;
+
+import com.ceent.eform.entity.Template;
+import com.ceent.eform.entity.TemplateStatus;
+import com.deepoove.poi.XWPFTemplate;
+import com.deepoove.poi.config.Configure;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache bản prepared bị giới hạn theo tổng số byte; template bị đẩy ra vẫn render được từ file
+ */
+class TemplateCacheTest {
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void evictsBeyondMaxBytesAndFallsBackToPreparedFile() throws Exception {
+        byte[] prepared = docx();
+        TemplateCache templateCache = new TemplateCache();
+        ReflectionTestUtils.setField(templateCache, "maxBytes", prepared.length * 2L + prepared.length / 2);
+        templateCache.initCache();
+
+        Configure configure = Configure.builder().build();
+        for (long id = 1; id <= 5; id++) {
+            templateCache.precompile(id, "hash-" + id, prepared, configure);
+        }
+        // Caffeine dọn entry thừa bất đồng bộ sau khi ghi
+        for (int i = 0; i < 100 && templateCache.size() > 2; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(templateCache.size()).isLessThanOrEqualTo(2);
+
+        Path preparedFile = workDir.resolve("prepared.docx");
+        Files.write(preparedFile, prepared);
+        for (long id = 1; id <= 5; id++) {
+            try (XWPFTemplate compiled = templateCache.compile(template(id, preparedFile), configure)) {
+                assertThat(compiled.getElementTemplates()).isNotEmpty();
+            }
+        }
+        assertThat(templateCache.hitCount()).isLessThanOrEqualTo(2);
+        assertThat(templateCache.hitCount() + templateCache.missCount()).isEqualTo(5);
+    }
+
+    private static Template template(long id, Path preparedFile) {
+        Template template = new Template();
+        template.setId(id);
+        template.setContentHash("hash-" + id);
+        template.setStatus(TemplateStatus.READY);
+        template.setFilePath(preparedFile.toString());
+        template.setPreparedFilePath(preparedFile.toString());
+        return template;
+    }
+
+    private static byte[] docx() throws Exception {
+        try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.createParagraph().createRun().setText("Xin chao {{name}}");
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ceent.eform.service.table;
+
+import com.ceent.eform.service.ingest.DocumentFontNormalizer;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingTableWriterTest {
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void streamedRowsInheritFontFixedBeforeStreaming() throws Exception {
+        Path rendered = workDir.resolve("rendered.docx");
+        try (XWPFDocument document = new XWPFDocument();
+             OutputStream out = Files.newOutputStream(rendered)) {
+            XWPFTable table = document.createTable(1, 2);
+            XWPFRun marker = table.getRow(0).getCell(0).getParagraphs().get(0).createRun();
+            marker.setText(StreamingTableWriter.marker("items"));
+            marker.setFontFamily("Arial");
+            marker.setFontSize(9);
+
+            // Font được sửa trên document nhỏ, trước khi các dòng được sinh
+            assertThat(new DocumentFontNormalizer().normalize(document)).isTrue();
+            document.write(out);
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            rows.add(Map.of("name", "item " + i, "qty", i));
+        }
+        Path streamed = workDir.resolve("streamed.docx");
+        long written = StreamingTableWriter.write(rendered, streamed,
+                Map.of("items", TableRowSource.from(Map.of("columns", List.of("name", "qty"), "rows", rows))));
+
+        assertThat(written).isEqualTo(50);
+        try (InputStream in = Files.newInputStream(streamed);
+             XWPFDocument document = new XWPFDocument(in)) {
+            List<XWPFTableRow> tableRows = document.getTables().get(0).getRows();
+            assertThat(tableRows).hasSize(50);
+            XWPFRun last = tableRows.get(49).getCell(0).getParagraphs().get(0).getRuns().get(0);
+            assertThat(last.text()).isEqualTo("item 49");
+            assertThat(last.getFontFamily()).isEqualTo(DocumentFontNormalizer.FONT_FAMILY);
+            assertThat(last.getFontSize()).isEqualTo(DocumentFontNormalizer.FONT_SIZE);
+            assertThat(tableRows.get(49).getCell(1).getText()).isEqualTo("49");
+        }
+    }
+}